@@ -0,0 +1,84 @@
+/*
+ * Open Hospital (www.open-hospital.org)
+ * Copyright © 2021 Informatici Senza Frontiere (info@informaticisenzafrontiere.org)
+ *
+ * Open Hospital is a free and open source software for healthcare data management.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * https://www.gnu.org/licenses/gpl-3.0-standalone.html
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.isf.generator.benchmark;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.isf.generator.data.CompiledDataMaster;
+import org.isf.generator.data.DataMaster;
+import org.isf.generator.data.MapBasedDataMaster;
+import org.isf.generator.producer.BaseProducer;
+import org.isf.generator.producer.RandomGenerator;
+import org.isf.generator.producer.person.PersonProvider;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the {@link DataMaster} lookups done for every generated field, for the map based and the compiled implementation.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DataMasterBenchmark {
+
+	@Param({ "map", "compiled" })
+	public String implementation;
+
+	private DataMaster dataMaster;
+
+	@Setup
+	public void setUp() throws IOException {
+		MapBasedDataMaster mapBasedDataMaster = new MapBasedDataMaster(new BaseProducer(new RandomGenerator(1)));
+		mapBasedDataMaster.readResources("seed.yml");
+		mapBasedDataMaster.readResources("seed_en.yml");
+		dataMaster = "compiled".equals(implementation) ? CompiledDataMaster.compile(mapBasedDataMaster) : mapBasedDataMaster;
+	}
+
+	@Benchmark
+	public String getRandomValue() {
+		return dataMaster.getRandomValue(PersonProvider.BLOOD_TYPE);
+	}
+
+	@Benchmark
+	public String getValuesOfType() {
+		return dataMaster.getValuesOfType(PersonProvider.FIRST_NAME, "MALE", String.class);
+	}
+
+	@Benchmark
+	public String getString() {
+		return dataMaster.getString(MapBasedDataMaster.LANGUAGE_TAG);
+	}
+
+}
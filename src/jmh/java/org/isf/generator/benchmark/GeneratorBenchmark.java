@@ -0,0 +1,127 @@
+/*
+ * Open Hospital (www.open-hospital.org)
+ * Copyright © 2021 Informatici Senza Frontiere (info@informaticisenzafrontiere.org)
+ *
+ * Open Hospital is a free and open source software for healthcare data management.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * https://www.gnu.org/licenses/gpl-3.0-standalone.html
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.isf.generator.benchmark;
+
+import static org.isf.generator.producer.hospitalvisit.HospitalVisitProperties.HospitalVisitProperty.withDischargePercentage;
+import static org.isf.generator.producer.hospitalvisit.HospitalVisitProperties.HospitalVisitProperty.withPerson;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.isf.admtype.model.AdmissionType;
+import org.isf.disctype.model.DischargeType;
+import org.isf.disease.model.Disease;
+import org.isf.generator.Generator;
+import org.isf.generator.GeneratorModule;
+import org.isf.generator.producer.company.Company;
+import org.isf.generator.producer.hospitalvisit.HospitalReferenceData;
+import org.isf.generator.producer.hospitalvisit.HospitalReferenceDataCache;
+import org.isf.generator.producer.hospitalvisit.HospitalVisit;
+import org.isf.generator.producer.payment.CreditCard;
+import org.isf.generator.producer.payment.IBAN;
+import org.isf.generator.producer.person.Person;
+import org.isf.ward.model.Ward;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the non-person producers of {@link Generator}, with the entity factories wired by Guice assisted
+ * injection or directly. The hospital visits use in-memory reference data, so no OH database is needed.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GeneratorBenchmark {
+
+	@Param({ "ASSISTED_INJECT", "DIRECT" })
+	public GeneratorModule.FactoryWiring factoryWiring;
+
+	private Generator generator;
+	private Person person;
+
+	@Setup
+	public void setUp() {
+		HospitalReferenceDataCache.getShared().setLoader(GeneratorBenchmark::referenceData);
+		generator = Generator.builder().withRandomSeed(1).withFactoryWiring(factoryWiring).build();
+		person = generator.person();
+	}
+
+	@Benchmark
+	public Company company() {
+		return generator.company();
+	}
+
+	@Benchmark
+	public IBAN iban() {
+		return generator.iban();
+	}
+
+	@Benchmark
+	public CreditCard creditCard() {
+		return generator.creditCard();
+	}
+
+	@Benchmark
+	public HospitalVisit hospitalVisit() {
+		return generator.hospitalVisit(withPerson(person), withDischargePercentage(50));
+	}
+
+	private static HospitalReferenceData referenceData() {
+		Map<String, List<Disease>> diseases = new HashMap<>();
+		for (String type : Arrays.asList(HospitalReferenceData.ALL_OTHER_DISEASES, HospitalReferenceData.MATERNAL_DISEASES,
+				HospitalReferenceData.NON_COMMUNICABLE_DISEASES, HospitalReferenceData.NOTIFIABLE_DISEASES,
+				HospitalReferenceData.INFECTIOUS_COMMUNICABLE_DISEASES)) {
+			Disease disease = new Disease();
+			disease.setCode(type + "1");
+			diseases.put(type, Collections.singletonList(disease));
+		}
+		Map<String, Ward> wards = new HashMap<>();
+		for (String code : Arrays.asList(HospitalReferenceData.CHILDREN_WARD, HospitalReferenceData.FEMALE_WARD, HospitalReferenceData.MALE_WARD,
+				HospitalReferenceData.MATERNITY_WARD)) {
+			Ward ward = new Ward();
+			ward.setCode(code);
+			wards.put(code, ward);
+		}
+		AdmissionType admissionType = new AdmissionType();
+		admissionType.setCode("A");
+		DischargeType dischargeType = new DischargeType();
+		dischargeType.setCode("D");
+		return new HospitalReferenceData(diseases, wards, Collections.singletonList(admissionType), Collections.singletonList(dischargeType));
+	}
+
+}
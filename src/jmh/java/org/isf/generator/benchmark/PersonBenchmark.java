@@ -0,0 +1,145 @@
+/*
+ * Open Hospital (www.open-hospital.org)
+ * Copyright © 2021 Informatici Senza Frontiere (info@informaticisenzafrontiere.org)
+ *
+ * Open Hospital is a free and open source software for healthcare data management.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * https://www.gnu.org/licenses/gpl-3.0-standalone.html
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.isf.generator.benchmark;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+import org.isf.generator.Generator;
+import org.isf.generator.GeneratorModule;
+import org.isf.generator.producer.RandomGenerator;
+import org.isf.generator.producer.company.CompanyPool;
+import org.isf.generator.producer.person.Person;
+import org.isf.generator.producer.person.PersonBatch;
+import org.isf.generator.producer.person.PersonField;
+import org.isf.generator.producer.person.PersonProperties;
+import org.isf.generator.producer.person.PersonProvider;
+import org.isf.generator.producer.person.PersonSpec;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures {@link Generator#person(org.isf.generator.producer.person.PersonProperties.PersonProperty...)} per locale.
+ * Only the locales whose seed file has all the keys used by the OH person provider are listed; {@link PersonLocaleBenchmark}
+ * covers the other bundled languages.
+ * {@link #personWithCompanyPool()} picks the employers from a pool instead of generating a company per person.
+ * {@link #patientSpec()} generates the same fields from a {@link PersonSpec} on a reused provider and
+ * {@link #personBatch()} column by column, writing them as CSV rows, per person.
+ * {@link #contactFields()} generates the names, email, username and company email of a person.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PersonBenchmark {
+
+	private static final int BATCH_SIZE = 1000;
+	private static final int COMPANY_POOL_SIZE = 1000;
+
+	@Param({ "en", "sw" })
+	public String locale;
+
+	@Param({ "JDK", "XOROSHIRO" })
+	public RandomGenerator.Algorithm algorithm;
+
+	@Param({ "ASSISTED_INJECT", "DIRECT" })
+	public GeneratorModule.FactoryWiring factoryWiring;
+
+	private final PersonProperties.PersonProperty patientFields = PersonProperties.fields(PersonField.FIRST_NAME, PersonField.LAST_NAME,
+			PersonField.DATE_OF_BIRTH, PersonField.ADDRESS, PersonField.TELEPHONE_NUMBER, PersonField.NAME_OF_MOTHER, PersonField.NAME_OF_FATHER,
+			PersonField.PARENTS_TOGETHER, PersonField.BLOOD_TYPE, PersonField.HAS_INSURANCE, PersonField.MARITAL_STATUS, PersonField.PROFESSION);
+	private final PersonProperties.PersonProperty contactFields = PersonProperties.fields(PersonField.EMAIL, PersonField.USERNAME,
+			PersonField.COMPANY_EMAIL);
+	private final PersonSpec patientSpec = PersonSpec.builder().withFields(PersonField.FIRST_NAME, PersonField.LAST_NAME, PersonField.DATE_OF_BIRTH,
+			PersonField.ADDRESS, PersonField.TELEPHONE_NUMBER, PersonField.NAME_OF_MOTHER, PersonField.NAME_OF_FATHER, PersonField.PARENTS_TOGETHER,
+			PersonField.BLOOD_TYPE, PersonField.HAS_INSURANCE, PersonField.MARITAL_STATUS, PersonField.PROFESSION).build();
+
+	private Generator generator;
+	private Generator pooledGenerator;
+	private final PersonBatch batch = new PersonBatch(BATCH_SIZE);
+	private final StringBuilder row = new StringBuilder(256);
+
+	@Setup
+	public void setUp() {
+		generator = Generator.builder().withRandomAlgorithm(algorithm).withRandomSeed(1).withLocale(Locale.forLanguageTag(locale))
+				.withFactoryWiring(factoryWiring).build();
+		pooledGenerator = Generator.builder().withRandomAlgorithm(algorithm).withRandomSeed(1).withLocale(Locale.forLanguageTag(locale))
+				.withFactoryWiring(factoryWiring).withCompanyPool(COMPANY_POOL_SIZE, CompanyPool.DEFAULT_EXPONENT).build();
+	}
+
+	@Benchmark
+	public Person person() {
+		return generator.person();
+	}
+
+	@Benchmark
+	public Person personWithCompanyPool() {
+		return pooledGenerator.person();
+	}
+
+	@Benchmark
+	public Person patientFields() {
+		return generator.person(patientFields);
+	}
+
+	@Benchmark
+	public Person patientSpec() {
+		return generator.person(patientSpec);
+	}
+
+	@Benchmark
+	public Person contactFields() {
+		return generator.person(contactFields);
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(BATCH_SIZE)
+	public int personBatch() {
+		batch.clear();
+		generator.persons(batch, BATCH_SIZE, null, PersonProvider.MIN_AGE, PersonProvider.MAX_AGE);
+		PersonBatch.Cursor cursor = batch.cursor();
+		int length = 0;
+		for (int i = 0; i < batch.size(); i++) {
+			cursor.moveTo(i);
+			row.setLength(0);
+			row.append(cursor.getFirstName()).append(',').append(cursor.getLastName()).append(',').append(cursor.getAge()).append(',')
+					.append(cursor.getDateOfBirthEpochDay()).append(',').append(cursor.getStreetNumber()).append(' ').append(cursor.getStreet())
+					.append(',').append(cursor.getCity()).append(',').append(cursor.getTelephoneNumber()).append(',').append(cursor.getBloodType())
+					.append(',').append(cursor.getProfession()).append(',').append(cursor.getParentsTogether());
+			length += row.length();
+		}
+		return length;
+	}
+
+}
@@ -0,0 +1,79 @@
+/*
+ * Open Hospital (www.open-hospital.org)
+ * Copyright © 2021 Informatici Senza Frontiere (info@informaticisenzafrontiere.org)
+ *
+ * Open Hospital is a free and open source software for healthcare data management.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * https://www.gnu.org/licenses/gpl-3.0-standalone.html
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.isf.generator.benchmark;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+import org.isf.generator.Generator;
+import org.isf.generator.producer.RandomGenerator;
+import org.isf.generator.producer.person.Person;
+import org.isf.generator.producer.person.PersonField;
+import org.isf.generator.producer.person.PersonProperties;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures {@link Generator#person(PersonProperties.PersonProperty...)} in every bundled seed language.
+ * The seeds other than en and sw have no parents alive and blood type lists, so the persons are limited to the fields
+ * all of them can fill; {@link PersonBenchmark} covers the complete OH person.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PersonLocaleBenchmark {
+
+	@Param({ "en", "sw", "de", "es", "fr", "it", "ka", "pl", "sv", "zh" })
+	public String locale;
+
+	@Param({ "JDK", "XOROSHIRO" })
+	public RandomGenerator.Algorithm algorithm;
+
+	private final PersonProperties.PersonProperty localeFields = PersonProperties.fields(PersonField.FIRST_NAME, PersonField.LAST_NAME,
+			PersonField.DATE_OF_BIRTH, PersonField.ADDRESS, PersonField.TELEPHONE_NUMBER, PersonField.EMAIL, PersonField.USERNAME,
+			PersonField.COMPANY_EMAIL, PersonField.NAME_OF_MOTHER, PersonField.NAME_OF_FATHER, PersonField.MARITAL_STATUS, PersonField.PROFESSION);
+
+	private Generator generator;
+
+	@Setup
+	public void setUp() {
+		generator = Generator.builder().withRandomAlgorithm(algorithm).withRandomSeed(1).withLocale(Locale.forLanguageTag(locale)).build();
+	}
+
+	@Benchmark
+	public Person person() {
+		return generator.person(localeFields);
+	}
+
+}
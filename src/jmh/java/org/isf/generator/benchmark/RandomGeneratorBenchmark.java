@@ -0,0 +1,92 @@
+/*
+ * Open Hospital (www.open-hospital.org)
+ * Copyright © 2021 Informatici Senza Frontiere (info@informaticisenzafrontiere.org)
+ *
+ * Open Hospital is a free and open source software for healthcare data management.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * https://www.gnu.org/licenses/gpl-3.0-standalone.html
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.isf.generator.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.isf.generator.producer.RandomGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the draws of {@link RandomGenerator} per {@link RandomGenerator.Algorithm}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RandomGeneratorBenchmark {
+
+	@Param({ "JDK", "XOROSHIRO" })
+	public RandomGenerator.Algorithm algorithm;
+
+	private RandomGenerator randomGenerator;
+	private List<Integer> elements;
+
+	@Setup
+	public void setUp() {
+		randomGenerator = new RandomGenerator(algorithm, 1);
+		elements = new ArrayList<>();
+		for (int i = 0; i < 50; i++) {
+			elements.add(i);
+		}
+	}
+
+	@Benchmark
+	public int nextIntBetween() {
+		return randomGenerator.nextInt(18, 95);
+	}
+
+	@Benchmark
+	public int nextIntBound() {
+		return randomGenerator.nextInt(1_000_000_000);
+	}
+
+	@Benchmark
+	public long nextLongBetween() {
+		return randomGenerator.nextDouble(0L, 10_000_000_000L);
+	}
+
+	@Benchmark
+	public boolean nextBoolean() {
+		return randomGenerator.nextBoolean();
+	}
+
+	@Benchmark
+	public List<Integer> shuffle() {
+		return randomGenerator.shuffle(elements);
+	}
+
+}
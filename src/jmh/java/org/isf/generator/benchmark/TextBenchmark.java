@@ -0,0 +1,96 @@
+/*
+ * Open Hospital (www.open-hospital.org)
+ * Copyright © 2021 Informatici Senza Frontiere (info@informaticisenzafrontiere.org)
+ *
+ * Open Hospital is a free and open source software for healthcare data management.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * https://www.gnu.org/licenses/gpl-3.0-standalone.html
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.isf.generator.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.isf.generator.Generator;
+import org.isf.generator.producer.RandomGenerator;
+import org.isf.generator.producer.BaseProducer;
+import org.isf.generator.producer.text.TextProducer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the text producers and the template methods of {@link BaseProducer}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TextBenchmark {
+
+	@Param({ "JDK", "XOROSHIRO" })
+	public RandomGenerator.Algorithm algorithm;
+
+	private TextProducer textProducer;
+	private BaseProducer baseProducer;
+
+	@Setup
+	public void setUp() {
+		Generator generator = Generator.builder().withRandomAlgorithm(algorithm).withRandomSeed(1).build();
+		textProducer = generator.textProducer();
+		baseProducer = generator.baseProducer();
+	}
+
+	@Benchmark
+	public String word() {
+		return textProducer.word(3);
+	}
+
+	@Benchmark
+	public String sentence() {
+		return textProducer.sentence();
+	}
+
+	@Benchmark
+	public String paragraph() {
+		return textProducer.paragraph();
+	}
+
+	@Benchmark
+	public String numerify() {
+		return baseProducer.numerify("###-###-####");
+	}
+
+	@Benchmark
+	public String letterify() {
+		return baseProducer.letterify("????-????");
+	}
+
+	@Benchmark
+	public String bothify() {
+		return baseProducer.bothify("??##-##??");
+	}
+
+}
@@ -24,20 +24,48 @@ package org.isf.generate;
 import static org.isf.generator.producer.hospitalvisit.HospitalVisitProperties.HospitalVisitProperty.withDischargePercentage;
 import static org.isf.generator.producer.hospitalvisit.HospitalVisitProperties.HospitalVisitProperty.withPatient;
 import static org.isf.generator.producer.hospitalvisit.HospitalVisitProperties.HospitalVisitProperty.withPerson;
-import static org.isf.generator.producer.person.PersonProperties.ageBetween;
-import static org.isf.generator.producer.person.PersonProperties.female;
-import static org.isf.generator.producer.person.PersonProperties.male;
 
-import java.time.format.DateTimeFormatter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import javax.sql.DataSource;
 
 import org.isf.admission.manager.AdmissionBrowserManager;
 import org.isf.admission.model.Admission;
+import org.isf.generate.checkpoint.Checkpoint;
+import org.isf.generate.metrics.GenerationMetrics;
+import org.isf.generate.metrics.ProgressReporter;
+import org.isf.generate.metrics.SampledRowLogger;
+import org.isf.generate.population.Cohort;
+import org.isf.generate.population.Partition;
+import org.isf.generate.population.PopulationPlanner;
+import org.isf.generate.population.PopulationSpec;
+import org.isf.generate.shard.ShardManifest;
+import org.isf.generate.shard.ShardMerger;
+import org.isf.generate.sink.CommittedKeys;
+import org.isf.generate.sink.ExportPatientSink;
+import org.isf.generate.sink.JdbcBatchPatientSink;
+import org.isf.generate.sink.ManagerPatientSink;
+import org.isf.generate.sink.PatientSink;
+import org.isf.generate.sink.PipelinedPatientSink;
+import org.isf.generator.Bootstrap;
 import org.isf.generator.Generator;
+import org.isf.generator.GeneratorModule;
+import org.isf.generator.ParallelGenerator;
 import org.isf.generator.producer.BaseProducer;
+import org.isf.generator.producer.hospitalvisit.HospitalReferenceDataCache;
 import org.isf.generator.producer.hospitalvisit.HospitalVisit;
+import org.isf.generator.producer.hospitalvisit.YamlHospitalReferenceDataLoader;
 import org.isf.generator.producer.person.Person;
-import org.isf.generator.producer.person.PersonProperties;
+import org.isf.generator.producer.person.PersonField;
+import org.isf.generator.producer.person.PersonSpec;
+import org.isf.generator.producer.unique.UniqueIdentifiers;
 import org.isf.menu.manager.Context;
 import org.isf.menu.model.User;
 import org.isf.menu.model.UserGroup;
@@ -54,27 +82,72 @@ public class Generate {
 
 	private static final Logger LOGGER = LoggerFactory.getLogger(Generate.class);
 	public static final String ADMIN_STR = "admin";
-	private static final DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
 
-	private PatientBrowserManager patientManager;
-	private AdmissionBrowserManager admissionManager;
+	/**
+	 * The person fields copied to the patients or used for their hospital visits.
+	 */
+	private static final PersonField[] PATIENT_FIELDS = { PersonField.SEX, PersonField.FIRST_NAME, PersonField.LAST_NAME,
+			PersonField.AGE, PersonField.DATE_OF_BIRTH, PersonField.ADDRESS, PersonField.TELEPHONE_NUMBER, PersonField.NAME_OF_MOTHER,
+			PersonField.NAME_OF_FATHER, PersonField.PARENTS_TOGETHER, PersonField.BLOOD_TYPE, PersonField.HAS_INSURANCE, PersonField.MARITAL_STATUS,
+			PersonField.PROFESSION };
+
+	/**
+	 * Size of the buffer of the pipelined sink, in batches per writer.
+	 */
+	private static final int PIPELINE_BATCHES_PER_WRITER = 2;
+
+	private final GenerateOptions options;
+
+	private final GenerationMetrics metrics = new GenerationMetrics();
+
+	private SampledRowLogger rowLogger;
+
+	private PatientSink sink;
+
+	private ParallelGenerator parallelGenerator;
+
+	private ExportPatientSink exportSink;
 
-	private Generator generator;
-	private BaseProducer baseProducer;
+	private Map<String, Object> run;
+	private UniqueIdentifiers uniqueIdentifiers = UniqueIdentifiers.none();
 
-	private static int yProg;
+	private long lastCheckpointNanos;
 
 	private static User theUser;
 
+	public Generate(GenerateOptions options) {
+		this.options = options;
+	}
+
 	public static void main(String[] args) {
-		ApplicationContext context = null;
+		GenerateOptions options = null;
 		try {
-			context = new ClassPathXmlApplicationContext("applicationContext.xml");
-		} catch (Exception e) {
-			LOGGER.error("Fatal: fail to load application context. {}", e.getMessage(), e);
+			options = GenerateOptions.parse(args);
+		} catch (IllegalArgumentException e) {
+			LOGGER.error("Fatal: {}", e.getMessage());
 			System.exit(1);
 		}
-		Context.setApplicationContext(context);
+
+		if (options.isMerge()) {
+			try {
+				ShardMerger.merge(options.getMerge(), options.getOutput());
+			} catch (IllegalStateException e) {
+				LOGGER.error("Fatal: {}", e.getMessage(), e);
+				System.exit(1);
+			}
+			return;
+		}
+
+		if (!options.isExport()) {
+			ApplicationContext context = null;
+			try {
+				context = new ClassPathXmlApplicationContext("applicationContext.xml");
+			} catch (Exception e) {
+				LOGGER.error("Fatal: fail to load application context. {}", e.getMessage(), e);
+				System.exit(1);
+			}
+			Context.setApplicationContext(context);
+		}
 
 		LOGGER.info("Logging: Single User mode.");
 		theUser = new User(ADMIN_STR, new UserGroup(ADMIN_STR, ""), ADMIN_STR, "");
@@ -82,54 +155,264 @@ public class Generate {
 		MDC.put("OHUserGroup", theUser.getUserGroupName().getCode());
 
 		try {
-			new Generate().doGenerator();
+			new Generate(options).doGenerator();
 		} catch (Exception e) {
 			LOGGER.error("caught exception: ", e);
 		}
 	}
 
 	private void doGenerator() throws OHServiceException {
-		patientManager = Context.getApplicationContext().getBean(PatientBrowserManager.class);
-		admissionManager = Context.getApplicationContext().getBean(AdmissionBrowserManager.class);
+		PopulationSpec population = options.getPopulation() != null ? PopulationSpec.load(options.getPopulation()) : PopulationSpec.loadDefault();
+		if (options.getPatients() != null) {
+			population = population.withTotal(options.getPatients());
+		}
+		if (population.getTotal() > Integer.MAX_VALUE) {
+			throw new IllegalArgumentException("At most " + Integer.MAX_VALUE + " patients can be generated");
+		}
+		List<Partition> plan = PopulationPlanner.plan(population, options.getUnitSize());
+		List<Partition> partitions = PopulationPlanner.shard(plan, options.getShardIndex(), options.getShardCount());
+		int firstPartition = PopulationPlanner.shardStart(plan.size(), options.getShardIndex(), options.getShardCount());
+		Bootstrap.Builder builder = Generator.builder().withLocale(population.getLocale()).withRandomAlgorithm(options.getRandomAlgorithm())
+				.withReferenceTime(options.getToday().atStartOfDay()).withSeedCorpus(options.getSeedCorpus())
+				.withFactoryWiring(GeneratorModule.FactoryWiring.DIRECT);
+		Checkpoint resumeFrom = options.isResume() ? Checkpoint.read(options.getCheckpoint()) : null;
+		if (options.getSeed() != null) {
+			builder.withRandomSeed(options.getSeed());
+		} else if (resumeFrom != null) {
+			builder.withRandomSeed(((Number) resumeFrom.getRun().get("seed")).longValue());
+		}
 
-		generator = Generator.create(Locale.forLanguageTag("SW"));
+		if (options.getReferenceData() != null) {
+			HospitalReferenceDataCache.getShared().setLoader(new YamlHospitalReferenceDataLoader(options.getReferenceData()));
+		}
+		HospitalReferenceDataCache.getShared().refresh();
+		if (options.isUniqueTelephones()) {
+			uniqueIdentifiers = UniqueIdentifiers.of(population.getTotal(), UniqueIdentifiers.DEFAULT_RETRIES, UniqueIdentifiers.Identifier.TELEPHONE_NUMBER);
+			builder.withUniqueIdentifiers(uniqueIdentifiers);
+		}
+		parallelGenerator = builder.buildParallel(options.getThreads());
+		run = runOptions(population);
+		if (resumeFrom != null) {
+			resumeFrom.checkRun(run);
+			if (resumeFrom.getDatabase() != null) {
+				resumeFrom.getDatabase().restore(Context.getApplicationContext().getBean(DataSource.class));
+			}
+			LOGGER.info("Resuming from {} at partition {}", options.getCheckpoint(), resumeFrom.getNextPartition());
+		}
+		metrics.register();
+		ProgressReporter progressReporter = new ProgressReporter(metrics, options.getProgressSeconds());
+		if (options.getLogRows() > 0) {
+			rowLogger = new SampledRowLogger(options.getLogRows());
+		}
+		int firstPatientId = firstPartition < plan.size() ? (int) plan.get(firstPartition).getOffset() + 1 : (int) population.getTotal() + 1;
+		ExportPatientSink.Position exportStart = resumeFrom != null && resumeFrom.getExport() != null ? resumeFrom.getExport()
+				: new ExportPatientSink.Position(firstPatientId, 0, 0, 0, 0, null);
+		sink = createSink(exportStart);
+		try {
+			LOGGER.info("Generating with {} thread(s), seed={}", parallelGenerator.getThreads(), parallelGenerator.getSeed());
+			if (options.isUniqueTelephones() && parallelGenerator.getThreads() > 1) {
+				LOGGER.warn("--unique-telephones with {} threads: the replaced numbers depend on the timing of the threads, "
+						+ "so this run cannot be reproduced from its seed", parallelGenerator.getThreads());
+			}
+			if (options.isSharded()) {
+				LOGGER.info("Shard {} of {}: partitions {} of {}, patient ids from {}", options.getShardIndex(), options.getShardCount(), partitions.size(),
+						plan.size(), firstPatientId);
+			}
+			generatePatients(population, partitions, resumeFrom);
+		} finally {
+			try {
+				sink.close();
+			} finally {
+				parallelGenerator.close();
+				if (rowLogger != null) {
+					rowLogger.close();
+				}
+				progressReporter.close();
+				metrics.unregister();
+			}
+		}
+		if (exportSink != null) {
+			writeManifest(population, plan.size(), firstPartition, partitions.size(), firstPatientId);
+		}
+		if (options.getCheckpoint() != null) {
+			try {
+				Files.deleteIfExists(options.getCheckpoint());
+			} catch (IOException e) {
+				throw new IllegalStateException("Unable to delete the checkpoint " + options.getCheckpoint(), e);
+			}
+		}
+	}
 
-		baseProducer = generator.baseProducer();
+	/**
+	 * @return the options that determine the generated data, which a resumed run has to share with the
+	 * interrupted one
+	 */
+	private Map<String, Object> runOptions(PopulationSpec population) {
+		Map<String, Object> options = new LinkedHashMap<>();
+		options.put("seed", parallelGenerator.getSeed());
+		options.put("random", this.options.getRandomAlgorithm().name().toLowerCase(Locale.ROOT));
+		options.put("unitSize", this.options.getUnitSize());
+		options.put("today", this.options.getToday().toString());
+		options.put("population", population.fingerprint());
+		if (this.options.getSeedCorpus() != null) {
+			options.put("seedCorpus", this.options.getSeedCorpus().getFileName().toString());
+		}
+		options.put("shard", this.options.getShardIndex());
+		options.put("shards", this.options.getShardCount());
+		String target;
+		if (this.options.isExport()) {
+			target = this.options.getExportFormat().name().toLowerCase(Locale.ROOT) + (this.options.isGzip() ? "+gzip" : "");
+		} else {
+			target = this.options.isBulk() ? "bulk" : "manager";
+		}
+		options.put("sink", target);
+		return options;
+	}
 
-		generatePatient(1, male(), 0, 0, 50, 25);
-		generatePatient(1, female(), 0, 0, 50, 25);
+	/**
+	 * Saves the state after the partitions before {@code nextPartition}: flushes the sink and records the position
+	 * of the exported files or the highest keys in the database.
+	 */
+	private void checkpoint(int nextPartition, long[][] counts) throws OHServiceException {
+		sink.flush();
+		ExportPatientSink.Position position = null;
+		CommittedKeys keys = null;
+		if (exportSink != null) {
+			position = exportSink.checkpoint();
+		} else {
+			keys = CommittedKeys.read(Context.getApplicationContext().getBean(DataSource.class));
+		}
+		new Checkpoint(run, nextPartition, counts, position, keys).write(options.getCheckpoint());
+		lastCheckpointNanos = System.nanoTime();
+		LOGGER.debug("Checkpoint before partition {}", nextPartition);
+	}
 
-		generatePatient(1, male(), 1, 5, 50, 25);
-		generatePatient(1, female(), 1, 5, 50, 25);
+	private void writeManifest(PopulationSpec population, int totalPartitions, int firstPartition, int partitionCount, int firstPatientId) {
+		ShardManifest.Builder manifest = ShardManifest.builder()
+				.withFormat(options.getExportFormat().name().toLowerCase(Locale.ROOT), options.isGzip())
+				.withRun(parallelGenerator.getSeed(), options.getRandomAlgorithm().name().toLowerCase(Locale.ROOT), options.getUnitSize(),
+						population.fingerprint(), population.getTotal(), options.getToday())
+				.withShard(options.getShardIndex(), options.getShardCount(), firstPartition, partitionCount, totalPartitions)
+				.withRows(firstPatientId, exportSink.getPatientCount(), exportSink.getPatientDigest(), exportSink.getAdmissionCount(),
+						exportSink.getAdmissionDigest());
+		for (ExportPatientSink.ExportedFile file : exportSink.getFiles()) {
+			manifest.withFile(file.getName(), file.getLength(), file.getChecksum());
+		}
+		manifest.build().write(options.getOutput());
+	}
 
-		generatePatient(1, male(), 6, 12, 50, 25);
-		generatePatient(1, female(), 6, 12, 50, 25);
+	private PatientSink createSink(ExportPatientSink.Position exportStart) {
+		if (options.isPipelined()) {
+			int capacity = PIPELINE_BATCHES_PER_WRITER * options.getWriters() * options.getBatchSize();
+			return new PipelinedPatientSink(() -> createWriterSink(exportStart), options.getWriters(), capacity, options.getBatchSize());
+		}
+		return createWriterSink(exportStart);
+	}
 
-		generatePatient(1, male(), 13, 24, 50, 25);
-		generatePatient(1, female(), 13, 24, 50, 25);
+	private PatientSink createWriterSink(ExportPatientSink.Position exportStart) {
+		if (options.isExport()) {
+			exportSink = new ExportPatientSink(options.getOutput(), options.getExportFormat(), options.isGzip(), options.getBatchSize(), exportStart,
+					metrics);
+			return exportSink;
+		}
+		ApplicationContext context = Context.getApplicationContext();
+		if (options.isBulk()) {
+			return new JdbcBatchPatientSink(context.getBean(DataSource.class), options.getBulkMode(), options.getBatchSize(), metrics);
+		}
+		return new ManagerPatientSink(context.getBean(PatientBrowserManager.class), context.getBean(AdmissionBrowserManager.class), metrics);
+	}
 
-		generatePatient(3, male(), 25, 59, 50, 25);
-		generatePatient(4, female(), 25, 59, 50, 25);
+	/**
+	 * Generates the partitions, which have to be consecutive. The admission of the n-th patient of the population
+	 * (from 1) gets yProg n, so that the yProgs do not depend on how the population is split into shards.
+	 * A resumed run continues with the first partition that the checkpoint does not cover.
+	 */
+	private void generatePatients(PopulationSpec population, List<Partition> partitions, Checkpoint resumeFrom) throws OHServiceException {
+		List<Cohort> cohorts = population.getCohorts();
+		long[] cohortSizes = new long[cohorts.size()];
+		long patients = 0;
+		for (Partition partition : partitions) {
+			cohortSizes[partition.getCohortIndex()] += partition.getSize();
+			patients += partition.getSize();
+		}
+		long[][] counts = new long[cohorts.size()][2]; // admitted, discharged
+		int[] nextPartition = new int[1];
+		int firstUnit = partitions.isEmpty() ? 0 : partitions.get(0).getNumber();
+		if (resumeFrom != null) {
+			nextPartition[0] = resumeFrom.getNextPartition() - firstUnit;
+			if (nextPartition[0] < 0 || nextPartition[0] > partitions.size() || resumeFrom.getCohortCounts().length != cohorts.size()) {
+				throw new IllegalStateException("The checkpoint " + options.getCheckpoint() + " does not belong to this population");
+			}
+			counts = resumeFrom.getCohortCounts();
+		}
+		long[][] cohortCounts = counts;
+		int firstRemaining = nextPartition[0];
+		long remaining = 0;
+		for (Partition partition : partitions.subList(firstRemaining, partitions.size())) {
+			remaining += partition.getSize();
+		}
+		long checkpointNanos = TimeUnit.SECONDS.toNanos(options.getCheckpointSeconds());
 
-		generatePatient(2, male(), 60, 99, 50, 25);
-		generatePatient(3, female(), 60, 99, 50, 25);
+		LOGGER.info(">>>>> Number of Patients={} in {} cohorts, {} partitions", patients, cohorts.size(), partitions.size());
+		metrics.setTargetPatients(remaining);
+		if (options.getCheckpoint() != null) {
+			checkpoint(firstUnit + firstRemaining, cohortCounts);
+		}
+		parallelGenerator.generate(firstUnit + firstRemaining, partitions.size() - firstRemaining,
+				(generator, unit) -> generateUnit(generator, metrics, partitions.get((int) unit - firstUnit)), generatedPatients -> {
+					Partition partition = partitions.get(nextPartition[0]++);
+					long[] partitionCounts = cohortCounts[partition.getCohortIndex()];
+					int yProg = (int) partition.getOffset();
+					for (GeneratedPatient generatedPatient : generatedPatients) {
+						Admission admission = generatedPatient.getAdmission();
+						yProg++;
+						if (admission != null) {
+							admission.setYProg(yProg);
+							partitionCounts[0]++;
+							if (admission.getDisDate() != null) {
+								partitionCounts[1]++;
+							}
+							metrics.admitted(admission.getDisDate() != null);
+						}
+						sink.add(generatedPatient.getPatient(), admission);
+						if (rowLogger != null) {
+							rowLogger.log(generatedPatient.getPatient(), admission);
+						}
+					}
+					if (options.getCheckpoint() != null && System.nanoTime() - lastCheckpointNanos >= checkpointNanos) {
+						checkpoint(partition.getNumber() + 1, cohortCounts);
+					}
+				});
+		for (int c = 0; c < cohorts.size(); c++) {
+			if (cohortSizes[c] == 0) {
+				continue;
+			}
+			LOGGER.info("Summary: {} {} patients created; admitted={}, discharged={}", cohortSizes[c], cohorts.get(c).getName(), cohortCounts[c][0],
+					cohortCounts[c][1]);
+		}
+		for (UniqueIdentifiers.Guard guard : uniqueIdentifiers.guards()) {
+			LOGGER.info("Summary: {} unique {}s, {} duplicates replaced; about {}% of the identifier space is used", guard.getValues(), guard.getName(),
+					guard.getCollisions(), String.format(Locale.ROOT, "%.1f", guard.getSaturation() * 100));
+		}
 	}
 
-	private void generatePatient(int numberOfPatients, PersonProperties.PersonProperty sex, int minAge, int maxAge, int percentAdmissions, int percentDischarge)
-			throws OHServiceException {
-
-		Person person = null;
-		Patient patient;
-		Admission admission;
-		int admittedCount = 0;
-		int dischargedCount = 0;
-
-		LOGGER.error("");
-		LOGGER.error(">>>>> Number of Patients={}, minAge={}, maxAge={}, admission={}%, discharge={}%", numberOfPatients, minAge, maxAge, percentAdmissions,
-				percentDischarge);
-		for (int counter = 0; counter < numberOfPatients; counter++) {
-			person = generator.person(sex, ageBetween(minAge, maxAge));
-			patient = new Patient();
+	private static List<GeneratedPatient> generateUnit(Generator generator, GenerationMetrics metrics, Partition partition) {
+		Cohort cohort = partition.getCohort();
+		PersonSpec personSpec = PersonSpec.builder()
+				.withSex(cohort.getSex())
+				.withAgeBetween(cohort.getMinAge(), cohort.getMaxAge())
+				.withFields(PATIENT_FIELDS)
+				.build();
+		int percentAdmissions = cohort.getAdmissionPercentage();
+		int percentDischarge = cohort.getDischargePercentage();
+
+		BaseProducer baseProducer = generator.baseProducer();
+		List<GeneratedPatient> generatedPatients = new ArrayList<>(partition.getSize());
+		for (int counter = 0; counter < partition.getSize(); counter++) {
+			long start = System.nanoTime();
+			Person person = generator.person(personSpec);
+			metrics.record(GenerationMetrics.Stage.GENERATE_PERSON, System.nanoTime() - start);
+			Patient patient = new Patient();
 			patient.setFirstName(person.getFirstName());
 			patient.setSecondName(person.getLastName());
 			patient.setAge(person.getAge());
@@ -151,18 +434,17 @@ public class Generate {
 			patient.setMaritalStatus(person.getMartialStatus());
 			patient.setProfession(person.getProfession());
 
-			Patient savedPatient = patientManager.savePatient(patient);
-			LOGGER.error("Patient saved: {} {}", savedPatient.getFirstName(), savedPatient.getSecondName());
-
 			// only admit a percentage of patients
 			if (baseProducer.randomBetween(1, 100) > percentAdmissions) {
+				generatedPatients.add(new GeneratedPatient(patient, null));
 				continue;
 			}
 
-			admittedCount++;
+			start = System.nanoTime();
 			HospitalVisit hospitalVisit = generator.hospitalVisit(withPatient(patient), withPerson(person), withDischargePercentage(percentDischarge));
+			metrics.record(GenerationMetrics.Stage.GENERATE_VISIT, System.nanoTime() - start);
 
-			admission = new Admission();
+			Admission admission = new Admission();
 			admission.setPatient(patient);
 			admission.setAdmDate(hospitalVisit.getAdmissionDate());
 			admission.setAdmType(hospitalVisit.getAdmissionType());
@@ -171,27 +453,18 @@ public class Generate {
 			admission.setType(String.valueOf(hospitalVisit.getType()));          // values are 'N'(normal)  or 'M' (malnutrition)  default 'N'
 			admission.setDiseaseIn(hospitalVisit.getDisease());
 			admission.setAdmitted(1);         // values are 0 or 1, default 0 (not admitted)
-			admission.setYProg(yProg++);
 
 			if (hospitalVisit.getDischargeDate() != null) {
 				admission.setDisDate(hospitalVisit.getDischargeDate());
 				admission.setDiseaseOut1(hospitalVisit.getDiagnosis());
 				admission.setDisType(hospitalVisit.getDischargeType());
-				dischargedCount++;
 			}
 
 			admission.setUserID(theUser.getUserName());
 
-			int code = admissionManager.newAdmissionReturnKey(admission);
-			Admission retrievedAdmission = admissionManager.getAdmission(code);
-			LOGGER.error("Admission saved: {} {}", retrievedAdmission.getPatient().getFirstName(), retrievedAdmission.getPatient().getSecondName());
-			if (retrievedAdmission.getDisDate() != null) {
-				LOGGER.error("                 admitted={} and discharged={}", retrievedAdmission.getAdmDate().format(formatter),
-						retrievedAdmission.getDisDate().format(formatter));
-			}
+			generatedPatients.add(new GeneratedPatient(patient, admission));
 		}
-		LOGGER.error("Summary: {} {} patients created; admitted={}, discharged={}\n", numberOfPatients, person.isMale() ? "male" : "female", admittedCount,
-				dischargedCount);
+		return generatedPatients;
 	}
 
 }
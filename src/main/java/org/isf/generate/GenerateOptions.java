@@ -0,0 +1,427 @@
+/*
+ * Open Hospital (www.open-hospital.org)
+ * Copyright © 2021 Informatici Senza Frontiere (info@informaticisenzafrontiere.org)
+ *
+ * Open Hospital is a free and open source software for healthcare data management.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * https://www.gnu.org/licenses/gpl-3.0-standalone.html
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.isf.generate;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.isf.generate.sink.ExportPatientSink;
+import org.isf.generate.sink.JdbcBatchPatientSink;
+import org.isf.generator.producer.RandomGenerator;
+
+/**
+ * Command line options of {@link Generate}.
+ * <ul>
+ * <li><tt>--bulk[=batch|multirow]</tt>: load the generated rows with plain JDBC in chunked transactions instead of
+ * saving them one by one through the OH-core managers.</li>
+ * <li><tt>--export=csv|sql</tt>: write the generated rows to files instead of a database; no OH-core context or
+ * database is needed (requires <tt>--reference-data</tt>).</li>
+ * <li><tt>--output=DIR</tt>: directory of the exported files (default the current directory).</li>
+ * <li><tt>--gzip</tt>: gzip the exported files.</li>
+ * <li><tt>--reference-data=FILE</tt>: read diseases, wards, admission and discharge types from a YAML file
+ * instead of the database.</li>
+ * <li><tt>--batch-size=N</tt>: number of patients per bulk load chunk or exported INSERT statement (default 1000, at
+ * most 2978 with <tt>--bulk=multirow</tt>).</li>
+ * <li><tt>--threads=N</tt>: number of generator threads (default 1).</li>
+ * <li><tt>--seed=N</tt>: master random seed; the generated data only depends on it and on the unit size.</li>
+ * <li><tt>--unit-size=N</tt>: number of patients per independently seeded unit of work (default 1000).</li>
+ * <li><tt>--writers=N</tt>: write the records on N writer threads, fed through a bounded buffer, while the next
+ * patients are generated (default: write them on the generating thread).</li>
+ * <li><tt>--progress=SECONDS</tt>: interval of the progress line (default 10).</li>
+ * <li><tt>--log-rows=N</tt>: log every N-th generated patient, asynchronously (default: none).</li>
+ * <li><tt>--random=jdk|xoroshiro</tt>: random number algorithm (default jdk); the data of a seed depends on it.</li>
+ * <li><tt>--population=FILE</tt>: YAML population spec (default the bundled <tt>population.yml</tt>).</li>
+ * <li><tt>--patients=N</tt>: number of patients, instead of the total of the population spec.</li>
+ * <li><tt>--unique-telephones</tt>: never give two patients the same telephone number; a duplicate is replaced by
+ * a new number. With more than one thread the replaced numbers depend on the timing of the threads, so the run
+ * cannot be reproduced from its seed and a warning is logged.</li>
+ * <li><tt>--seed-corpus=FILE</tt>: read names and addresses from a binary seed corpus written by
+ * <tt>SeedCorpusWriter</tt> instead of the bundled seed files.</li>
+ * <li><tt>--today=YYYY-MM-DD</tt>: date the birth, admission and discharge dates are relative to (default today);
+ * the data of a seed depends on it.</li>
+ * <li><tt>--checkpoint=FILE</tt>: write a checkpoint to FILE every <tt>--checkpoint-interval</tt> seconds (default
+ * 60), from which an interrupted run can be resumed.</li>
+ * <li><tt>--resume</tt>: continue an interrupted run from its <tt>--checkpoint</tt>; the other options have to be
+ * those of the interrupted run.</li>
+ * <li><tt>--shard=I/N</tt>: export only shard I (from 0) of N of the data set, with a manifest for the merge
+ * (requires <tt>--export</tt> and <tt>--seed</tt>).</li>
+ * <li><tt>--merge=DIR,DIR,...</tt>: check the exported shards in the directories against their manifests and
+ * concatenate them into <tt>--output</tt>; nothing is generated.</li>
+ * </ul>
+ */
+public class GenerateOptions {
+
+	private static final int DEFAULT_BATCH_SIZE = 1000;
+	private static final int DEFAULT_UNIT_SIZE = 1000;
+	private static final int DEFAULT_PROGRESS_SECONDS = 10;
+	private static final int DEFAULT_CHECKPOINT_SECONDS = 60;
+
+	private JdbcBatchPatientSink.Mode bulkMode;
+	private ExportPatientSink.Format exportFormat;
+	private Path output = Paths.get(".");
+	private boolean gzip;
+	private Path referenceData;
+	private int batchSize = DEFAULT_BATCH_SIZE;
+	private int threads = 1;
+	private int writers;
+	private Integer seed;
+	private int unitSize = DEFAULT_UNIT_SIZE;
+	private int progressSeconds = DEFAULT_PROGRESS_SECONDS;
+	private int logRows;
+	private RandomGenerator.Algorithm randomAlgorithm = RandomGenerator.Algorithm.JDK;
+	private Path population;
+	private Long patients;
+	private Path seedCorpus;
+	private boolean uniqueTelephones;
+	private LocalDate today = LocalDate.now();
+	private Path checkpoint;
+	private int checkpointSeconds = DEFAULT_CHECKPOINT_SECONDS;
+	private boolean resume;
+	private int shardIndex;
+	private int shardCount = 1;
+	private List<Path> merge;
+
+	public static GenerateOptions parse(String... args) {
+		GenerateOptions options = new GenerateOptions();
+		for (String arg : args) {
+			String name = arg;
+			String value = null;
+			int separator = arg.indexOf('=');
+			if (separator > 0) {
+				name = arg.substring(0, separator);
+				value = arg.substring(separator + 1);
+			}
+			switch (name) {
+				case "--bulk":
+					options.bulkMode = value == null || value.equals("batch") ? JdbcBatchPatientSink.Mode.BATCH : parseBulkMode(value);
+					break;
+				case "--export":
+					options.exportFormat = parseExportFormat(value);
+					break;
+				case "--output":
+					options.output = Paths.get(requireValue(name, value));
+					break;
+				case "--gzip":
+					options.gzip = true;
+					break;
+				case "--reference-data":
+					options.referenceData = Paths.get(requireValue(name, value));
+					break;
+				case "--batch-size":
+					options.batchSize = parsePositive(name, value);
+					break;
+				case "--threads":
+					options.threads = parsePositive(name, value);
+					break;
+				case "--writers":
+					options.writers = parsePositive(name, value);
+					break;
+				case "--unique-telephones":
+					options.uniqueTelephones = true;
+					break;
+				case "--seed-corpus":
+					options.seedCorpus = Paths.get(requireValue(name, value));
+					break;
+				case "--seed":
+					options.seed = parseInt(name, value);
+					break;
+				case "--unit-size":
+					options.unitSize = parsePositive(name, value);
+					break;
+				case "--progress":
+					options.progressSeconds = parsePositive(name, value);
+					break;
+				case "--log-rows":
+					options.logRows = parsePositive(name, value);
+					break;
+				case "--random":
+					options.randomAlgorithm = parseRandomAlgorithm(value);
+					break;
+				case "--population":
+					options.population = Paths.get(requireValue(name, value));
+					break;
+				case "--patients":
+					options.patients = parsePositiveLong(name, value);
+					break;
+				case "--today":
+					options.today = parseDate(name, requireValue(name, value));
+					break;
+				case "--checkpoint":
+					options.checkpoint = Paths.get(requireValue(name, value));
+					break;
+				case "--checkpoint-interval":
+					options.checkpointSeconds = parsePositive(name, value);
+					break;
+				case "--resume":
+					options.resume = true;
+					break;
+				case "--shard":
+					options.parseShard(requireValue(name, value));
+					break;
+				case "--merge":
+					options.merge = new ArrayList<>();
+					for (String directory : requireValue(name, value).split(",")) {
+						options.merge.add(Paths.get(directory));
+					}
+					break;
+				default:
+					throw new IllegalArgumentException("Unknown option " + arg);
+			}
+		}
+		if (options.isBulk() && options.isExport()) {
+			throw new IllegalArgumentException("--bulk and --export cannot be combined");
+		}
+		if (options.bulkMode == JdbcBatchPatientSink.Mode.MULTI_ROW && options.batchSize > JdbcBatchPatientSink.MAX_MULTI_ROW_BATCH_SIZE) {
+			throw new IllegalArgumentException("--bulk=multirow allows a --batch-size of at most " + JdbcBatchPatientSink.MAX_MULTI_ROW_BATCH_SIZE);
+		}
+		if (options.isExport() && options.referenceData == null) {
+			throw new IllegalArgumentException("--export requires --reference-data");
+		}
+		if (options.isExport() && options.writers > 1) {
+			throw new IllegalArgumentException("--export writes with a single writer");
+		}
+		if (options.isSharded() && (!options.isExport() || options.seed == null)) {
+			throw new IllegalArgumentException("--shard requires --export and --seed");
+		}
+		if (options.resume && options.checkpoint == null) {
+			throw new IllegalArgumentException("--resume requires --checkpoint");
+		}
+		if (options.uniqueTelephones && (options.isSharded() || options.checkpoint != null)) {
+			throw new IllegalArgumentException("--unique-telephones cannot be combined with --shard or --checkpoint: only the running process knows the numbers");
+		}
+		if (options.isMerge() && (options.isExport() || options.isBulk() || options.isSharded())) {
+			throw new IllegalArgumentException("--merge cannot be combined with --export, --bulk or --shard");
+		}
+		return options;
+	}
+
+	private void parseShard(String value) {
+		int separator = value.indexOf('/');
+		if (separator > 0) {
+			try {
+				shardIndex = Integer.parseInt(value.substring(0, separator));
+				shardCount = Integer.parseInt(value.substring(separator + 1));
+				if (shardCount > 0 && shardIndex >= 0 && shardIndex < shardCount) {
+					return;
+				}
+			} catch (NumberFormatException e) {
+				// reported below
+			}
+		}
+		throw new IllegalArgumentException("--shard requires I/N with 0 <= I < N");
+	}
+
+	private static JdbcBatchPatientSink.Mode parseBulkMode(String value) {
+		if (value.equals("multirow")) {
+			return JdbcBatchPatientSink.Mode.MULTI_ROW;
+		}
+		throw new IllegalArgumentException("Unknown bulk mode " + value + " - use batch or multirow");
+	}
+
+	private static ExportPatientSink.Format parseExportFormat(String value) {
+		if ("csv".equals(value)) {
+			return ExportPatientSink.Format.CSV;
+		}
+		if ("sql".equals(value)) {
+			return ExportPatientSink.Format.SQL;
+		}
+		throw new IllegalArgumentException("Unknown export format " + value + " - use csv or sql");
+	}
+
+	private static RandomGenerator.Algorithm parseRandomAlgorithm(String value) {
+		if ("jdk".equals(value)) {
+			return RandomGenerator.Algorithm.JDK;
+		}
+		if ("xoroshiro".equals(value)) {
+			return RandomGenerator.Algorithm.XOROSHIRO;
+		}
+		throw new IllegalArgumentException("Unknown random algorithm " + value + " - use jdk or xoroshiro");
+	}
+
+	static String requireValue(String name, String value) {
+		if (value == null || value.isEmpty()) {
+			throw new IllegalArgumentException(name + " requires a value");
+		}
+		return value;
+	}
+
+	static int parseInt(String name, String value) {
+		try {
+			return Integer.parseInt(value);
+		} catch (NumberFormatException e) {
+			throw new IllegalArgumentException(name + " requires a number");
+		}
+	}
+
+	static LocalDate parseDate(String name, String value) {
+		try {
+			return LocalDate.parse(value);
+		} catch (DateTimeParseException e) {
+			throw new IllegalArgumentException(name + " requires a date like 2021-01-31");
+		}
+	}
+
+	static int parsePositive(String name, String value) {
+		try {
+			int number = Integer.parseInt(value);
+			if (number > 0) {
+				return number;
+			}
+		} catch (NumberFormatException e) {
+			// reported below
+		}
+		throw new IllegalArgumentException(name + " requires a positive number");
+	}
+
+	static long parsePositiveLong(String name, String value) {
+		try {
+			long number = Long.parseLong(value);
+			if (number > 0) {
+				return number;
+			}
+		} catch (NumberFormatException e) {
+			// reported below
+		}
+		throw new IllegalArgumentException(name + " requires a positive number");
+	}
+
+	public boolean isBulk() {
+		return bulkMode != null;
+	}
+
+	public JdbcBatchPatientSink.Mode getBulkMode() {
+		return bulkMode;
+	}
+
+	public boolean isExport() {
+		return exportFormat != null;
+	}
+
+	public ExportPatientSink.Format getExportFormat() {
+		return exportFormat;
+	}
+
+	public Path getOutput() {
+		return output;
+	}
+
+	public boolean isGzip() {
+		return gzip;
+	}
+
+	public Path getReferenceData() {
+		return referenceData;
+	}
+
+	public int getBatchSize() {
+		return batchSize;
+	}
+
+	public int getThreads() {
+		return threads;
+	}
+
+	public boolean isPipelined() {
+		return writers > 0;
+	}
+
+	public int getWriters() {
+		return writers;
+	}
+
+	public Integer getSeed() {
+		return seed;
+	}
+
+	public int getUnitSize() {
+		return unitSize;
+	}
+
+	public int getProgressSeconds() {
+		return progressSeconds;
+	}
+
+	public int getLogRows() {
+		return logRows;
+	}
+
+	public RandomGenerator.Algorithm getRandomAlgorithm() {
+		return randomAlgorithm;
+	}
+
+	public Path getPopulation() {
+		return population;
+	}
+
+	public Long getPatients() {
+		return patients;
+	}
+
+	public Path getSeedCorpus() {
+		return seedCorpus;
+	}
+
+	public boolean isUniqueTelephones() {
+		return uniqueTelephones;
+	}
+
+	public LocalDate getToday() {
+		return today;
+	}
+
+	public Path getCheckpoint() {
+		return checkpoint;
+	}
+
+	public int getCheckpointSeconds() {
+		return checkpointSeconds;
+	}
+
+	public boolean isResume() {
+		return resume;
+	}
+
+	public boolean isSharded() {
+		return shardCount > 1;
+	}
+
+	public int getShardIndex() {
+		return shardIndex;
+	}
+
+	public int getShardCount() {
+		return shardCount;
+	}
+
+	public boolean isMerge() {
+		return merge != null;
+	}
+
+	public List<Path> getMerge() {
+		return merge;
+	}
+
+}
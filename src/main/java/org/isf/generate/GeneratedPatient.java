@@ -0,0 +1,48 @@
+/*
+ * Open Hospital (www.open-hospital.org)
+ * Copyright © 2021 Informatici Senza Frontiere (info@informaticisenzafrontiere.org)
+ *
+ * Open Hospital is a free and open source software for healthcare data management.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * https://www.gnu.org/licenses/gpl-3.0-standalone.html
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.isf.generate;
+
+import org.isf.admission.model.Admission;
+import org.isf.patient.model.Patient;
+
+/**
+ * A generated patient together with its admission ({@code null} if the patient was not admitted).
+ */
+public class GeneratedPatient {
+
+	private final Patient patient;
+	private final Admission admission;
+
+	public GeneratedPatient(Patient patient, Admission admission) {
+		this.patient = patient;
+		this.admission = admission;
+	}
+
+	public Patient getPatient() {
+		return patient;
+	}
+
+	public Admission getAdmission() {
+		return admission;
+	}
+
+}
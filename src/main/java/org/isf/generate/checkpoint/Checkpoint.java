@@ -0,0 +1,234 @@
+/*
+ * Open Hospital (www.open-hospital.org)
+ * Copyright © 2021 Informatici Senza Frontiere (info@informaticisenzafrontiere.org)
+ *
+ * Open Hospital is a free and open source software for healthcare data management.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * https://www.gnu.org/licenses/gpl-3.0-standalone.html
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.isf.generate.checkpoint;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.isf.generate.sink.CommittedKeys;
+import org.isf.generate.sink.ExportPatientSink;
+import org.snakeyaml.engine.v2.api.Dump;
+import org.snakeyaml.engine.v2.api.DumpSettings;
+import org.snakeyaml.engine.v2.api.Load;
+import org.snakeyaml.engine.v2.api.LoadSettings;
+import org.snakeyaml.engine.v2.common.FlowStyle;
+
+/**
+ * The state of a run after its last committed partition, from which an interrupted run can be resumed:
+ * <pre>
+ * run: {seed: 7, random: jdk, unitSize: 1000, ...}   # options that determine the data, checked on resume
+ * nextPartition: 42
+ * cohorts: [[310, 77], [295, 80], ...]                 # admitted and discharged patients per cohort
+ * export: {nextPatientId: 42001, patients: 42000, admissions: 21020, patientDigest: 7a0c..., admissionDigest: 19e4...,
+ *     fileLengths: [8123456, 1501234]}
+ * database: {patientKey: 1042000, admissionKey: 511020}
+ * </pre>
+ * The random state does not need to be saved: every partition is generated from its own substream of the seed,
+ * so the partitions from {@code nextPartition} on are generated exactly as in an uninterrupted run. The file is
+ * replaced atomically, so it always describes a complete checkpoint.
+ */
+public final class Checkpoint {
+
+	private final Map<String, Object> run;
+	private final int nextPartition;
+	private final long[][] cohortCounts;
+	private final ExportPatientSink.Position export;
+	private final CommittedKeys database;
+
+	/**
+	 * @param run the options that determine the generated data
+	 * @param nextPartition number of the first partition that is not committed
+	 * @param cohortCounts admitted and discharged patients per cohort so far
+	 * @param export position of the exported files, {@code null} when writing to a database
+	 * @param database highest committed keys, {@code null} when exporting
+	 */
+	public Checkpoint(Map<String, Object> run, int nextPartition, long[][] cohortCounts, ExportPatientSink.Position export, CommittedKeys database) {
+		this.run = run;
+		this.nextPartition = nextPartition;
+		this.cohortCounts = cohortCounts;
+		this.export = export;
+		this.database = database;
+	}
+
+	public static Checkpoint read(Path file) {
+		Object data;
+		try (InputStream is = Files.newInputStream(file)) {
+			data = new Load(LoadSettings.builder().build()).loadFromInputStream(is);
+		} catch (IOException e) {
+			throw new IllegalStateException("Unable to read the checkpoint " + file, e);
+		}
+		try {
+			Map<?, ?> map = map(data, "checkpoint");
+			Map<String, Object> run = new LinkedHashMap<>();
+			for (Map.Entry<?, ?> entry : map(map.get("run"), "run").entrySet()) {
+				run.put(String.valueOf(entry.getKey()), entry.getValue());
+			}
+			List<?> cohorts = list(map.get("cohorts"), "cohorts");
+			long[][] cohortCounts = new long[cohorts.size()][];
+			for (int c = 0; c < cohortCounts.length; c++) {
+				List<?> counts = list(cohorts.get(c), "cohorts");
+				cohortCounts[c] = new long[] { number(counts.get(0), "cohorts"), number(counts.get(1), "cohorts") };
+			}
+			ExportPatientSink.Position export = null;
+			if (map.get("export") != null) {
+				Map<?, ?> position = map(map.get("export"), "export");
+				List<?> lengths = list(position.get("fileLengths"), "fileLengths");
+				long[] fileLengths = new long[lengths.size()];
+				for (int f = 0; f < fileLengths.length; f++) {
+					fileLengths[f] = number(lengths.get(f), "fileLengths");
+				}
+				export = new ExportPatientSink.Position((int) number(position.get("nextPatientId"), "nextPatientId"),
+						number(position.get("patients"), "patients"), number(position.get("admissions"), "admissions"),
+						Long.parseUnsignedLong(String.valueOf(position.get("patientDigest")), 16),
+						Long.parseUnsignedLong(String.valueOf(position.get("admissionDigest")), 16), fileLengths);
+			}
+			CommittedKeys database = null;
+			if (map.get("database") != null) {
+				Map<?, ?> keys = map(map.get("database"), "database");
+				database = new CommittedKeys(number(keys.get("patientKey"), "patientKey"), number(keys.get("admissionKey"), "admissionKey"));
+			}
+			return new Checkpoint(run, (int) number(map.get("nextPartition"), "nextPartition"), cohortCounts, export, database);
+		} catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+			throw new IllegalStateException("Invalid checkpoint " + file + ": " + e.getMessage(), e);
+		}
+	}
+
+	/**
+	 * Writes the checkpoint to a temporary file next to {@code file}, forces it to disk and renames it to
+	 * {@code file}, replacing the previous checkpoint in one step.
+	 */
+	public void write(Path file) {
+		Map<String, Object> map = new LinkedHashMap<>();
+		map.put("run", run);
+		map.put("nextPartition", nextPartition);
+		List<Object> cohorts = new ArrayList<>();
+		for (long[] counts : cohortCounts) {
+			List<Object> pair = new ArrayList<>();
+			pair.add(counts[0]);
+			pair.add(counts[1]);
+			cohorts.add(pair);
+		}
+		map.put("cohorts", cohorts);
+		if (export != null) {
+			Map<String, Object> position = new LinkedHashMap<>();
+			position.put("nextPatientId", export.getNextPatientId());
+			position.put("patients", export.getPatientCount());
+			position.put("admissions", export.getAdmissionCount());
+			position.put("patientDigest", Long.toHexString(export.getPatientDigest()));
+			position.put("admissionDigest", Long.toHexString(export.getAdmissionDigest()));
+			List<Object> fileLengths = new ArrayList<>();
+			for (long length : export.getFileLengths()) {
+				fileLengths.add(length);
+			}
+			position.put("fileLengths", fileLengths);
+			map.put("export", position);
+		}
+		if (database != null) {
+			Map<String, Object> keys = new LinkedHashMap<>();
+			keys.put("patientKey", database.getPatientKey());
+			keys.put("admissionKey", database.getAdmissionKey());
+			map.put("database", keys);
+		}
+		byte[] yaml = new Dump(DumpSettings.builder().setDefaultFlowStyle(FlowStyle.BLOCK).build()).dumpToString(map)
+				.getBytes(StandardCharsets.UTF_8);
+		Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+		try {
+			try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+					StandardOpenOption.WRITE)) {
+				ByteBuffer buffer = ByteBuffer.wrap(yaml);
+				while (buffer.hasRemaining()) {
+					channel.write(buffer);
+				}
+				channel.force(true);
+			}
+			Files.move(temporary, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+		} catch (IOException e) {
+			throw new IllegalStateException("Unable to write the checkpoint " + file, e);
+		}
+	}
+
+	/**
+	 * @param current the options of the resumed run
+	 * @throws IllegalStateException if they differ from those of the checkpoint
+	 */
+	public void checkRun(Map<String, Object> current) {
+		for (Map.Entry<String, Object> entry : current.entrySet()) {
+			String saved = String.valueOf(run.get(entry.getKey()));
+			if (!saved.equals(String.valueOf(entry.getValue()))) {
+				throw new IllegalStateException("The checkpoint was written with " + entry.getKey() + '=' + saved + ", not " + entry.getValue());
+			}
+		}
+	}
+
+	public Map<String, Object> getRun() {
+		return run;
+	}
+
+	public int getNextPartition() {
+		return nextPartition;
+	}
+
+	public long[][] getCohortCounts() {
+		return cohortCounts;
+	}
+
+	public ExportPatientSink.Position getExport() {
+		return export;
+	}
+
+	public CommittedKeys getDatabase() {
+		return database;
+	}
+
+	private static Map<?, ?> map(Object value, String key) {
+		if (!(value instanceof Map)) {
+			throw new IllegalArgumentException(key + " has to be a map");
+		}
+		return (Map<?, ?>) value;
+	}
+
+	private static List<?> list(Object value, String key) {
+		if (!(value instanceof List)) {
+			throw new IllegalArgumentException(key + " has to be a list");
+		}
+		return (List<?>) value;
+	}
+
+	private static long number(Object value, String key) {
+		if (!(value instanceof Number)) {
+			throw new IllegalArgumentException(key + " has to be a number");
+		}
+		return ((Number) value).longValue();
+	}
+
+}
@@ -0,0 +1,243 @@
+/*
+ * Open Hospital (www.open-hospital.org)
+ * Copyright © 2021 Informatici Senza Frontiere (info@informaticisenzafrontiere.org)
+ *
+ * Open Hospital is a free and open source software for healthcare data management.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * https://www.gnu.org/licenses/gpl-3.0-standalone.html
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.isf.generate.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.ToLongFunction;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Counters and per stage latency histograms of a generation run, safe to update from the generator and writer
+ * threads at the same time.
+ * <p>
+ * The generators record {@link Stage#GENERATE_PERSON} and {@link Stage#GENERATE_VISIT}, the sinks
+ * {@link Stage#SAVE_PATIENT} and {@link Stage#SAVE_ADMISSION}; the number of saved patients and admissions is the
+ * count of the save stages. {@link #register()} publishes the metrics over JMX, {@link ProgressReporter} logs them
+ * periodically.
+ */
+public class GenerationMetrics implements GenerationMetricsMXBean {
+
+	public static final String OBJECT_NAME = "org.isf.generate:type=GenerationMetrics";
+
+	public enum Stage {
+
+		GENERATE_PERSON("person"),
+		SAVE_PATIENT("patient"),
+		GENERATE_VISIT("visit"),
+		SAVE_ADMISSION("admission");
+
+		private final String label;
+
+		Stage(String label) {
+			this.label = label;
+		}
+
+		public String getLabel() {
+			return label;
+		}
+
+	}
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(GenerationMetrics.class);
+
+	private final Map<Stage, LatencyHistogram> histograms = new EnumMap<>(Stage.class);
+	private final LongAdder admitted = new LongAdder();
+	private final LongAdder discharged = new LongAdder();
+	private final long startNanos = System.nanoTime();
+	private volatile long targetPatients;
+
+	private ObjectName objectName;
+
+	public GenerationMetrics() {
+		for (Stage stage : Stage.values()) {
+			histograms.put(stage, new LatencyHistogram());
+		}
+	}
+
+	public void record(Stage stage, long nanos) {
+		histograms.get(stage).record(nanos);
+	}
+
+	/**
+	 * Records {@code rows} rows handled together, e.g. by a JDBC batch.
+	 *
+	 * @param stage the stage
+	 * @param nanos elapsed time of all the rows
+	 * @param rows number of rows
+	 */
+	public void record(Stage stage, long nanos, int rows) {
+		histograms.get(stage).record(nanos, rows);
+	}
+
+	public void admitted(boolean discharged) {
+		admitted.increment();
+		if (discharged) {
+			this.discharged.increment();
+		}
+	}
+
+	public void setTargetPatients(long targetPatients) {
+		this.targetPatients = targetPatients;
+	}
+
+	public LatencyHistogram getHistogram(Stage stage) {
+		return histograms.get(stage);
+	}
+
+	/**
+	 * Registers the metrics with the platform MBean server; a failure is only logged.
+	 */
+	public void register() {
+		try {
+			MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+			ObjectName name = new ObjectName(OBJECT_NAME);
+			if (server.isRegistered(name)) {
+				server.unregisterMBean(name);
+			}
+			server.registerMBean(this, name);
+			objectName = name;
+		} catch (JMException e) {
+			LOGGER.warn("Unable to register the generation metrics with JMX", e);
+		}
+	}
+
+	public void unregister() {
+		if (objectName == null) {
+			return;
+		}
+		try {
+			ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+		} catch (JMException e) {
+			LOGGER.debug("Unable to unregister the generation metrics", e);
+		}
+		objectName = null;
+	}
+
+	@Override
+	public long getTargetPatients() {
+		return targetPatients;
+	}
+
+	@Override
+	public long getPatientsGenerated() {
+		return histograms.get(Stage.GENERATE_PERSON).getCount();
+	}
+
+	@Override
+	public long getPatientsSaved() {
+		return histograms.get(Stage.SAVE_PATIENT).getCount();
+	}
+
+	@Override
+	public long getAdmissionsSaved() {
+		return histograms.get(Stage.SAVE_ADMISSION).getCount();
+	}
+
+	@Override
+	public long getAdmitted() {
+		return admitted.sum();
+	}
+
+	@Override
+	public long getDischarged() {
+		return discharged.sum();
+	}
+
+	@Override
+	public long getElapsedSeconds() {
+		return TimeUnit.NANOSECONDS.toSeconds(getElapsedNanos());
+	}
+
+	public long getElapsedNanos() {
+		return System.nanoTime() - startNanos;
+	}
+
+	@Override
+	public double getPatientsPerSecond() {
+		return perSecond(getPatientsSaved());
+	}
+
+	@Override
+	public double getAdmissionsPerSecond() {
+		return perSecond(getAdmissionsSaved());
+	}
+
+	@Override
+	public long getEtaSeconds() {
+		long saved = getPatientsSaved();
+		long remaining = targetPatients - saved;
+		if (saved == 0 || remaining < 0) {
+			return -1;
+		}
+		return TimeUnit.NANOSECONDS.toSeconds((long) ((double) getElapsedNanos() * remaining / saved));
+	}
+
+	@Override
+	public Map<String, Long> getLatencyCounts() {
+		return perStage(LatencyHistogram::getCount);
+	}
+
+	@Override
+	public Map<String, Long> getLatencyMeanMicros() {
+		return perStage(histogram -> TimeUnit.NANOSECONDS.toMicros(histogram.getMeanNanos()));
+	}
+
+	@Override
+	public Map<String, Long> getLatencyP50Micros() {
+		return perStage(histogram -> TimeUnit.NANOSECONDS.toMicros(histogram.getPercentileNanos(0.5)));
+	}
+
+	@Override
+	public Map<String, Long> getLatencyP99Micros() {
+		return perStage(histogram -> TimeUnit.NANOSECONDS.toMicros(histogram.getPercentileNanos(0.99)));
+	}
+
+	@Override
+	public Map<String, Long> getLatencyMaxMicros() {
+		return perStage(histogram -> TimeUnit.NANOSECONDS.toMicros(histogram.getMaxNanos()));
+	}
+
+	private double perSecond(long count) {
+		long elapsedNanos = getElapsedNanos();
+		return elapsedNanos == 0 ? 0 : count * (double) TimeUnit.SECONDS.toNanos(1) / elapsedNanos;
+	}
+
+	private Map<String, Long> perStage(ToLongFunction<LatencyHistogram> value) {
+		Map<String, Long> values = new LinkedHashMap<>();
+		for (Stage stage : Stage.values()) {
+			values.put(stage.getLabel(), value.applyAsLong(histograms.get(stage)));
+		}
+		return values;
+	}
+
+}
@@ -0,0 +1,65 @@
+/*
+ * Open Hospital (www.open-hospital.org)
+ * Copyright © 2021 Informatici Senza Frontiere (info@informaticisenzafrontiere.org)
+ *
+ * Open Hospital is a free and open source software for healthcare data management.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * https://www.gnu.org/licenses/gpl-3.0-standalone.html
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.isf.generate.metrics;
+
+import java.util.Map;
+
+/**
+ * JMX view of a generation run, registered as {@value GenerationMetrics#OBJECT_NAME}.
+ * The latency maps are keyed by the stage names of {@link GenerationMetrics.Stage}.
+ */
+public interface GenerationMetricsMXBean {
+
+	long getTargetPatients();
+
+	long getPatientsGenerated();
+
+	long getPatientsSaved();
+
+	long getAdmissionsSaved();
+
+	long getAdmitted();
+
+	long getDischarged();
+
+	long getElapsedSeconds();
+
+	double getPatientsPerSecond();
+
+	double getAdmissionsPerSecond();
+
+	/**
+	 * @return estimated seconds until all target patients are saved, -1 if unknown
+	 */
+	long getEtaSeconds();
+
+	Map<String, Long> getLatencyCounts();
+
+	Map<String, Long> getLatencyMeanMicros();
+
+	Map<String, Long> getLatencyP50Micros();
+
+	Map<String, Long> getLatencyP99Micros();
+
+	Map<String, Long> getLatencyMaxMicros();
+
+}
@@ -0,0 +1,107 @@
+/*
+ * Open Hospital (www.open-hospital.org)
+ * Copyright © 2021 Informatici Senza Frontiere (info@informaticisenzafrontiere.org)
+ *
+ * Open Hospital is a free and open source software for healthcare data management.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * https://www.gnu.org/licenses/gpl-3.0-standalone.html
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.isf.generate.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free latency histogram with power of two buckets: bucket {@code b} counts the latencies between
+ * {@code 2^b} and {@code 2^(b+1)} nanoseconds, so percentiles are accurate within a factor of two at a fixed
+ * cost of 64 counters.
+ */
+public final class LatencyHistogram {
+
+	private static final int BUCKETS = 64;
+
+	private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+	private final LongAdder count = new LongAdder();
+	private final LongAdder totalNanos = new LongAdder();
+	private final AtomicLong maxNanos = new AtomicLong();
+
+	public void record(long nanos) {
+		record(nanos, 1);
+	}
+
+	/**
+	 * Records {@code rows} operations that took {@code nanos} together, e.g. the rows of a JDBC batch, as
+	 * {@code rows} operations of the average latency.
+	 *
+	 * @param nanos elapsed time of all the operations
+	 * @param rows number of operations
+	 */
+	public void record(long nanos, long rows) {
+		if (rows <= 0) {
+			return;
+		}
+		long latency = Math.max(nanos, 0) / rows;
+		buckets.addAndGet(bucket(latency), rows);
+		count.add(rows);
+		totalNanos.add(Math.max(nanos, 0));
+		maxNanos.accumulateAndGet(latency, Math::max);
+	}
+
+	public long getCount() {
+		return count.sum();
+	}
+
+	public long getMeanNanos() {
+		long operations = count.sum();
+		return operations == 0 ? 0 : totalNanos.sum() / operations;
+	}
+
+	public long getMaxNanos() {
+		return maxNanos.get();
+	}
+
+	/**
+	 * @param quantile between 0 and 1, e.g. 0.99
+	 * @return upper bound of the bucket holding the quantile (at most the maximum), 0 if nothing was recorded
+	 */
+	public long getPercentileNanos(double quantile) {
+		long[] counts = new long[BUCKETS];
+		long total = 0;
+		for (int b = 0; b < BUCKETS; b++) {
+			counts[b] = buckets.get(b);
+			total += counts[b];
+		}
+		if (total == 0) {
+			return 0;
+		}
+		long rank = Math.max(1, (long) Math.ceil(quantile * total));
+		long cumulative = 0;
+		for (int b = 0; b < BUCKETS; b++) {
+			cumulative += counts[b];
+			if (cumulative >= rank) {
+				long upperBound = b >= 62 ? Long.MAX_VALUE : (1L << (b + 1)) - 1;
+				return Math.min(upperBound, getMaxNanos());
+			}
+		}
+		return getMaxNanos();
+	}
+
+	private static int bucket(long nanos) {
+		return 63 - Long.numberOfLeadingZeros(nanos | 1);
+	}
+
+}
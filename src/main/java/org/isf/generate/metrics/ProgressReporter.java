@@ -0,0 +1,145 @@
+/*
+ * Open Hospital (www.open-hospital.org)
+ * Copyright © 2021 Informatici Senza Frontiere (info@informaticisenzafrontiere.org)
+ *
+ * Open Hospital is a free and open source software for healthcare data management.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * https://www.gnu.org/licenses/gpl-3.0-standalone.html
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.isf.generate.metrics;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Logs a compact progress line of a {@link GenerationMetrics} at a fixed interval, and a last one on
+ * {@link #close()}:
+ *
+ * <pre>
+ * Progress: patients 12000/50000 (24%) 2380/s, admissions 6010 1190/s, admitted 6010, discharged 1497, ETA 16s |
+ * p50/p99 person 2.0us/8.1us, patient 255us/1.0ms, visit 4.0us/16us, admission 511us/2.0ms
+ * </pre>
+ *
+ * The rates are those of the last interval, the ETA uses the average rate of the whole run.
+ */
+public class ProgressReporter implements AutoCloseable {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(ProgressReporter.class);
+
+	private final GenerationMetrics metrics;
+	private final ScheduledExecutorService scheduler;
+
+	private long lastNanos;
+	private long lastPatients;
+	private long lastAdmissions;
+
+	public ProgressReporter(GenerationMetrics metrics, long intervalSeconds) {
+		this.metrics = metrics;
+		this.lastNanos = metrics.getElapsedNanos();
+		this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "generate-progress");
+			thread.setDaemon(true);
+			return thread;
+		});
+		scheduler.scheduleAtFixedRate(this::report, intervalSeconds, intervalSeconds, TimeUnit.SECONDS);
+	}
+
+	@Override
+	public void close() {
+		scheduler.shutdownNow();
+		try {
+			scheduler.awaitTermination(1, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		report();
+	}
+
+	synchronized void report() {
+		long nanos = metrics.getElapsedNanos();
+		long patients = metrics.getPatientsSaved();
+		long admissions = metrics.getAdmissionsSaved();
+		double seconds = Math.max(nanos - lastNanos, 1) / (double) TimeUnit.SECONDS.toNanos(1);
+		LOGGER.info(progressLine(metrics, (long) ((patients - lastPatients) / seconds), (long) ((admissions - lastAdmissions) / seconds)));
+		lastNanos = nanos;
+		lastPatients = patients;
+		lastAdmissions = admissions;
+	}
+
+	static String progressLine(GenerationMetrics metrics, long patientsPerSecond, long admissionsPerSecond) {
+		long patients = metrics.getPatientsSaved();
+		long target = metrics.getTargetPatients();
+		StringBuilder line = new StringBuilder("Progress: patients ").append(patients);
+		if (target > 0) {
+			line.append('/').append(target).append(" (").append(patients * 100 / target).append("%)");
+		}
+		line.append(' ').append(patientsPerSecond).append("/s, admissions ").append(metrics.getAdmissionsSaved()).append(' ')
+				.append(admissionsPerSecond).append("/s, admitted ").append(metrics.getAdmitted()).append(", discharged ")
+				.append(metrics.getDischarged());
+		long eta = metrics.getEtaSeconds();
+		if (eta >= 0) {
+			line.append(", ETA ").append(formatSeconds(eta));
+		}
+		line.append(" | p50/p99");
+		String separator = " ";
+		for (GenerationMetrics.Stage stage : GenerationMetrics.Stage.values()) {
+			LatencyHistogram histogram = metrics.getHistogram(stage);
+			if (histogram.getCount() == 0) {
+				continue;
+			}
+			line.append(separator).append(stage.getLabel()).append(' ').append(formatNanos(histogram.getPercentileNanos(0.5))).append('/')
+					.append(formatNanos(histogram.getPercentileNanos(0.99)));
+			separator = ", ";
+		}
+		return line.toString();
+	}
+
+	static String formatNanos(long nanos) {
+		if (nanos < 1_000) {
+			return nanos + "ns";
+		}
+		if (nanos < 1_000_000) {
+			return scaled(nanos, 1_000) + "us";
+		}
+		if (nanos < 1_000_000_000) {
+			return scaled(nanos, 1_000_000) + "ms";
+		}
+		return scaled(nanos, 1_000_000_000) + "s";
+	}
+
+	static String formatSeconds(long seconds) {
+		if (seconds < 60) {
+			return seconds + "s";
+		}
+		if (seconds < 3600) {
+			return seconds / 60 + "m" + String.format("%02d", seconds % 60) + "s";
+		}
+		return seconds / 3600 + "h" + String.format("%02d", seconds / 60 % 60) + "m";
+	}
+
+	private static String scaled(long value, long unit) {
+		if (value < 10 * unit) {
+			// one decimal below 10
+			return value / unit + "." + value % unit * 10 / unit;
+		}
+		return String.valueOf(value / unit);
+	}
+
+}
@@ -0,0 +1,110 @@
+/*
+ * Open Hospital (www.open-hospital.org)
+ * Copyright © 2021 Informatici Senza Frontiere (info@informaticisenzafrontiere.org)
+ *
+ * Open Hospital is a free and open source software for healthcare data management.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * https://www.gnu.org/licenses/gpl-3.0-standalone.html
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.isf.generate.metrics;
+
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+import org.isf.admission.model.Admission;
+import org.isf.patient.model.Patient;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Logs every {@code n}-th generated patient off the generating thread.
+ * <p>
+ * The sampled records are put into a small buffer and formatted and logged by a background thread; when the
+ * buffer is full the record is dropped instead of slowing the generation down. {@link #log(Patient, Admission)}
+ * must be called from a single thread.
+ */
+public class SampledRowLogger implements AutoCloseable {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(SampledRowLogger.class);
+	private static final DateTimeFormatter FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+	private static final int CAPACITY = 1024;
+	private static final Object[] END = new Object[0];
+
+	private final int every;
+	private final BlockingQueue<Object[]> queue = new ArrayBlockingQueue<>(CAPACITY);
+	private final Thread thread;
+
+	private long seen;
+	private long dropped;
+
+	/**
+	 * @param every log one patient out of {@code every}
+	 */
+	public SampledRowLogger(int every) {
+		if (every < 1) {
+			throw new IllegalArgumentException("every has to be >= 1");
+		}
+		this.every = every;
+		this.thread = new Thread(this::drain, "generate-row-log");
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	public void log(Patient patient, Admission admission) {
+		if (++seen % every != 0) {
+			return;
+		}
+		if (!queue.offer(new Object[] { patient, admission })) {
+			dropped++;
+		}
+	}
+
+	@Override
+	public void close() {
+		try {
+			queue.put(END);
+			thread.join();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		if (dropped > 0) {
+			LOGGER.info("{} sampled rows were not logged to keep up with the generation", dropped);
+		}
+	}
+
+	private void drain() {
+		try {
+			for (Object[] row = queue.take(); row != END; row = queue.take()) {
+				write((Patient) row[0], (Admission) row[1]);
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private static void write(Patient patient, Admission admission) {
+		if (admission == null) {
+			LOGGER.info("Patient {} {} ({}, {})", patient.getFirstName(), patient.getSecondName(), patient.getSex(), patient.getBirthDate());
+			return;
+		}
+		LOGGER.info("Patient {} {} ({}, {}) admitted={} discharged={}", patient.getFirstName(), patient.getSecondName(), patient.getSex(),
+				patient.getBirthDate(), admission.getAdmDate().format(FORMATTER),
+				admission.getDisDate() != null ? admission.getDisDate().format(FORMATTER) : "-");
+	}
+
+}
@@ -0,0 +1,101 @@
+/*
+ * Open Hospital (www.open-hospital.org)
+ * Copyright © 2021 Informatici Senza Frontiere (info@informaticisenzafrontiere.org)
+ *
+ * Open Hospital is a free and open source software for healthcare data management.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * https://www.gnu.org/licenses/gpl-3.0-standalone.html
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.isf.generate.population;
+
+import org.isf.generator.producer.person.Person;
+
+/**
+ * A stratum of a {@link PopulationSpec}: patients of one sex (or both) and age range, their share of the
+ * population and how many of them are admitted and discharged.
+ */
+public final class Cohort {
+
+	private final String name;
+	private final Person.Sex sex;
+	private final int minAge;
+	private final int maxAge;
+	private final double share;
+	private final int admissionPercentage;
+	private final int dischargePercentage;
+
+	/**
+	 * @param name name of the cohort in the logs
+	 * @param sex sex of the patients, {@code null} for both
+	 * @param minAge minimum age (inclusive)
+	 * @param maxAge maximum age (inclusive)
+	 * @param share weight of the cohort; the shares of a population do not have to add up to 100
+	 * @param admissionPercentage percentage of the patients that are admitted
+	 * @param dischargePercentage percentage of the admitted patients that are discharged
+	 */
+	public Cohort(String name, Person.Sex sex, int minAge, int maxAge, double share, int admissionPercentage, int dischargePercentage) {
+		if (minAge < 0 || maxAge < minAge) {
+			throw new IllegalArgumentException("Cohort " + name + ": invalid age range " + minAge + '-' + maxAge);
+		}
+		if (!(share > 0) || Double.isInfinite(share)) {
+			throw new IllegalArgumentException("Cohort " + name + ": the share has to be positive");
+		}
+		checkPercentage(name, "admission", admissionPercentage);
+		checkPercentage(name, "discharge", dischargePercentage);
+		this.name = name;
+		this.sex = sex;
+		this.minAge = minAge;
+		this.maxAge = maxAge;
+		this.share = share;
+		this.admissionPercentage = admissionPercentage;
+		this.dischargePercentage = dischargePercentage;
+	}
+
+	private static void checkPercentage(String name, String what, int percentage) {
+		if (percentage < 0 || percentage > 100) {
+			throw new IllegalArgumentException("Cohort " + name + ": the " + what + " percentage has to be between 0 and 100");
+		}
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public Person.Sex getSex() {
+		return sex;
+	}
+
+	public int getMinAge() {
+		return minAge;
+	}
+
+	public int getMaxAge() {
+		return maxAge;
+	}
+
+	public double getShare() {
+		return share;
+	}
+
+	public int getAdmissionPercentage() {
+		return admissionPercentage;
+	}
+
+	public int getDischargePercentage() {
+		return dischargePercentage;
+	}
+
+}
@@ -0,0 +1,79 @@
+/*
+ * Open Hospital (www.open-hospital.org)
+ * Copyright © 2021 Informatici Senza Frontiere (info@informaticisenzafrontiere.org)
+ *
+ * Open Hospital is a free and open source software for healthcare data management.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * https://www.gnu.org/licenses/gpl-3.0-standalone.html
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.isf.generate.population;
+
+/**
+ * A unit of work of a population: {@code size} patients of one {@link Cohort}. Its number is the unit number the
+ * random substream is derived from, so a partition generates the same patients whatever thread runs it.
+ */
+public final class Partition {
+
+	private final int number;
+	private final Cohort cohort;
+	private final int cohortIndex;
+	private final long firstPatient;
+	private final long offset;
+	private final int size;
+
+	Partition(int number, Cohort cohort, int cohortIndex, long firstPatient, long offset, int size) {
+		this.number = number;
+		this.cohort = cohort;
+		this.cohortIndex = cohortIndex;
+		this.firstPatient = firstPatient;
+		this.offset = offset;
+		this.size = size;
+	}
+
+	public int getNumber() {
+		return number;
+	}
+
+	public Cohort getCohort() {
+		return cohort;
+	}
+
+	/**
+	 * @return position of the cohort in the population spec
+	 */
+	public int getCohortIndex() {
+		return cohortIndex;
+	}
+
+	/**
+	 * @return index of the first patient of this partition within its cohort
+	 */
+	public long getFirstPatient() {
+		return firstPatient;
+	}
+
+	/**
+	 * @return index of the first patient of this partition within the whole population
+	 */
+	public long getOffset() {
+		return offset;
+	}
+
+	public int getSize() {
+		return size;
+	}
+
+}
@@ -0,0 +1,135 @@
+/*
+ * Open Hospital (www.open-hospital.org)
+ * Copyright © 2021 Informatici Senza Frontiere (info@informaticisenzafrontiere.org)
+ *
+ * Open Hospital is a free and open source software for healthcare data management.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * https://www.gnu.org/licenses/gpl-3.0-standalone.html
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.isf.generate.population;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Expands a {@link PopulationSpec} into {@link Partition}s that can be generated independently and in any order.
+ * <p>
+ * The total is first divided among the cohorts by their shares with the largest remainder method, so the cohort
+ * sizes add up to the total exactly. Every cohort is then cut into as few partitions of at most
+ * {@code maxPartitionSize} patients as possible, of sizes that differ by at most one. The plan, and with it the
+ * generated data for a given seed, only depends on the spec and on {@code maxPartitionSize}.
+ */
+public final class PopulationPlanner {
+
+	private PopulationPlanner() {
+
+	}
+
+	public static List<Partition> plan(PopulationSpec spec, int maxPartitionSize) {
+		if (maxPartitionSize < 1) {
+			throw new IllegalArgumentException("maxPartitionSize has to be >= 1");
+		}
+		long[] sizes = cohortSizes(spec);
+		List<Partition> partitions = new ArrayList<>();
+		long offset = 0;
+		for (int c = 0; c < sizes.length; c++) {
+			long partitionCount = (sizes[c] + maxPartitionSize - 1) / maxPartitionSize;
+			long first = 0;
+			for (long p = 0; p < partitionCount; p++) {
+				int size = (int) (sizes[c] / partitionCount + (p < sizes[c] % partitionCount ? 1 : 0));
+				if (partitions.size() == Integer.MAX_VALUE) {
+					throw new IllegalArgumentException("Too many partitions - use a larger partition size");
+				}
+				partitions.add(new Partition(partitions.size(), spec.getCohorts().get(c), c, first, offset, size));
+				first += size;
+				offset += size;
+			}
+		}
+		return Collections.unmodifiableList(partitions);
+	}
+
+	/**
+	 * Selects the partitions of one of {@code shardCount} processes that generate a population together. The
+	 * shards are contiguous runs of partitions of about the same length, so writing them one after the other gives
+	 * the output of a single process.
+	 *
+	 * @param plan all partitions of the population, as returned by {@link #plan(PopulationSpec, int)}
+	 * @param shardIndex index of the shard, from 0
+	 * @param shardCount number of shards
+	 * @return the partitions of the shard, possibly none
+	 */
+	public static List<Partition> shard(List<Partition> plan, int shardIndex, int shardCount) {
+		return plan.subList(shardStart(plan.size(), shardIndex, shardCount), shardStart(plan.size(), shardIndex + 1, shardCount));
+	}
+
+	/**
+	 * @param partitions number of partitions of the population
+	 * @param shardIndex index of the shard, from 0 (up to {@code shardCount} for the end of the last shard)
+	 * @param shardCount number of shards
+	 * @return number of the first partition of the shard
+	 */
+	public static int shardStart(int partitions, int shardIndex, int shardCount) {
+		if (shardCount < 1 || shardIndex < 0 || shardIndex > shardCount) {
+			throw new IllegalArgumentException("Invalid shard " + shardIndex + '/' + shardCount);
+		}
+		return (int) ((long) partitions * shardIndex / shardCount);
+	}
+
+	/**
+	 * @param spec population
+	 * @return the number of patients of every cohort, in the order of the spec
+	 */
+	public static long[] cohortSizes(PopulationSpec spec) {
+		List<Cohort> cohorts = spec.getCohorts();
+		double totalShare = 0;
+		for (Cohort cohort : cohorts) {
+			totalShare += cohort.getShare();
+		}
+		long[] sizes = new long[cohorts.size()];
+		double[] remainders = new double[cohorts.size()];
+		long assigned = 0;
+		for (int c = 0; c < sizes.length; c++) {
+			double exact = spec.getTotal() * cohorts.get(c).getShare() / totalShare;
+			sizes[c] = (long) Math.floor(exact);
+			remainders[c] = exact - sizes[c];
+			assigned += sizes[c];
+		}
+		// hand out what the rounding down left, largest remainder first (ties to the first cohort)
+		for (long left = spec.getTotal() - assigned; left > 0; left--) {
+			int largest = 0;
+			for (int c = 1; c < sizes.length; c++) {
+				if (remainders[c] > remainders[largest]) {
+					largest = c;
+				}
+			}
+			sizes[largest]++;
+			remainders[largest] = -1;
+		}
+		// rounding errors of huge totals
+		for (long excess = assigned - spec.getTotal(); excess > 0; excess--) {
+			int largest = 0;
+			for (int c = 1; c < sizes.length; c++) {
+				if (sizes[c] > sizes[largest]) {
+					largest = c;
+				}
+			}
+			sizes[largest]--;
+		}
+		return sizes;
+	}
+
+}
@@ -0,0 +1,208 @@
+/*
+ * Open Hospital (www.open-hospital.org)
+ * Copyright © 2021 Informatici Senza Frontiere (info@informaticisenzafrontiere.org)
+ *
+ * Open Hospital is a free and open source software for healthcare data management.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * https://www.gnu.org/licenses/gpl-3.0-standalone.html
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.isf.generate.population;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import org.isf.generator.producer.person.Person;
+import org.snakeyaml.engine.v2.api.Load;
+import org.snakeyaml.engine.v2.api.LoadSettings;
+
+/**
+ * The patients of a run: their total number, locale and cohorts, read from a YAML file such as the bundled
+ * {@value #DEFAULT_RESOURCE}:
+ * <pre>
+ * total: 2000000
+ * locale: sw
+ * admissionPercentage: 50     # defaults of the cohorts
+ * dischargePercentage: 25
+ * cohorts:
+ *   - { sex: male, minAge: 0, maxAge: 4, share: 8.4 }
+ *   - { sex: female, minAge: 0, maxAge: 4, share: 8.2, admissionPercentage: 60 }
+ *   - { name: elderly, minAge: 65, maxAge: 99, share: 2.1 }   # no sex: both
+ * </pre>
+ * The shares are weights; {@link PopulationPlanner} divides the total among the cohorts accordingly.
+ */
+public final class PopulationSpec {
+
+	public static final String DEFAULT_RESOURCE = "population.yml";
+
+	private static final int DEFAULT_ADMISSION_PERCENTAGE = 50;
+	private static final int DEFAULT_DISCHARGE_PERCENTAGE = 25;
+
+	private final long total;
+	private final Locale locale;
+	private final List<Cohort> cohorts;
+
+	public PopulationSpec(long total, Locale locale, List<Cohort> cohorts) {
+		if (total < 0) {
+			throw new IllegalArgumentException("The total has to be >= 0");
+		}
+		if (cohorts.isEmpty()) {
+			throw new IllegalArgumentException("A population needs at least one cohort");
+		}
+		this.total = total;
+		this.locale = locale;
+		this.cohorts = Collections.unmodifiableList(new ArrayList<>(cohorts));
+	}
+
+	public static PopulationSpec load(Path file) {
+		try (InputStream is = Files.newInputStream(file)) {
+			return parse(is, file.toString());
+		} catch (IOException e) {
+			throw new IllegalStateException("Unable to read the population file " + file, e);
+		}
+	}
+
+	/**
+	 * @return the bundled {@value #DEFAULT_RESOURCE}
+	 */
+	public static PopulationSpec loadDefault() {
+		try (InputStream is = PopulationSpec.class.getClassLoader().getResourceAsStream(DEFAULT_RESOURCE)) {
+			if (is == null) {
+				throw new IllegalStateException("Resource " + DEFAULT_RESOURCE + " not found");
+			}
+			return parse(is, DEFAULT_RESOURCE);
+		} catch (IOException e) {
+			throw new IllegalStateException("Unable to read " + DEFAULT_RESOURCE, e);
+		}
+	}
+
+	static PopulationSpec parse(InputStream is, String source) {
+		Object data = new Load(LoadSettings.builder().build()).loadFromInputStream(is);
+		if (!(data instanceof Map)) {
+			throw new IllegalStateException(source + " has to be a map with total, locale and cohorts");
+		}
+		Map<?, ?> population = (Map<?, ?>) data;
+		try {
+			long total = number(population, "total", 0L).longValue();
+			Locale locale = Locale.forLanguageTag(String.valueOf(population.containsKey("locale") ? population.get("locale") : "en"));
+			int admissionPercentage = number(population, "admissionPercentage", DEFAULT_ADMISSION_PERCENTAGE).intValue();
+			int dischargePercentage = number(population, "dischargePercentage", DEFAULT_DISCHARGE_PERCENTAGE).intValue();
+			Object cohortList = population.get("cohorts");
+			if (!(cohortList instanceof List)) {
+				throw new IllegalArgumentException("cohorts has to be a list");
+			}
+			List<Cohort> cohorts = new ArrayList<>();
+			for (Object entry : (List<?>) cohortList) {
+				if (!(entry instanceof Map)) {
+					throw new IllegalArgumentException("every cohort has to be a map");
+				}
+				cohorts.add(cohort((Map<?, ?>) entry, admissionPercentage, dischargePercentage));
+			}
+			return new PopulationSpec(total, locale, cohorts);
+		} catch (IllegalArgumentException e) {
+			throw new IllegalStateException("Invalid population in " + source + ": " + e.getMessage(), e);
+		}
+	}
+
+	private static Cohort cohort(Map<?, ?> entry, int admissionPercentage, int dischargePercentage) {
+		Person.Sex sex = sex(entry.get("sex"));
+		int minAge = number(entry, "minAge", null).intValue();
+		int maxAge = number(entry, "maxAge", null).intValue();
+		String name = entry.containsKey("name") ? String.valueOf(entry.get("name"))
+				: (sex == null ? "all" : sex.name().toLowerCase(Locale.ROOT)) + ' ' + minAge + '-' + maxAge;
+		return new Cohort(name, sex, minAge, maxAge, number(entry, "share", null).doubleValue(),
+				number(entry, "admissionPercentage", admissionPercentage).intValue(), number(entry, "dischargePercentage", dischargePercentage).intValue());
+	}
+
+	private static Person.Sex sex(Object value) {
+		if (value == null || "any".equals(value)) {
+			return null;
+		}
+		if ("male".equals(value)) {
+			return Person.Sex.MALE;
+		}
+		if ("female".equals(value)) {
+			return Person.Sex.FEMALE;
+		}
+		throw new IllegalArgumentException("unknown sex " + value + " - use male, female or any");
+	}
+
+	private static Number number(Map<?, ?> map, String key, Number defaultValue) {
+		Object value = map.get(key);
+		if (value == null) {
+			if (defaultValue == null) {
+				throw new IllegalArgumentException(key + " is missing");
+			}
+			return defaultValue;
+		}
+		if (!(value instanceof Number)) {
+			throw new IllegalArgumentException(key + " has to be a number");
+		}
+		return (Number) value;
+	}
+
+	/**
+	 * @return a hash of everything that determines the partitions and patients of the population, to check that
+	 * the shards of a run were generated from the same spec
+	 */
+	public String fingerprint() {
+		StringBuilder text = new StringBuilder().append(total).append('|').append(locale.toLanguageTag());
+		for (Cohort cohort : cohorts) {
+			text.append('|').append(cohort.getSex()).append(',').append(cohort.getMinAge()).append(',').append(cohort.getMaxAge()).append(',')
+					.append(cohort.getShare()).append(',').append(cohort.getAdmissionPercentage()).append(',').append(cohort.getDischargePercentage());
+		}
+		try {
+			byte[] hash = MessageDigest.getInstance("SHA-256").digest(text.toString().getBytes(StandardCharsets.UTF_8));
+			StringBuilder hex = new StringBuilder();
+			for (int i = 0; i < 8; i++) {
+				hex.append(String.format("%02x", hash[i]));
+			}
+			return hex.toString();
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException("SHA-256 is not available", e);
+		}
+	}
+
+	/**
+	 * @param total the new total
+	 * @return the same population scaled to {@code total} patients
+	 */
+	public PopulationSpec withTotal(long total) {
+		return new PopulationSpec(total, locale, cohorts);
+	}
+
+	public long getTotal() {
+		return total;
+	}
+
+	public Locale getLocale() {
+		return locale;
+	}
+
+	public List<Cohort> getCohorts() {
+		return cohorts;
+	}
+
+}
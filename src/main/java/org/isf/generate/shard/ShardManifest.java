@@ -0,0 +1,403 @@
+/*
+ * Open Hospital (www.open-hospital.org)
+ * Copyright © 2021 Informatici Senza Frontiere (info@informaticisenzafrontiere.org)
+ *
+ * Open Hospital is a free and open source software for healthcare data management.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * https://www.gnu.org/licenses/gpl-3.0-standalone.html
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.isf.generate.shard;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.snakeyaml.engine.v2.api.Dump;
+import org.snakeyaml.engine.v2.api.DumpSettings;
+import org.snakeyaml.engine.v2.api.Load;
+import org.snakeyaml.engine.v2.api.LoadSettings;
+import org.snakeyaml.engine.v2.common.FlowStyle;
+
+/**
+ * Describes the files exported by one shard of a run, so that the shards can be checked and merged without
+ * reading their rows:
+ * <pre>
+ * format: csv
+ * gzip: false
+ * seed: 7
+ * random: jdk
+ * unitSize: 1000
+ * today: 2021-06-30        # reference date of the generated dates
+ * population: 3f2c...      # fingerprint of the population spec
+ * total: 20000             # patients of the whole run
+ * shard: 1
+ * shards: 4
+ * partitions: {first: 15, count: 15, total: 60}
+ * patients: {count: 5000, firstId: 5001, digest: 9c1e...}
+ * admissions: {count: 2481, digest: 41d0...}
+ * files:
+ * - {name: PATIENT.csv, length: 1048576, crc32: 5a0c1f3b}
+ * - {name: ADMISSION.csv, length: 302211, crc32: 0b3d77e2}
+ * </pre>
+ * Patient ids, admission ids and admission yProgs all lie in {@code firstId} to {@code firstId + count - 1}. The
+ * digests are sums of row hashes (see {@link org.isf.generate.sink.ExportPatientSink}), the file lengths and
+ * checksums are those of the uncompressed content.
+ */
+public final class ShardManifest {
+
+	public static final String FILE_NAME = "manifest.yml";
+
+	private String format;
+	private boolean gzip;
+	private long seed;
+	private String random;
+	private int unitSize;
+	private LocalDate today;
+	private String population;
+	private long total;
+	private int shardIndex;
+	private int shardCount = 1;
+	private int firstPartition;
+	private int partitionCount;
+	private int totalPartitions;
+	private long firstPatientId = 1;
+	private long patients;
+	private long admissions;
+	private long patientDigest;
+	private long admissionDigest;
+	private final List<DataFile> files = new ArrayList<>();
+
+	public static Builder builder() {
+		return new Builder();
+	}
+
+	public static ShardManifest read(Path directory) {
+		Path file = directory.resolve(FILE_NAME);
+		Object data;
+		try (InputStream is = Files.newInputStream(file)) {
+			data = new Load(LoadSettings.builder().build()).loadFromInputStream(is);
+		} catch (IOException e) {
+			throw new IllegalStateException("Unable to read the manifest " + file, e);
+		}
+		try {
+			Map<?, ?> map = map(data, FILE_NAME);
+			ShardManifest manifest = new ShardManifest();
+			manifest.format = string(map, "format");
+			manifest.gzip = Boolean.TRUE.equals(map.get("gzip"));
+			manifest.seed = number(map, "seed");
+			manifest.random = string(map, "random");
+			manifest.unitSize = (int) number(map, "unitSize");
+			manifest.today = LocalDate.parse(string(map, "today"));
+			manifest.population = string(map, "population");
+			manifest.total = number(map, "total");
+			manifest.shardIndex = (int) number(map, "shard");
+			manifest.shardCount = (int) number(map, "shards");
+			Map<?, ?> partitions = map(map.get("partitions"), "partitions");
+			manifest.firstPartition = (int) number(partitions, "first");
+			manifest.partitionCount = (int) number(partitions, "count");
+			manifest.totalPartitions = (int) number(partitions, "total");
+			Map<?, ?> patients = map(map.get("patients"), "patients");
+			manifest.patients = number(patients, "count");
+			manifest.firstPatientId = number(patients, "firstId");
+			manifest.patientDigest = Long.parseUnsignedLong(string(patients, "digest"), 16);
+			Map<?, ?> admissions = map(map.get("admissions"), "admissions");
+			manifest.admissions = number(admissions, "count");
+			manifest.admissionDigest = Long.parseUnsignedLong(string(admissions, "digest"), 16);
+			Object fileList = map.get("files");
+			if (!(fileList instanceof List)) {
+				throw new IllegalArgumentException("files has to be a list");
+			}
+			for (Object entry : (List<?>) fileList) {
+				Map<?, ?> dataFile = map(entry, "files");
+				manifest.files.add(new DataFile(string(dataFile, "name"), number(dataFile, "length"),
+						Long.parseLong(string(dataFile, "crc32"), 16)));
+			}
+			return manifest;
+		} catch (IllegalArgumentException | DateTimeParseException e) {
+			throw new IllegalStateException("Invalid manifest " + file + ": " + e.getMessage(), e);
+		}
+	}
+
+	public void write(Path directory) {
+		Map<String, Object> map = new LinkedHashMap<>();
+		map.put("format", format);
+		map.put("gzip", gzip);
+		map.put("seed", seed);
+		map.put("random", random);
+		map.put("unitSize", unitSize);
+		map.put("today", today.toString());
+		map.put("population", population);
+		map.put("total", total);
+		map.put("shard", shardIndex);
+		map.put("shards", shardCount);
+		Map<String, Object> partitions = new LinkedHashMap<>();
+		partitions.put("first", firstPartition);
+		partitions.put("count", partitionCount);
+		partitions.put("total", totalPartitions);
+		map.put("partitions", partitions);
+		Map<String, Object> patientMap = new LinkedHashMap<>();
+		patientMap.put("count", patients);
+		patientMap.put("firstId", firstPatientId);
+		patientMap.put("digest", Long.toHexString(patientDigest));
+		map.put("patients", patientMap);
+		Map<String, Object> admissionMap = new LinkedHashMap<>();
+		admissionMap.put("count", admissions);
+		admissionMap.put("digest", Long.toHexString(admissionDigest));
+		map.put("admissions", admissionMap);
+		List<Object> fileList = new ArrayList<>();
+		for (DataFile file : files) {
+			Map<String, Object> fileMap = new LinkedHashMap<>();
+			fileMap.put("name", file.getName());
+			fileMap.put("length", file.getLength());
+			fileMap.put("crc32", String.format("%08x", file.getChecksum()));
+			fileList.add(fileMap);
+		}
+		map.put("files", fileList);
+		String yaml = new Dump(DumpSettings.builder().setDefaultFlowStyle(FlowStyle.BLOCK).build()).dumpToString(map);
+		try {
+			Files.write(directory.resolve(FILE_NAME), yaml.getBytes(StandardCharsets.UTF_8));
+		} catch (IOException e) {
+			throw new IllegalStateException("Unable to write the manifest in " + directory, e);
+		}
+	}
+
+	private static Map<?, ?> map(Object value, String key) {
+		if (!(value instanceof Map)) {
+			throw new IllegalArgumentException(key + " has to be a map");
+		}
+		return (Map<?, ?>) value;
+	}
+
+	private static String string(Map<?, ?> map, String key) {
+		Object value = map.get(key);
+		if (value == null) {
+			throw new IllegalArgumentException(key + " is missing");
+		}
+		return String.valueOf(value);
+	}
+
+	private static long number(Map<?, ?> map, String key) {
+		Object value = map.get(key);
+		if (!(value instanceof Number)) {
+			throw new IllegalArgumentException(key + " has to be a number");
+		}
+		return ((Number) value).longValue();
+	}
+
+	public String getFormat() {
+		return format;
+	}
+
+	public boolean isGzip() {
+		return gzip;
+	}
+
+	public long getSeed() {
+		return seed;
+	}
+
+	public String getRandom() {
+		return random;
+	}
+
+	public int getUnitSize() {
+		return unitSize;
+	}
+
+	public LocalDate getToday() {
+		return today;
+	}
+
+	public String getPopulation() {
+		return population;
+	}
+
+	public long getTotal() {
+		return total;
+	}
+
+	public int getShardIndex() {
+		return shardIndex;
+	}
+
+	public int getShardCount() {
+		return shardCount;
+	}
+
+	public int getFirstPartition() {
+		return firstPartition;
+	}
+
+	public int getPartitionCount() {
+		return partitionCount;
+	}
+
+	public int getTotalPartitions() {
+		return totalPartitions;
+	}
+
+	public long getFirstPatientId() {
+		return firstPatientId;
+	}
+
+	public long getPatients() {
+		return patients;
+	}
+
+	public long getAdmissions() {
+		return admissions;
+	}
+
+	public long getPatientDigest() {
+		return patientDigest;
+	}
+
+	public long getAdmissionDigest() {
+		return admissionDigest;
+	}
+
+	public List<DataFile> getFiles() {
+		return Collections.unmodifiableList(files);
+	}
+
+	/**
+	 * An exported data file of a shard.
+	 */
+	public static final class DataFile {
+
+		private final String name;
+		private final long length;
+		private final long checksum;
+
+		public DataFile(String name, long length, long checksum) {
+			this.name = name;
+			this.length = length;
+			this.checksum = checksum;
+		}
+
+		public String getName() {
+			return name;
+		}
+
+		/**
+		 * @return length of the uncompressed content
+		 */
+		public long getLength() {
+			return length;
+		}
+
+		/**
+		 * @return CRC-32 of the uncompressed content
+		 */
+		public long getChecksum() {
+			return checksum;
+		}
+
+	}
+
+	public static class Builder {
+
+		private final ShardManifest manifest = new ShardManifest();
+
+		private Builder() {
+
+		}
+
+		/**
+		 * @param format export format, {@code csv} or {@code sql}
+		 * @param gzip whether the files are gzipped
+		 * @return the same Builder (for chaining).
+		 */
+		public Builder withFormat(String format, boolean gzip) {
+			manifest.format = format;
+			manifest.gzip = gzip;
+			return this;
+		}
+
+		/**
+		 * @param seed master random seed
+		 * @param random random number algorithm
+		 * @param unitSize maximum partition size
+		 * @param population fingerprint of the population spec
+		 * @param total number of patients of the whole run
+		 * @param today reference date of the generated dates
+		 * @return the same Builder (for chaining).
+		 */
+		public Builder withRun(long seed, String random, int unitSize, String population, long total, LocalDate today) {
+			manifest.today = today;
+			manifest.seed = seed;
+			manifest.random = random;
+			manifest.unitSize = unitSize;
+			manifest.population = population;
+			manifest.total = total;
+			return this;
+		}
+
+		/**
+		 * @param shardIndex index of the shard, from 0
+		 * @param shardCount number of shards
+		 * @param firstPartition number of the first partition of the shard
+		 * @param partitionCount number of partitions of the shard
+		 * @param totalPartitions number of partitions of the whole run
+		 * @return the same Builder (for chaining).
+		 */
+		public Builder withShard(int shardIndex, int shardCount, int firstPartition, int partitionCount, int totalPartitions) {
+			manifest.shardIndex = shardIndex;
+			manifest.shardCount = shardCount;
+			manifest.firstPartition = firstPartition;
+			manifest.partitionCount = partitionCount;
+			manifest.totalPartitions = totalPartitions;
+			return this;
+		}
+
+		/**
+		 * @param firstPatientId id of the first patient of the shard
+		 * @param patients number of patients
+		 * @param patientDigest digest of the patient rows
+		 * @param admissions number of admissions
+		 * @param admissionDigest digest of the admission rows
+		 * @return the same Builder (for chaining).
+		 */
+		public Builder withRows(long firstPatientId, long patients, long patientDigest, long admissions, long admissionDigest) {
+			manifest.firstPatientId = firstPatientId;
+			manifest.patients = patients;
+			manifest.patientDigest = patientDigest;
+			manifest.admissions = admissions;
+			manifest.admissionDigest = admissionDigest;
+			return this;
+		}
+
+		public Builder withFile(String name, long length, long checksum) {
+			manifest.files.add(new DataFile(name, length, checksum));
+			return this;
+		}
+
+		public ShardManifest build() {
+			return manifest;
+		}
+
+	}
+
+}
@@ -0,0 +1,219 @@
+/*
+ * Open Hospital (www.open-hospital.org)
+ * Copyright © 2021 Informatici Senza Frontiere (info@informaticisenzafrontiere.org)
+ *
+ * Open Hospital is a free and open source software for healthcare data management.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * https://www.gnu.org/licenses/gpl-3.0-standalone.html
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.isf.generate.shard;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.zip.CRC32;
+import java.util.zip.GZIPInputStream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Checks the exported shards of a run against their {@link ShardManifest}s and concatenates them into one data
+ * set, which is identical to the export of a single process: the same rows with the same ids in the same files
+ * ({@code csv}) or in the same file with other boundaries between the {@code INSERT} statements ({@code sql}).
+ * The shards have to be complete and come from the same seed, random algorithm, unit size, reference date and
+ * population; every data file is read once to verify its length and checksum before anything is written. Gzipped
+ * files are concatenated as gzip members, whose uncompressed content is the same as that of a single process.
+ */
+public final class ShardMerger {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(ShardMerger.class);
+
+	private static final int BUFFER_SIZE = 64 * 1024;
+	private static final String LOAD_SCRIPT = "load.sql";
+
+	private ShardMerger() {
+
+	}
+
+	/**
+	 * @param shardDirectories directories of the shards, in any order
+	 * @param output directory of the merged data set
+	 * @return the manifest of the merged data set
+	 */
+	public static ShardManifest merge(List<Path> shardDirectories, Path output) {
+		List<ShardManifest> manifests = new ArrayList<>();
+		List<Path> directories = new ArrayList<>(shardDirectories);
+		for (Path directory : directories) {
+			if (directory.toAbsolutePath().normalize().equals(output.toAbsolutePath().normalize())) {
+				throw new IllegalStateException("The merged files cannot be written to the shard directory " + directory);
+			}
+			manifests.add(ShardManifest.read(directory));
+		}
+		List<Integer> order = new ArrayList<>();
+		for (int i = 0; i < manifests.size(); i++) {
+			order.add(i);
+		}
+		order.sort(Comparator.comparingInt(i -> manifests.get(i).getShardIndex()));
+		List<ShardManifest> shards = new ArrayList<>();
+		List<Path> shardPaths = new ArrayList<>();
+		for (int i : order) {
+			shards.add(manifests.get(i));
+			shardPaths.add(directories.get(i));
+		}
+		check(shards);
+
+		ShardManifest first = shards.get(0);
+		ShardManifest.Builder merged = ShardManifest.builder()
+				.withFormat(first.getFormat(), first.isGzip())
+				.withRun(first.getSeed(), first.getRandom(), first.getUnitSize(), first.getPopulation(), first.getTotal(), first.getToday())
+				.withShard(0, 1, 0, first.getTotalPartitions(), first.getTotalPartitions());
+		long patients = 0;
+		long admissions = 0;
+		long patientDigest = 0;
+		long admissionDigest = 0;
+		for (ShardManifest shard : shards) {
+			patients += shard.getPatients();
+			admissions += shard.getAdmissions();
+			patientDigest += shard.getPatientDigest();
+			admissionDigest += shard.getAdmissionDigest();
+		}
+		merged.withRows(1, patients, patientDigest, admissions, admissionDigest);
+
+		for (int f = 0; f < first.getFiles().size(); f++) {
+			String name = first.getFiles().get(f).getName();
+			CRC32 mergedChecksum = new CRC32();
+			long mergedLength = 0;
+			for (int s = 0; s < shards.size(); s++) {
+				ShardManifest.DataFile file = shards.get(s).getFiles().get(f);
+				mergedLength += verify(shardPaths.get(s).resolve(name), file, shards.get(s).isGzip(), mergedChecksum);
+			}
+			merged.withFile(name, mergedLength, mergedChecksum.getValue());
+		}
+
+		try {
+			Files.createDirectories(output);
+			for (ShardManifest.DataFile file : first.getFiles()) {
+				concatenate(shardPaths, file.getName(), output.resolve(file.getName()));
+			}
+			Path loadScript = shardPaths.get(0).resolve(LOAD_SCRIPT);
+			if (Files.exists(loadScript)) {
+				Files.copy(loadScript, output.resolve(LOAD_SCRIPT), StandardCopyOption.REPLACE_EXISTING);
+			}
+		} catch (IOException e) {
+			throw new IllegalStateException("Unable to write the merged files to " + output, e);
+		}
+		ShardManifest manifest = merged.build();
+		manifest.write(output);
+		LOGGER.info("Merged {} shards into {}: {} patients and {} admissions", shards.size(), output, patients, admissions);
+		return manifest;
+	}
+
+	/**
+	 * Checks that the shards belong to the same run and cover it without gaps or overlaps.
+	 */
+	static void check(List<ShardManifest> shards) {
+		if (shards.isEmpty()) {
+			throw new IllegalStateException("No shards to merge");
+		}
+		ShardManifest first = shards.get(0);
+		if (shards.size() != first.getShardCount()) {
+			throw new IllegalStateException("Expected " + first.getShardCount() + " shards but got " + shards.size());
+		}
+		int nextPartition = 0;
+		long nextPatientId = 1;
+		for (int i = 0; i < shards.size(); i++) {
+			ShardManifest shard = shards.get(i);
+			String name = "Shard " + shard.getShardIndex();
+			if (shard.getShardIndex() != i) {
+				throw new IllegalStateException("Shard " + i + " is " + (shard.getShardIndex() < i ? "duplicated" : "missing"));
+			}
+			if (shard.getShardCount() != first.getShardCount() || !shard.getFormat().equals(first.getFormat()) || shard.isGzip() != first.isGzip()
+					|| shard.getSeed() != first.getSeed() || !shard.getRandom().equals(first.getRandom()) || shard.getUnitSize() != first.getUnitSize()
+					|| !shard.getToday().equals(first.getToday()) || !shard.getPopulation().equals(first.getPopulation()) || shard.getTotal() != first.getTotal()
+					|| shard.getTotalPartitions() != first.getTotalPartitions()) {
+				throw new IllegalStateException(name + " was generated with other options than shard 0");
+			}
+			if (shard.getFirstPartition() != nextPartition) {
+				throw new IllegalStateException(name + " starts at partition " + shard.getFirstPartition() + " instead of " + nextPartition);
+			}
+			if (shard.getFirstPatientId() != nextPatientId) {
+				throw new IllegalStateException(name + " starts at patient id " + shard.getFirstPatientId() + " instead of " + nextPatientId);
+			}
+			if (shard.getFiles().size() != first.getFiles().size()) {
+				throw new IllegalStateException(name + " has other files than shard 0");
+			}
+			for (int f = 0; f < first.getFiles().size(); f++) {
+				if (!Objects.equals(shard.getFiles().get(f).getName(), first.getFiles().get(f).getName())) {
+					throw new IllegalStateException(name + " has other files than shard 0");
+				}
+			}
+			nextPartition += shard.getPartitionCount();
+			nextPatientId += shard.getPatients();
+		}
+		if (nextPartition != first.getTotalPartitions() || nextPatientId - 1 != first.getTotal()) {
+			throw new IllegalStateException("The shards cover " + nextPartition + " of " + first.getTotalPartitions() + " partitions and "
+					+ (nextPatientId - 1) + " of " + first.getTotal() + " patients");
+		}
+	}
+
+	/**
+	 * Reads the file and compares its (uncompressed) length and CRC-32 with the manifest.
+	 *
+	 * @return the uncompressed length
+	 */
+	private static long verify(Path path, ShardManifest.DataFile file, boolean gzip, CRC32 mergedChecksum) {
+		CRC32 checksum = new CRC32();
+		long length = 0;
+		byte[] buffer = new byte[BUFFER_SIZE];
+		try (InputStream raw = Files.newInputStream(path); InputStream is = gzip ? new GZIPInputStream(raw, BUFFER_SIZE) : raw) {
+			for (int read = is.read(buffer); read >= 0; read = is.read(buffer)) {
+				checksum.update(buffer, 0, read);
+				mergedChecksum.update(buffer, 0, read);
+				length += read;
+			}
+		} catch (IOException e) {
+			throw new IllegalStateException("Unable to read " + path, e);
+		}
+		if (length != file.getLength() || checksum.getValue() != file.getChecksum()) {
+			throw new IllegalStateException(path + " does not match its manifest: " + length + " bytes, crc32 " + Long.toHexString(checksum.getValue())
+					+ " instead of " + file.getLength() + " bytes, crc32 " + Long.toHexString(file.getChecksum()));
+		}
+		return length;
+	}
+
+	private static void concatenate(List<Path> directories, String name, Path target) throws IOException {
+		try (FileChannel out = FileChannel.open(target, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+			for (Path directory : directories) {
+				try (FileChannel in = FileChannel.open(directory.resolve(name), StandardOpenOption.READ)) {
+					long size = in.size();
+					for (long position = 0; position < size; ) {
+						position += in.transferTo(position, size - position, out);
+					}
+				}
+			}
+		}
+	}
+
+}
@@ -0,0 +1,116 @@
+/*
+ * Open Hospital (www.open-hospital.org)
+ * Copyright © 2021 Informatici Senza Frontiere (info@informaticisenzafrontiere.org)
+ *
+ * Open Hospital is a free and open source software for healthcare data management.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * https://www.gnu.org/licenses/gpl-3.0-standalone.html
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.isf.generate.sink;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.CRC32;
+
+/**
+ * Encodes text as UTF-8 into a fixed size direct buffer that is written to the channel whenever it fills up,
+ * so the memory used does not depend on the amount of text written. The length and CRC-32 of the encoded text
+ * are kept on the way, before any compression done by the channel.
+ */
+final class ChannelTextWriter implements Closeable {
+
+	private final WritableByteChannel channel;
+	private final ByteBuffer buffer;
+	private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder()
+			.onMalformedInput(CodingErrorAction.REPLACE)
+			.onUnmappableCharacter(CodingErrorAction.REPLACE);
+
+	private final CRC32 checksum;
+
+	private long bytesWritten;
+
+	ChannelTextWriter(WritableByteChannel channel, int bufferSize) {
+		this(channel, bufferSize, 0, new CRC32());
+	}
+
+	/**
+	 * @param bytesWritten length of the text already in the channel
+	 * @param checksum CRC-32 of the text already in the channel, updated from now on
+	 */
+	ChannelTextWriter(WritableByteChannel channel, int bufferSize, long bytesWritten, CRC32 checksum) {
+		this.channel = channel;
+		this.buffer = ByteBuffer.allocateDirect(bufferSize);
+		this.bytesWritten = bytesWritten;
+		this.checksum = checksum;
+	}
+
+	void write(CharSequence text) throws IOException {
+		CharBuffer chars = CharBuffer.wrap(text);
+		encoder.reset();
+		CoderResult result = encoder.encode(chars, buffer, true);
+		while (result.isOverflow()) {
+			drain();
+			result = encoder.encode(chars, buffer, true);
+		}
+		while (encoder.flush(buffer).isOverflow()) {
+			drain();
+		}
+	}
+
+	/**
+	 * Writes the buffered bytes to the channel.
+	 */
+	void flush() throws IOException {
+		drain();
+	}
+
+	long getBytesWritten() {
+		return bytesWritten + buffer.position();
+	}
+
+	/**
+	 * @return the CRC-32 of the text written so far; only up to date after {@link #flush()}
+	 */
+	long getChecksum() {
+		return checksum.getValue();
+	}
+
+	@Override
+	public void close() throws IOException {
+		try {
+			drain();
+		} finally {
+			channel.close();
+		}
+	}
+
+	private void drain() throws IOException {
+		buffer.flip();
+		checksum.update(buffer.duplicate());
+		while (buffer.hasRemaining()) {
+			bytesWritten += channel.write(buffer);
+		}
+		buffer.clear();
+	}
+
+}
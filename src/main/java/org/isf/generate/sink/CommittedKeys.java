@@ -0,0 +1,116 @@
+/*
+ * Open Hospital (www.open-hospital.org)
+ * Copyright © 2021 Informatici Senza Frontiere (info@informaticisenzafrontiere.org)
+ *
+ * Open Hospital is a free and open source software for healthcare data management.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * https://www.gnu.org/licenses/gpl-3.0-standalone.html
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.isf.generate.sink;
+
+import static org.isf.generate.sink.PatientTables.ADMISSION_ID;
+import static org.isf.generate.sink.PatientTables.ADMISSION_TABLE;
+import static org.isf.generate.sink.PatientTables.PATIENT_ID;
+import static org.isf.generate.sink.PatientTables.PATIENT_TABLE;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The highest patient and admission keys in the database at a checkpoint of a run. A run resumed from the
+ * checkpoint first removes the rows committed after it (so that they are not written twice) and resets the
+ * {@code AUTO_INCREMENT} counters (MySQL), so that the rows get the keys they would have had in an uninterrupted
+ * run. This assumes that nothing else writes patients or admissions during the run.
+ */
+public final class CommittedKeys {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(CommittedKeys.class);
+
+	private final long patientKey;
+	private final long admissionKey;
+
+	public CommittedKeys(long patientKey, long admissionKey) {
+		this.patientKey = patientKey;
+		this.admissionKey = admissionKey;
+	}
+
+	public static CommittedKeys read(DataSource dataSource) {
+		try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+			return new CommittedKeys(maxKey(statement, PATIENT_TABLE, PATIENT_ID), maxKey(statement, ADMISSION_TABLE, ADMISSION_ID));
+		} catch (SQLException e) {
+			throw new IllegalStateException("Unable to read the highest patient and admission keys", e);
+		}
+	}
+
+	/**
+	 * Deletes the patients and admissions with higher keys and resets the key counters.
+	 *
+	 * @param dataSource the database of the run
+	 */
+	public void restore(DataSource dataSource) {
+		try (Connection connection = dataSource.getConnection()) {
+			connection.setAutoCommit(false);
+			int admissions;
+			int patients;
+			try {
+				admissions = deleteAbove(connection, ADMISSION_TABLE, ADMISSION_ID, admissionKey);
+				patients = deleteAbove(connection, PATIENT_TABLE, PATIENT_ID, patientKey);
+				connection.commit();
+			} catch (SQLException e) {
+				connection.rollback();
+				throw e;
+			}
+			try (Statement statement = connection.createStatement()) {
+				statement.execute("ALTER TABLE " + ADMISSION_TABLE + " AUTO_INCREMENT = " + (admissionKey + 1));
+				statement.execute("ALTER TABLE " + PATIENT_TABLE + " AUTO_INCREMENT = " + (patientKey + 1));
+			}
+			LOGGER.info("Removed {} patients and {} admissions written after the checkpoint", patients, admissions);
+		} catch (SQLException e) {
+			throw new IllegalStateException("Unable to remove the rows written after the checkpoint", e);
+		}
+	}
+
+	public long getPatientKey() {
+		return patientKey;
+	}
+
+	public long getAdmissionKey() {
+		return admissionKey;
+	}
+
+	private static long maxKey(Statement statement, String table, String idColumn) throws SQLException {
+		try (ResultSet resultSet = statement.executeQuery("SELECT COALESCE(MAX(" + idColumn + "), 0) FROM " + table)) {
+			resultSet.next();
+			return resultSet.getLong(1);
+		}
+	}
+
+	private static int deleteAbove(Connection connection, String table, String idColumn, long key) throws SQLException {
+		try (PreparedStatement statement = connection.prepareStatement("DELETE FROM " + table + " WHERE " + idColumn + " > ?")) {
+			statement.setLong(1, key);
+			return statement.executeUpdate();
+		}
+	}
+
+}
@@ -0,0 +1,196 @@
+/*
+ * Open Hospital (www.open-hospital.org)
+ * Copyright © 2021 Informatici Senza Frontiere (info@informaticisenzafrontiere.org)
+ *
+ * Open Hospital is a free and open source software for healthcare data management.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * https://www.gnu.org/licenses/gpl-3.0-standalone.html
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.isf.generate.sink;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * A text file written by {@link ExportPatientSink}, optionally gzipped, that can be cut at a checkpoint and
+ * continued later. A gzipped file is written as a sequence of gzip members, a new one starting at every
+ * checkpoint, so that it can be truncated to the length it had at the checkpoint and appended to; gzip readers
+ * unpack the members as one stream.
+ */
+final class ExportFile implements Closeable {
+
+	private final Path path;
+	private final FileChannel file;
+	private final OutputStream fileStream;
+	private final boolean gzip;
+	private final int bufferSize;
+	private final ChannelTextWriter writer;
+
+	private GZIPOutputStream member;
+
+	private ExportFile(Path path, FileChannel file, boolean gzip, int bufferSize, long length, CRC32 checksum) throws IOException {
+		this.path = path;
+		this.file = file;
+		this.fileStream = Channels.newOutputStream(file);
+		this.gzip = gzip;
+		this.bufferSize = bufferSize;
+		this.writer = new ChannelTextWriter(gzip ? new MemberChannel() : file, bufferSize, length, checksum);
+		if (gzip) {
+			member = new GZIPOutputStream(fileStream, bufferSize);
+		}
+	}
+
+	/**
+	 * Creates the file, or empties it if it exists.
+	 */
+	static ExportFile create(Path path, boolean gzip, int bufferSize) throws IOException {
+		FileChannel file = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+		return new ExportFile(path, file, gzip, bufferSize, 0, new CRC32());
+	}
+
+	/**
+	 * Opens the file of an interrupted run: cuts it to the length it had at the checkpoint and reads it once to
+	 * restore the length and checksum of its content.
+	 *
+	 * @param fileLength length of the file at the checkpoint, as returned by {@link #checkpoint()}
+	 */
+	static ExportFile resume(Path path, boolean gzip, int bufferSize, long fileLength) throws IOException {
+		FileChannel file = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+		try {
+			if (file.size() < fileLength) {
+				throw new IllegalStateException(path + " is shorter than at the checkpoint");
+			}
+			file.truncate(fileLength);
+			file.force(false);
+			CRC32 checksum = new CRC32();
+			long length = 0;
+			if (fileLength > 0) {
+				byte[] bytes = new byte[bufferSize];
+				try (InputStream raw = Files.newInputStream(path); InputStream is = gzip ? new GZIPInputStream(raw, bufferSize) : raw) {
+					for (int read = is.read(bytes); read >= 0; read = is.read(bytes)) {
+						checksum.update(bytes, 0, read);
+						length += read;
+					}
+				}
+			}
+			file.position(fileLength);
+			return new ExportFile(path, file, gzip, bufferSize, length, checksum);
+		} catch (IOException | RuntimeException e) {
+			file.close();
+			throw e;
+		}
+	}
+
+	void write(CharSequence text) throws IOException {
+		writer.write(text);
+	}
+
+	void flush() throws IOException {
+		writer.flush();
+	}
+
+	/**
+	 * Writes everything to disk; a gzipped file ends its gzip member.
+	 *
+	 * @return the length of the file
+	 */
+	long checkpoint() throws IOException {
+		writer.flush();
+		if (gzip) {
+			member.finish();
+		}
+		file.force(false);
+		long length = file.position();
+		if (gzip) {
+			// writes the header of the next member, which is cut off again when resuming from here
+			member = new GZIPOutputStream(fileStream, bufferSize);
+		}
+		return length;
+	}
+
+	/**
+	 * @return length of the content, before compression
+	 */
+	long getLength() {
+		return writer.getBytesWritten();
+	}
+
+	/**
+	 * @return CRC-32 of the content, before compression; only up to date after {@link #flush()}
+	 */
+	long getChecksum() {
+		return writer.getChecksum();
+	}
+
+	Path getPath() {
+		return path;
+	}
+
+	@Override
+	public void close() throws IOException {
+		try {
+			writer.flush();
+			if (gzip) {
+				member.finish();
+			}
+		} finally {
+			file.close();
+		}
+	}
+
+	/**
+	 * Forwards the encoded text to the current gzip member.
+	 */
+	private final class MemberChannel implements WritableByteChannel {
+
+		private byte[] bytes = new byte[0];
+
+		@Override
+		public int write(ByteBuffer source) throws IOException {
+			int length = source.remaining();
+			if (bytes.length < length) {
+				bytes = new byte[length];
+			}
+			source.get(bytes, 0, length);
+			member.write(bytes, 0, length);
+			return length;
+		}
+
+		@Override
+		public boolean isOpen() {
+			return file.isOpen();
+		}
+
+		@Override
+		public void close() {
+			// the file is closed by the ExportFile
+		}
+
+	}
+
+}
@@ -0,0 +1,526 @@
+/*
+ * Open Hospital (www.open-hospital.org)
+ * Copyright © 2021 Informatici Senza Frontiere (info@informaticisenzafrontiere.org)
+ *
+ * Open Hospital is a free and open source software for healthcare data management.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * https://www.gnu.org/licenses/gpl-3.0-standalone.html
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.isf.generate.sink;
+
+import static org.isf.generate.sink.PatientTables.ADMISSION_COLUMNS;
+import static org.isf.generate.sink.PatientTables.ADMISSION_ID;
+import static org.isf.generate.sink.PatientTables.ADMISSION_TABLE;
+import static org.isf.generate.sink.PatientTables.PATIENT_COLUMNS;
+import static org.isf.generate.sink.PatientTables.PATIENT_ID;
+import static org.isf.generate.sink.PatientTables.PATIENT_TABLE;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.isf.admission.model.Admission;
+import org.isf.generate.metrics.GenerationMetrics;
+import org.isf.patient.model.Patient;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Streams patients and admissions to files instead of a database, so that large data sets can be produced
+ * without OH-core, Spring or MySQL.
+ * <p>
+ * In {@link Format#CSV} format the rows go to {@code PATIENT.csv} and {@code ADMISSION.csv} in the
+ * {@code LOAD DATA INFILE} default dialect ({@code \N} for {@code NULL}, backslash escapes, optionally quoted
+ * fields); a {@code load.sql} with the matching {@code LOAD DATA} statements is written next to them. In
+ * {@link Format#SQL} format a single {@code patients.sql} with one multi-row {@code INSERT} per
+ * {@code rowsPerStatement} patients (and their admissions) is written.
+ * <p>
+ * Patient ids are assigned sequentially from {@code firstPatientId} (1 for a whole data set, so the files are
+ * meant for empty tables) and an admission gets the id of its patient; both are written back to the
+ * {@link Patient} and {@link Admission} objects. Memory use is bounded by one statement and one I/O buffer per
+ * file; with {@code gzip} the files are compressed on the fly. After a {@link #checkpoint()} an interrupted export
+ * can be continued by a new sink created with the returned {@link Position}.
+ * <p>
+ * For the shard manifests the sink keeps a digest of the patient and of the admission rows: the sum of a 64-bit
+ * hash of every row. As the rows contain their ids, the digest of a data set written in shards is the sum of the
+ * digests of the shards, whatever the statement or file boundaries.
+ */
+public class ExportPatientSink implements PatientSink {
+
+	public enum Format {
+		CSV, SQL
+	}
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(ExportPatientSink.class);
+
+	private static final int BUFFER_SIZE = 64 * 1024;
+	private static final DateTimeFormatter DATE_TIME_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+	private final Path directory;
+	private final Format format;
+	private final boolean gzip;
+	private final int rowsPerStatement;
+	private final GenerationMetrics metrics;
+
+	private final ExportFile patientWriter;
+	private final ExportFile admissionWriter;
+
+	private final StringBuilder row = new StringBuilder(512);
+	private final StringBuilder patientValues;
+	private final StringBuilder admissionValues;
+	private int statementPatients;
+	private int statementAdmissions;
+
+	private int nextPatientId;
+	private long patientCount;
+	private long admissionCount;
+	private long patientDigest;
+	private long admissionDigest;
+	private final long startNanos = System.nanoTime();
+
+	public ExportPatientSink(Path directory, Format format, boolean gzip, int rowsPerStatement, int firstPatientId, GenerationMetrics metrics) {
+		this(directory, format, gzip, rowsPerStatement, new Position(firstPatientId, 0, 0, 0, 0, null), metrics);
+	}
+
+	/**
+	 * Continues the export of an interrupted run from a {@link #checkpoint()}: the files are cut back to their
+	 * length at the checkpoint and appended to.
+	 */
+	public ExportPatientSink(Path directory, Format format, boolean gzip, int rowsPerStatement, Position position, GenerationMetrics metrics) {
+		if (rowsPerStatement < 1) {
+			throw new IllegalArgumentException("rowsPerStatement has to be >= 1");
+		}
+		if (position.getNextPatientId() < 1) {
+			throw new IllegalArgumentException("firstPatientId has to be >= 1");
+		}
+		this.nextPatientId = position.getNextPatientId();
+		this.patientCount = position.getPatientCount();
+		this.admissionCount = position.getAdmissionCount();
+		this.patientDigest = position.getPatientDigest();
+		this.admissionDigest = position.getAdmissionDigest();
+		this.directory = directory;
+		this.format = format;
+		this.gzip = gzip;
+		this.rowsPerStatement = rowsPerStatement;
+		this.metrics = metrics;
+		long[] fileLengths = position.getFileLengths();
+		try {
+			Files.createDirectories(directory);
+			if (format == Format.CSV) {
+				patientWriter = open(fileName(PATIENT_TABLE + ".csv"), fileLengths, 0);
+				admissionWriter = open(fileName(ADMISSION_TABLE + ".csv"), fileLengths, 1);
+				patientValues = null;
+				admissionValues = null;
+			} else {
+				patientWriter = open(fileName("patients.sql"), fileLengths, 0);
+				admissionWriter = patientWriter;
+				patientValues = new StringBuilder();
+				admissionValues = new StringBuilder();
+			}
+		} catch (IOException e) {
+			throw new IllegalStateException("Unable to open the export files in " + directory, e);
+		}
+	}
+
+	@Override
+	public void add(Patient patient, Admission admission) {
+		patient.setCode(nextPatientId++);
+		if (admission != null) {
+			admission.setPatient(patient);
+			admission.setId(patient.getCode());
+		}
+		try {
+			long start = System.nanoTime();
+			if (format == Format.CSV) {
+				writeCsv(patientWriter, patient);
+			} else {
+				appendSql(patient);
+			}
+			long written = System.nanoTime();
+			metrics.record(GenerationMetrics.Stage.SAVE_PATIENT, written - start);
+			if (admission != null) {
+				if (format == Format.CSV) {
+					writeCsv(admissionWriter, admission);
+				} else {
+					appendSql(admission);
+				}
+				metrics.record(GenerationMetrics.Stage.SAVE_ADMISSION, System.nanoTime() - written);
+			}
+		} catch (IOException e) {
+			throw new IllegalStateException("Unable to write to the export files in " + directory, e);
+		}
+		patientCount++;
+		if (admission != null) {
+			admissionCount++;
+		}
+	}
+
+	@Override
+	public void flush() {
+		try {
+			if (format == Format.SQL) {
+				writeStatements();
+			}
+			patientWriter.flush();
+			admissionWriter.flush();
+		} catch (IOException e) {
+			throw new IllegalStateException("Unable to write to the export files in " + directory, e);
+		}
+	}
+
+	/**
+	 * Writes everything added so far to disk.
+	 *
+	 * @return the position to continue from if the run is interrupted later
+	 */
+	public Position checkpoint() {
+		flush();
+		try {
+			long[] fileLengths = admissionWriter != patientWriter
+					? new long[] { patientWriter.checkpoint(), admissionWriter.checkpoint() }
+					: new long[] { patientWriter.checkpoint() };
+			return new Position(nextPatientId, patientCount, admissionCount, patientDigest, admissionDigest, fileLengths);
+		} catch (IOException e) {
+			throw new IllegalStateException("Unable to write to the export files in " + directory, e);
+		}
+	}
+
+	@Override
+	public void close() {
+		try {
+			flush();
+			if (format == Format.CSV) {
+				writeLoadScript();
+			}
+		} finally {
+			try {
+				patientWriter.close();
+				if (admissionWriter != patientWriter) {
+					admissionWriter.close();
+				}
+			} catch (IOException e) {
+				LOGGER.warn("Unable to close the export files", e);
+			}
+		}
+		long elapsedNanos = System.nanoTime() - startNanos;
+		LOGGER.info("Export: {} patients and {} admissions to {} in {} ms ({} rows/sec)", patientCount, admissionCount, directory,
+				TimeUnit.NANOSECONDS.toMillis(elapsedNanos), (patientCount + admissionCount) * TimeUnit.SECONDS.toNanos(1) / Math.max(elapsedNanos, 1));
+	}
+
+	public long getPatientCount() {
+		return patientCount;
+	}
+
+	public long getAdmissionCount() {
+		return admissionCount;
+	}
+
+	public long getPatientDigest() {
+		return patientDigest;
+	}
+
+	public long getAdmissionDigest() {
+		return admissionDigest;
+	}
+
+	/**
+	 * @return the data files with the length and CRC-32 of their uncompressed content, complete after {@link #close()}
+	 */
+	public List<ExportedFile> getFiles() {
+		List<ExportedFile> files = new ArrayList<>();
+		files.add(new ExportedFile(format == Format.CSV ? fileName(PATIENT_TABLE + ".csv") : fileName("patients.sql"), patientWriter));
+		if (admissionWriter != patientWriter) {
+			files.add(new ExportedFile(fileName(ADMISSION_TABLE + ".csv"), admissionWriter));
+		}
+		return files;
+	}
+
+	private void writeCsv(ExportFile writer, Patient patient) throws IOException {
+		row.setLength(0);
+		appendPatient(row, patient);
+		patientDigest += rowHash(row, 0);
+		writer.write(row.append('\n'));
+	}
+
+	private void writeCsv(ExportFile writer, Admission admission) throws IOException {
+		row.setLength(0);
+		appendAdmission(row, admission);
+		admissionDigest += rowHash(row, 0);
+		writer.write(row.append('\n'));
+	}
+
+	/**
+	 * Appends the patient to the current statement, after writing the statements if they are full.
+	 */
+	private void appendSql(Patient patient) throws IOException {
+		if (statementPatients >= rowsPerStatement) {
+			writeStatements();
+		}
+		patientValues.append(statementPatients++ == 0 ? "(" : ",\n(");
+		int start = patientValues.length();
+		appendPatient(patientValues, patient);
+		patientDigest += rowHash(patientValues, start);
+		patientValues.append(')');
+	}
+
+	private void appendSql(Admission admission) {
+		admissionValues.append(statementAdmissions++ == 0 ? "(" : ",\n(");
+		int start = admissionValues.length();
+		appendAdmission(admissionValues, admission);
+		admissionDigest += rowHash(admissionValues, start);
+		admissionValues.append(')');
+	}
+
+	private void writeStatements() throws IOException {
+		if (statementPatients > 0) {
+			patientWriter.write(insertInto(PATIENT_TABLE, PATIENT_ID, PATIENT_COLUMNS));
+			patientWriter.write(patientValues.append(";\n"));
+		}
+		if (statementAdmissions > 0) {
+			patientWriter.write(insertInto(ADMISSION_TABLE, ADMISSION_ID, ADMISSION_COLUMNS));
+			patientWriter.write(admissionValues.append(";\n"));
+		}
+		patientValues.setLength(0);
+		admissionValues.setLength(0);
+		statementPatients = 0;
+		statementAdmissions = 0;
+	}
+
+	private void writeLoadScript() {
+		StringBuilder script = new StringBuilder();
+		appendLoadData(script, PATIENT_TABLE, PATIENT_ID, PATIENT_COLUMNS);
+		appendLoadData(script, ADMISSION_TABLE, ADMISSION_ID, ADMISSION_COLUMNS);
+		try {
+			Files.write(directory.resolve("load.sql"), script.toString().getBytes(StandardCharsets.UTF_8));
+		} catch (IOException e) {
+			throw new IllegalStateException("Unable to write the load script in " + directory, e);
+		}
+	}
+
+	private static void appendLoadData(StringBuilder script, String table, String idColumn, String[] columns) {
+		script.append("LOAD DATA LOCAL INFILE '").append(table).append(".csv' INTO TABLE ").append(table)
+				.append(" CHARACTER SET utf8mb4 FIELDS TERMINATED BY ',' OPTIONALLY ENCLOSED BY '\"' ESCAPED BY '\\\\'")
+				.append(" LINES TERMINATED BY '\\n' (").append(idColumn).append(", ").append(String.join(", ", columns)).append(");\n");
+	}
+
+	/**
+	 * FNV-1a over the characters from {@code start} to the end, finished with the SplitMix64 mixer so that the
+	 * sums of the hashes of different rows do not cancel out.
+	 */
+	static long rowHash(CharSequence text, int start) {
+		long hash = 0xCBF29CE484222325L;
+		for (int i = start; i < text.length(); i++) {
+			hash = (hash ^ text.charAt(i)) * 0x100000001B3L;
+		}
+		hash = (hash ^ (hash >>> 30)) * 0xBF58476D1CE4E5B9L;
+		hash = (hash ^ (hash >>> 27)) * 0x94D049BB133111EBL;
+		return hash ^ (hash >>> 31);
+	}
+
+	private static String insertInto(String table, String idColumn, String[] columns) {
+		return "INSERT INTO " + table + " (" + idColumn + ", " + String.join(", ", columns) + ") VALUES\n";
+	}
+
+	private void appendPatient(StringBuilder out, Patient patient) {
+		out.append(patient.getCode());
+		string(out, patient.getFirstName());
+		string(out, patient.getSecondName());
+		string(out, patient.getFirstName() + ' ' + patient.getSecondName());
+		date(out, patient.getBirthDate());
+		out.append(',').append(patient.getAge());
+		string(out, patient.getAgetype());
+		string(out, String.valueOf(patient.getSex()));
+		string(out, patient.getAddress());
+		string(out, patient.getCity());
+		string(out, patient.getNextKin());
+		string(out, patient.getTelephone());
+		string(out, patient.getNote());
+		string(out, patient.getMotherName());
+		string(out, String.valueOf(patient.getMother()));
+		string(out, patient.getFatherName());
+		string(out, String.valueOf(patient.getFather()));
+		string(out, patient.getBloodType());
+		string(out, String.valueOf(patient.getHasInsurance()));
+		string(out, String.valueOf(patient.getParentTogether()));
+		string(out, patient.getMaritalStatus());
+		string(out, patient.getProfession());
+		string(out, "N");
+	}
+
+	private void appendAdmission(StringBuilder out, Admission admission) {
+		out.append(admission.getId());
+		out.append(',').append(admission.getAdmitted());
+		string(out, admission.getType());
+		string(out, admission.getWard().getCode());
+		out.append(',').append(admission.getYProg());
+		out.append(',').append(admission.getPatient().getCode());
+		dateTime(out, admission.getAdmDate());
+		string(out, admission.getAdmType().getCode());
+		string(out, admission.getDiseaseIn().getCode());
+		string(out, admission.getDiseaseOut1() != null ? admission.getDiseaseOut1().getCode() : null);
+		dateTime(out, admission.getDisDate());
+		string(out, admission.getDisType() != null ? admission.getDisType().getCode() : null);
+		string(out, admission.getDeleted());
+		string(out, admission.getUserID());
+	}
+
+	private void date(StringBuilder out, LocalDate date) {
+		string(out, date != null ? date.toString() : null);
+	}
+
+	private void dateTime(StringBuilder out, LocalDateTime dateTime) {
+		string(out, dateTime != null ? DATE_TIME_FORMAT.format(dateTime) : null);
+	}
+
+	private void string(StringBuilder out, String value) {
+		out.append(',');
+		if (value == null) {
+			out.append(format == Format.CSV ? "\\N" : "NULL");
+			return;
+		}
+		char quote = format == Format.CSV ? '"' : '\'';
+		out.append(quote);
+		for (int i = 0; i < value.length(); i++) {
+			char c = value.charAt(i);
+			switch (c) {
+				case '\\':
+					out.append("\\\\");
+					break;
+				case '\n':
+					out.append("\\n");
+					break;
+				case '\r':
+					out.append("\\r");
+					break;
+				case '\0':
+					out.append("\\0");
+					break;
+				default:
+					if (c == quote) {
+						out.append('\\');
+					}
+					out.append(c);
+			}
+		}
+		out.append(quote);
+	}
+
+	private String fileName(String name) {
+		return gzip ? name + ".gz" : name;
+	}
+
+	private ExportFile open(String name, long[] fileLengths, int file) throws IOException {
+		Path path = directory.resolve(name);
+		if (fileLengths == null) {
+			return ExportFile.create(path, gzip, BUFFER_SIZE);
+		}
+		return ExportFile.resume(path, gzip, BUFFER_SIZE, fileLengths[file]);
+	}
+
+	/**
+	 * A data file written by the sink.
+	 */
+	public static final class ExportedFile {
+
+		private final String name;
+		private final long length;
+		private final long checksum;
+
+		private ExportedFile(String name, ExportFile writer) {
+			this.name = name;
+			this.length = writer.getLength();
+			this.checksum = writer.getChecksum();
+		}
+
+		public String getName() {
+			return name;
+		}
+
+		/**
+		 * @return length of the uncompressed content
+		 */
+		public long getLength() {
+			return length;
+		}
+
+		/**
+		 * @return CRC-32 of the uncompressed content
+		 */
+		public long getChecksum() {
+			return checksum;
+		}
+
+	}
+
+	/**
+	 * What has been exported up to a checkpoint.
+	 */
+	public static final class Position {
+
+		private final int nextPatientId;
+		private final long patientCount;
+		private final long admissionCount;
+		private final long patientDigest;
+		private final long admissionDigest;
+		private final long[] fileLengths;
+
+		/**
+		 * @param fileLengths lengths of the data files (see {@link ExportPatientSink#getFiles()}), {@code null} for
+		 * new files
+		 */
+		public Position(int nextPatientId, long patientCount, long admissionCount, long patientDigest, long admissionDigest, long[] fileLengths) {
+			this.nextPatientId = nextPatientId;
+			this.patientCount = patientCount;
+			this.admissionCount = admissionCount;
+			this.patientDigest = patientDigest;
+			this.admissionDigest = admissionDigest;
+			this.fileLengths = fileLengths;
+		}
+
+		public int getNextPatientId() {
+			return nextPatientId;
+		}
+
+		public long getPatientCount() {
+			return patientCount;
+		}
+
+		public long getAdmissionCount() {
+			return admissionCount;
+		}
+
+		public long getPatientDigest() {
+			return patientDigest;
+		}
+
+		public long getAdmissionDigest() {
+			return admissionDigest;
+		}
+
+		public long[] getFileLengths() {
+			return fileLengths;
+		}
+
+	}
+
+}
@@ -0,0 +1,368 @@
+/*
+ * Open Hospital (www.open-hospital.org)
+ * Copyright © 2021 Informatici Senza Frontiere (info@informaticisenzafrontiere.org)
+ *
+ * Open Hospital is a free and open source software for healthcare data management.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * https://www.gnu.org/licenses/gpl-3.0-standalone.html
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.isf.generate.sink;
+
+import static org.isf.generate.sink.PatientTables.ADMISSION_COLUMNS;
+import static org.isf.generate.sink.PatientTables.ADMISSION_TABLE;
+import static org.isf.generate.sink.PatientTables.PATIENT_COLUMNS;
+import static org.isf.generate.sink.PatientTables.PATIENT_TABLE;
+
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import javax.sql.DataSource;
+
+import org.isf.admission.model.Admission;
+import org.isf.generate.metrics.GenerationMetrics;
+import org.isf.patient.model.Patient;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Bulk loads patients and admissions straight into the OH database with plain JDBC.
+ * <p>
+ * Records are buffered and written in chunks of {@code batchSize} patients, every chunk in its own transaction.
+ * Patients are inserted first so that their generated keys can be used for the admissions of the same chunk;
+ * the generated keys of both are written back to the {@link Patient} and {@link Admission} objects.
+ * Nothing is read back from the database.
+ * <p>
+ * In {@link Mode#BATCH} mode the rows of a chunk are sent as one JDBC batch (add
+ * {@code rewriteBatchedStatements=true} to the MySQL url to let the driver collapse it), in
+ * {@link Mode#MULTI_ROW} mode the sink builds a single multi-row {@code INSERT} per chunk itself, so the chunk
+ * has to fit in the {@value #MAX_PLACEHOLDERS} placeholders MySQL allows in a statement.
+ */
+public class JdbcBatchPatientSink implements PatientSink {
+
+	public enum Mode {
+		BATCH, MULTI_ROW
+	}
+
+	/**
+	 * Placeholders allowed by MySQL in one prepared statement.
+	 */
+	public static final int MAX_PLACEHOLDERS = 65535;
+
+	/**
+	 * Largest chunk of a {@link Mode#MULTI_ROW} insert.
+	 */
+	public static final int MAX_MULTI_ROW_BATCH_SIZE = MAX_PLACEHOLDERS / PATIENT_COLUMNS.length;
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(JdbcBatchPatientSink.class);
+
+	private final Connection connection;
+	private final Mode mode;
+	private final int batchSize;
+	private final GenerationMetrics metrics;
+
+	private final List<Patient> patients;
+	private final List<Admission> admissions;
+
+	private PreparedStatement patientStatement;
+	private PreparedStatement admissionStatement;
+
+	private long patientCount;
+	private long admissionCount;
+	private long elapsedNanos;
+
+	public JdbcBatchPatientSink(DataSource dataSource, Mode mode, int batchSize, GenerationMetrics metrics) {
+		if (batchSize < 1) {
+			throw new IllegalArgumentException("batchSize has to be >= 1");
+		}
+		if (mode == Mode.MULTI_ROW && batchSize > MAX_MULTI_ROW_BATCH_SIZE) {
+			throw new IllegalArgumentException("batchSize has to be <= " + MAX_MULTI_ROW_BATCH_SIZE + " for multi-row inserts");
+		}
+		this.mode = mode;
+		this.batchSize = batchSize;
+		this.metrics = metrics;
+		this.patients = new ArrayList<>(batchSize);
+		this.admissions = new ArrayList<>(batchSize);
+		try {
+			connection = dataSource.getConnection();
+		} catch (SQLException e) {
+			throw new IllegalStateException("Unable to open the bulk load connection", e);
+		}
+		try {
+			connection.setAutoCommit(false);
+			patientStatement = prepareInsert(PATIENT_TABLE, PATIENT_COLUMNS, mode == Mode.BATCH ? 1 : batchSize);
+			admissionStatement = prepareInsert(ADMISSION_TABLE, ADMISSION_COLUMNS, mode == Mode.BATCH ? 1 : batchSize);
+		} catch (SQLException e) {
+			release();
+			throw new IllegalStateException("Unable to prepare the bulk load statements", e);
+		}
+	}
+
+	@Override
+	public void add(Patient patient, Admission admission) {
+		patients.add(patient);
+		if (admission != null) {
+			admission.setPatient(patient);
+			admissions.add(admission);
+		}
+		if (patients.size() >= batchSize) {
+			flush();
+		}
+	}
+
+	@Override
+	public void flush() {
+		if (patients.isEmpty()) {
+			return;
+		}
+		long start = System.nanoTime();
+		long patientsInserted;
+		try {
+			insertPatients();
+			patientsInserted = System.nanoTime();
+			insertAdmissions();
+			connection.commit();
+		} catch (SQLException e) {
+			rollback();
+			int failed = patients.size();
+			patients.clear();
+			admissions.clear();
+			throw new IllegalStateException("Bulk load of " + failed + " patients failed", e);
+		}
+		long end = System.nanoTime();
+		elapsedNanos += end - start;
+		// the commit is counted for the admissions, or for the patients if there are none
+		if (admissions.isEmpty()) {
+			metrics.record(GenerationMetrics.Stage.SAVE_PATIENT, end - start, patients.size());
+		} else {
+			metrics.record(GenerationMetrics.Stage.SAVE_PATIENT, patientsInserted - start, patients.size());
+			metrics.record(GenerationMetrics.Stage.SAVE_ADMISSION, end - patientsInserted, admissions.size());
+		}
+		patientCount += patients.size();
+		admissionCount += admissions.size();
+		LOGGER.debug("Committed chunk of {} patients and {} admissions", patients.size(), admissions.size());
+		patients.clear();
+		admissions.clear();
+	}
+
+	@Override
+	public void close() {
+		try {
+			flush();
+		} finally {
+			release();
+		}
+		LOGGER.info("Bulk load: {} patients and {} admissions in {} ms ({} rows/sec)", patientCount, admissionCount,
+				TimeUnit.NANOSECONDS.toMillis(elapsedNanos), getRowsPerSecond());
+	}
+
+	public long getPatientCount() {
+		return patientCount;
+	}
+
+	public long getAdmissionCount() {
+		return admissionCount;
+	}
+
+	/**
+	 * @return the number of rows (patients and admissions) written per second of database time
+	 */
+	public long getRowsPerSecond() {
+		if (elapsedNanos == 0) {
+			return 0;
+		}
+		return (patientCount + admissionCount) * TimeUnit.SECONDS.toNanos(1) / elapsedNanos;
+	}
+
+	private void insertPatients() throws SQLException {
+		PreparedStatement statement = statementFor(patientStatement, PATIENT_TABLE, PATIENT_COLUMNS, patients.size());
+		try {
+			int parameter = 1;
+			for (Patient patient : patients) {
+				parameter = bindPatient(statement, parameter, patient);
+				if (mode == Mode.BATCH) {
+					statement.addBatch();
+					parameter = 1;
+				}
+			}
+			execute(statement);
+			try (ResultSet keys = statement.getGeneratedKeys()) {
+				for (Patient patient : patients) {
+					patient.setCode(nextKey(keys));
+				}
+			}
+		} finally {
+			if (statement != patientStatement) {
+				statement.close();
+			}
+		}
+	}
+
+	private void insertAdmissions() throws SQLException {
+		if (admissions.isEmpty()) {
+			return;
+		}
+		PreparedStatement statement = statementFor(admissionStatement, ADMISSION_TABLE, ADMISSION_COLUMNS, admissions.size());
+		try {
+			int parameter = 1;
+			for (Admission admission : admissions) {
+				parameter = bindAdmission(statement, parameter, admission);
+				if (mode == Mode.BATCH) {
+					statement.addBatch();
+					parameter = 1;
+				}
+			}
+			execute(statement);
+			try (ResultSet keys = statement.getGeneratedKeys()) {
+				for (Admission admission : admissions) {
+					admission.setId(nextKey(keys));
+				}
+			}
+		} finally {
+			if (statement != admissionStatement) {
+				statement.close();
+			}
+		}
+	}
+
+	private static int bindPatient(PreparedStatement statement, int first, Patient patient) throws SQLException {
+		int i = first;
+		statement.setString(i++, patient.getFirstName());
+		statement.setString(i++, patient.getSecondName());
+		statement.setString(i++, patient.getFirstName() + ' ' + patient.getSecondName());
+		setDate(statement, i++, patient.getBirthDate());
+		statement.setInt(i++, patient.getAge());
+		statement.setString(i++, patient.getAgetype());
+		statement.setString(i++, String.valueOf(patient.getSex()));
+		statement.setString(i++, patient.getAddress());
+		statement.setString(i++, patient.getCity());
+		statement.setString(i++, patient.getNextKin());
+		statement.setString(i++, patient.getTelephone());
+		statement.setString(i++, patient.getNote());
+		statement.setString(i++, patient.getMotherName());
+		statement.setString(i++, String.valueOf(patient.getMother()));
+		statement.setString(i++, patient.getFatherName());
+		statement.setString(i++, String.valueOf(patient.getFather()));
+		statement.setString(i++, patient.getBloodType());
+		statement.setString(i++, String.valueOf(patient.getHasInsurance()));
+		statement.setString(i++, String.valueOf(patient.getParentTogether()));
+		statement.setString(i++, patient.getMaritalStatus());
+		statement.setString(i++, patient.getProfession());
+		statement.setString(i++, "N");
+		return i;
+	}
+
+	private static int bindAdmission(PreparedStatement statement, int first, Admission admission) throws SQLException {
+		int i = first;
+		statement.setInt(i++, admission.getAdmitted());
+		statement.setString(i++, admission.getType());
+		statement.setString(i++, admission.getWard().getCode());
+		statement.setInt(i++, admission.getYProg());
+		statement.setInt(i++, admission.getPatient().getCode());
+		setDateTime(statement, i++, admission.getAdmDate());
+		statement.setString(i++, admission.getAdmType().getCode());
+		statement.setString(i++, admission.getDiseaseIn().getCode());
+		statement.setString(i++, admission.getDiseaseOut1() != null ? admission.getDiseaseOut1().getCode() : null);
+		setDateTime(statement, i++, admission.getDisDate());
+		statement.setString(i++, admission.getDisType() != null ? admission.getDisType().getCode() : null);
+		statement.setString(i++, admission.getDeleted());
+		statement.setString(i++, admission.getUserID());
+		return i;
+	}
+
+	private void execute(PreparedStatement statement) throws SQLException {
+		if (mode == Mode.BATCH) {
+			statement.executeBatch();
+		} else {
+			statement.executeUpdate();
+		}
+	}
+
+	private PreparedStatement statementFor(PreparedStatement fullChunkStatement, String table, String[] columns, int rows) throws SQLException {
+		if (mode == Mode.BATCH || rows == batchSize) {
+			return fullChunkStatement;
+		}
+		return prepareInsert(table, columns, rows);
+	}
+
+	private PreparedStatement prepareInsert(String table, String[] columns, int rows) throws SQLException {
+		StringBuilder values = new StringBuilder("(?");
+		for (int i = 1; i < columns.length; i++) {
+			values.append(",?");
+		}
+		values.append(')');
+		StringBuilder sql = new StringBuilder("INSERT INTO ").append(table).append(" (").append(String.join(", ", columns)).append(") VALUES ")
+				.append(values);
+		for (int row = 1; row < rows; row++) {
+			sql.append(',').append(values);
+		}
+		return connection.prepareStatement(sql.toString(), Statement.RETURN_GENERATED_KEYS);
+	}
+
+	private static int nextKey(ResultSet keys) throws SQLException {
+		if (!keys.next()) {
+			throw new SQLException("The database returned fewer generated keys than inserted rows");
+		}
+		return keys.getInt(1);
+	}
+
+	private static void setDate(PreparedStatement statement, int parameter, LocalDate date) throws SQLException {
+		if (date == null) {
+			statement.setNull(parameter, Types.DATE);
+		} else {
+			statement.setDate(parameter, Date.valueOf(date));
+		}
+	}
+
+	private static void setDateTime(PreparedStatement statement, int parameter, LocalDateTime dateTime) throws SQLException {
+		if (dateTime == null) {
+			statement.setNull(parameter, Types.TIMESTAMP);
+		} else {
+			statement.setTimestamp(parameter, Timestamp.valueOf(dateTime));
+		}
+	}
+
+	private void release() {
+		for (AutoCloseable resource : new AutoCloseable[] { patientStatement, admissionStatement, connection }) {
+			if (resource != null) {
+				try {
+					resource.close();
+				} catch (Exception e) {
+					LOGGER.warn("Unable to release the bulk load connection", e);
+				}
+			}
+		}
+	}
+
+	private void rollback() {
+		try {
+			connection.rollback();
+		} catch (SQLException e) {
+			LOGGER.warn("Rollback of the bulk load chunk failed", e);
+		}
+	}
+
+}
@@ -0,0 +1,71 @@
+/*
+ * Open Hospital (www.open-hospital.org)
+ * Copyright © 2021 Informatici Senza Frontiere (info@informaticisenzafrontiere.org)
+ *
+ * Open Hospital is a free and open source software for healthcare data management.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * https://www.gnu.org/licenses/gpl-3.0-standalone.html
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.isf.generate.sink;
+
+import org.isf.admission.manager.AdmissionBrowserManager;
+import org.isf.admission.model.Admission;
+import org.isf.generate.metrics.GenerationMetrics;
+import org.isf.patient.manager.PatientBrowserManager;
+import org.isf.patient.model.Patient;
+import org.isf.utils.exception.OHServiceException;
+
+/**
+ * Persists every record as soon as it is added through the OH-core managers.
+ */
+public class ManagerPatientSink implements PatientSink {
+
+	private final PatientBrowserManager patientManager;
+	private final AdmissionBrowserManager admissionManager;
+	private final GenerationMetrics metrics;
+
+	public ManagerPatientSink(PatientBrowserManager patientManager, AdmissionBrowserManager admissionManager, GenerationMetrics metrics) {
+		this.patientManager = patientManager;
+		this.admissionManager = admissionManager;
+		this.metrics = metrics;
+	}
+
+	@Override
+	public void add(Patient patient, Admission admission) throws OHServiceException {
+		long start = System.nanoTime();
+		Patient savedPatient = patientManager.savePatient(patient);
+		long saved = System.nanoTime();
+		metrics.record(GenerationMetrics.Stage.SAVE_PATIENT, saved - start);
+
+		if (admission == null) {
+			return;
+		}
+		admission.setPatient(savedPatient);
+		admission.setId(admissionManager.newAdmissionReturnKey(admission));
+		metrics.record(GenerationMetrics.Stage.SAVE_ADMISSION, System.nanoTime() - saved);
+	}
+
+	@Override
+	public void flush() {
+		// every record is persisted immediately
+	}
+
+	@Override
+	public void close() {
+		// nothing to release
+	}
+
+}
@@ -0,0 +1,55 @@
+/*
+ * Open Hospital (www.open-hospital.org)
+ * Copyright © 2021 Informatici Senza Frontiere (info@informaticisenzafrontiere.org)
+ *
+ * Open Hospital is a free and open source software for healthcare data management.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * https://www.gnu.org/licenses/gpl-3.0-standalone.html
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.isf.generate.sink;
+
+import org.isf.admission.model.Admission;
+import org.isf.patient.model.Patient;
+import org.isf.utils.exception.OHServiceException;
+
+/**
+ * Destination for the generated patients and their (optional) admissions.
+ * <p>
+ * Implementations are free to buffer records; callers must {@link #flush()} or {@link #close()} the sink
+ * to make sure that everything that has been added is actually written.
+ */
+public interface PatientSink extends AutoCloseable {
+
+	/**
+	 * Adds a generated patient to the sink.
+	 *
+	 * @param patient the generated patient
+	 * @param admission the admission of the patient or {@code null} if the patient was not admitted
+	 * @throws OHServiceException if the record cannot be written
+	 */
+	void add(Patient patient, Admission admission) throws OHServiceException;
+
+	/**
+	 * Writes all buffered records.
+	 *
+	 * @throws OHServiceException if the records cannot be written
+	 */
+	void flush() throws OHServiceException;
+
+	@Override
+	void close() throws OHServiceException;
+
+}
@@ -0,0 +1,45 @@
+/*
+ * Open Hospital (www.open-hospital.org)
+ * Copyright © 2021 Informatici Senza Frontiere (info@informaticisenzafrontiere.org)
+ *
+ * Open Hospital is a free and open source software for healthcare data management.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * https://www.gnu.org/licenses/gpl-3.0-standalone.html
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.isf.generate.sink;
+
+/**
+ * Tables and columns written by the sinks that bypass the OH-core managers. Values are always written in the
+ * order of the column arrays.
+ */
+final class PatientTables {
+
+	static final String PATIENT_TABLE = "PATIENT";
+	static final String PATIENT_ID = "PAT_ID";
+	static final String[] PATIENT_COLUMNS = { "PAT_FNAME", "PAT_SNAME", "PAT_NAME", "PAT_BDATE", "PAT_AGE", "PAT_AGETYPE", "PAT_SEX", "PAT_ADDR",
+			"PAT_CITY", "PAT_NEXT_KIN", "PAT_TELE", "PAT_NOTE", "PAT_MOTH_NAME", "PAT_MOTH", "PAT_FATH_NAME", "PAT_FATH", "PAT_BTYPE", "PAT_ESTA",
+			"PAT_PTOGE", "PAT_MARITAL_STATUS", "PAT_PROFESSION", "PAT_DELETED" };
+
+	static final String ADMISSION_TABLE = "ADMISSION";
+	static final String ADMISSION_ID = "ADM_ID";
+	static final String[] ADMISSION_COLUMNS = { "ADM_IN", "ADM_TYPE", "ADM_WRD_ID_A", "ADM_YPROG", "ADM_PAT_ID", "ADM_DATE_ADM",
+			"ADM_ADMT_ID_A_ADM", "ADM_IN_DIS_ID_A", "ADM_OUT_DIS_ID_A", "ADM_DATE_DIS", "ADM_DIST_ID_A", "ADM_DELETED", "ADM_USR_ID_A" };
+
+	private PatientTables() {
+
+	}
+
+}
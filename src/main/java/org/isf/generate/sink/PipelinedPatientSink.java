@@ -0,0 +1,256 @@
+/*
+ * Open Hospital (www.open-hospital.org)
+ * Copyright © 2021 Informatici Senza Frontiere (info@informaticisenzafrontiere.org)
+ *
+ * Open Hospital is a free and open source software for healthcare data management.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * https://www.gnu.org/licenses/gpl-3.0-standalone.html
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.isf.generate.sink;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+import org.isf.admission.model.Admission;
+import org.isf.patient.model.Patient;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
+
+/**
+ * Decouples generation from persistence: {@link #add(Patient, Admission)} puts the record into a bounded buffer and
+ * returns, while writer threads take the records in batches and write them to delegate sinks of their own.
+ * <p>
+ * The caller blocks while the buffer is full, so a run goes at about the speed of the slower of generation and
+ * persistence instead of the sum of both. Every writer gets its own delegate from the factory (for instance its own
+ * JDBC connection); a patient and its admission always go to the same writer. With a single writer the records are
+ * written in the order they were added, with more writers the order between the writers is not defined.
+ * <p>
+ * The first failure of a writer stops the pipeline and is rethrown, wrapped in an {@link IllegalStateException}, by
+ * the next {@link #add(Patient, Admission)}, {@link #flush()} or {@link #close()}.
+ */
+public class PipelinedPatientSink implements PatientSink {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(PipelinedPatientSink.class);
+
+	private static final long POLL_MILLIS = 100;
+
+	/**
+	 * Passed around among the writers until all of them have seen it, like the marker of a flush.
+	 */
+	private static final Record CLOSE = new Record(null, null, null);
+
+	private final ArrayBlockingQueue<Record> buffer;
+	private final int batchSize;
+	private final List<Thread> writers = new ArrayList<>();
+	private final AtomicReference<Throwable> failure = new AtomicReference<>();
+	private final AtomicLong idleNanos = new AtomicLong();
+	private final Map<String, String> diagnosticContext = MDC.getCopyOfContextMap();
+
+	private long recordCount;
+	private long blockedNanos;
+	private boolean closed;
+
+	/**
+	 * @param sinkFactory creates the delegate sink of a writer; called {@code writers} times on the calling thread
+	 * @param writers number of writer threads
+	 * @param capacity number of records the buffer holds
+	 * @param batchSize maximum number of records a writer takes from the buffer at once
+	 */
+	public PipelinedPatientSink(Supplier<? extends PatientSink> sinkFactory, int writers, int capacity, int batchSize) {
+		if (writers < 1 || capacity < 1 || batchSize < 1) {
+			throw new IllegalArgumentException("writers, capacity and batchSize have to be >= 1");
+		}
+		this.buffer = new ArrayBlockingQueue<>(capacity);
+		this.batchSize = batchSize;
+		try {
+			for (int i = 0; i < writers; i++) {
+				PatientSink sink = sinkFactory.get();
+				Thread writer = new Thread(() -> write(sink), "sink-writer-" + (i + 1));
+				writer.setDaemon(true);
+				this.writers.add(writer);
+				writer.start();
+			}
+		} catch (RuntimeException e) {
+			// let the writers started so far release their sinks
+			close();
+			throw e;
+		}
+	}
+
+	@Override
+	public void add(Patient patient, Admission admission) {
+		put(new Record(patient, admission, null));
+		recordCount++;
+	}
+
+	/**
+	 * Waits until every record added so far has been written and every writer has flushed its sink.
+	 */
+	@Override
+	public void flush() {
+		CountDownLatch flushed = new CountDownLatch(writers.size());
+		put(new Record(null, null, flushed));
+		await(flushed);
+	}
+
+	@Override
+	public void close() {
+		if (closed) {
+			return;
+		}
+		closed = true;
+		try {
+			if (failure.get() == null) {
+				put(CLOSE);
+			}
+		} finally {
+			for (Thread writer : writers) {
+				if (failure.get() != null) {
+					writer.interrupt();
+				}
+				join(writer);
+			}
+		}
+		checkFailure();
+		LOGGER.info("Pipeline: {} records through {} writer(s); generation waited {} ms for the writers, the writers waited {} ms for records",
+				recordCount, writers.size(), TimeUnit.NANOSECONDS.toMillis(blockedNanos), TimeUnit.NANOSECONDS.toMillis(idleNanos.get()));
+	}
+
+	public long getRecordCount() {
+		return recordCount;
+	}
+
+	private void put(Record record) {
+		checkFailure();
+		try {
+			if (!buffer.offer(record)) {
+				long start = System.nanoTime();
+				while (!buffer.offer(record, POLL_MILLIS, TimeUnit.MILLISECONDS)) {
+					checkFailure();
+				}
+				blockedNanos += System.nanoTime() - start;
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while waiting for the sink writers", e);
+		}
+	}
+
+	private void await(CountDownLatch latch) {
+		try {
+			while (!latch.await(POLL_MILLIS, TimeUnit.MILLISECONDS)) {
+				checkFailure();
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while waiting for the sink writers", e);
+		}
+	}
+
+	private void checkFailure() {
+		Throwable cause = failure.get();
+		if (cause != null) {
+			throw new IllegalStateException("Writing the generated records failed", cause);
+		}
+	}
+
+	private void write(PatientSink sink) {
+		if (diagnosticContext != null) {
+			MDC.setContextMap(diagnosticContext);
+		}
+		List<Record> batch = new ArrayList<>(batchSize);
+		try {
+			while (writeBatch(sink, batch)) {
+				batch.clear();
+			}
+		} catch (InterruptedException e) {
+			// close() after another writer failed
+		} catch (Exception | Error e) {
+			failure.compareAndSet(null, e);
+		} finally {
+			try {
+				sink.close();
+			} catch (Exception | Error e) {
+				failure.compareAndSet(null, e);
+			}
+		}
+	}
+
+	/**
+	 * @return {@code false} when the writer has to stop
+	 */
+	private boolean writeBatch(PatientSink sink, List<Record> batch) throws Exception {
+		long start = System.nanoTime();
+		batch.add(buffer.take());
+		idleNanos.addAndGet(System.nanoTime() - start);
+		buffer.drainTo(batch, batchSize - 1);
+		for (Record record : batch) {
+			if (record == CLOSE) {
+				// nothing follows, there is room for it again
+				buffer.offer(CLOSE);
+				return false;
+			}
+			if (record.flushed != null) {
+				sink.flush();
+				record.flushed.countDown();
+				if (record.flushed.getCount() > 0) {
+					buffer.put(record);
+				}
+				// do not take the marker twice
+				while (!record.flushed.await(POLL_MILLIS, TimeUnit.MILLISECONDS)) {
+					if (failure.get() != null) {
+						return false;
+					}
+				}
+				continue;
+			}
+			sink.add(record.patient, record.admission);
+		}
+		return true;
+	}
+
+	private static void join(Thread writer) {
+		try {
+			writer.join();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while waiting for the sink writers", e);
+		}
+	}
+
+	private static final class Record {
+
+		private final Patient patient;
+		private final Admission admission;
+		private final CountDownLatch flushed;
+
+		private Record(Patient patient, Admission admission, CountDownLatch flushed) {
+			this.patient = patient;
+			this.admission = admission;
+			this.flushed = flushed;
+		}
+
+	}
+
+}
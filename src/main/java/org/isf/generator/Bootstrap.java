@@ -21,13 +21,20 @@
  */
 package org.isf.generator;
 
-import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
 import java.util.Locale;
+import java.util.Random;
 
+import org.isf.generator.data.CompiledDataMaster;
 import org.isf.generator.data.DataMaster;
-import org.isf.generator.data.DataMasterModule;
-import org.isf.generator.data.MapBasedDataMaster;
+import org.isf.generator.data.MappedDataMaster;
+import org.isf.generator.data.SeedCorpus;
+import org.isf.generator.producer.BaseProducer;
 import org.isf.generator.producer.RandomGenerator;
+import org.isf.generator.producer.TimeProvider;
+import org.isf.generator.producer.company.CompanyPool;
+import org.isf.generator.producer.unique.UniqueIdentifiers;
 import org.isf.generator.producer.util.LanguageCode;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -49,9 +56,19 @@ import com.google.inject.Provider;
  * data to be <strong>deterministic</strong> based on it, such as if you want the same test
  * ID in a database to always result in the same fake name.
  * </li>
+ * <li><tt>randomAlgorithm</tt>: The random number algorithm, {@link RandomGenerator.Algorithm#JDK} by default.</li>
+ * <li><tt>referenceTime</tt>: The time used as now for dates relative to today, by default the system clock when the
+ * Generator is built.</li>
+ * <li><tt>seedCorpus</tt>: A binary seed corpus (see {@link SeedCorpus}) read instead of the seed files.</li>
+ * <li><tt>uniqueIdentifiers</tt>: The identifiers, such as telephone numbers, that are never generated twice.</li>
+ * <li><tt>factoryWiring</tt>: How the entity factories are wired, {@link GeneratorModule.FactoryWiring#ASSISTED_INJECT} by
+ * default.</li>
+ * <li><tt>companyPool</tt>: The number of companies generated once and shared as the employers of the persons (see
+ * {@link CompanyPool}), none by default.</li>
  * </ul>
  * Obviously, don't set both <tt>random</tt> and <tt>randomSeed</tt>, only the last one you set will
  * actually take effect.
+ * <p>The same configuration can be turned into a {@link ParallelGenerator} with {@link Builder#buildParallel(int)}.</p>
  */
 public class Bootstrap {
 
@@ -59,13 +76,41 @@ public class Bootstrap {
 
 	private static final String DATA_FILE_PREFIX = "seed";
 
+	/**
+	 * Random substream of the company pool; the units of a {@link ParallelGenerator} use the streams from 0.
+	 */
+	private static final long COMPANY_POOL_STREAM = -1;
+
 	private Bootstrap() {
 
 	}
 
 	public static Generator createGenerator(DataMaster dataMaster, Locale locale, RandomGenerator randomGenerator) {
+		return createGenerator(dataMaster, locale, randomGenerator, new TimeProvider());
+	}
+
+	public static Generator createGenerator(DataMaster dataMaster, Locale locale, RandomGenerator randomGenerator, TimeProvider timeProvider) {
+		return createGenerator(dataMaster, locale, randomGenerator, timeProvider, UniqueIdentifiers.none());
+	}
+
+	public static Generator createGenerator(DataMaster dataMaster, Locale locale, RandomGenerator randomGenerator, TimeProvider timeProvider,
+			UniqueIdentifiers uniqueIdentifiers) {
+		return createGenerator(dataMaster, locale, randomGenerator, timeProvider, uniqueIdentifiers, GeneratorModule.FactoryWiring.ASSISTED_INJECT);
+	}
+
+	public static Generator createGenerator(DataMaster dataMaster, Locale locale, RandomGenerator randomGenerator, TimeProvider timeProvider,
+			UniqueIdentifiers uniqueIdentifiers, GeneratorModule.FactoryWiring factoryWiring) {
+		return createGenerator(dataMaster, locale, randomGenerator, timeProvider, uniqueIdentifiers, factoryWiring, CompanyPool.none());
+	}
+
+	public static Generator createGenerator(DataMaster dataMaster, Locale locale, RandomGenerator randomGenerator, TimeProvider timeProvider,
+			UniqueIdentifiers uniqueIdentifiers, GeneratorModule.FactoryWiring factoryWiring, CompanyPool companyPool) {
 
 		GeneratorModule generatorModule = getGeneratorModuleForLocale(dataMaster, locale, randomGenerator);
+		generatorModule.setTimeProvider(timeProvider);
+		generatorModule.setUniqueIdentifiers(uniqueIdentifiers);
+		generatorModule.setFactoryWiring(factoryWiring);
+		generatorModule.setCompanyPool(companyPool);
 
 		Injector injector = Guice.createInjector(generatorModule);
 
@@ -74,15 +119,6 @@ public class Bootstrap {
 		return generatorFactory.createGenerator();
 	}
 
-	private static void fillDefaultDataMaster(MapBasedDataMaster dataMaster, Locale locale, String filePrefix) {
-		try {
-			dataMaster.readResources(filePrefix + ".yml");
-			dataMaster.readResources(filePrefix + "_" + locale.getLanguage() + ".yml");
-		} catch (IOException e) {
-			throw new IllegalStateException(e);
-		}
-	}
-
 	/**
 	 * Creates a Builder that will let you configure a Generator's fields one by one.
 	 *
@@ -175,13 +211,17 @@ public class Bootstrap {
 
 		private Locale locale = Locale.ENGLISH;
 		private String filePrefix = DATA_FILE_PREFIX;
+		private RandomGenerator.Algorithm randomAlgorithm = RandomGenerator.Algorithm.JDK;
 		private RandomGenerator randomGenerator = new RandomGenerator();
-		private DataMaster dataMaster;
-
-		private MapBasedDataMaster getDefaultDataMaster() {
-			Injector injector = Guice.createInjector(new DataMasterModule(randomGenerator));
-			return injector.getInstance(MapBasedDataMaster.class);
-		}
+		private Long randomSeed;
+		private LocalDateTime referenceTime;
+		private Provider<DataMaster> dataMasterProvider;
+		private Path seedCorpus;
+		private UniqueIdentifiers uniqueIdentifiers = UniqueIdentifiers.none();
+		private GeneratorModule.FactoryWiring factoryWiring = GeneratorModule.FactoryWiring.ASSISTED_INJECT;
+		private int companyPoolSize;
+		private double companyPoolExponent = CompanyPool.DEFAULT_EXPONENT;
+		private CompanyPool companyPool;
 
 		private Builder() {
 
@@ -217,18 +257,113 @@ public class Bootstrap {
 		 * @return the same Builder (for chaining).
 		 */
 		public Builder withRandomSeed(int randomSeed) {
-			this.randomGenerator = new RandomGenerator(randomSeed);
+			return withRandomSeed((long) randomSeed);
+		}
+
+		/**
+		 * Sets the random seed to use to pick things randomly, such as the seed of a {@link ParallelGenerator}
+		 * picked at random.
+		 *
+		 * @param randomSeed The random seed to use.
+		 * @return the same Builder (for chaining).
+		 */
+		public Builder withRandomSeed(long randomSeed) {
+			this.randomSeed = randomSeed;
+			this.randomGenerator = createRandomGenerator();
+			return this;
+		}
+
+		/**
+		 * Sets the random number algorithm. {@link RandomGenerator.Algorithm#XOROSHIRO} is considerably faster than
+		 * the default, but yields different data for the same random seed.
+		 *
+		 * @param randomAlgorithm The algorithm to use.
+		 * @return the same Builder (for chaining).
+		 */
+		public Builder withRandomAlgorithm(RandomGenerator.Algorithm randomAlgorithm) {
+			this.randomAlgorithm = randomAlgorithm;
+			this.randomGenerator = createRandomGenerator();
+			return this;
+		}
+
+		/**
+		 * Fixes the current time seen by the resulting Generator, so that dates and ages relative to today (birth,
+		 * admission and discharge dates) do not depend on when the data is generated.
+		 *
+		 * @param referenceTime The time to use as now, {@code null} for the system clock.
+		 * @return the same Builder (for chaining).
+		 */
+		public Builder withReferenceTime(LocalDateTime referenceTime) {
+			this.referenceTime = referenceTime;
 			return this;
 		}
 
 		/**
 		 * Sets a custom DataMaster implementation.
 		 *
-		 * @param dataMasterProvider The random seed to use.
+		 * @param dataMasterProvider The provider of the DataMaster, called once per built Generator.
 		 * @return the same Builder (for chaining).
 		 */
 		public Builder withDataMasterProvider(Provider<DataMaster> dataMasterProvider) {
-			this.dataMaster = dataMasterProvider.get();
+			this.dataMasterProvider = dataMasterProvider;
+			return this;
+		}
+
+		/**
+		 * Reads the seed data from a memory mapped corpus written by
+		 * {@link org.isf.generator.data.SeedCorpusWriter} instead of the seed files of the classpath.
+		 *
+		 * @param seedCorpus The corpus file, {@code null} for the seed files.
+		 * @return the same Builder (for chaining).
+		 */
+		public Builder withSeedCorpus(Path seedCorpus) {
+			this.seedCorpus = seedCorpus;
+			return this;
+		}
+
+		/**
+		 * Makes identifiers unique: a generated value that was generated before is replaced. The same instance is
+		 * shared by all the Generators built by this Builder, including the workers of a {@link ParallelGenerator}.
+		 *
+		 * @param uniqueIdentifiers The identifiers to make unique, {@link UniqueIdentifiers#none()} by default.
+		 * @return the same Builder (for chaining).
+		 */
+		public Builder withUniqueIdentifiers(UniqueIdentifiers uniqueIdentifiers) {
+			this.uniqueIdentifiers = uniqueIdentifiers;
+			return this;
+		}
+
+		/**
+		 * Sets how the person, company, IBAN and hospital visit factories are wired. With
+		 * {@link GeneratorModule.FactoryWiring#DIRECT} Guice is only used to bootstrap the Generator.
+		 *
+		 * @param factoryWiring The wiring, {@link GeneratorModule.FactoryWiring#ASSISTED_INJECT} by default.
+		 * @return the same Builder (for chaining).
+		 */
+		public Builder withFactoryWiring(GeneratorModule.FactoryWiring factoryWiring) {
+			this.factoryWiring = factoryWiring;
+			return this;
+		}
+
+		/**
+		 * Gives the persons their employers from a pool of companies generated once, picked with a Zipf-like
+		 * popularity, instead of generating a company for every person. The pool is drawn from its own random
+		 * substream of the random seed and shared by all the workers of a {@link ParallelGenerator}.
+		 *
+		 * @param size The number of companies, 0 (the default) for a company per person.
+		 * @param exponent The exponent s of the popularity 1 / rank<sup>s</sup>, 0 for uniform picks
+		 * ({@link CompanyPool#DEFAULT_EXPONENT} by default).
+		 * @return the same Builder (for chaining).
+		 */
+		public Builder withCompanyPool(int size, double exponent) {
+			if (size < 0) {
+				throw new IllegalArgumentException("size has to be >= 0");
+			}
+			if (!(exponent >= 0)) {
+				throw new IllegalArgumentException("exponent has to be >= 0");
+			}
+			this.companyPoolSize = size;
+			this.companyPoolExponent = exponent;
 			return this;
 		}
 
@@ -238,11 +373,69 @@ public class Bootstrap {
 		 * @return Generator instance
 		 */
 		public Generator build() {
-			if (dataMaster == null) {
-				dataMaster = getDefaultDataMaster();
-				fillDefaultDataMaster((MapBasedDataMaster) dataMaster, locale, filePrefix);
+			return build(randomGenerator);
+		}
+
+		/**
+		 * Returns a ParallelGenerator spreading the work over {@code threads} worker threads. Every worker gets
+		 * its own Generator configured like this Builder; the random seed set with {@link #withRandomSeed(int)}
+		 * is the master seed of the independent substreams (a random one is picked if none was set).
+		 *
+		 * @param threads number of worker threads
+		 * @return ParallelGenerator instance
+		 */
+		public ParallelGenerator buildParallel(int threads) {
+			Builder copy = copy();
+			// one snapshot of the clock for all the workers, so that they agree on today
+			copy.referenceTime = referenceTime != null ? referenceTime : LocalDateTime.now();
+			long seed = randomSeed != null ? randomSeed : new Random().nextLong();
+			copy.companyPool = createCompanyPool(new RandomGenerator(randomAlgorithm, RandomGenerator.deriveSeed(seed, COMPANY_POOL_STREAM)));
+			return new ParallelGenerator(copy, seed, threads);
+		}
+
+		private Builder copy() {
+			Builder copy = new Builder();
+			copy.locale = locale;
+			copy.filePrefix = filePrefix;
+			copy.dataMasterProvider = dataMasterProvider;
+			copy.seedCorpus = seedCorpus;
+			copy.uniqueIdentifiers = uniqueIdentifiers;
+			copy.factoryWiring = factoryWiring;
+			copy.randomAlgorithm = randomAlgorithm;
+			copy.referenceTime = referenceTime;
+			return copy;
+		}
+
+		private CompanyPool createCompanyPool(RandomGenerator poolRandomGenerator) {
+			if (companyPoolSize == 0) {
+				return CompanyPool.none();
+			}
+			Generator poolGenerator = copy().build(poolRandomGenerator);
+			return CompanyPool.generate(poolGenerator::company, companyPoolSize, companyPoolExponent);
+		}
+
+		RandomGenerator createRandomGenerator() {
+			if (randomSeed != null) {
+				return new RandomGenerator(randomAlgorithm, randomSeed);
+			}
+			return new RandomGenerator(randomAlgorithm);
+		}
+
+		Generator build(RandomGenerator randomGenerator) {
+			DataMaster dataMaster;
+			if (dataMasterProvider != null) {
+				dataMaster = dataMasterProvider.get();
+			} else if (seedCorpus != null) {
+				dataMaster = new MappedDataMaster(SeedCorpus.open(seedCorpus), new BaseProducer(randomGenerator));
+			} else {
+				dataMaster = CompiledDataMaster.forResources(filePrefix, locale, new BaseProducer(randomGenerator));
+			}
+			CompanyPool pool = companyPool;
+			if (pool == null) {
+				pool = createCompanyPool(randomSeed != null ? new RandomGenerator(randomAlgorithm, RandomGenerator.deriveSeed(randomSeed, COMPANY_POOL_STREAM))
+						: new RandomGenerator(randomAlgorithm));
 			}
-			return createGenerator(dataMaster, locale, randomGenerator);
+			return createGenerator(dataMaster, locale, randomGenerator, new TimeProvider(referenceTime), uniqueIdentifiers, factoryWiring, pool);
 		}
 
 	}
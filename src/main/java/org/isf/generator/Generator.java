@@ -41,8 +41,12 @@ import org.isf.generator.producer.payment.IBAN;
 import org.isf.generator.producer.payment.IBANFactory;
 import org.isf.generator.producer.payment.IBANProperties;
 import org.isf.generator.producer.person.Person;
+import org.isf.generator.producer.person.PersonBatch;
+import org.isf.generator.producer.person.PersonBatchProducer;
 import org.isf.generator.producer.person.PersonFactory;
 import org.isf.generator.producer.person.PersonProperties;
+import org.isf.generator.producer.person.PersonProvider;
+import org.isf.generator.producer.person.PersonSpec;
 import org.isf.generator.producer.text.TextProducer;
 
 import com.google.inject.Provider;
@@ -58,10 +62,13 @@ public final class Generator {
 	private final CompanyFactory companyFactory;
 	private final IBANFactory ibanFactory;
 	private final HospitalVisitFactory hospitalVisitFactory;
+	private final PersonBatchProducer personBatchProducer;
+	private final ThreadLocal<PersonProvider> personProvider;
 
 	@Inject
 	Generator(TextProducer textProducer, PersonFactory personFactory, NetworkProducer networkProducer, BaseProducer baseProducer, DateProducer dateProducer,
-			CreditCardProvider creditCardProvider, CompanyFactory companyFactory, IBANFactory ibanFactory, HospitalVisitFactory hospitalVisitFactory) {
+			CreditCardProvider creditCardProvider, CompanyFactory companyFactory, IBANFactory ibanFactory, HospitalVisitFactory hospitalVisitFactory,
+			PersonBatchProducer personBatchProducer) {
 		this.textProducer = textProducer;
 		this.personFactory = personFactory;
 		this.networkProducer = networkProducer;
@@ -71,6 +78,8 @@ public final class Generator {
 		this.companyFactory = companyFactory;
 		this.ibanFactory = ibanFactory;
 		this.hospitalVisitFactory = hospitalVisitFactory;
+		this.personBatchProducer = personBatchProducer;
+		this.personProvider = ThreadLocal.withInitial(personFactory::producePersonProvider);
 	}
 
 	public static Generator create() {
@@ -108,6 +117,35 @@ public final class Generator {
 		return personFactory.producePersonProvider(personProperties).get();
 	}
 
+	/**
+	 * Use this method for many fake persons described once. Every thread reuses one provider, reset between
+	 * persons, so apart from the person itself nothing is allocated for the spec. The person is the same as the
+	 * one returned by {@link #person(PersonProperties.PersonProperty...)} with the equivalent properties.
+	 *
+	 * @param spec desired person features
+	 * @return A {@link org.isf.generator.producer.person.Person} instance
+	 */
+	public Person person(PersonSpec spec) {
+		PersonProvider provider = personProvider.get();
+		provider.reset();
+		spec.applyTo(provider, baseProducer);
+		return provider.get();
+	}
+
+	/**
+	 * Use this method for many fake persons with the fields of a patient, stored column by column. The persons
+	 * are the same as those returned by {@link #person(PersonProperties.PersonProperty...)} with these fields.
+	 *
+	 * @param batch batch the persons are appended to
+	 * @param count number of persons
+	 * @param sex sex of the persons, {@code null} for a random one
+	 * @param minAge minimal age (inclusive)
+	 * @param maxAge maximal age (inclusive)
+	 */
+	public void persons(PersonBatch batch, int count, Person.Sex sex, int minAge, int maxAge) {
+		personBatchProducer.fill(batch, count, sex, minAge, maxAge);
+	}
+
 	/**
 	 * Use this method to generate fake company
 	 *
@@ -23,42 +23,101 @@ package org.isf.generator;
 
 import org.isf.generator.data.DataMaster;
 import org.isf.generator.producer.RandomGenerator;
+import org.isf.generator.producer.TimeProvider;
 import org.isf.generator.producer.company.CompanyFactory;
+import org.isf.generator.producer.company.CompanyPool;
 import org.isf.generator.producer.company.CompanyProvider;
+import org.isf.generator.producer.company.DefaultCompanyFactory;
 import org.isf.generator.producer.company.DefaultCompanyProvider;
+import org.isf.generator.producer.hospitalvisit.DefaultHospitalVisitFactory;
 import org.isf.generator.producer.hospitalvisit.DefaultHospitalVisitProvider;
+import org.isf.generator.producer.hospitalvisit.HospitalReferenceDataCache;
 import org.isf.generator.producer.hospitalvisit.HospitalVisitFactory;
 import org.isf.generator.producer.hospitalvisit.HospitalVisitProvider;
+import org.isf.generator.producer.payment.DefaultIBANFactory;
 import org.isf.generator.producer.payment.DefaultIBANProvider;
 import org.isf.generator.producer.payment.IBANFactory;
 import org.isf.generator.producer.payment.IBANProvider;
+import org.isf.generator.producer.person.DefaultPersonFactory;
 import org.isf.generator.producer.person.DefaultPersonProvider;
 import org.isf.generator.producer.person.PersonFactory;
 import org.isf.generator.producer.person.PersonProvider;
+import org.isf.generator.producer.unique.UniqueIdentifiers;
 
 import com.google.inject.AbstractModule;
+import com.google.inject.Singleton;
 import com.google.inject.assistedinject.FactoryModuleBuilder;
 
 public abstract class GeneratorModule extends AbstractModule {
 
+	/**
+	 * How the person, company, IBAN and hospital visit factories are wired.
+	 */
+	public enum FactoryWiring {
+
+		/**
+		 * Guice assisted injection: every entity is created by a reflective factory, which also injects its
+		 * collaborators anew.
+		 */
+		ASSISTED_INJECT,
+
+		/**
+		 * Factories calling the constructors of the default providers: Guice injects the factories once and every
+		 * entity costs a plain constructor call. Gives the same data as {@link #ASSISTED_INJECT}.
+		 */
+		DIRECT
+
+	}
+
 	private final RandomGenerator randomGenerator;
 	private final DataMaster dataMaster;
+	private TimeProvider timeProvider = new TimeProvider();
+	private UniqueIdentifiers uniqueIdentifiers = UniqueIdentifiers.none();
+	private FactoryWiring factoryWiring = FactoryWiring.ASSISTED_INJECT;
+	private CompanyPool companyPool = CompanyPool.none();
 
 	protected GeneratorModule(DataMaster dataMaster, RandomGenerator randomGenerator) {
 		this.dataMaster = dataMaster;
 		this.randomGenerator = randomGenerator;
 	}
 
+	void setTimeProvider(TimeProvider timeProvider) {
+		this.timeProvider = timeProvider;
+	}
+
+	void setUniqueIdentifiers(UniqueIdentifiers uniqueIdentifiers) {
+		this.uniqueIdentifiers = uniqueIdentifiers;
+	}
+
+	void setFactoryWiring(FactoryWiring factoryWiring) {
+		this.factoryWiring = factoryWiring;
+	}
+
+	void setCompanyPool(CompanyPool companyPool) {
+		this.companyPool = companyPool;
+	}
+
 	@Override
 	protected void configure() {
 		bind(DataMaster.class).toInstance(dataMaster);
 		bind(RandomGenerator.class).toInstance(randomGenerator);
+		bind(TimeProvider.class).toInstance(timeProvider);
+		bind(UniqueIdentifiers.class).toInstance(uniqueIdentifiers);
+		bind(CompanyPool.class).toInstance(companyPool);
+		bind(HospitalReferenceDataCache.class).toInstance(HospitalReferenceDataCache.getShared());
 
 		install(new FactoryModuleBuilder().build(GeneratorFactory.class));
-		install(new FactoryModuleBuilder().implement(PersonProvider.class, DefaultPersonProvider.class).build(PersonFactory.class));
-		install(new FactoryModuleBuilder().implement(CompanyProvider.class, DefaultCompanyProvider.class).build(CompanyFactory.class));
-		install(new FactoryModuleBuilder().implement(IBANProvider.class, DefaultIBANProvider.class).build(IBANFactory.class));
-		install(new FactoryModuleBuilder().implement(HospitalVisitProvider.class, DefaultHospitalVisitProvider.class).build(HospitalVisitFactory.class));
+		if (factoryWiring == FactoryWiring.DIRECT) {
+			bind(PersonFactory.class).to(DefaultPersonFactory.class).in(Singleton.class);
+			bind(CompanyFactory.class).to(DefaultCompanyFactory.class).in(Singleton.class);
+			bind(IBANFactory.class).to(DefaultIBANFactory.class).in(Singleton.class);
+			bind(HospitalVisitFactory.class).to(DefaultHospitalVisitFactory.class).in(Singleton.class);
+		} else {
+			install(new FactoryModuleBuilder().implement(PersonProvider.class, DefaultPersonProvider.class).build(PersonFactory.class));
+			install(new FactoryModuleBuilder().implement(CompanyProvider.class, DefaultCompanyProvider.class).build(CompanyFactory.class));
+			install(new FactoryModuleBuilder().implement(IBANProvider.class, DefaultIBANProvider.class).build(IBANFactory.class));
+			install(new FactoryModuleBuilder().implement(HospitalVisitProvider.class, DefaultHospitalVisitProvider.class).build(HospitalVisitFactory.class));
+		}
 	}
 
 }
@@ -0,0 +1,191 @@
+/*
+ * Open Hospital (www.open-hospital.org)
+ * Copyright © 2021 Informatici Senza Frontiere (info@informaticisenzafrontiere.org)
+ *
+ * Open Hospital is a free and open source software for healthcare data management.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * https://www.gnu.org/licenses/gpl-3.0-standalone.html
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.isf.generator;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.isf.generator.producer.RandomGenerator;
+
+/**
+ * Spreads generation work over several worker threads without giving up determinism.
+ * <p>
+ * The work is cut into <em>units</em> identified by a number. Before a unit is generated the worker reseeds its
+ * own Generator with a substream seed derived from the master seed and the unit number, and the results are handed
+ * to the consumer in unit order on the calling thread. The output therefore only depends on the master seed and on
+ * how the work is cut into units, never on the number of threads.
+ * <p>
+ * Instances are created with {@link Bootstrap.Builder#buildParallel(int)} and must be closed when no longer needed.
+ */
+public final class ParallelGenerator implements AutoCloseable {
+
+	/**
+	 * Generates one unit of work with the Generator of the current worker.
+	 *
+	 * @param <T> type of the result of a unit
+	 */
+	@FunctionalInterface
+	public interface UnitGenerator<T> {
+
+		T generate(Generator generator, long unit);
+
+	}
+
+	/**
+	 * Receives the results of the units, in unit order, on the thread that called
+	 * {@link #generate(long, int, UnitGenerator, UnitConsumer)}.
+	 *
+	 * @param <T> type of the result of a unit
+	 * @param <E> exception the consumer may throw
+	 */
+	@FunctionalInterface
+	public interface UnitConsumer<T, E extends Exception> {
+
+		void accept(T result) throws E;
+
+	}
+
+	private static final int UNITS_IN_FLIGHT_PER_THREAD = 2;
+
+	private final Bootstrap.Builder builder;
+	private final long seed;
+	private final int threads;
+	private final ExecutorService executor;
+	private final ThreadLocal<Worker> workers = ThreadLocal.withInitial(this::createWorker);
+
+	ParallelGenerator(Bootstrap.Builder builder, long seed, int threads) {
+		if (threads < 1) {
+			throw new IllegalArgumentException("threads has to be >= 1");
+		}
+		this.builder = builder;
+		this.seed = seed;
+		this.threads = threads;
+		this.executor = Executors.newFixedThreadPool(threads, new WorkerThreadFactory());
+	}
+
+	/**
+	 * Generates {@code unitCount} units numbered from {@code firstUnit} and passes their results, in unit order,
+	 * to {@code consumer} on the calling thread.
+	 *
+	 * @param <T> type of the result of a unit
+	 * @param <E> exception the consumer may throw
+	 * @param firstUnit number of the first unit; use distinct numbers for distinct pieces of work
+	 * @param unitCount number of units to generate
+	 * @param unitGenerator generates a single unit
+	 * @param consumer receives the results
+	 * @throws E if the consumer fails; the units still in flight are cancelled
+	 */
+	public <T, E extends Exception> void generate(long firstUnit, int unitCount, UnitGenerator<T> unitGenerator, UnitConsumer<? super T, E> consumer)
+			throws E {
+		Deque<Future<T>> pending = new ArrayDeque<>();
+		try {
+			for (int i = 0; i < unitCount; i++) {
+				long unit = firstUnit + i;
+				pending.add(executor.submit(() -> generateUnit(unit, unitGenerator)));
+				if (pending.size() >= threads * UNITS_IN_FLIGHT_PER_THREAD) {
+					consumer.accept(await(pending.poll()));
+				}
+			}
+			while (!pending.isEmpty()) {
+				consumer.accept(await(pending.poll()));
+			}
+		} finally {
+			for (Future<T> future : pending) {
+				future.cancel(true);
+			}
+		}
+	}
+
+	public long getSeed() {
+		return seed;
+	}
+
+	public int getThreads() {
+		return threads;
+	}
+
+	@Override
+	public void close() {
+		executor.shutdownNow();
+	}
+
+	private <T> T generateUnit(long unit, UnitGenerator<T> unitGenerator) {
+		Worker worker = workers.get();
+		worker.randomGenerator.setSeed(RandomGenerator.deriveSeed(seed, unit));
+		return unitGenerator.generate(worker.generator, unit);
+	}
+
+	private Worker createWorker() {
+		RandomGenerator randomGenerator = builder.createRandomGenerator();
+		return new Worker(builder.build(randomGenerator), randomGenerator);
+	}
+
+	private static <T> T await(Future<T> future) {
+		try {
+			return future.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while waiting for a generation unit", e);
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			}
+			if (cause instanceof Error) {
+				throw (Error) cause;
+			}
+			throw new IllegalStateException(cause);
+		}
+	}
+
+	private static final class Worker {
+
+		private final Generator generator;
+		private final RandomGenerator randomGenerator;
+
+		private Worker(Generator generator, RandomGenerator randomGenerator) {
+			this.generator = generator;
+			this.randomGenerator = randomGenerator;
+		}
+
+	}
+
+	private static final class WorkerThreadFactory implements ThreadFactory {
+
+		private final AtomicInteger counter = new AtomicInteger();
+
+		@Override
+		public Thread newThread(Runnable runnable) {
+			Thread thread = new Thread(runnable, "generator-" + counter.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		}
+
+	}
+
+}
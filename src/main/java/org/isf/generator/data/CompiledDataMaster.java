@@ -0,0 +1,307 @@
+/*
+ * Open Hospital (www.open-hospital.org)
+ * Copyright © 2021 Informatici Senza Frontiere (info@informaticisenzafrontiere.org)
+ *
+ * Open Hospital is a free and open source software for healthcare data management.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * https://www.gnu.org/licenses/gpl-3.0-standalone.html
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.isf.generator.data;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.commons.lang3.EnumUtils;
+import org.isf.generator.producer.AliasTable;
+import org.isf.generator.producer.BaseProducer;
+import org.isf.generator.producer.company.CompanyProvider;
+import org.isf.generator.producer.person.PersonProvider;
+import org.isf.generator.producer.util.LanguageCode;
+
+/**
+ * Immutable {@link DataMaster} compiled once from a loaded {@link MapBasedDataMaster}.
+ * <p>Lists are turned into arrays and the typed entries (such as first names by sex) into {@link Values}
+ * per type, so a random pick is a single array access with the same random draw as the map based
+ * implementation (and therefore the same results for a given seed). Keys are still matched case
+ * insensitively; a key that is not in lower case is lower-cased on each lookup, the compiled maps are never written
+ * after construction.</p>
+ * <p>The {@link DataMaster} methods take a key, so each of their picks still looks the key up in a hash map
+ * before the array access; only the batch producer resolves its lists once, through the handles below.</p>
+ * <p>A {@link WeightedList} keeps its alias table, so weighted picks take constant time as well.</p>
+ * <p>The compiled data does not depend on the random generator, so {@link #forResources(String, Locale, BaseProducer)}
+ * parses the seed files of a prefix and language once per process and shares the result between all the
+ * data masters created for them.</p>
+ * <p>{@link #values(String)} and {@link #valuesOfType(String, String)} return the handles themselves, for
+ * callers that want to resolve a key up front.</p>
+ * <p>The names of persons and companies are folded for emails, usernames and domains when the seed is compiled,
+ * see {@link FoldedNames}.</p>
+ */
+public class CompiledDataMaster implements IndexedDataMaster {
+
+	private static final Map<String, Seed> SEED_CACHE = new ConcurrentHashMap<>();
+
+	private final BaseProducer baseProducer;
+	private final Map<String, Object> entries;
+	private final FoldedNames foldedNames;
+	private volatile LanguageCode language;
+
+	private CompiledDataMaster(BaseProducer baseProducer, Seed seed) {
+		this.baseProducer = baseProducer;
+		this.entries = seed.entries;
+		this.foldedNames = seed.foldedNames;
+	}
+
+	/**
+	 * @param dataMaster the data master with all the files read
+	 * @return a compiled copy of the data master, picking with the same BaseProducer
+	 */
+	public static CompiledDataMaster compile(MapBasedDataMaster dataMaster) {
+		return new CompiledDataMaster(dataMaster.getBaseProducer(), new Seed(compileEntries(dataMaster.getDataSource())));
+	}
+
+	/**
+	 * Returns a data master with the merged {@code filePrefix.yml} and {@code filePrefix_{langCode}.yml} files of
+	 * the classpath, parsed on first use and then shared.
+	 *
+	 * @param filePrefix prefix of the data files
+	 * @param locale will be used to assess langCode for data file
+	 * @param baseProducer producer used for the random picks
+	 * @return CompiledDataMaster instance
+	 */
+	public static CompiledDataMaster forResources(String filePrefix, Locale locale, BaseProducer baseProducer) {
+		String language = locale.getLanguage();
+		Seed seed = SEED_CACHE.computeIfAbsent(filePrefix + '_' + language, key -> {
+			MapBasedDataMaster dataMaster = new MapBasedDataMaster(baseProducer);
+			try {
+				dataMaster.readResources(filePrefix + ".yml");
+				dataMaster.readResources(filePrefix + "_" + language + ".yml");
+			} catch (IOException e) {
+				throw new IllegalStateException(e);
+			}
+			return new Seed(compileEntries(dataMaster.getDataSource()));
+		});
+		return new CompiledDataMaster(baseProducer, seed);
+	}
+
+	/**
+	 * Drops the seed files parsed by {@link #forResources(String, Locale, BaseProducer)}, so that they are read
+	 * again on next use.
+	 */
+	public static void clearCache() {
+		SEED_CACHE.clear();
+	}
+
+	/**
+	 * @param other another data master
+	 * @return {@code true} if both data masters pick from the same compiled seed
+	 */
+	boolean sharesSeedWith(CompiledDataMaster other) {
+		return entries == other.entries;
+	}
+
+	@Override
+	public String getString(String key) {
+		return get(key, String.class);
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public List<String> getStringList(String key) {
+		return (List<String>) (List<?>) values(key).list;
+	}
+
+	@Override
+	public <T> T getValuesOfType(String dataKey, String type, Class<T> resultClass) {
+		return resultClass.cast(valuesOfType(dataKey, type).random(baseProducer));
+	}
+
+	@Override
+	public String getRandomValue(String key) {
+		return values(key).random(baseProducer);
+	}
+
+	@Override
+	public LanguageCode getLanguage() {
+		LanguageCode current = language;
+		if (current == null) {
+			current = EnumUtils.getEnum(LanguageCode.class, getString(MapBasedDataMaster.LANGUAGE_TAG).toUpperCase());
+			language = current;
+		}
+		return current;
+	}
+
+	@Override
+	public FoldedNames getFoldedNames() {
+		return foldedNames;
+	}
+
+	@Override
+	public Values values(String key) {
+		return get(key, Values.class);
+	}
+
+	@Override
+	public Values valuesOfType(String key, String type) {
+		Values values = get(key, Types.class).get(type);
+		if (values == null) {
+			throw new IllegalArgumentException("No such type: " + type + " under key: " + key);
+		}
+		return values;
+	}
+
+	private <T> T get(String key, Class<T> type) {
+		if (key == null) {
+			throw new IllegalArgumentException("key cannot be null");
+		}
+		Object element = lookup(entries, key);
+		if (element == null) {
+			throw new IllegalArgumentException("No such key: " + key);
+		}
+		if (!type.isInstance(element)) {
+			throw new IllegalArgumentException("Element under desired key has incorrect type - should be " + type.getSimpleName());
+		}
+		return type.cast(element);
+	}
+
+	private static <V> V lookup(Map<String, V> map, String key) {
+		V value = map.get(key);
+		return value != null ? value : map.get(key.toLowerCase());
+	}
+
+	private static Map<String, Object> compileEntries(Map<String, Object> dataSource) {
+		Map<String, Object> entries = new HashMap<>();
+		for (Map.Entry<String, Object> entry : dataSource.entrySet()) {
+			if (entry.getValue() != null) {
+				entries.put(entry.getKey(), compile(entry.getValue()));
+			}
+		}
+		return Collections.unmodifiableMap(entries);
+	}
+
+	private static Object compile(Object value) {
+		if (value instanceof List) {
+			return new Values((List<?>) value);
+		}
+		if (value instanceof Map) {
+			Map<String, Values> types = new HashMap<>();
+			for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+				if (!(entry.getValue() instanceof List) || entry.getKey() == null) {
+					// not a map of lists, keep it as it is
+					return value;
+				}
+				types.put(String.valueOf(entry.getKey()).toLowerCase(), new Values((List<?>) entry.getValue()));
+			}
+			return new Types(types);
+		}
+		return value;
+	}
+
+	private static FoldedNames foldNames(Map<String, Object> entries) {
+		List<String> names = new ArrayList<>();
+		addNames(names, lookup(entries, PersonProvider.FIRST_NAME));
+		addNames(names, lookup(entries, PersonProvider.LAST_NAME));
+		addNames(names, lookup(entries, PersonProvider.PERSONAL_EMAIL));
+		List<String> companyNames = new ArrayList<>();
+		addNames(companyNames, lookup(entries, CompanyProvider.COMPANY_NAME));
+		List<String> companySuffixes = new ArrayList<>();
+		addNames(companySuffixes, lookup(entries, CompanyProvider.COMPANY_SUFFIX));
+		return FoldedNames.of(names, companyNames, companySuffixes);
+	}
+
+	private static void addNames(List<String> names, Object entry) {
+		if (entry instanceof Values) {
+			for (Object value : ((Values) entry).values) {
+				if (value instanceof String) {
+					names.add((String) value);
+				}
+			}
+		} else if (entry instanceof Types) {
+			for (Values values : ((Types) entry).values.values()) {
+				addNames(names, values);
+			}
+		}
+	}
+
+	private static final class Seed {
+
+		private final Map<String, Object> entries;
+		private final FoldedNames foldedNames;
+
+		Seed(Map<String, Object> entries) {
+			this.entries = entries;
+			this.foldedNames = foldNames(entries);
+		}
+
+	}
+
+	/**
+	 * The values of one list.
+	 */
+	public static final class Values implements SeedList {
+
+		private final Object[] values;
+		private final List<Object> list;
+		private final AliasTable aliasTable;
+
+		private Values(List<?> source) {
+			this.values = source.toArray();
+			this.list = Collections.unmodifiableList(Arrays.asList(values));
+			this.aliasTable = source instanceof WeightedList ? ((WeightedList) source).getAliasTable() : null;
+		}
+
+		@Override
+		public int randomIndex(BaseProducer baseProducer) {
+			if (aliasTable != null) {
+				return aliasTable.sample(baseProducer);
+			}
+			return baseProducer.randomBetween(0, values.length - 1);
+		}
+
+		@Override
+		@SuppressWarnings("unchecked")
+		public <T> T get(int index) {
+			return (T) values[index];
+		}
+
+		@Override
+		public int size() {
+			return values.length;
+		}
+
+	}
+
+	private static final class Types {
+
+		private final Map<String, Values> values;
+
+		Types(Map<String, Values> values) {
+			this.values = Collections.unmodifiableMap(values);
+		}
+
+		Values get(String type) {
+			return lookup(values, type);
+		}
+
+	}
+
+}
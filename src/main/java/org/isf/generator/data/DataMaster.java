@@ -37,4 +37,11 @@ public interface DataMaster {
 
 	LanguageCode getLanguage();
 
+	/**
+	 * @return the folded forms of the names of the seed, empty unless the data master computes them when the seed is loaded
+	 */
+	default FoldedNames getFoldedNames() {
+		return FoldedNames.EMPTY;
+	}
+
 }
@@ -0,0 +1,171 @@
+/*
+ * Open Hospital (www.open-hospital.org)
+ * Copyright © 2021 Informatici Senza Frontiere (info@informaticisenzafrontiere.org)
+ *
+ * Open Hospital is a free and open source software for healthcare data management.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * https://www.gnu.org/licenses/gpl-3.0-standalone.html
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.isf.generator.data;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.isf.generator.producer.util.TextUtils;
+
+/**
+ * Folded forms of the names of a seed, computed once when the seed is loaded.
+ * <p>Emails, usernames and company domains are made of names folded to lower-case ASCII (see
+ * {@link TextUtils#foldForEmail(String)}, {@link TextUtils#foldForUsername(String)} and
+ * {@link TextUtils#toHostName(String)}). Folding goes through the Unicode normalizer and regular expressions,
+ * while the seeds only hold a few hundred names, so this table keeps the folded forms of each of them and the
+ * generators join the forms instead of folding every entity again.</p>
+ * <p>The folding of joined names is the join of the folded names, except around combining marks, surrogates
+ * and the Greek capital sigma (whose lower case depends on the next letter); names with those are left out of
+ * the table, and so are names that are not in the seed (for instance set through the person properties).
+ * Callers fold those the usual way, so the results are the same with and without the table.</p>
+ */
+public final class FoldedNames {
+
+	public static final FoldedNames EMPTY = new FoldedNames(Collections.emptyMap());
+
+	private final Map<String, Folded> folded;
+
+	private FoldedNames(Map<String, Folded> folded) {
+		this.folded = folded;
+	}
+
+	/**
+	 * @param names the names of persons and the domains of personal emails
+	 * @param companyNames the names of companies
+	 * @param companySuffixes the suffixes that may follow a company name after a space
+	 * @return the folded forms of the names, and of the company names with each suffix
+	 */
+	public static FoldedNames of(Collection<String> names, Collection<String> companyNames, Collection<String> companySuffixes) {
+		Map<String, Folded> folded = new HashMap<>();
+		for (String name : names) {
+			put(folded, name);
+		}
+		for (String companyName : companyNames) {
+			put(folded, companyName);
+			for (String companySuffix : companySuffixes) {
+				put(folded, companyName + " " + companySuffix);
+			}
+		}
+		return new FoldedNames(folded);
+	}
+
+	private static void put(Map<String, Folded> folded, String name) {
+		if (name != null && isJoinable(name)) {
+			folded.computeIfAbsent(name, Folded::new);
+		}
+	}
+
+	private static boolean isJoinable(String name) {
+		if (name.isEmpty() || name.indexOf('Σ') >= 0) {
+			return false;
+		}
+		char first = name.charAt(0);
+		switch (Character.getType(first)) {
+			case Character.NON_SPACING_MARK:
+			case Character.ENCLOSING_MARK:
+			case Character.COMBINING_SPACING_MARK:
+				return false;
+			default:
+				return !Character.isSurrogate(first);
+		}
+	}
+
+	/**
+	 * @param name a name of the seed
+	 * @return the folded forms of the name, or {@code null} if they were not computed
+	 */
+	public Folded get(String name) {
+		return name == null ? null : folded.get(name);
+	}
+
+	public int size() {
+		return folded.size();
+	}
+
+	/**
+	 * The folded forms of one name.
+	 */
+	public static final class Folded {
+
+		private final String email;
+		private final String compactEmail;
+		private final String dottedEmail;
+		private final String username;
+		private final String initial;
+		private final String hostName;
+
+		private Folded(String name) {
+			this.email = TextUtils.foldForEmail(name);
+			this.compactEmail = email.replace(" ", "");
+			this.dottedEmail = email.replace(' ', '.');
+			this.username = TextUtils.foldForUsername(name);
+			this.initial = TextUtils.foldForUsername(String.valueOf(name.charAt(0)));
+			this.hostName = TextUtils.toHostName(name);
+		}
+
+		/**
+		 * @return the name folded for an email address
+		 */
+		public String getEmail() {
+			return email;
+		}
+
+		/**
+		 * @return the name folded for an email address, without spaces
+		 */
+		public String getCompactEmail() {
+			return compactEmail;
+		}
+
+		/**
+		 * @return the name folded for an email address, with dots for spaces
+		 */
+		public String getDottedEmail() {
+			return dottedEmail;
+		}
+
+		/**
+		 * @return the name folded for a username
+		 */
+		public String getUsername() {
+			return username;
+		}
+
+		/**
+		 * @return the first letter of the name folded for a username
+		 */
+		public String getInitial() {
+			return initial;
+		}
+
+		/**
+		 * @return the name as the host name of a company domain
+		 */
+		public String getHostName() {
+			return hostName;
+		}
+
+	}
+
+}
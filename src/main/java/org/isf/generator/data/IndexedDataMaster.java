@@ -0,0 +1,45 @@
+/*
+ * Open Hospital (www.open-hospital.org)
+ * Copyright © 2021 Informatici Senza Frontiere (info@informaticisenzafrontiere.org)
+ *
+ * Open Hospital is a free and open source software for healthcare data management.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * https://www.gnu.org/licenses/gpl-3.0-standalone.html
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.isf.generator.data;
+
+/**
+ * A {@link DataMaster} whose lists can be resolved up front and picked from by index, as done by
+ * {@link org.isf.generator.producer.person.PersonBatchProducer}.
+ */
+public interface IndexedDataMaster extends DataMaster {
+
+	/**
+	 * @param key the key of a list
+	 * @return the values of the list
+	 * @throws IllegalArgumentException if there is no list under the key
+	 */
+	SeedList values(String key);
+
+	/**
+	 * @param key the key of a map of lists, e.g. first names by sex
+	 * @param type the key within the map
+	 * @return the values of the list
+	 * @throws IllegalArgumentException if there is no such list
+	 */
+	SeedList valuesOfType(String key, String type);
+
+}
@@ -34,6 +34,7 @@ import java.util.Map;
 import javax.inject.Inject;
 
 import org.apache.commons.lang3.EnumUtils;
+import org.isf.generator.producer.AliasTable;
 import org.isf.generator.producer.BaseProducer;
 import org.isf.generator.producer.util.LanguageCode;
 import org.snakeyaml.engine.v2.api.Load;
@@ -70,7 +71,7 @@ public class MapBasedDataMaster implements DataMaster {
 
 		List<T> entries = data.get(type);
 
-		return baseProducer.randomElement(entries);
+		return baseProducer.randomElement(entries, weights(entries));
 	}
 
 	/**
@@ -87,7 +88,8 @@ public class MapBasedDataMaster implements DataMaster {
 
 	@Override
 	public String getRandomValue(String key) {
-		return baseProducer.randomElement(getStringList(key));
+		List<String> entries = getStringList(key);
+		return baseProducer.randomElement(entries, weights(entries));
 	}
 
 	@Override
@@ -95,6 +97,10 @@ public class MapBasedDataMaster implements DataMaster {
 		return EnumUtils.getEnum(LanguageCode.class, getString(LANGUAGE_TAG).toUpperCase());
 	}
 
+	private static AliasTable weights(List<?> entries) {
+		return entries instanceof WeightedList ? ((WeightedList) entries).getAliasTable() : null;
+	}
+
 	@SuppressWarnings({ "unchecked", "ConstantConditions" })
 		// checked by checkArgument
 	<T> T getData(String key, Class<T> type) {
@@ -128,6 +134,17 @@ public class MapBasedDataMaster implements DataMaster {
 		}
 	}
 
+	BaseProducer getBaseProducer() {
+		return baseProducer;
+	}
+
+	/**
+	 * @return the merged data of all the read files, with lower case keys
+	 */
+	Map<String, Object> getDataSource() {
+		return dataSource;
+	}
+
 	private void appendData(Map<String, Object> data) {
 		dataSource.putAll(data);
 	}
@@ -143,6 +160,8 @@ public class MapBasedDataMaster implements DataMaster {
 			if (value instanceof Map) {
 				valueToInsert = new CaseInsensitiveMap();
 				((CaseInsensitiveMap) valueToInsert).putAll((Map<? extends String, ?>) value);
+			} else if (value instanceof List) {
+				valueToInsert = WeightedList.of((List<?>) value);
 			}
 
 			return super.put(loweredKey, valueToInsert);
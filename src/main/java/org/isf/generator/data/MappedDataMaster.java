@@ -0,0 +1,109 @@
+/*
+ * Open Hospital (www.open-hospital.org)
+ * Copyright © 2021 Informatici Senza Frontiere (info@informaticisenzafrontiere.org)
+ *
+ * Open Hospital is a free and open source software for healthcare data management.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * https://www.gnu.org/licenses/gpl-3.0-standalone.html
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.isf.generator.data;
+
+import java.util.List;
+
+import org.apache.commons.lang3.EnumUtils;
+import org.isf.generator.producer.BaseProducer;
+import org.isf.generator.producer.util.LanguageCode;
+
+/**
+ * {@link DataMaster} reading a memory mapped {@link SeedCorpus}, for dictionaries too large to be parsed
+ * from YAML onto the heap. A corpus converted from the seed files gives the same data for a given seed as
+ * {@link CompiledDataMaster}.
+ */
+public class MappedDataMaster implements IndexedDataMaster {
+
+	private final SeedCorpus corpus;
+	private final BaseProducer baseProducer;
+	private volatile LanguageCode language;
+
+	/**
+	 * @param corpus the seed data
+	 * @param baseProducer producer used for the random picks
+	 */
+	public MappedDataMaster(SeedCorpus corpus, BaseProducer baseProducer) {
+		this.corpus = corpus;
+		this.baseProducer = baseProducer;
+	}
+
+	@Override
+	public String getString(String key) {
+		Object value = corpus.scalar(checkKey(key));
+		if (value == null) {
+			throw new IllegalArgumentException("No such key: " + key);
+		}
+		return (String) value;
+	}
+
+	@Override
+	public List<String> getStringList(String key) {
+		return values(key).asList();
+	}
+
+	@Override
+	public <T> T getValuesOfType(String dataKey, String type, Class<T> resultClass) {
+		return valuesOfType(dataKey, type).random(baseProducer);
+	}
+
+	@Override
+	public String getRandomValue(String key) {
+		return values(key).random(baseProducer);
+	}
+
+	@Override
+	public LanguageCode getLanguage() {
+		LanguageCode current = language;
+		if (current == null) {
+			current = EnumUtils.getEnum(LanguageCode.class, getString(MapBasedDataMaster.LANGUAGE_TAG).toUpperCase());
+			language = current;
+		}
+		return current;
+	}
+
+	@Override
+	public SeedCorpus.MappedList values(String key) {
+		SeedCorpus.MappedList list = corpus.list(checkKey(key));
+		if (list == null) {
+			throw new IllegalArgumentException("No such key: " + key);
+		}
+		return list;
+	}
+
+	@Override
+	public SeedCorpus.MappedList valuesOfType(String key, String type) {
+		SeedCorpus.MappedList list = corpus.list(checkKey(key), type);
+		if (list == null) {
+			throw new IllegalArgumentException("No such type: " + type + " under key: " + key);
+		}
+		return list;
+	}
+
+	private static String checkKey(String key) {
+		if (key == null) {
+			throw new IllegalArgumentException("key cannot be null");
+		}
+		return key;
+	}
+
+}
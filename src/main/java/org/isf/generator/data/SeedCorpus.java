@@ -0,0 +1,254 @@
+/*
+ * Open Hospital (www.open-hospital.org)
+ * Copyright © 2021 Informatici Senza Frontiere (info@informaticisenzafrontiere.org)
+ *
+ * Open Hospital is a free and open source software for healthcare data management.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * https://www.gnu.org/licenses/gpl-3.0-standalone.html
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.isf.generator.data;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.isf.generator.producer.BaseProducer;
+
+/**
+ * Seed data in the binary format written by {@link SeedCorpusWriter}, memory mapped read-only.
+ * <p>The file starts with a directory of its entries; every list is stored as a table of offsets into packed
+ * UTF-8 strings, optionally preceded by the weights of the values and their alias table:</p>
+ * <pre>
+ * int magic ("OHSC"), int version, int entry count
+ * per entry: short key length, key (UTF-8, lower case), short type length, type, byte kind, int list offset
+ * per list (8-byte aligned): int count, byte value type, byte weighted, short 0,
+ *     [double weight * count, double probability * count, int alias * count], int offset * (count + 1), UTF-8 values
+ * </pre>
+ * <p>Only the directory is read onto the heap; a value is decoded when it is picked. The mapping of a file is
+ * shared by all the data masters of the process, and its pages by all the processes that map it.</p>
+ */
+public final class SeedCorpus {
+
+	static final int MAGIC = 0x4F485343;
+	static final int VERSION = 2;
+
+	static final byte KIND_SCALAR = 0;
+	static final byte KIND_LIST = 1;
+	static final byte KIND_TYPED_LIST = 2;
+
+	static final byte VALUE_STRING = 0;
+	static final byte VALUE_INTEGER = 1;
+
+	private static final Map<Path, SeedCorpus> CORPORA = new ConcurrentHashMap<>();
+	private static final ThreadLocal<byte[]> BUFFER = ThreadLocal.withInitial(() -> new byte[64]);
+
+	private final Path path;
+	private final ByteBuffer buffer;
+	private final Map<String, MappedList> lists = new HashMap<>();
+	private final Map<String, MappedList> scalars = new HashMap<>();
+
+	private SeedCorpus(Path path, ByteBuffer buffer) {
+		this.path = path;
+		this.buffer = buffer;
+		if (buffer.limit() < 12 || buffer.getInt(0) != MAGIC) {
+			throw new IllegalStateException(path + " is not a seed corpus");
+		}
+		if (buffer.getInt(4) != VERSION) {
+			throw new IllegalStateException(path + " has an unsupported version " + buffer.getInt(4));
+		}
+		int entries = buffer.getInt(8);
+		int position = 12;
+		for (int e = 0; e < entries; e++) {
+			int keyLength = buffer.getShort(position);
+			String key = decode(position + 2, keyLength);
+			position += 2 + keyLength;
+			int typeLength = buffer.getShort(position);
+			String type = decode(position + 2, typeLength);
+			position += 2 + typeLength;
+			byte kind = buffer.get(position);
+			MappedList list = new MappedList(buffer.getInt(position + 1));
+			position += 5;
+			if (kind == KIND_SCALAR) {
+				scalars.put(key, list);
+			} else {
+				lists.put(kind == KIND_TYPED_LIST ? typedKey(key, type) : key, list);
+			}
+		}
+	}
+
+	/**
+	 * Maps a corpus file, or returns the mapping already made by this process.
+	 *
+	 * @param path the corpus file
+	 * @return the corpus
+	 * @throws IllegalStateException if the file cannot be read or is not a corpus
+	 */
+	public static SeedCorpus open(Path path) {
+		return CORPORA.computeIfAbsent(path.toAbsolutePath().normalize(), file -> {
+			try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+				MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+				return new SeedCorpus(file, mapped);
+			} catch (IOException e) {
+				throw new IllegalStateException("Unable to map the seed corpus " + file, e);
+			}
+		});
+	}
+
+	public Path getPath() {
+		return path;
+	}
+
+	/**
+	 * @param key the key of a single value
+	 * @return the value, or {@code null} if there is none
+	 */
+	public Object scalar(String key) {
+		MappedList list = lookup(scalars, key);
+		return list != null ? list.get(0) : null;
+	}
+
+	/**
+	 * @param key the key of a list
+	 * @return the list, or {@code null} if there is none
+	 */
+	public MappedList list(String key) {
+		return lookup(lists, key);
+	}
+
+	/**
+	 * @param key the key of a map of lists
+	 * @param type the key within the map
+	 * @return the list, or {@code null} if there is none
+	 */
+	public MappedList list(String key, String type) {
+		return lookup(lists, typedKey(key, type));
+	}
+
+	private static MappedList lookup(Map<String, MappedList> map, String key) {
+		MappedList list = map.get(key);
+		return list != null ? list : map.get(key.toLowerCase(Locale.ROOT));
+	}
+
+	private static String typedKey(String key, String type) {
+		return key + '\u0000' + type;
+	}
+
+	private String decode(int position, int length) {
+		byte[] bytes = BUFFER.get();
+		if (bytes.length < length) {
+			bytes = new byte[Math.max(length, bytes.length * 2)];
+			BUFFER.set(bytes);
+		}
+		for (int i = 0; i < length; i++) {
+			bytes[i] = buffer.get(position + i);
+		}
+		return new String(bytes, 0, length, StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * A list of the corpus. Picks read the mapped file directly, with the same random draws as
+	 * {@link CompiledDataMaster}: weighted lists use their stored {@link org.isf.generator.producer.AliasTable}.
+	 */
+	public final class MappedList implements SeedList {
+
+		private final int count;
+		private final boolean integers;
+		private final int weights;
+		private final int probabilities;
+		private final int aliases;
+		private final int offsets;
+		private final int values;
+
+		private MappedList(int position) {
+			count = buffer.getInt(position);
+			integers = buffer.get(position + 4) == VALUE_INTEGER;
+			boolean weighted = buffer.get(position + 5) != 0;
+			weights = weighted ? position + 8 : -1;
+			probabilities = weights + 8 * count;
+			aliases = probabilities + 8 * count;
+			offsets = position + 8 + (weighted ? 20 * count : 0);
+			values = offsets + 4 * (count + 1);
+		}
+
+		@Override
+		public int size() {
+			return count;
+		}
+
+		@Override
+		@SuppressWarnings("unchecked")
+		public <T> T get(int index) {
+			if (index < 0 || index >= count) {
+				throw new IndexOutOfBoundsException("Index " + index + " of a list of " + count);
+			}
+			int start = buffer.getInt(offsets + 4 * index);
+			String value = decode(values + start, buffer.getInt(offsets + 4 * (index + 1)) - start);
+			return (T) (integers ? Integer.valueOf(value) : value);
+		}
+
+		@Override
+		public int randomIndex(BaseProducer baseProducer) {
+			if (weights < 0) {
+				return baseProducer.randomBetween(0, count - 1);
+			}
+			int column = baseProducer.randomBetween(0, count - 1);
+			return baseProducer.randomBetween(0d, 1d) < buffer.getDouble(probabilities + 8 * column) ? column : buffer.getInt(aliases + 4 * column);
+		}
+
+		public boolean isWeighted() {
+			return weights >= 0;
+		}
+
+		/**
+		 * @param index index of the value
+		 * @return the weight of the value, 1 for an unweighted list
+		 */
+		public double weight(int index) {
+			return weights < 0 ? 1 : buffer.getDouble(weights + 8 * index);
+		}
+
+		/**
+		 * @param <T> the type of the values
+		 * @return a view of the list, decoding the values when they are read
+		 */
+		public <T> List<T> asList() {
+			return new AbstractList<T>() {
+
+				@Override
+				public T get(int index) {
+					return MappedList.this.get(index);
+				}
+
+				@Override
+				public int size() {
+					return count;
+				}
+			};
+		}
+
+	}
+
+}
@@ -0,0 +1,366 @@
+/*
+ * Open Hospital (www.open-hospital.org)
+ * Copyright © 2021 Informatici Senza Frontiere (info@informaticisenzafrontiere.org)
+ *
+ * Open Hospital is a free and open source software for healthcare data management.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * https://www.gnu.org/licenses/gpl-3.0-standalone.html
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.isf.generator.data;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import org.isf.generator.producer.AliasTable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.snakeyaml.engine.v2.api.Load;
+import org.snakeyaml.engine.v2.api.LoadSettings;
+
+/**
+ * Converts seed data from YAML and CSV files into the binary format read by {@link SeedCorpus}.
+ * <p>YAML files have the layout of the {@code seed*.yml} resources and are merged like them: a later file
+ * replaces the keys of an earlier one. A CSV file holds one list, a value per line, optionally followed by its
+ * weight (frequency) after the last comma; a value with a comma is written in double quotes:</p>
+ * <pre>
+ * java org.isf.generator.data.SeedCorpusWriter OUTPUT seed.yml seed_en.yml lastNames/male=surnames.csv street=streets.csv
+ * </pre>
+ */
+public final class SeedCorpusWriter {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(SeedCorpusWriter.class);
+
+	private static final String NO_TYPE = "";
+
+	private final Map<String, Map<String, Entry>> entries = new LinkedHashMap<>();
+
+	public static void main(String[] args) {
+		if (args.length < 2) {
+			LOGGER.error("Usage: SeedCorpusWriter OUTPUT FILE.yml|KEY[/TYPE]=FILE.csv...");
+			System.exit(1);
+		}
+		try {
+			SeedCorpusWriter writer = new SeedCorpusWriter();
+			for (int i = 1; i < args.length; i++) {
+				int separator = args[i].indexOf('=');
+				if (separator < 0) {
+					writer.addYaml(Paths.get(args[i]));
+				} else {
+					String key = args[i].substring(0, separator);
+					int slash = key.indexOf('/');
+					writer.addCsv(slash < 0 ? key : key.substring(0, slash), slash < 0 ? null : key.substring(slash + 1),
+							Paths.get(args[i].substring(separator + 1)));
+				}
+			}
+			writer.write(Paths.get(args[0]));
+		} catch (IllegalArgumentException | IllegalStateException e) {
+			LOGGER.error("Fatal: {}", e.getMessage(), e);
+			System.exit(1);
+		}
+	}
+
+	/**
+	 * @param file a YAML seed file
+	 * @return this writer
+	 */
+	public SeedCorpusWriter addYaml(Path file) {
+		try (InputStream is = Files.newInputStream(file)) {
+			return addYaml(is, file.toString());
+		} catch (IOException e) {
+			throw new IllegalStateException("Unable to read " + file, e);
+		}
+	}
+
+	/**
+	 * @param is YAML seed data
+	 * @param source name of the data for the error messages
+	 * @return this writer
+	 */
+	public SeedCorpusWriter addYaml(InputStream is, String source) {
+		Object data = new Load(LoadSettings.builder().build()).loadFromInputStream(is);
+		if (!(data instanceof Map)) {
+			throw new IllegalArgumentException(source + " is not a map of seed data");
+		}
+		for (Map.Entry<?, ?> entry : ((Map<?, ?>) data).entrySet()) {
+			String key = String.valueOf(entry.getKey());
+			Object value = entry.getValue();
+			Map<String, Entry> types = new LinkedHashMap<>();
+			if (value instanceof List) {
+				types.put(NO_TYPE, Entry.of(SeedCorpus.KIND_LIST, (List<?>) value));
+			} else if (value instanceof Map) {
+				for (Map.Entry<?, ?> typed : ((Map<?, ?>) value).entrySet()) {
+					if (!(typed.getValue() instanceof List)) {
+						throw new IllegalArgumentException(source + ": " + key + '.' + typed.getKey() + " has to be a list");
+					}
+					types.put(String.valueOf(typed.getKey()).toLowerCase(Locale.ROOT),
+							Entry.of(SeedCorpus.KIND_TYPED_LIST, (List<?>) typed.getValue()));
+				}
+			} else if (value != null) {
+				List<Object> scalar = new ArrayList<>();
+				scalar.add(value);
+				types.put(NO_TYPE, new Entry(SeedCorpus.KIND_SCALAR, scalar, null));
+			}
+			entries.put(key.toLowerCase(Locale.ROOT), types);
+		}
+		return this;
+	}
+
+	/**
+	 * Adds or replaces one list with the values of a CSV file.
+	 *
+	 * @param key the key of the list
+	 * @param type the type within the key, such as {@code male} for {@code lastNames}, or {@code null}
+	 * @param file lines of {@code value[,weight]}
+	 * @return this writer
+	 */
+	public SeedCorpusWriter addCsv(String key, String type, Path file) {
+		List<Object> values = new ArrayList<>();
+		List<Double> weights = new ArrayList<>();
+		try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+			String line;
+			int number = 0;
+			while ((line = reader.readLine()) != null) {
+				number++;
+				if (line.trim().isEmpty() || line.startsWith("#")) {
+					continue;
+				}
+				parseCsvLine(line, values, weights, file + ":" + number);
+			}
+		} catch (IOException e) {
+			throw new IllegalStateException("Unable to read " + file, e);
+		}
+		if (!weights.isEmpty() && weights.size() != values.size()) {
+			throw new IllegalArgumentException(file + ": either all or no values have a weight");
+		}
+		double[] listWeights = null;
+		if (!weights.isEmpty()) {
+			listWeights = new double[weights.size()];
+			for (int i = 0; i < listWeights.length; i++) {
+				listWeights[i] = weights.get(i);
+			}
+		}
+		String lowerKey = key.toLowerCase(Locale.ROOT);
+		Map<String, Entry> types = entries.computeIfAbsent(lowerKey, k -> new LinkedHashMap<>());
+		if (type == null) {
+			types.clear();
+			types.put(NO_TYPE, new Entry(SeedCorpus.KIND_LIST, values, listWeights));
+		} else {
+			types.remove(NO_TYPE);
+			types.put(type.toLowerCase(Locale.ROOT), new Entry(SeedCorpus.KIND_TYPED_LIST, values, listWeights));
+		}
+		return this;
+	}
+
+	private static void parseCsvLine(String line, List<Object> values, List<Double> weights, String location) {
+		String value;
+		String rest;
+		if (line.startsWith("\"")) {
+			StringBuilder quoted = new StringBuilder();
+			int i = 1;
+			while (true) {
+				if (i >= line.length()) {
+					throw new IllegalArgumentException(location + ": unterminated quote");
+				}
+				char c = line.charAt(i++);
+				if (c == '"') {
+					if (i < line.length() && line.charAt(i) == '"') {
+						quoted.append('"');
+						i++;
+					} else {
+						break;
+					}
+				} else {
+					quoted.append(c);
+				}
+			}
+			value = quoted.toString();
+			rest = line.substring(i).trim();
+			if (!rest.isEmpty() && !rest.startsWith(",")) {
+				throw new IllegalArgumentException(location + ": text after the closing quote");
+			}
+			rest = rest.isEmpty() ? null : rest.substring(1).trim();
+		} else {
+			int comma = line.lastIndexOf(',');
+			value = comma < 0 ? line.trim() : line.substring(0, comma).trim();
+			rest = comma < 0 ? null : line.substring(comma + 1).trim();
+		}
+		if (rest != null) {
+			double weight;
+			try {
+				weight = Double.parseDouble(rest);
+			} catch (NumberFormatException e) {
+				throw new IllegalArgumentException(location + ": the weight " + rest + " is not a number", e);
+			}
+			if (!(weight >= 0) || Double.isInfinite(weight)) {
+				throw new IllegalArgumentException(location + ": the weight has to be a non-negative number");
+			}
+			weights.add(weight);
+		}
+		values.add(value);
+	}
+
+	/**
+	 * Writes the corpus to a temporary file next to {@code output} and moves it into place.
+	 *
+	 * @param output the corpus file
+	 */
+	public void write(Path output) {
+		List<String> keys = new ArrayList<>();
+		List<String> types = new ArrayList<>();
+		List<Entry> lists = new ArrayList<>();
+		for (Map.Entry<String, Map<String, Entry>> key : entries.entrySet()) {
+			for (Map.Entry<String, Entry> type : key.getValue().entrySet()) {
+				keys.add(key.getKey());
+				types.add(type.getKey());
+				lists.add(type.getValue());
+			}
+		}
+		try {
+			int directoryLength = 12;
+			List<byte[]> encodedKeys = new ArrayList<>();
+			List<byte[]> encodedTypes = new ArrayList<>();
+			for (int e = 0; e < lists.size(); e++) {
+				encodedKeys.add(utf8(keys.get(e)));
+				encodedTypes.add(utf8(types.get(e)));
+				directoryLength += 2 + encodedKeys.get(e).length + 2 + encodedTypes.get(e).length + 5;
+			}
+			ByteArrayOutputStream data = new ByteArrayOutputStream();
+			int[] listOffsets = new int[lists.size()];
+			int position = align(directoryLength);
+			for (int e = 0; e < lists.size(); e++) {
+				byte[] list = lists.get(e).encode();
+				listOffsets[e] = position;
+				data.write(list);
+				int padding = align(list.length) - list.length;
+				data.write(new byte[padding]);
+				position += list.length + padding;
+			}
+
+			ByteArrayOutputStream corpus = new ByteArrayOutputStream(position);
+			DataOutputStream out = new DataOutputStream(corpus);
+			out.writeInt(SeedCorpus.MAGIC);
+			out.writeInt(SeedCorpus.VERSION);
+			out.writeInt(lists.size());
+			for (int e = 0; e < lists.size(); e++) {
+				out.writeShort(encodedKeys.get(e).length);
+				out.write(encodedKeys.get(e));
+				out.writeShort(encodedTypes.get(e).length);
+				out.write(encodedTypes.get(e));
+				out.writeByte(lists.get(e).kind);
+				out.writeInt(listOffsets[e]);
+			}
+			out.write(new byte[align(directoryLength) - directoryLength]);
+			data.writeTo(out);
+			out.flush();
+
+			Path temporary = output.resolveSibling(output.getFileName() + ".tmp");
+			Files.write(temporary, corpus.toByteArray());
+			Files.move(temporary, output, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			LOGGER.info("Wrote {} lists to the seed corpus {} ({} bytes)", lists.size(), output, position);
+		} catch (IOException e) {
+			throw new IllegalStateException("Unable to write the seed corpus " + output, e);
+		}
+	}
+
+	private static int align(int position) {
+		return (position + 7) & ~7;
+	}
+
+	private static byte[] utf8(String text) {
+		byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+		if (bytes.length > Short.MAX_VALUE) {
+			throw new IllegalArgumentException("Key too long: " + text);
+		}
+		return bytes;
+	}
+
+	private static final class Entry {
+
+		private final byte kind;
+		private final List<?> values;
+		private final double[] weights;
+
+		Entry(byte kind, List<?> values, double[] weights) {
+			this.kind = kind;
+			this.values = values;
+			this.weights = weights;
+		}
+
+		static Entry of(byte kind, List<?> list) {
+			List<?> values = WeightedList.of(list);
+			if (!(values instanceof WeightedList)) {
+				return new Entry(kind, values, null);
+			}
+			double[] weights = new double[values.size()];
+			for (int i = 0; i < weights.length; i++) {
+				weights[i] = ((WeightedList) values).weight(i);
+			}
+			return new Entry(kind, values, weights);
+		}
+
+		byte[] encode() throws IOException {
+			boolean integers = !values.isEmpty();
+			for (Object value : values) {
+				integers &= value instanceof Integer;
+			}
+			ByteArrayOutputStream strings = new ByteArrayOutputStream();
+			int[] offsets = new int[values.size() + 1];
+			for (int i = 0; i < values.size(); i++) {
+				strings.write(String.valueOf(values.get(i)).getBytes(StandardCharsets.UTF_8));
+				offsets[i + 1] = strings.size();
+			}
+			ByteArrayOutputStream list = new ByteArrayOutputStream();
+			DataOutputStream out = new DataOutputStream(list);
+			out.writeInt(values.size());
+			out.writeByte(integers ? SeedCorpus.VALUE_INTEGER : SeedCorpus.VALUE_STRING);
+			out.writeByte(weights != null ? 1 : 0);
+			out.writeShort(0);
+			if (weights != null) {
+				AliasTable aliasTable = AliasTable.of(weights);
+				for (double weight : weights) {
+					out.writeDouble(weight);
+				}
+				for (int i = 0; i < weights.length; i++) {
+					out.writeDouble(aliasTable.probability(i));
+				}
+				for (int i = 0; i < weights.length; i++) {
+					out.writeInt(aliasTable.alias(i));
+				}
+			}
+			for (int offset : offsets) {
+				out.writeInt(offset);
+			}
+			strings.writeTo(out);
+			out.flush();
+			return list.toByteArray();
+		}
+
+	}
+
+}
@@ -0,0 +1,58 @@
+/*
+ * Open Hospital (www.open-hospital.org)
+ * Copyright © 2021 Informatici Senza Frontiere (info@informaticisenzafrontiere.org)
+ *
+ * Open Hospital is a free and open source software for healthcare data management.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * https://www.gnu.org/licenses/gpl-3.0-standalone.html
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.isf.generator.data;
+
+import org.isf.generator.producer.BaseProducer;
+
+/**
+ * A list of seed values that is picked from by index, such as the first names of one sex.
+ */
+public interface SeedList {
+
+	/**
+	 * @return the number of values
+	 */
+	int size();
+
+	/**
+	 * @param <T> the type of the values
+	 * @param index index of the value
+	 * @return the value
+	 */
+	<T> T get(int index);
+
+	/**
+	 * @param baseProducer producer of the random numbers
+	 * @return the index of a random value
+	 */
+	int randomIndex(BaseProducer baseProducer);
+
+	/**
+	 * @param <T> the type of the values
+	 * @param baseProducer producer of the random numbers
+	 * @return a random value
+	 */
+	default <T> T random(BaseProducer baseProducer) {
+		return get(randomIndex(baseProducer));
+	}
+
+}
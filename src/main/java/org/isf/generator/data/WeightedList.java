@@ -0,0 +1,113 @@
+/*
+ * Open Hospital (www.open-hospital.org)
+ * Copyright © 2021 Informatici Senza Frontiere (info@informaticisenzafrontiere.org)
+ *
+ * Open Hospital is a free and open source software for healthcare data management.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * https://www.gnu.org/licenses/gpl-3.0-standalone.html
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.isf.generator.data;
+
+import java.util.AbstractList;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+
+import org.isf.generator.producer.AliasTable;
+
+/**
+ * A seed list with weighted entries. Instead of repeating a value, an entry of a YAML list can give its weight
+ * (its relative frequency); entries without a weight count once:
+ * <pre>
+ * bloodType:
+ *   - { value: O+, weight: 48.1 }
+ *   - { value: A+, weight: 26.3 }
+ *   - AB-
+ * </pre>
+ * <p>The list itself holds only the values. The weights are compiled into an {@link AliasTable} when the list
+ * is read, so a weighted pick takes constant time.</p>
+ */
+public final class WeightedList extends AbstractList<Object> implements RandomAccess {
+
+	static final String VALUE = "value";
+	static final String WEIGHT = "weight";
+
+	private final Object[] values;
+	private final double[] weights;
+	private final AliasTable aliasTable;
+
+	private WeightedList(Object[] values, double[] weights) {
+		this.values = values;
+		this.weights = weights;
+		this.aliasTable = AliasTable.of(weights);
+	}
+
+	/**
+	 * @param list a list read from a YAML file
+	 * @return a WeightedList if any entry of the list has a weight, otherwise the list itself
+	 * @throws IllegalArgumentException if a weighted entry has no value or an invalid weight
+	 */
+	public static List<?> of(List<?> list) {
+		boolean weighted = false;
+		for (Object entry : list) {
+			weighted |= entry instanceof Map;
+		}
+		if (!weighted) {
+			return list;
+		}
+		Object[] values = new Object[list.size()];
+		double[] weights = new double[list.size()];
+		for (int i = 0; i < values.length; i++) {
+			Object entry = list.get(i);
+			if (entry instanceof Map) {
+				Map<?, ?> map = (Map<?, ?>) entry;
+				Object weight = map.get(WEIGHT);
+				if (map.get(VALUE) == null || !(weight instanceof Number)) {
+					throw new IllegalArgumentException("A weighted entry needs a value and a numeric weight: " + entry);
+				}
+				values[i] = map.get(VALUE);
+				weights[i] = ((Number) weight).doubleValue();
+			} else {
+				values[i] = entry;
+				weights[i] = 1;
+			}
+		}
+		return new WeightedList(values, weights);
+	}
+
+	@Override
+	public Object get(int index) {
+		return values[index];
+	}
+
+	@Override
+	public int size() {
+		return values.length;
+	}
+
+	/**
+	 * @param index index of a value
+	 * @return the weight of the value
+	 */
+	public double weight(int index) {
+		return weights[index];
+	}
+
+	public AliasTable getAliasTable() {
+		return aliasTable;
+	}
+
+}
@@ -0,0 +1,130 @@
+/*
+ * Open Hospital (www.open-hospital.org)
+ * Copyright © 2021 Informatici Senza Frontiere (info@informaticisenzafrontiere.org)
+ *
+ * Open Hospital is a free and open source software for healthcare data management.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * https://www.gnu.org/licenses/gpl-3.0-standalone.html
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.isf.generator.producer;
+
+/**
+ * Vose alias table for picking indexes in proportion to their weights in constant time.
+ * <p>Every column {@code i} holds the probability of keeping {@code i} and the alias picked otherwise; a pick
+ * draws one random column and one random double, whatever the number of weights and their skew. The table is
+ * built in O(n) and is immutable, so it can be shared between threads.</p>
+ */
+public final class AliasTable {
+
+	private final double[] probabilities;
+	private final int[] aliases;
+
+	private AliasTable(double[] probabilities, int[] aliases) {
+		this.probabilities = probabilities;
+		this.aliases = aliases;
+	}
+
+	/**
+	 * @param weights the non-negative weights of the indexes, at least one of them positive
+	 * @return the alias table of the weights
+	 * @throws IllegalArgumentException if the weights are empty, negative, not finite or all zero
+	 */
+	public static AliasTable of(double[] weights) {
+		int size = weights.length;
+		double total = 0;
+		for (double weight : weights) {
+			if (!(weight >= 0) || Double.isInfinite(weight)) {
+				throw new IllegalArgumentException("Invalid weight " + weight);
+			}
+			total += weight;
+		}
+		if (!(total > 0)) {
+			throw new IllegalArgumentException("At least one weight has to be positive");
+		}
+
+		double[] probabilities = new double[size];
+		int[] aliases = new int[size];
+		double[] scaled = new double[size];
+		// small and large columns share one array: small ones from the start, large ones from the end
+		int[] work = new int[size];
+		int small = 0;
+		int large = size;
+		for (int i = 0; i < size; i++) {
+			scaled[i] = weights[i] * size / total;
+			if (scaled[i] < 1) {
+				work[small++] = i;
+			} else {
+				work[--large] = i;
+			}
+		}
+		while (small > 0 && large < size) {
+			int less = work[--small];
+			int more = work[large++];
+			probabilities[less] = scaled[less];
+			aliases[less] = more;
+			scaled[more] = scaled[more] + scaled[less] - 1;
+			if (scaled[more] < 1) {
+				work[small++] = more;
+			} else {
+				work[--large] = more;
+			}
+		}
+		// what is left is 1 up to rounding errors
+		while (large < size) {
+			int more = work[large++];
+			probabilities[more] = 1;
+			aliases[more] = more;
+		}
+		while (small > 0) {
+			int less = work[--small];
+			probabilities[less] = 1;
+			aliases[less] = less;
+		}
+		return new AliasTable(probabilities, aliases);
+	}
+
+	/**
+	 * Picks a random column and keeps it or takes its alias.
+	 *
+	 * @param baseProducer producer of the random numbers
+	 * @return a random index, picked in proportion to its weight
+	 */
+	public int sample(BaseProducer baseProducer) {
+		int column = baseProducer.randomBetween(0, probabilities.length - 1);
+		return baseProducer.randomBetween(0d, 1d) < probabilities[column] ? column : aliases[column];
+	}
+
+	public int size() {
+		return probabilities.length;
+	}
+
+	/**
+	 * @param column index of a column
+	 * @return the probability of keeping the column
+	 */
+	public double probability(int column) {
+		return probabilities[column];
+	}
+
+	/**
+	 * @param column index of a column
+	 * @return the index picked when the column is not kept
+	 */
+	public int alias(int column) {
+		return aliases[column];
+	}
+
+}
@@ -24,6 +24,10 @@ package org.isf.generator.producer;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
 
 import javax.inject.Inject;
 import javax.inject.Singleton;
@@ -31,6 +35,17 @@ import javax.inject.Singleton;
 @Singleton
 public class BaseProducer {
 
+	/**
+	 * Formats are mostly seed data and constants; formats beyond this number per kind are compiled on every call.
+	 */
+	private static final int TEMPLATE_CACHE_SIZE = 1024;
+	private static final Map<String, Template> NUMERIFY_TEMPLATES = new ConcurrentHashMap<>();
+	private static final Map<String, Template> LETTERIFY_TEMPLATES = new ConcurrentHashMap<>();
+	private static final Map<String, Template> BOTHIFY_TEMPLATES = new ConcurrentHashMap<>();
+
+	private static final ThreadLocal<char[]> BUFFER = ThreadLocal.withInitial(() -> new char[32]);
+	private static final ThreadLocal<IndexSampler> SAMPLER = ThreadLocal.withInitial(IndexSampler::new);
+
 	private final RandomGenerator random;
 
 	@Inject
@@ -58,6 +73,18 @@ public class BaseProducer {
 		return elements.get(randomBetween(0, elements.size() - 1));
 	}
 
+	/**
+	 * Returns random element from passed List, picked in proportion to its weight
+	 *
+	 * @param <T> element generic type
+	 * @param elements list to process
+	 * @param weights alias table of the weights of the elements, {@code null} to pick uniformly
+	 * @return random list element
+	 */
+	public <T> T randomElement(List<T> elements, AliasTable weights) {
+		return weights == null ? randomElement(elements) : elements.get(weights.sample(this));
+	}
+
 	/**
 	 * Returns random element from passed vararg
 	 *
@@ -80,7 +107,8 @@ public class BaseProducer {
 	}
 
 	/**
-	 * Creates new list being random subset of the passed list
+	 * Creates new list being random subset of the passed list. The elements are sampled without modifying the passed
+	 * list; when {@code count} exceeds its size, every element is used once before any is repeated.
 	 *
 	 * @param <T> element generic type
 	 * @param elements list to process
@@ -88,21 +116,22 @@ public class BaseProducer {
 	 * @return sublist of the elements list
 	 */
 	public <T> List<T> randomElements(List<T> elements, int count) {
-		if (elements.size() >= count) {
-			return extractRandomList(elements, count);
+		List<T> randomElements = new ArrayList<>(count);
+		if (count == 0) {
+			return randomElements;
+		}
+		if (elements.isEmpty()) {
+			throw new IllegalArgumentException("Cannot pick " + count + " elements out of an empty list");
+		}
+		List<T> source = elements instanceof RandomAccess ? elements : new ArrayList<>(elements);
+		IndexSampler sampler = SAMPLER.get();
+		sampler.sample(random, source, count % source.size(), randomElements);
+		while (randomElements.size() < count) {
+			sampler.sample(random, source, source.size(), randomElements);
 		}
-		List<T> randomElements = new ArrayList<>(extractRandomList(elements, count % elements.size()));
-		do {
-			randomElements.addAll(extractRandomList(elements, elements.size()));
-		} while (randomElements.size() < count);
 		return randomElements;
 	}
 
-	private <T> List<T> extractRandomList(List<T> elements, int count) {
-		elements = random.shuffle(elements);
-		return elements.subList(0, count);
-	}
-
 	/**
 	 * Returns random int value
 	 *
@@ -203,19 +232,66 @@ public class BaseProducer {
 	 * @return text with replaced '#' and '?' characters
 	 */
 	public String bothify(String string) {
-		return letterify(numerify(string));
+		return fill(cached(BOTHIFY_TEMPLATES, string, format -> Template.compile(format, new char[] { '#', '?' }, new char[] { '0', 'a' },
+				new char[] { '9', 'z' })));
 	}
 
 	private String replaceSymbolWithCharsFromTo(String string, char symbol, char from, char to) {
-		StringBuilder result = new StringBuilder();
-		for (char aChar : string.toCharArray()) {
-			if (aChar == symbol) {
-				result.append(randomBetween(from, to));
-			} else {
-				result.append(aChar);
+		Template template;
+		if (symbol == '#' && from == '0' && to == '9') {
+			template = cached(NUMERIFY_TEMPLATES, string, format -> Template.compile(format, symbol, from, to));
+		} else if (symbol == '?' && from == 'a' && to == 'z') {
+			template = cached(LETTERIFY_TEMPLATES, string, format -> Template.compile(format, symbol, from, to));
+		} else {
+			template = Template.compile(string, symbol, from, to);
+		}
+		return fill(template);
+	}
+
+	/**
+	 * Fills the template, using a per-thread work buffer.
+	 *
+	 * @param template compiled template
+	 * @return the filled text
+	 */
+	public String fill(Template template) {
+		char[] buffer = BUFFER.get();
+		if (buffer.length < template.length()) {
+			buffer = new char[Math.max(template.length(), buffer.length * 2)];
+			BUFFER.set(buffer);
+		}
+		return template.fill(random, buffer);
+	}
+
+	/**
+	 * Fills the template into a caller supplied buffer, such as the character arena of a batch.
+	 *
+	 * @param template compiled template
+	 * @param buffer buffer with room for {@link Template#length()} characters from {@code offset}
+	 * @param offset position of the first character in the buffer
+	 * @return the number of characters written
+	 */
+	public int fill(Template template, char[] buffer, int offset) {
+		return template.fill(random, buffer, offset);
+	}
+
+	/**
+	 * @param numberString text to process by {@link #numerify(String)}
+	 * @return the compiled template, shared like those used by {@link #numerify(String)}
+	 */
+	public static Template numerifyTemplate(String numberString) {
+		return cached(NUMERIFY_TEMPLATES, numberString, format -> Template.compile(format, '#', '0', '9'));
+	}
+
+	private static Template cached(Map<String, Template> templates, String string, Function<String, Template> compiler) {
+		Template template = templates.get(string);
+		if (template == null) {
+			template = compiler.apply(string);
+			if (templates.size() < TEMPLATE_CACHE_SIZE) {
+				templates.put(string, template);
 			}
 		}
-		return result.toString();
+		return template;
 	}
 
 }
@@ -25,27 +25,40 @@ import static com.google.common.base.Preconditions.checkArgument;
 import static java.time.temporal.TemporalAdjusters.firstDayOfYear;
 import static java.time.temporal.TemporalAdjusters.lastDayOfYear;
 
-import java.time.Instant;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.Month;
 import java.time.Period;
 import java.time.ZoneOffset;
+import java.util.Arrays;
 
 import javax.inject.Inject;
 import javax.inject.Singleton;
 
 import com.google.common.annotations.VisibleForTesting;
 
+/**
+ * Random dates relative to the "now" of the {@link TimeProvider}.
+ * <p>Dates are drawn as epoch days or epoch milliseconds (in UTC); the {@code randomEpoch*} methods return them
+ * as primitives, so that hot paths only create a {@link LocalDate} or {@link LocalDateTime} for the value they keep.</p>
+ */
 @Singleton
 public class DateProducer {
 
 	@VisibleForTesting
 	static final int SECONDS_BEFORE_TO_BE_IN_THE_PAST = 1;
 
+	public static final long MILLIS_PER_DAY = 86_400_000L;
+
+	private static final int MILLIS_PER_SECOND = 1000;
+	private static final int NANOS_PER_MILLI = 1_000_000;
+
 	private final BaseProducer baseProducer;
 	private final TimeProvider timeProvider;
 
+	private long[] earliestBirthDay = new long[0];
+	private long[] latestBirthDay = new long[0];
+
 	@Inject
 	public DateProducer(BaseProducer baseProducer, TimeProvider timeProvider) {
 		this.baseProducer = baseProducer;
@@ -66,13 +79,69 @@ public class DateProducer {
 	}
 
 	public LocalDate randomDateBetweenTwoDates(LocalDate from, LocalDate to) {
-		long epochDay = baseProducer.randomBetween(from.toEpochDay(), to.toEpochDay());
-		return LocalDate.ofEpochDay(epochDay);
+		return LocalDate.ofEpochDay(randomEpochDay(from.toEpochDay(), to.toEpochDay()));
 	}
 
 	public LocalDateTime randomDateBetweenTwoDates(LocalDateTime from, LocalDateTime to) {
-		long between = baseProducer.randomBetween(from.toInstant(ZoneOffset.UTC).toEpochMilli(), to.toInstant(ZoneOffset.UTC).toEpochMilli());
-		return LocalDateTime.ofInstant(Instant.ofEpochMilli(between), ZoneOffset.UTC);
+		return ofEpochMilli(randomEpochMilli(toEpochMilli(from), toEpochMilli(to)));
+	}
+
+	/**
+	 * @param fromEpochDay first day of the range (inclusive)
+	 * @param toEpochDay last day of the range (inclusive)
+	 * @return a random epoch day of the range
+	 */
+	public long randomEpochDay(long fromEpochDay, long toEpochDay) {
+		return baseProducer.randomBetween(fromEpochDay, toEpochDay);
+	}
+
+	/**
+	 * @param fromEpochMilli start of the range (inclusive)
+	 * @param toEpochMilli end of the range (inclusive)
+	 * @return a random time of the range, in milliseconds since the epoch
+	 */
+	public long randomEpochMilli(long fromEpochMilli, long toEpochMilli) {
+		return baseProducer.randomBetween(fromEpochMilli, toEpochMilli);
+	}
+
+	/**
+	 * A person of age n is born between n + 1 years ago (exclusive) and n years ago; the bounds are computed once
+	 * per age.
+	 *
+	 * @param age age of the person today
+	 * @return a random epoch day of birth for the age
+	 */
+	public long randomEpochDayOfBirth(int age) {
+		if (age >= latestBirthDay.length) {
+			int from = latestBirthDay.length;
+			int length = Math.max(age + 1, 2 * from);
+			earliestBirthDay = Arrays.copyOf(earliestBirthDay, length);
+			latestBirthDay = Arrays.copyOf(latestBirthDay, length);
+			LocalDate today = timeProvider.getCurrentDate();
+			for (int a = from; a < length; a++) {
+				LocalDate maxDate = today.minusYears(a);
+				latestBirthDay[a] = maxDate.toEpochDay();
+				earliestBirthDay[a] = maxDate.minusYears(1).plusDays(1).toEpochDay();
+			}
+		}
+		return randomEpochDay(earliestBirthDay[age], latestBirthDay[age]);
+	}
+
+	/**
+	 * @param dateTime a date and time, taken as UTC
+	 * @return the milliseconds since the epoch
+	 */
+	public static long toEpochMilli(LocalDateTime dateTime) {
+		return dateTime.toEpochSecond(ZoneOffset.UTC) * MILLIS_PER_SECOND + dateTime.getNano() / NANOS_PER_MILLI;
+	}
+
+	/**
+	 * @param epochMilli milliseconds since the epoch
+	 * @return the date and time in UTC
+	 */
+	public static LocalDateTime ofEpochMilli(long epochMilli) {
+		return LocalDateTime.ofEpochSecond(Math.floorDiv(epochMilli, MILLIS_PER_SECOND), (int) Math.floorMod(epochMilli, MILLIS_PER_SECOND) * NANOS_PER_MILLI,
+				ZoneOffset.UTC);
 	}
 
 	public LocalDateTime randomDateBetweenYears(int fromYear, int toYear) {
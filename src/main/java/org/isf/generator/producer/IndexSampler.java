@@ -0,0 +1,87 @@
+/*
+ * Open Hospital (www.open-hospital.org)
+ * Copyright © 2021 Informatici Senza Frontiere (info@informaticisenzafrontiere.org)
+ *
+ * Open Hospital is a free and open source software for healthcare data management.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * https://www.gnu.org/licenses/gpl-3.0-standalone.html
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.isf.generator.producer;
+
+import java.util.List;
+
+/**
+ * Draws distinct random indexes with a partial Fisher-Yates shuffle of an index array.
+ * <p>Between two samples the array holds the identity permutation: the swaps of a sample are undone afterwards,
+ * so taking {@code k} elements out of {@code n} costs O(k) and the sampled list itself is never modified. The
+ * array only grows, to the size of the largest list sampled. An instance must not be shared between threads.</p>
+ */
+final class IndexSampler {
+
+	private int[] indexes = new int[0];
+	private int[] swaps = new int[16];
+
+	/**
+	 * Adds {@code count} distinct random elements of {@code elements} to {@code target}.
+	 *
+	 * @param <T> element generic type
+	 * @param random source of the random indexes
+	 * @param elements list to sample, preferably {@link java.util.RandomAccess}
+	 * @param count number of elements to add, at most {@code elements.size()}
+	 * @param target list receiving the elements in the order they were drawn
+	 */
+	<T> void sample(RandomGenerator random, List<T> elements, int count, List<? super T> target) {
+		int size = elements.size();
+		if (count > size) {
+			throw new IllegalArgumentException("Cannot sample " + count + " distinct elements out of " + size);
+		}
+		ensureCapacity(size, count);
+		int drawn = 0;
+		try {
+			while (drawn < count) {
+				int last = size - 1 - drawn;
+				int swap = random.nextInt(last + 1);
+				swaps[drawn++] = swap;
+				int index = indexes[swap];
+				indexes[swap] = indexes[last];
+				indexes[last] = index;
+				target.add(elements.get(index));
+			}
+		} finally {
+			// undo the swaps in reverse order to get the identity permutation back
+			for (int i = drawn - 1; i >= 0; i--) {
+				int last = size - 1 - i;
+				int index = indexes[swaps[i]];
+				indexes[swaps[i]] = indexes[last];
+				indexes[last] = index;
+			}
+		}
+	}
+
+	private void ensureCapacity(int size, int count) {
+		if (indexes.length < size) {
+			int[] grown = new int[Math.max(size, indexes.length * 2)];
+			for (int i = 0; i < grown.length; i++) {
+				grown[i] = i;
+			}
+			indexes = grown;
+		}
+		if (swaps.length < count) {
+			swaps = new int[Math.max(count, swaps.length * 2)];
+		}
+	}
+
+}
@@ -0,0 +1,90 @@
+/*
+ * Open Hospital (www.open-hospital.org)
+ * Copyright © 2021 Informatici Senza Frontiere (info@informaticisenzafrontiere.org)
+ *
+ * Open Hospital is a free and open source software for healthcare data management.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * https://www.gnu.org/licenses/gpl-3.0-standalone.html
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.isf.generator.producer;
+
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.commons.math3.random.JDKRandomGenerator;
+import org.apache.commons.math3.random.RandomDataGenerator;
+
+/**
+ * {@link java.util.Random} driven through commons-math, the original algorithm: for a given seed it makes the same
+ * draws as commons-math {@code RandomDataGenerator}.
+ */
+final class JdkRandomSource implements RandomSource {
+
+	private final JDKRandomGenerator random;
+	private final RandomDataGenerator randomDataGenerator;
+
+	JdkRandomSource() {
+		this.random = new JDKRandomGenerator();
+		this.randomDataGenerator = new RandomDataGenerator(random);
+	}
+
+	JdkRandomSource(long seed) {
+		this.random = new JDKRandomGenerator();
+		this.random.setSeed(seed);
+		this.randomDataGenerator = new RandomDataGenerator(random);
+	}
+
+	@Override
+	public void setSeed(long seed) {
+		randomDataGenerator.reSeed(seed);
+	}
+
+	@Override
+	public boolean nextBoolean() {
+		return random.nextBoolean();
+	}
+
+	@Override
+	public int nextInt(int bound) {
+		return random.nextInt(bound);
+	}
+
+	@Override
+	public int nextInt(int min, int max) {
+		int range = max - min + 1;
+		if (min <= max && range > 0) {
+			// what RandomDataGenerator does, without allocating a distribution on every call
+			return min + random.nextInt(range);
+		}
+		return randomDataGenerator.nextInt(min, max);
+	}
+
+	@Override
+	public long nextLong(long min, long max) {
+		return randomDataGenerator.nextLong(min, max);
+	}
+
+	@Override
+	public double nextDouble(double min, double max) {
+		return randomDataGenerator.nextUniform(min, max);
+	}
+
+	@Override
+	public <T> void shuffle(List<T> elements) {
+		Collections.shuffle(elements, random);
+	}
+
+}
@@ -21,31 +21,90 @@
  */
 package org.isf.generator.producer;
 
-import java.util.Collections;
 import java.util.List;
 import java.util.Random;
 
-import org.apache.commons.math3.random.JDKRandomGenerator;
-import org.apache.commons.math3.random.RandomDataGenerator;
-
+/**
+ * Source of all random values of a Generator.
+ * <p>The numbers come from one of the {@link Algorithm}s; an instance is not thread safe, every thread needs its
+ * own.</p>
+ */
 public class RandomGenerator {
 
-	private final RandomDataGenerator randomDataGenerator;
+	public enum Algorithm {
+
+		/**
+		 * {@link Random} (the default), with the same draws as commons-math {@code RandomDataGenerator} for a
+		 * given seed, but every draw pays for the atomic update of its state.
+		 */
+		JDK,
+
+		/**
+		 * xoroshiro128++: several times faster, unbiased bounded values, not synchronized. Seeded data differs from
+		 * {@link #JDK}.
+		 */
+		XOROSHIRO
+
+	}
+
+	private final RandomSource source;
 
 	public RandomGenerator() {
-		this.randomDataGenerator = new RandomDataGenerator(new JDKRandomGenerator());
+		this(Algorithm.JDK);
 	}
 
 	public RandomGenerator(int seed) {
-		this.randomDataGenerator = new RandomDataGenerator(new JDKRandomGenerator(seed));
+		this(Algorithm.JDK, seed);
+	}
+
+	/**
+	 * @param algorithm random number algorithm, seeded with a random seed
+	 */
+	public RandomGenerator(Algorithm algorithm) {
+		if (algorithm == Algorithm.XOROSHIRO) {
+			this.source = new XoroshiroRandomSource(new Random().nextLong());
+		} else {
+			this.source = new JdkRandomSource();
+		}
+	}
+
+	/**
+	 * @param algorithm random number algorithm
+	 * @param seed random seed
+	 */
+	public RandomGenerator(Algorithm algorithm, long seed) {
+		if (algorithm == Algorithm.XOROSHIRO) {
+			this.source = new XoroshiroRandomSource(seed);
+		} else {
+			this.source = new JdkRandomSource(seed);
+		}
+	}
+
+	/**
+	 * Derives the seed of an independent substream from a master seed (SplitMix64 mixing), so that every
+	 * stream number always yields the same, well spread seed.
+	 *
+	 * @param seed master seed
+	 * @param stream number of the substream
+	 * @return seed for the substream
+	 */
+	public static long deriveSeed(long seed, long stream) {
+		long z = seed + (stream + 1) * 0x9E3779B97F4A7C15L;
+		z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+		z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+		return z ^ (z >>> 31);
+	}
+
+	public void setSeed(long seed) {
+		source.setSeed(seed);
 	}
 
 	public boolean nextBoolean() {
-		return randomDataGenerator.getRandomGenerator().nextBoolean();
+		return source.nextBoolean();
 	}
 
 	public <T> List<T> shuffle(List<T> elements) {
-		Collections.shuffle(elements, (Random) randomDataGenerator.getRandomGenerator());
+		source.shuffle(elements);
 		return elements;
 	}
 
@@ -53,15 +112,23 @@ public class RandomGenerator {
 		if (min == max) {
 			return min;
 		}
-		return randomDataGenerator.nextInt(min, max);
+		return source.nextInt(min, max);
+	}
+
+	/**
+	 * @param bound upper bound (exclusive), must be positive
+	 * @return uniformly distributed {@code int} value between 0 (inclusive) and {@code bound} (exclusive)
+	 */
+	public int nextInt(int bound) {
+		return source.nextInt(bound);
 	}
 
 	public long nextDouble(long min, long max) {
-		return randomDataGenerator.nextLong(min, max);
+		return source.nextLong(min, max);
 	}
 
 	public double nextDouble(double min, double max) {
-		return randomDataGenerator.nextUniform(min, max);
+		return source.nextDouble(min, max);
 	}
 
 }
@@ -0,0 +1,55 @@
+/*
+ * Open Hospital (www.open-hospital.org)
+ * Copyright © 2021 Informatici Senza Frontiere (info@informaticisenzafrontiere.org)
+ *
+ * Open Hospital is a free and open source software for healthcare data management.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * https://www.gnu.org/licenses/gpl-3.0-standalone.html
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.isf.generator.producer;
+
+import java.util.List;
+
+/**
+ * The random number algorithm behind a {@link RandomGenerator}.
+ * <p>All bounds are inclusive unless stated otherwise. Implementations are not required to be thread safe.</p>
+ */
+interface RandomSource {
+
+	void setSeed(long seed);
+
+	boolean nextBoolean();
+
+	/**
+	 * @param bound upper bound (exclusive), must be positive
+	 * @return uniformly distributed value between 0 (inclusive) and {@code bound} (exclusive)
+	 */
+	int nextInt(int bound);
+
+	int nextInt(int min, int max);
+
+	long nextLong(long min, long max);
+
+	/**
+	 * @param min lower bound (exclusive)
+	 * @param max upper bound (exclusive)
+	 * @return uniformly distributed value between {@code min} and {@code max}
+	 */
+	double nextDouble(double min, double max);
+
+	<T> void shuffle(List<T> elements);
+
+}
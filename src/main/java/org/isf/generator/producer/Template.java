@@ -0,0 +1,183 @@
+/*
+ * Open Hospital (www.open-hospital.org)
+ * Copyright © 2021 Informatici Senza Frontiere (info@informaticisenzafrontiere.org)
+ *
+ * Open Hospital is a free and open source software for healthcare data management.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * https://www.gnu.org/licenses/gpl-3.0-standalone.html
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.isf.generator.producer;
+
+/**
+ * A format such as {@code "###-###-####"} compiled once into the positions of its placeholders.
+ * <p>{@link #fill(RandomGenerator, char[])} copies the format into a caller supplied buffer and writes a random
+ * character of the placeholder's range at each position. The characters are not drawn one by one: every draw
+ * of a bounded random int is split into as many characters as fit (9 digits or 6 letters), so a phone number
+ * costs one or two draws.</p>
+ */
+public final class Template {
+
+	private final String format;
+	private final char[] chars;
+	private final int[] positions;
+	private final byte[] ranges;
+
+	private final char[] from;
+	private final int[] radix;
+	private final int[] charsPerDraw;
+	private final int[] drawBound;
+
+	private Template(String format, char[] symbols, char[] from, char[] to) {
+		this.format = format;
+		this.chars = format.toCharArray();
+		this.from = from.clone();
+		this.radix = new int[symbols.length];
+		this.charsPerDraw = new int[symbols.length];
+		this.drawBound = new int[symbols.length];
+		for (int range = 0; range < symbols.length; range++) {
+			if (to[range] < from[range]) {
+				throw new IllegalArgumentException("Empty range " + from[range] + '-' + to[range]);
+			}
+			radix[range] = to[range] - from[range] + 1;
+			int bound = 1;
+			int count = 0;
+			while (radix[range] > 1 && bound <= Integer.MAX_VALUE / radix[range]) {
+				bound *= radix[range];
+				count++;
+			}
+			charsPerDraw[range] = count;
+			drawBound[range] = bound;
+		}
+
+		int placeholders = 0;
+		for (char c : chars) {
+			if (rangeOf(symbols, c) >= 0) {
+				placeholders++;
+			}
+		}
+		this.positions = new int[placeholders];
+		this.ranges = new byte[placeholders];
+		int placeholder = 0;
+		for (int i = 0; i < chars.length; i++) {
+			int range = rangeOf(symbols, chars[i]);
+			if (range >= 0) {
+				positions[placeholder] = i;
+				ranges[placeholder++] = (byte) range;
+			}
+		}
+	}
+
+	/**
+	 * @param format text with placeholders
+	 * @param symbol the placeholder character
+	 * @param from start of the range of the replacements
+	 * @param to end of the range of the replacements (inclusive)
+	 * @return the compiled template
+	 */
+	public static Template compile(String format, char symbol, char from, char to) {
+		return new Template(format, new char[] { symbol }, new char[] { from }, new char[] { to });
+	}
+
+	/**
+	 * @param format text with placeholders
+	 * @param symbols the placeholder characters (one or two)
+	 * @param from start of the range of the replacements of each placeholder character
+	 * @param to end of the range of the replacements of each placeholder character (inclusive)
+	 * @return the compiled template
+	 */
+	public static Template compile(String format, char[] symbols, char[] from, char[] to) {
+		if (symbols.length == 0 || symbols.length > 2) {
+			throw new IllegalArgumentException("A template has one or two placeholder characters");
+		}
+		if (symbols.length != from.length || symbols.length != to.length) {
+			throw new IllegalArgumentException("One range is needed for every symbol");
+		}
+		return new Template(format, symbols.clone(), from, to);
+	}
+
+	/**
+	 * @return the length of the filled text, i.e. the buffer size needed by {@link #fill(RandomGenerator, char[])}
+	 */
+	public int length() {
+		return chars.length;
+	}
+
+	/**
+	 * @param random source of the random characters
+	 * @param buffer work buffer of at least {@link #length()} characters
+	 * @return the format with its placeholders replaced
+	 */
+	public String fill(RandomGenerator random, char[] buffer) {
+		if (positions.length == 0) {
+			return format;
+		}
+		fill(random, buffer, 0);
+		return new String(buffer, 0, chars.length);
+	}
+
+	/**
+	 * Writes the filled text into a buffer instead of creating a String.
+	 *
+	 * @param random source of the random characters
+	 * @param buffer buffer with room for {@link #length()} characters from {@code offset}
+	 * @param offset position of the first character in the buffer
+	 * @return the number of characters written, i.e. {@link #length()}
+	 */
+	public int fill(RandomGenerator random, char[] buffer, int offset) {
+		System.arraycopy(chars, 0, buffer, offset, chars.length);
+		// undrawn characters of the last draw, per range (there are at most two ranges)
+		int pending0 = 0;
+		int pendingChars0 = 0;
+		int pending1 = 0;
+		int pendingChars1 = 0;
+		for (int i = 0; i < positions.length; i++) {
+			int range = ranges[i];
+			int base = radix[range];
+			int draw = 0;
+			if (base > 1) {
+				if (range == 0) {
+					if (pendingChars0 == 0) {
+						pending0 = random.nextInt(drawBound[0]);
+						pendingChars0 = charsPerDraw[0];
+					}
+					draw = pending0 % base;
+					pending0 /= base;
+					pendingChars0--;
+				} else {
+					if (pendingChars1 == 0) {
+						pending1 = random.nextInt(drawBound[1]);
+						pendingChars1 = charsPerDraw[1];
+					}
+					draw = pending1 % base;
+					pending1 /= base;
+					pendingChars1--;
+				}
+			}
+			buffer[offset + positions[i]] = (char) (from[range] + draw);
+		}
+		return chars.length;
+	}
+
+	private static int rangeOf(char[] symbols, char c) {
+		for (int range = 0; range < symbols.length; range++) {
+			if (symbols[range] == c) {
+				return range;
+			}
+		}
+		return -1;
+	}
+
+}
@@ -26,19 +26,59 @@ import java.time.LocalDateTime;
 
 import javax.inject.Singleton;
 
+/**
+ * The "now" of the generated data: a snapshot of the system clock taken when the provider is created, or a fixed
+ * time so that the data of a seed does not depend on when it is generated. Either way the time does not move
+ * during a run, so all the dates of a run are relative to the same day, even across midnight.
+ * <p>The epoch day and the epoch milliseconds (in UTC, like the conversions of {@link DateProducer}) are computed
+ * once, for the primitive date arithmetic of the generators.</p>
+ */
 @Singleton
 public class TimeProvider {
 
+	private final LocalDateTime currentTime;
+	private final LocalDate currentDate;
+	private final long currentEpochDay;
+	private final long currentEpochMilli;
+
+	/**
+	 * Takes a snapshot of the system clock.
+	 */
+	public TimeProvider() {
+		this(null);
+	}
+
+	/**
+	 * @param fixedTime the time to report as current, {@code null} for a snapshot of the system clock
+	 */
+	public TimeProvider(LocalDateTime fixedTime) {
+		this.currentTime = fixedTime != null ? fixedTime : LocalDateTime.now();
+		this.currentDate = currentTime.toLocalDate();
+		this.currentEpochDay = currentDate.toEpochDay();
+		this.currentEpochMilli = DateProducer.toEpochMilli(currentTime);
+	}
+
 	public int getCurrentYear() {
-		return getCurrentTime().getYear();
+		return currentDate.getYear();
 	}
 
 	public LocalDateTime getCurrentTime() {
-		return LocalDateTime.now();
+		return currentTime;
 	}
 
 	public LocalDate getCurrentDate() {
-		return LocalDate.now();
+		return currentDate;
+	}
+
+	public long getCurrentEpochDay() {
+		return currentEpochDay;
+	}
+
+	/**
+	 * @return the current time in milliseconds since 1970-01-01T00:00 (UTC)
+	 */
+	public long getCurrentEpochMilli() {
+		return currentEpochMilli;
 	}
 
 }
@@ -0,0 +1,167 @@
+/*
+ * Open Hospital (www.open-hospital.org)
+ * Copyright © 2021 Informatici Senza Frontiere (info@informaticisenzafrontiere.org)
+ *
+ * Open Hospital is a free and open source software for healthcare data management.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * https://www.gnu.org/licenses/gpl-3.0-standalone.html
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.isf.generator.producer;
+
+import java.util.List;
+import java.util.ListIterator;
+import java.util.RandomAccess;
+
+/**
+ * xoroshiro128++ (Blackman and Vigna), seeded through SplitMix64.
+ * <p>Two longs of state and no synchronization, so a draw is a handful of shifts and adds. Bounded values are
+ * unbiased: ints use Lemire's multiply-and-reject method, which needs a division only on the rare rejection path.</p>
+ */
+final class XoroshiroRandomSource implements RandomSource {
+
+	private static final long INT_RANGE = 1L << 32;
+
+	private long state0;
+	private long state1;
+
+	XoroshiroRandomSource(long seed) {
+		setSeed(seed);
+	}
+
+	@Override
+	public void setSeed(long seed) {
+		state0 = RandomGenerator.deriveSeed(seed, 0);
+		state1 = RandomGenerator.deriveSeed(seed, 1);
+		if ((state0 | state1) == 0) {
+			state0 = 0x9E3779B97F4A7C15L;
+		}
+	}
+
+	long nextLong() {
+		long s0 = state0;
+		long s1 = state1;
+		long result = Long.rotateLeft(s0 + s1, 17) + s0;
+		s1 ^= s0;
+		state0 = Long.rotateLeft(s0, 49) ^ s1 ^ (s1 << 21);
+		state1 = Long.rotateLeft(s1, 28);
+		return result;
+	}
+
+	@Override
+	public boolean nextBoolean() {
+		return nextLong() < 0;
+	}
+
+	@Override
+	public int nextInt(int bound) {
+		if (bound <= 0) {
+			throw new IllegalArgumentException("bound must be positive");
+		}
+		return (int) nextBounded(bound);
+	}
+
+	@Override
+	public int nextInt(int min, int max) {
+		if (min > max) {
+			throw new IllegalArgumentException("min " + min + " is larger than max " + max);
+		}
+		return (int) (min + nextBounded((long) max - min + 1));
+	}
+
+	@Override
+	public long nextLong(long min, long max) {
+		if (min > max) {
+			throw new IllegalArgumentException("min " + min + " is larger than max " + max);
+		}
+		long range = max - min + 1;
+		if (range > 0 && range <= INT_RANGE) {
+			return min + nextBounded(range);
+		}
+		if (range > 0) {
+			long bits = nextLong() >>> 1;
+			long value = bits % range;
+			while (bits - value + (range - 1) < 0) {
+				bits = nextLong() >>> 1;
+				value = bits % range;
+			}
+			return min + value;
+		}
+		// more than 2^63 values: at least every second draw is in range
+		long value = nextLong();
+		while (value < min || value > max) {
+			value = nextLong();
+		}
+		return value;
+	}
+
+	@Override
+	public double nextDouble(double min, double max) {
+		if (!(min < max) || Double.isInfinite(min) || Double.isInfinite(max)) {
+			throw new IllegalArgumentException("Invalid range " + min + " - " + max);
+		}
+		double u = nextUnit();
+		while (u == 0) {
+			u = nextUnit();
+		}
+		return u * max + (1 - u) * min;
+	}
+
+	@Override
+	public <T> void shuffle(List<T> elements) {
+		if (elements instanceof RandomAccess) {
+			for (int i = elements.size(); i > 1; i--) {
+				elements.set(i - 1, elements.set(nextInt(i), elements.get(i - 1)));
+			}
+			return;
+		}
+		Object[] array = elements.toArray();
+		for (int i = array.length; i > 1; i--) {
+			int j = nextInt(i);
+			Object swap = array[i - 1];
+			array[i - 1] = array[j];
+			array[j] = swap;
+		}
+		ListIterator<T> iterator = elements.listIterator();
+		for (Object element : array) {
+			iterator.next();
+			@SuppressWarnings("unchecked")
+			T value = (T) element;
+			iterator.set(value);
+		}
+	}
+
+	/**
+	 * @param bound number of values, between 1 and 2^32
+	 * @return uniformly distributed value between 0 (inclusive) and {@code bound} (exclusive)
+	 */
+	private long nextBounded(long bound) {
+		long product = (nextLong() >>> 32) * bound;
+		long low = product & 0xFFFFFFFFL;
+		if (low < bound) {
+			long threshold = (INT_RANGE - bound) % bound;
+			while (low < threshold) {
+				product = (nextLong() >>> 32) * bound;
+				low = product & 0xFFFFFFFFL;
+			}
+		}
+		return product >>> 32;
+	}
+
+	private double nextUnit() {
+		return (nextLong() >>> 11) * 0x1.0p-53;
+	}
+
+}
@@ -0,0 +1,130 @@
+/*
+ * Open Hospital (www.open-hospital.org)
+ * Copyright © 2021 Informatici Senza Frontiere (info@informaticisenzafrontiere.org)
+ *
+ * Open Hospital is a free and open source software for healthcare data management.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * https://www.gnu.org/licenses/gpl-3.0-standalone.html
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.isf.generator.producer.company;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Supplier;
+
+import org.isf.generator.producer.AliasTable;
+import org.isf.generator.producer.BaseProducer;
+
+/**
+ * A fixed set of companies generated once per run, from which the employers of the persons are picked instead
+ * of generating a new company for every person.
+ * <p>Employers follow a Zipf-like popularity: the company of rank r (from 1) is picked in proportion to
+ * 1 / r<sup>s</sup>, so a few companies employ many persons and most employ a few. An exponent of 0 picks them
+ * uniformly. The picks use an alias table and take constant time.</p>
+ * <p>The pool is immutable and shared by all the generators of a run.</p>
+ */
+public final class CompanyPool {
+
+	public static final double DEFAULT_EXPONENT = 1.0;
+
+	private static final CompanyPool NONE = new CompanyPool(Collections.emptyList(), DEFAULT_EXPONENT, null);
+
+	private final List<Company> companies;
+	private final double exponent;
+	private final AliasTable popularity;
+
+	private CompanyPool(List<Company> companies, double exponent, AliasTable popularity) {
+		this.companies = companies;
+		this.exponent = exponent;
+		this.popularity = popularity;
+	}
+
+	/**
+	 * @return the empty pool: every person gets a company of its own
+	 */
+	public static CompanyPool none() {
+		return NONE;
+	}
+
+	/**
+	 * @param companies the companies, from the most to the least popular
+	 * @param exponent the exponent s of the popularity 1 / rank<sup>s</sup>, 0 for uniform picks
+	 * @return the pool
+	 */
+	public static CompanyPool of(List<Company> companies, double exponent) {
+		if (!(exponent >= 0)) {
+			throw new IllegalArgumentException("exponent has to be >= 0");
+		}
+		if (companies.isEmpty()) {
+			return NONE;
+		}
+		double[] weights = new double[companies.size()];
+		for (int rank = 1; rank <= weights.length; rank++) {
+			weights[rank - 1] = 1 / Math.pow(rank, exponent);
+		}
+		return new CompanyPool(Collections.unmodifiableList(new ArrayList<>(companies)), exponent, AliasTable.of(weights));
+	}
+
+	/**
+	 * @param companies generates the companies of the pool
+	 * @param size number of companies
+	 * @param exponent the exponent s of the popularity 1 / rank<sup>s</sup>, 0 for uniform picks
+	 * @return the pool, the first generated company being the most popular
+	 */
+	public static CompanyPool generate(Supplier<Company> companies, int size, double exponent) {
+		if (size < 0) {
+			throw new IllegalArgumentException("size has to be >= 0");
+		}
+		List<Company> pool = new ArrayList<>(size);
+		for (int i = 0; i < size; i++) {
+			pool.add(companies.get());
+		}
+		return of(pool, exponent);
+	}
+
+	/**
+	 * @param baseProducer producer of the random draws
+	 * @return a company of the pool, picked by popularity
+	 * @throws IllegalStateException if the pool is empty
+	 */
+	public Company pick(BaseProducer baseProducer) {
+		if (popularity == null) {
+			throw new IllegalStateException("The company pool is empty");
+		}
+		return baseProducer.randomElement(companies, popularity);
+	}
+
+	public boolean isEmpty() {
+		return companies.isEmpty();
+	}
+
+	public int size() {
+		return companies.size();
+	}
+
+	public double getExponent() {
+		return exponent;
+	}
+
+	/**
+	 * @return the companies, from the most to the least popular
+	 */
+	public List<Company> getCompanies() {
+		return companies;
+	}
+
+}
@@ -23,9 +23,8 @@ package org.isf.generator.producer.company;
 
 import javax.inject.Inject;
 
-import org.apache.commons.lang3.StringUtils;
-import org.apache.commons.text.StringEscapeUtils;
 import org.isf.generator.data.DataMaster;
+import org.isf.generator.data.FoldedNames;
 import org.isf.generator.producer.BaseProducer;
 import org.isf.generator.producer.VATIdentificationNumberProvider;
 import org.isf.generator.producer.util.TextUtils;
@@ -79,12 +78,7 @@ public class DefaultCompanyProvider implements CompanyProvider {
 	}
 
 	/**
-	 * In case of the illegal hostname characters in company name
-	 * and truncate it if it is too long (length &gt; 10) after escape
-	 *
-	 * It is compatible with other non-latin language and will not change the original result for latin language.
-	 *
-	 * P.S. Actually the best way for Chinese here is to use phonetic writing (so as Japanese or Korean)
+	 * The host name is made of the company name, see {@link TextUtils#toHostName(String)}.
 	 */
 	@Override
 	public void generateDomain() {
@@ -92,14 +86,8 @@ public class DefaultCompanyProvider implements CompanyProvider {
 			return;
 		}
 
-		String host = TextUtils.stripAccents(StringUtils.strip(StringUtils.deleteWhitespace(name.toLowerCase()), ".").replace("/", ""));
-		int len1 = host.length();
-		host = StringEscapeUtils.escapeJava(host).replaceAll("\\\\u", "");
-		int len2 = host.length();
-		if (len2 > len1 && len2 > 10) {
-			host = host.substring(0, 10);
-		}
-
+		FoldedNames.Folded folded = dataMaster.getFoldedNames().get(name);
+		String host = folded != null ? folded.getHostName() : TextUtils.toHostName(name);
 		domain = host + "." + dataMaster.getRandomValue(DOMAIN);
 	}
 
@@ -33,6 +33,7 @@ import javax.inject.Inject;
 
 import org.isf.generator.producer.BaseProducer;
 import org.isf.generator.producer.DateProducer;
+import org.isf.generator.producer.TimeProvider;
 import org.isf.generator.producer.VATIdentificationNumberProvider;
 import org.isf.generator.producer.person.NationalIdentificationNumberFactory;
 import org.isf.generator.producer.person.NationalIdentificationNumberProvider;
@@ -51,13 +52,15 @@ public class SvVATIdentificationNumberProvider implements VATIdentificationNumbe
 
 	private final BaseProducer baseProducer;
 	private final DateProducer dateProducer;
+	private final TimeProvider timeProvider;
 	private final NationalIdentificationNumberFactory nationalIdentificationNumberFactory;
 
 	@Inject
-	public SvVATIdentificationNumberProvider(BaseProducer baseProducer, DateProducer dateProducer,
+	public SvVATIdentificationNumberProvider(BaseProducer baseProducer, DateProducer dateProducer, TimeProvider timeProvider,
 			NationalIdentificationNumberFactory nationalIdentificationNumberFactory) {
 		this.baseProducer = baseProducer;
 		this.dateProducer = dateProducer;
+		this.timeProvider = timeProvider;
 		this.nationalIdentificationNumberFactory = nationalIdentificationNumberFactory;
 	}
 
@@ -77,8 +80,9 @@ public class SvVATIdentificationNumberProvider implements VATIdentificationNumbe
 	}
 
 	private String generateVatNumberForSoleTrader() {
-		LocalDate lowerAgeLimit = LocalDate.now().minusYears(SOLE_TRADER_LOWER_AGE_LIMIT);
-		LocalDate upperAgeLimit = LocalDate.now().minusYears(SOLE_TRADER_UPPER_AGE_LIMIT);
+		LocalDate today = timeProvider.getCurrentDate();
+		LocalDate lowerAgeLimit = today.minusYears(SOLE_TRADER_LOWER_AGE_LIMIT);
+		LocalDate upperAgeLimit = today.minusYears(SOLE_TRADER_UPPER_AGE_LIMIT);
 		LocalDate dateOfBirth = dateProducer.randomDateBetweenTwoDates(lowerAgeLimit, upperAgeLimit);
 		NationalIdentificationNumberProvider nationalIdentificationNumberProvider = nationalIdentificationNumberFactory.produceNationalIdentificationNumberProvider(
 				dateOfBirth(dateOfBirth));
@@ -21,37 +21,28 @@
  */
 package org.isf.generator.producer.hospitalvisit;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.time.LocalTime;
 import java.util.List;
 
 import javax.inject.Inject;
 
-import org.isf.admtype.manager.AdmissionTypeBrowserManager;
 import org.isf.admtype.model.AdmissionType;
-import org.isf.disctype.manager.DischargeTypeBrowserManager;
 import org.isf.disctype.model.DischargeType;
-import org.isf.disease.manager.DiseaseBrowserManager;
 import org.isf.disease.model.Disease;
 import org.isf.generator.data.DataMaster;
+import org.isf.generator.producer.AliasTable;
 import org.isf.generator.producer.BaseProducer;
 import org.isf.generator.producer.DateProducer;
 import org.isf.generator.producer.TimeProvider;
 import org.isf.generator.producer.person.Person;
-import org.isf.menu.manager.Context;
 import org.isf.patient.model.Patient;
-import org.isf.utils.exception.OHServiceException;
-import org.isf.ward.manager.WardBrowserManager;
 import org.isf.ward.model.Ward;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 
 import com.google.inject.assistedinject.Assisted;
 
 public class DefaultHospitalVisitProvider implements HospitalVisitProvider {
 
-	private static final Logger LOGGER = LoggerFactory.getLogger(DefaultHospitalVisitProvider.class);
-
 	private Person person;
 	private Patient patient;
 	private Disease disease;
@@ -64,11 +55,6 @@ public class DefaultHospitalVisitProvider implements HospitalVisitProvider {
 	private char deleted;
 	private char type;
 
-	private AdmissionTypeBrowserManager admissionTypeBrowserManager;
-	private DiseaseBrowserManager diseaseBrowserManager;
-	private WardBrowserManager wardBrowserManager;
-	private DischargeTypeBrowserManager dischargeTypeBrowserManager;
-
 	private Ward childrenWard;
 	private Ward femaleWard;
 	private Ward maleWard;
@@ -79,6 +65,10 @@ public class DefaultHospitalVisitProvider implements HospitalVisitProvider {
 	private List<Disease> nonCommunicableDiseases;
 	private List<Disease> notifiableDiseases;
 	private List<Disease> infectiousCommunicableDiseases;
+	private AliasTable maternalDiseaseWeights;
+	private AliasTable nonCommunicableDiseaseWeights;
+	private AliasTable notifiableDiseaseWeights;
+	private AliasTable infectiousCommunicableDiseaseWeights;
 
 	private List<AdmissionType> admissionTypes;
 
@@ -94,7 +84,7 @@ public class DefaultHospitalVisitProvider implements HospitalVisitProvider {
 
 	@Inject
 	public DefaultHospitalVisitProvider(BaseProducer baseProducer, DataMaster dataMaster, TimeProvider timeProvider, DateProducer dateProducer,
-			@Assisted HospitalVisitProperties.HospitalVisitProperty... hospitalVisitProperties) {
+			HospitalReferenceDataCache referenceDataCache, @Assisted HospitalVisitProperties.HospitalVisitProperty... hospitalVisitProperties) {
 		this.baseProducer = baseProducer;
 		this.dataMaster = dataMaster;
 		this.timeProvider = timeProvider;
@@ -104,41 +94,24 @@ public class DefaultHospitalVisitProvider implements HospitalVisitProvider {
 			hospitalVisitProperty.apply(this);
 		}
 
-		diseaseBrowserManager = Context.getApplicationContext().getBean(DiseaseBrowserManager.class);
-		try {
-			allOtherDiseases = diseaseBrowserManager.getDisease("AO");
-			maternalDiseases = diseaseBrowserManager.getDisease("MP");
-
-			nonCommunicableDiseases = diseaseBrowserManager.getDisease("NC");
-			notifiableDiseases = diseaseBrowserManager.getDisease("ND");
-			infectiousCommunicableDiseases = diseaseBrowserManager.getDisease("OC");
-		} catch (OHServiceException ohServiceException) {
-			LOGGER.error("Issues with getting diseases.", ohServiceException);
-		}
-
-		wardBrowserManager = Context.getApplicationContext().getBean(WardBrowserManager.class);
-		try {
-			childrenWard = wardBrowserManager.findWard("C");
-			femaleWard = wardBrowserManager.findWard("F");
-			maleWard = wardBrowserManager.findWard("I");
-			maternityWard = wardBrowserManager.findWard("M");
-		} catch (OHServiceException ohServiceException) {
-			LOGGER.error("Issues with getting wards.", ohServiceException);
-		}
-
-		admissionTypeBrowserManager = Context.getApplicationContext().getBean(AdmissionTypeBrowserManager.class);
-		try {
-			admissionTypes = admissionTypeBrowserManager.getAdmissionType();
-		} catch (OHServiceException ohServiceException) {
-			LOGGER.error("Issues with getting admission types.", ohServiceException);
-		}
-
-		dischargeTypeBrowserManager = Context.getApplicationContext().getBean(DischargeTypeBrowserManager.class);
-		try {
-			dischargeTypes = dischargeTypeBrowserManager.getDischargeType();
-		} catch (OHServiceException ohServiceException) {
-			LOGGER.error("Issues with getting discharge types.", ohServiceException);
-		}
+		HospitalReferenceData referenceData = referenceDataCache.get();
+		allOtherDiseases = referenceData.getDiseases(HospitalReferenceData.ALL_OTHER_DISEASES);
+		maternalDiseases = referenceData.getDiseases(HospitalReferenceData.MATERNAL_DISEASES);
+		nonCommunicableDiseases = referenceData.getDiseases(HospitalReferenceData.NON_COMMUNICABLE_DISEASES);
+		notifiableDiseases = referenceData.getDiseases(HospitalReferenceData.NOTIFIABLE_DISEASES);
+		infectiousCommunicableDiseases = referenceData.getDiseases(HospitalReferenceData.INFECTIOUS_COMMUNICABLE_DISEASES);
+		maternalDiseaseWeights = referenceData.getDiseaseWeights(HospitalReferenceData.MATERNAL_DISEASES);
+		nonCommunicableDiseaseWeights = referenceData.getDiseaseWeights(HospitalReferenceData.NON_COMMUNICABLE_DISEASES);
+		notifiableDiseaseWeights = referenceData.getDiseaseWeights(HospitalReferenceData.NOTIFIABLE_DISEASES);
+		infectiousCommunicableDiseaseWeights = referenceData.getDiseaseWeights(HospitalReferenceData.INFECTIOUS_COMMUNICABLE_DISEASES);
+
+		childrenWard = referenceData.getWard(HospitalReferenceData.CHILDREN_WARD);
+		femaleWard = referenceData.getWard(HospitalReferenceData.FEMALE_WARD);
+		maleWard = referenceData.getWard(HospitalReferenceData.MALE_WARD);
+		maternityWard = referenceData.getWard(HospitalReferenceData.MATERNITY_WARD);
+
+		admissionTypes = referenceData.getAdmissionTypes();
+		dischargeTypes = referenceData.getDischargeTypes();
 	}
 
 	@Override
@@ -163,17 +136,17 @@ public class DefaultHospitalVisitProvider implements HospitalVisitProvider {
 			return;
 		}
 		if (person.isFemale() && baseProducer.trueOrFalse()) {
-			disease = baseProducer.randomElement(maternalDiseases);
+			disease = baseProducer.randomElement(maternalDiseases, maternalDiseaseWeights);
 		}
 		switch (baseProducer.randomBetween(0, 2)) {
 			case 0:
-				disease = baseProducer.randomElement(nonCommunicableDiseases);
+				disease = baseProducer.randomElement(nonCommunicableDiseases, nonCommunicableDiseaseWeights);
 				break;
 			case 1:
-				disease = baseProducer.randomElement(notifiableDiseases);
+				disease = baseProducer.randomElement(notifiableDiseases, notifiableDiseaseWeights);
 				break;
 			default:
-				disease = baseProducer.randomElement(infectiousCommunicableDiseases);
+				disease = baseProducer.randomElement(infectiousCommunicableDiseases, infectiousCommunicableDiseaseWeights);
 		}
 	}
 
@@ -211,9 +184,9 @@ public class DefaultHospitalVisitProvider implements HospitalVisitProvider {
 			return;
 		}
 		int days = baseProducer.randomBetween(4, 20);
-		LocalDateTime maxDate = timeProvider.getCurrentTime().minusDays(days);
-		LocalDateTime minDate = maxDate.minusDays(days - 1);
-		admissionDate = dateProducer.randomDateBetweenTwoDates(minDate, maxDate).with(LocalTime.MIN);
+		long maxMilli = timeProvider.getCurrentEpochMilli() - days * DateProducer.MILLIS_PER_DAY;
+		long minMilli = maxMilli - (days - 1) * DateProducer.MILLIS_PER_DAY;
+		admissionDate = startOfDay(dateProducer.randomEpochMilli(minMilli, maxMilli));
 	}
 
 	@Override
@@ -227,7 +200,12 @@ public class DefaultHospitalVisitProvider implements HospitalVisitProvider {
 			return;
 		}
 		isDischarged = true;
-		dischargeDate = dateProducer.randomDateBetweenTwoDates(admissionDate.plusDays(1), timeProvider.getCurrentTime()).with(LocalTime.MIN);
+		long fromMilli = (admissionDate.toLocalDate().toEpochDay() + 1) * DateProducer.MILLIS_PER_DAY;
+		dischargeDate = startOfDay(dateProducer.randomEpochMilli(fromMilli, timeProvider.getCurrentEpochMilli()));
+	}
+
+	private static LocalDateTime startOfDay(long epochMilli) {
+		return LocalDate.ofEpochDay(Math.floorDiv(epochMilli, DateProducer.MILLIS_PER_DAY)).atStartOfDay();
 	}
 
 	@Override
@@ -236,17 +214,17 @@ public class DefaultHospitalVisitProvider implements HospitalVisitProvider {
 			return;
 		}
 		if (person.isFemale() && baseProducer.trueOrFalse()) {
-			diagnosis = baseProducer.randomElement(maternalDiseases);
+			diagnosis = baseProducer.randomElement(maternalDiseases, maternalDiseaseWeights);
 		}
 		switch (baseProducer.randomBetween(0, 2)) {
 			case 0:
-				diagnosis = baseProducer.randomElement(nonCommunicableDiseases);
+				diagnosis = baseProducer.randomElement(nonCommunicableDiseases, nonCommunicableDiseaseWeights);
 				break;
 			case 1:
-				diagnosis = baseProducer.randomElement(notifiableDiseases);
+				diagnosis = baseProducer.randomElement(notifiableDiseases, notifiableDiseaseWeights);
 				break;
 			default:
-				diagnosis = baseProducer.randomElement(infectiousCommunicableDiseases);
+				diagnosis = baseProducer.randomElement(infectiousCommunicableDiseases, infectiousCommunicableDiseaseWeights);
 		}
 	}
 
@@ -0,0 +1,118 @@
+/*
+ * Open Hospital (www.open-hospital.org)
+ * Copyright © 2021 Informatici Senza Frontiere (info@informaticisenzafrontiere.org)
+ *
+ * Open Hospital is a free and open source software for healthcare data management.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * https://www.gnu.org/licenses/gpl-3.0-standalone.html
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.isf.generator.producer.hospitalvisit;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.isf.admtype.model.AdmissionType;
+import org.isf.disctype.model.DischargeType;
+import org.isf.disease.model.Disease;
+import org.isf.generator.producer.AliasTable;
+import org.isf.ward.model.Ward;
+
+/**
+ * Immutable snapshot of the OH reference data used to generate hospital visits: diseases by disease type code,
+ * wards by code, admission types and discharge types.
+ * <p>Instances are shared by all hospital visit providers (and threads) through a {@link HospitalReferenceDataCache}.</p>
+ */
+public final class HospitalReferenceData {
+
+	public static final String ALL_OTHER_DISEASES = "AO";
+	public static final String MATERNAL_DISEASES = "MP";
+	public static final String NON_COMMUNICABLE_DISEASES = "NC";
+	public static final String NOTIFIABLE_DISEASES = "ND";
+	public static final String INFECTIOUS_COMMUNICABLE_DISEASES = "OC";
+
+	public static final String CHILDREN_WARD = "C";
+	public static final String FEMALE_WARD = "F";
+	public static final String MALE_WARD = "I";
+	public static final String MATERNITY_WARD = "M";
+
+	static final String[] DISEASE_TYPE_CODES = {
+			ALL_OTHER_DISEASES, MATERNAL_DISEASES, NON_COMMUNICABLE_DISEASES, NOTIFIABLE_DISEASES, INFECTIOUS_COMMUNICABLE_DISEASES
+	};
+	static final String[] WARD_CODES = { CHILDREN_WARD, FEMALE_WARD, MALE_WARD, MATERNITY_WARD };
+
+	private final Map<String, List<Disease>> diseasesByType;
+	private final Map<String, AliasTable> diseaseWeightsByType;
+	private final Map<String, Ward> wardsByCode;
+	private final List<AdmissionType> admissionTypes;
+	private final List<DischargeType> dischargeTypes;
+
+	public HospitalReferenceData(Map<String, List<Disease>> diseasesByType, Map<String, Ward> wardsByCode, List<AdmissionType> admissionTypes,
+			List<DischargeType> dischargeTypes) {
+		this(diseasesByType, Collections.emptyMap(), wardsByCode, admissionTypes, dischargeTypes);
+	}
+
+	/**
+	 * @param diseasesByType the diseases by disease type code
+	 * @param diseaseWeightsByType alias tables of the weights of the diseases of the types that are not picked uniformly
+	 * @param wardsByCode the wards by code
+	 * @param admissionTypes the admission types
+	 * @param dischargeTypes the discharge types
+	 */
+	public HospitalReferenceData(Map<String, List<Disease>> diseasesByType, Map<String, AliasTable> diseaseWeightsByType,
+			Map<String, Ward> wardsByCode, List<AdmissionType> admissionTypes, List<DischargeType> dischargeTypes) {
+		this.diseasesByType = Collections.unmodifiableMap(new HashMap<>(diseasesByType));
+		this.diseaseWeightsByType = Collections.unmodifiableMap(new HashMap<>(diseaseWeightsByType));
+		this.wardsByCode = Collections.unmodifiableMap(new HashMap<>(wardsByCode));
+		this.admissionTypes = admissionTypes == null ? Collections.emptyList() : Collections.unmodifiableList(admissionTypes);
+		this.dischargeTypes = dischargeTypes == null ? Collections.emptyList() : Collections.unmodifiableList(dischargeTypes);
+	}
+
+	/**
+	 * @param typeCode the disease type code, e.g. {@link #MATERNAL_DISEASES}
+	 * @return the diseases of the type, or an empty list if none were loaded
+	 */
+	public List<Disease> getDiseases(String typeCode) {
+		List<Disease> diseases = diseasesByType.get(typeCode);
+		return diseases == null ? Collections.emptyList() : diseases;
+	}
+
+	/**
+	 * @param typeCode the disease type code, e.g. {@link #MATERNAL_DISEASES}
+	 * @return the alias table of the weights of {@link #getDiseases(String)}, or {@code null} if they are equally likely
+	 */
+	public AliasTable getDiseaseWeights(String typeCode) {
+		return diseaseWeightsByType.get(typeCode);
+	}
+
+	/**
+	 * @param code the ward code, e.g. {@link #MATERNITY_WARD}
+	 * @return the ward, or {@code null} if it was not loaded
+	 */
+	public Ward getWard(String code) {
+		return wardsByCode.get(code);
+	}
+
+	public List<AdmissionType> getAdmissionTypes() {
+		return admissionTypes;
+	}
+
+	public List<DischargeType> getDischargeTypes() {
+		return dischargeTypes;
+	}
+
+}
@@ -0,0 +1,88 @@
+/*
+ * Open Hospital (www.open-hospital.org)
+ * Copyright © 2021 Informatici Senza Frontiere (info@informaticisenzafrontiere.org)
+ *
+ * Open Hospital is a free and open source software for healthcare data management.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * https://www.gnu.org/licenses/gpl-3.0-standalone.html
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.isf.generator.producer.hospitalvisit;
+
+/**
+ * Holds the {@link HospitalReferenceData} snapshot read by every {@link DefaultHospitalVisitProvider}.
+ * <p>The snapshot is loaded once on first use and then served from memory until {@link #refresh()} or
+ * {@link #invalidate()} is called. The cache is safe to share between threads; {@link #getShared()} returns
+ * the process-wide instance bound by the generator modules.</p>
+ */
+public class HospitalReferenceDataCache {
+
+	private static final HospitalReferenceDataCache SHARED = new HospitalReferenceDataCache(new ManagerHospitalReferenceDataLoader());
+
+	private volatile HospitalReferenceDataLoader loader;
+	private volatile HospitalReferenceData referenceData;
+
+	public HospitalReferenceDataCache(HospitalReferenceDataLoader loader) {
+		this.loader = loader;
+	}
+
+	public static HospitalReferenceDataCache getShared() {
+		return SHARED;
+	}
+
+	/**
+	 * @return the current snapshot, loading it if there is none
+	 */
+	public HospitalReferenceData get() {
+		HospitalReferenceData current = referenceData;
+		if (current != null) {
+			return current;
+		}
+		synchronized (this) {
+			if (referenceData == null) {
+				referenceData = loader.load();
+			}
+			return referenceData;
+		}
+	}
+
+	/**
+	 * Reloads the snapshot now. Providers created afterwards see the new data.
+	 *
+	 * @return the new snapshot
+	 */
+	public synchronized HospitalReferenceData refresh() {
+		referenceData = loader.load();
+		return referenceData;
+	}
+
+	/**
+	 * Drops the snapshot; the next {@link #get()} loads it again.
+	 */
+	public synchronized void invalidate() {
+		referenceData = null;
+	}
+
+	/**
+	 * Replaces the source of the snapshot and drops the current one.
+	 *
+	 * @param loader the new source
+	 */
+	public synchronized void setLoader(HospitalReferenceDataLoader loader) {
+		this.loader = loader;
+		referenceData = null;
+	}
+
+}
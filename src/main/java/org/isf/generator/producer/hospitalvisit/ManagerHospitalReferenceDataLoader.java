@@ -0,0 +1,89 @@
+/*
+ * Open Hospital (www.open-hospital.org)
+ * Copyright © 2021 Informatici Senza Frontiere (info@informaticisenzafrontiere.org)
+ *
+ * Open Hospital is a free and open source software for healthcare data management.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * https://www.gnu.org/licenses/gpl-3.0-standalone.html
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.isf.generator.producer.hospitalvisit;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.isf.admtype.manager.AdmissionTypeBrowserManager;
+import org.isf.admtype.model.AdmissionType;
+import org.isf.disctype.manager.DischargeTypeBrowserManager;
+import org.isf.disctype.model.DischargeType;
+import org.isf.disease.manager.DiseaseBrowserManager;
+import org.isf.disease.model.Disease;
+import org.isf.menu.manager.Context;
+import org.isf.utils.exception.OHServiceException;
+import org.isf.ward.manager.WardBrowserManager;
+import org.isf.ward.model.Ward;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Loads the {@link HospitalReferenceData} through the OH-core managers of the current application context.
+ */
+public class ManagerHospitalReferenceDataLoader implements HospitalReferenceDataLoader {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(ManagerHospitalReferenceDataLoader.class);
+
+	@Override
+	public HospitalReferenceData load() {
+		Map<String, List<Disease>> diseasesByType = new HashMap<>();
+		DiseaseBrowserManager diseaseBrowserManager = Context.getApplicationContext().getBean(DiseaseBrowserManager.class);
+		try {
+			for (String typeCode : HospitalReferenceData.DISEASE_TYPE_CODES) {
+				diseasesByType.put(typeCode, diseaseBrowserManager.getDisease(typeCode));
+			}
+		} catch (OHServiceException ohServiceException) {
+			LOGGER.error("Issues with getting diseases.", ohServiceException);
+		}
+
+		Map<String, Ward> wardsByCode = new HashMap<>();
+		WardBrowserManager wardBrowserManager = Context.getApplicationContext().getBean(WardBrowserManager.class);
+		try {
+			for (String code : HospitalReferenceData.WARD_CODES) {
+				wardsByCode.put(code, wardBrowserManager.findWard(code));
+			}
+		} catch (OHServiceException ohServiceException) {
+			LOGGER.error("Issues with getting wards.", ohServiceException);
+		}
+
+		List<AdmissionType> admissionTypes = null;
+		AdmissionTypeBrowserManager admissionTypeBrowserManager = Context.getApplicationContext().getBean(AdmissionTypeBrowserManager.class);
+		try {
+			admissionTypes = admissionTypeBrowserManager.getAdmissionType();
+		} catch (OHServiceException ohServiceException) {
+			LOGGER.error("Issues with getting admission types.", ohServiceException);
+		}
+
+		List<DischargeType> dischargeTypes = null;
+		DischargeTypeBrowserManager dischargeTypeBrowserManager = Context.getApplicationContext().getBean(DischargeTypeBrowserManager.class);
+		try {
+			dischargeTypes = dischargeTypeBrowserManager.getDischargeType();
+		} catch (OHServiceException ohServiceException) {
+			LOGGER.error("Issues with getting discharge types.", ohServiceException);
+		}
+
+		return new HospitalReferenceData(diseasesByType, wardsByCode, admissionTypes, dischargeTypes);
+	}
+
+}
@@ -0,0 +1,163 @@
+/*
+ * Open Hospital (www.open-hospital.org)
+ * Copyright © 2021 Informatici Senza Frontiere (info@informaticisenzafrontiere.org)
+ *
+ * Open Hospital is a free and open source software for healthcare data management.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * https://www.gnu.org/licenses/gpl-3.0-standalone.html
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.isf.generator.producer.hospitalvisit;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.isf.admtype.model.AdmissionType;
+import org.isf.disctype.model.DischargeType;
+import org.isf.disease.model.Disease;
+import org.isf.generator.producer.AliasTable;
+import org.isf.ward.model.Ward;
+import org.snakeyaml.engine.v2.api.Load;
+import org.snakeyaml.engine.v2.api.LoadSettings;
+
+/**
+ * Loads the {@link HospitalReferenceData} from a YAML file, for generating data without an OH database.
+ * Every entry maps a code to its description. A disease can also give its weight (its relative frequency among the
+ * diseases of its type, 1 by default) to be picked more or less often:
+ * <pre>
+ * diseases:
+ *   NC:            # disease type code
+ *     "101": Diabetes
+ *     "102": { description: Hypertension, weight: 4 }
+ * wards:
+ *   C: Children ward
+ * admissionTypes:
+ *   A: Ambulance
+ * dischargeTypes:
+ *   D: Dead
+ * </pre>
+ */
+public class YamlHospitalReferenceDataLoader implements HospitalReferenceDataLoader {
+
+	private final Path file;
+
+	public YamlHospitalReferenceDataLoader(Path file) {
+		this.file = file;
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public HospitalReferenceData load() {
+		Map<String, Object> data;
+		try (InputStream is = Files.newInputStream(file)) {
+			data = (Map<String, Object>) new Load(LoadSettings.builder().build()).loadFromInputStream(is);
+		} catch (IOException e) {
+			throw new IllegalStateException("Unable to read the reference data file " + file, e);
+		}
+		if (data == null) {
+			data = Collections.emptyMap();
+		}
+
+		Map<String, List<Disease>> diseasesByType = new HashMap<>();
+		Map<String, AliasTable> diseaseWeightsByType = new HashMap<>();
+		for (Map.Entry<?, ?> type : section(data, "diseases").entrySet()) {
+			String key = "diseases." + type.getKey();
+			Map<?, ?> entries = section(type.getValue(), key);
+			List<Disease> diseases = new ArrayList<>();
+			double[] weights = new double[entries.size()];
+			boolean weighted = false;
+			for (Map.Entry<?, ?> entry : entries.entrySet()) {
+				Disease disease = new Disease();
+				disease.setCode(String.valueOf(entry.getKey()));
+				if (entry.getValue() instanceof Map) {
+					Map<?, ?> properties = (Map<?, ?>) entry.getValue();
+					disease.setDescription(String.valueOf(properties.get("description") != null ? properties.get("description") : entry.getKey()));
+					weights[diseases.size()] = weight(properties.get("weight"), key + '.' + entry.getKey());
+					weighted = true;
+				} else {
+					disease.setDescription(description(entry));
+					weights[diseases.size()] = 1;
+				}
+				diseases.add(disease);
+			}
+			diseasesByType.put(String.valueOf(type.getKey()), diseases);
+			if (weighted) {
+				diseaseWeightsByType.put(String.valueOf(type.getKey()), AliasTable.of(weights));
+			}
+		}
+
+		Map<String, Ward> wardsByCode = new HashMap<>();
+		for (Map.Entry<?, ?> entry : section(data, "wards").entrySet()) {
+			Ward ward = new Ward();
+			ward.setCode(String.valueOf(entry.getKey()));
+			ward.setDescription(description(entry));
+			wardsByCode.put(ward.getCode(), ward);
+		}
+
+		List<AdmissionType> admissionTypes = new ArrayList<>();
+		for (Map.Entry<?, ?> entry : section(data, "admissionTypes").entrySet()) {
+			AdmissionType admissionType = new AdmissionType();
+			admissionType.setCode(String.valueOf(entry.getKey()));
+			admissionType.setDescription(description(entry));
+			admissionTypes.add(admissionType);
+		}
+
+		List<DischargeType> dischargeTypes = new ArrayList<>();
+		for (Map.Entry<?, ?> entry : section(data, "dischargeTypes").entrySet()) {
+			DischargeType dischargeType = new DischargeType();
+			dischargeType.setCode(String.valueOf(entry.getKey()));
+			dischargeType.setDescription(description(entry));
+			dischargeTypes.add(dischargeType);
+		}
+
+		return new HospitalReferenceData(diseasesByType, diseaseWeightsByType, wardsByCode, admissionTypes, dischargeTypes);
+	}
+
+	private Map<?, ?> section(Map<String, Object> data, String key) {
+		return section(data.get(key), key);
+	}
+
+	private Map<?, ?> section(Object section, String key) {
+		if (section == null) {
+			return Collections.emptyMap();
+		}
+		if (!(section instanceof Map)) {
+			throw new IllegalStateException("Entry " + key + " of " + file + " has to map codes to descriptions");
+		}
+		return (Map<?, ?>) section;
+	}
+
+	private double weight(Object weight, String key) {
+		if (weight == null) {
+			return 1;
+		}
+		if (!(weight instanceof Number) || ((Number) weight).doubleValue() < 0) {
+			throw new IllegalStateException("The weight of " + key + " in " + file + " has to be a non-negative number");
+		}
+		return ((Number) weight).doubleValue();
+	}
+
+	private static String description(Map.Entry<?, ?> entry) {
+		return String.valueOf(entry.getValue() != null ? entry.getValue() : entry.getKey());
+	}
+
+}
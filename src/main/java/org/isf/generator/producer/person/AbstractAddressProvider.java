@@ -23,14 +23,17 @@ package org.isf.generator.producer.person;
 
 import org.isf.generator.data.DataMaster;
 import org.isf.generator.producer.BaseProducer;
+import org.isf.generator.producer.Template;
 
 public abstract class AbstractAddressProvider implements AddressProvider {
 
-	private static final String POSTAL_CODE_FORMAT = "postal_code";
+	static final String POSTAL_CODE_FORMAT = "postal_code";
 
-	private static final String CITY = "city";
+	static final String CITY = "city";
 
-	private static final String STREET = "street";
+	static final String STREET = "street";
+
+	private static final int MAX_STREET_NUMBER = 199;
 
 	protected final BaseProducer baseProducer;
 
@@ -55,11 +58,47 @@ public abstract class AbstractAddressProvider implements AddressProvider {
 	}
 
 	public String getStreetNumber() {
-		return String.valueOf(baseProducer.randomBetween(1, 199));
+		return String.valueOf(baseProducer.randomBetween(1, MAX_STREET_NUMBER));
 	}
 
 	public String getApartmentNumber() {
 		return baseProducer.trueOrFalse() ? String.valueOf(baseProducer.randomBetween(1, 350)) : "";
 	}
 
+	/**
+	 * @return whether {@link #get()} draws the street before the street number and the postal code before the city
+	 */
+	protected boolean isStreetFirst() {
+		return false;
+	}
+
+	/**
+	 * Draws the address of a row of a {@link PersonBatch} with the same random numbers as {@link #get()}. The street
+	 * and city are kept as indices, the apartment number and postal code are drawn and dropped.
+	 */
+	void fill(PersonBatch batch, int row, PersonBatchProducer.Dictionaries dictionaries) {
+		if (isStreetFirst()) {
+			batch.street[row] = dictionaries.streets.randomIndex(baseProducer);
+			batch.streetNumber[row] = baseProducer.randomBetween(1, MAX_STREET_NUMBER);
+		} else {
+			batch.streetNumber[row] = baseProducer.randomBetween(1, MAX_STREET_NUMBER);
+			batch.street[row] = dictionaries.streets.randomIndex(baseProducer);
+		}
+		getApartmentNumber();
+		if (isStreetFirst()) {
+			skipPostalCode(batch, row, dictionaries);
+			batch.city[row] = dictionaries.cities.randomIndex(baseProducer);
+		} else {
+			batch.city[row] = dictionaries.cities.randomIndex(baseProducer);
+			skipPostalCode(batch, row, dictionaries);
+		}
+	}
+
+	private void skipPostalCode(PersonBatch batch, int row, PersonBatchProducer.Dictionaries dictionaries) {
+		Template postalCode = BaseProducer.numerifyTemplate(dictionaries.postalCodeFormats.random(baseProducer));
+		// the arena after the row is free until the next row is added
+		int start = batch.reserveChars(row + 1, postalCode.length());
+		baseProducer.fill(postalCode, batch.arena, start);
+	}
+
 }
@@ -23,6 +23,8 @@ package org.isf.generator.producer.person;
 
 import static org.apache.commons.lang3.StringUtils.lowerCase;
 
+import org.apache.commons.lang3.StringUtils;
+import org.isf.generator.data.FoldedNames;
 import org.isf.generator.producer.company.Company;
 import org.isf.generator.producer.util.TextUtils;
 
@@ -30,11 +32,17 @@ import com.google.inject.Provider;
 
 public class CompanyEmailProvider implements Provider<String> {
 
+	private final FoldedNames foldedNames;
 	private final String firstName;
 	private final String lastName;
 	private final Company company;
 
 	public CompanyEmailProvider(String firstName, String lastName, Company company) {
+		this(FoldedNames.EMPTY, firstName, lastName, company);
+	}
+
+	public CompanyEmailProvider(FoldedNames foldedNames, String firstName, String lastName, Company company) {
+		this.foldedNames = foldedNames;
 		this.firstName = firstName;
 		this.lastName = lastName;
 		this.company = company;
@@ -42,6 +50,13 @@ public class CompanyEmailProvider implements Provider<String> {
 
 	@Override
 	public String get() {
+		FoldedNames.Folded first = foldedNames.get(firstName);
+		FoldedNames.Folded last = foldedNames.get(lastName);
+		String domain = company.getDomain();
+		// the generated domains are ASCII already, which the folding only lower-cases
+		if (first != null && last != null && StringUtils.isAsciiPrintable(domain)) {
+			return first.getDottedEmail() + '.' + last.getDottedEmail() + '@' + lowerCase(domain).replace(' ', '.');
+		}
 		String email = lowerCase(firstName + '.' + lastName + '@' + company.getDomain()).replaceAll(" ", ".");
 		return TextUtils.stripSharpS(TextUtils.stripAccents(email));
 	}
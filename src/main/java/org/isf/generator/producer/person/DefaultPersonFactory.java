@@ -0,0 +1,77 @@
+/*
+ * Open Hospital (www.open-hospital.org)
+ * Copyright © 2021 Informatici Senza Frontiere (info@informaticisenzafrontiere.org)
+ *
+ * Open Hospital is a free and open source software for healthcare data management.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * https://www.gnu.org/licenses/gpl-3.0-standalone.html
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.isf.generator.producer.person;
+
+import javax.inject.Inject;
+
+import org.isf.generator.data.DataMaster;
+import org.isf.generator.producer.BaseProducer;
+import org.isf.generator.producer.DateProducer;
+import org.isf.generator.producer.TimeProvider;
+import org.isf.generator.producer.company.CompanyFactory;
+import org.isf.generator.producer.company.CompanyPool;
+import org.isf.generator.producer.unique.UniqueIdentifiers;
+
+/**
+ * Creates {@link DefaultPersonProvider}s with a plain constructor call. The collaborators are injected once, when
+ * the generator is bootstrapped, and shared by all the providers (they hold no state of a person).
+ */
+public class DefaultPersonFactory implements PersonFactory {
+
+	private final DataMaster dataMaster;
+	private final DateProducer dateProducer;
+	private final BaseProducer baseProducer;
+	private final NationalIdentificationNumberFactory nationalIdentificationNumberFactory;
+	private final NationalIdentityCardNumberProvider nationalIdentityCardNumberProvider;
+	private final AddressProvider addressProvider;
+	private final CompanyFactory companyFactory;
+	private final PassportNumberProvider passportNumberProvider;
+	private final TimeProvider timeProvider;
+	private final UniqueIdentifiers uniqueIdentifiers;
+	private final CompanyPool companyPool;
+
+	@Inject
+	public DefaultPersonFactory(DataMaster dataMaster, DateProducer dateProducer, BaseProducer baseProducer,
+			NationalIdentificationNumberFactory nationalIdentificationNumberFactory, NationalIdentityCardNumberProvider nationalIdentityCardNumberProvider,
+			AddressProvider addressProvider, CompanyFactory companyFactory, PassportNumberProvider passportNumberProvider, TimeProvider timeProvider,
+			UniqueIdentifiers uniqueIdentifiers, CompanyPool companyPool) {
+		this.dataMaster = dataMaster;
+		this.dateProducer = dateProducer;
+		this.baseProducer = baseProducer;
+		this.nationalIdentificationNumberFactory = nationalIdentificationNumberFactory;
+		this.nationalIdentityCardNumberProvider = nationalIdentityCardNumberProvider;
+		this.addressProvider = addressProvider;
+		this.companyFactory = companyFactory;
+		this.passportNumberProvider = passportNumberProvider;
+		this.timeProvider = timeProvider;
+		this.uniqueIdentifiers = uniqueIdentifiers;
+		this.companyPool = companyPool;
+	}
+
+	@Override
+	public PersonProvider producePersonProvider(PersonProperties.PersonProperty... personProperties) {
+		return new DefaultPersonProvider(dataMaster, dateProducer, baseProducer, nationalIdentificationNumberFactory, nationalIdentityCardNumberProvider,
+				addressProvider, companyFactory, passportNumberProvider, timeProvider, uniqueIdentifiers, companyPool,
+				personProperties);
+	}
+
+}
@@ -25,28 +25,38 @@ import static org.apache.commons.lang3.StringUtils.lowerCase;
 import static org.apache.commons.lang3.StringUtils.stripAccents;
 
 import java.time.LocalDate;
-import java.time.LocalDateTime;
 import java.time.temporal.ChronoUnit;
+import java.util.Collections;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Set;
 
 import javax.inject.Inject;
 
 import org.apache.commons.lang3.RandomStringUtils;
 import org.isf.generator.data.DataMaster;
+import org.isf.generator.data.FoldedNames;
 import org.isf.generator.producer.BaseProducer;
 import org.isf.generator.producer.DateProducer;
 import org.isf.generator.producer.TimeProvider;
 import org.isf.generator.producer.company.Company;
 import org.isf.generator.producer.company.CompanyFactory;
+import org.isf.generator.producer.company.CompanyPool;
+import org.isf.generator.producer.unique.UniqueIdentifiers;
+import org.isf.generator.producer.unique.UniqueIdentifiers.Identifier;
 
 import com.google.inject.assistedinject.Assisted;
 
 public class DefaultPersonProvider implements PersonProvider {
 
+	private static final Set<PersonField> ALL_FIELDS = Collections.unmodifiableSet(EnumSet.allOf(PersonField.class));
+
 	protected Person.Sex sex;
 	protected String telephoneNumberFormat;
 	protected String mobileTelephoneNumberFormat;
 	protected Integer age;
+	protected int minimumAge = MIN_AGE;
+	protected int maximumAge = MAX_AGE;
 	protected LocalDate dateOfBirth;
 	protected Company company;
 	protected Address address;
@@ -73,6 +83,10 @@ public class DefaultPersonProvider implements PersonProvider {
 	protected char parentsTogether;
 	protected char hasInsurance;
 
+	protected Set<PersonField> fields = ALL_FIELDS;
+	private Set<PersonField> requestedFields;
+	private Set<PersonField> requestedFieldsWithDependencies;
+
 	protected final DataMaster dataMaster;
 	protected final DateProducer dateProducer;
 	protected final BaseProducer baseProducer;
@@ -82,12 +96,14 @@ public class DefaultPersonProvider implements PersonProvider {
 	protected final CompanyFactory companyFactory;
 	protected final TimeProvider timeProvider;
 	protected final PassportNumberProvider passportNumberProvider;
+	protected final UniqueIdentifiers uniqueIdentifiers;
+	protected final CompanyPool companyPool;
 
 	@Inject
 	public DefaultPersonProvider(DataMaster dataMaster, DateProducer dateProducer, BaseProducer baseProducer,
 			NationalIdentificationNumberFactory nationalIdentificationNumberFactory, NationalIdentityCardNumberProvider nationalIdentityCardNumberProvider,
 			AddressProvider addressProvider, CompanyFactory companyFactory, PassportNumberProvider passportNumberProvider, TimeProvider timeProvider,
-			@Assisted PersonProperties.PersonProperty... personProperties) {
+			UniqueIdentifiers uniqueIdentifiers, CompanyPool companyPool, @Assisted PersonProperties.PersonProperty... personProperties) {
 
 		this.dataMaster = dataMaster;
 		this.dateProducer = dateProducer;
@@ -98,6 +114,8 @@ public class DefaultPersonProvider implements PersonProvider {
 		this.passportNumberProvider = passportNumberProvider;
 		this.companyFactory = companyFactory;
 		this.timeProvider = timeProvider;
+		this.uniqueIdentifiers = uniqueIdentifiers;
+		this.companyPool = companyPool;
 
 		for (PersonProperties.PersonProperty personProperty : personProperties) {
 			personProperty.apply(this, baseProducer);
@@ -107,33 +125,87 @@ public class DefaultPersonProvider implements PersonProvider {
 	@Override
 	public Person get() {
 
-		generateSex();
-		generateCompany();
-		generateFirstName();
-		generateMiddleName();
-		generateLastName();
-		generateEmail();
-		generateUsername();
-		generateTelephoneNumber();
-		generateAge();
-		generateDateOfBirth();
-		generateCompanyEmail();
-		generatePassword();
-		generateNationalIdentityCardNumber();
-		generateNationalIdentificationNumber();
-		generatePassportNumber();
-		generateAddress();
-		generateNationality();
-		generateMobileTelephoneNumber();
-		generateProfession();
-		generateMaritalStatus();
-		generateBloodType();
-		generateNameOfMother();
-		generateNameOfFather();
-		generateMotherAlive();
-		generateFatherAlive();
-		generateParentsTogether();
-		generateHasInsurance();
+		if (fields.contains(PersonField.SEX)) {
+			generateSex();
+		}
+		if (fields.contains(PersonField.COMPANY)) {
+			generateCompany();
+		}
+		if (fields.contains(PersonField.FIRST_NAME)) {
+			generateFirstName();
+		}
+		if (fields.contains(PersonField.MIDDLE_NAME)) {
+			generateMiddleName();
+		}
+		if (fields.contains(PersonField.LAST_NAME)) {
+			generateLastName();
+		}
+		if (fields.contains(PersonField.EMAIL)) {
+			generateEmail();
+		}
+		if (fields.contains(PersonField.USERNAME)) {
+			generateUsername();
+		}
+		if (fields.contains(PersonField.TELEPHONE_NUMBER)) {
+			generateTelephoneNumber();
+		}
+		if (fields.contains(PersonField.AGE)) {
+			generateAge();
+		}
+		if (fields.contains(PersonField.DATE_OF_BIRTH)) {
+			generateDateOfBirth();
+		}
+		if (fields.contains(PersonField.COMPANY_EMAIL)) {
+			generateCompanyEmail();
+		}
+		if (fields.contains(PersonField.PASSWORD)) {
+			generatePassword();
+		}
+		if (fields.contains(PersonField.NATIONAL_IDENTITY_CARD_NUMBER)) {
+			generateNationalIdentityCardNumber();
+		}
+		if (fields.contains(PersonField.NATIONAL_IDENTIFICATION_NUMBER)) {
+			generateNationalIdentificationNumber();
+		}
+		if (fields.contains(PersonField.PASSPORT_NUMBER)) {
+			generatePassportNumber();
+		}
+		if (fields.contains(PersonField.ADDRESS)) {
+			generateAddress();
+		}
+		if (fields.contains(PersonField.NATIONALITY)) {
+			generateNationality();
+		}
+		if (fields.contains(PersonField.MOBILE_TELEPHONE_NUMBER)) {
+			generateMobileTelephoneNumber();
+		}
+		if (fields.contains(PersonField.PROFESSION)) {
+			generateProfession();
+		}
+		if (fields.contains(PersonField.MARITAL_STATUS)) {
+			generateMaritalStatus();
+		}
+		if (fields.contains(PersonField.BLOOD_TYPE)) {
+			generateBloodType();
+		}
+		if (fields.contains(PersonField.NAME_OF_MOTHER)) {
+			generateNameOfMother();
+		}
+		if (fields.contains(PersonField.NAME_OF_FATHER)) {
+			generateNameOfFather();
+		}
+		if (fields.contains(PersonField.MOTHER_ALIVE)) {
+			generateMotherAlive();
+		}
+		if (fields.contains(PersonField.FATHER_ALIVE)) {
+			generateFatherAlive();
+		}
+		if (fields.contains(PersonField.PARENTS_TOGETHER)) {
+			generateParentsTogether();
+		}
+		if (fields.contains(PersonField.HAS_INSURANCE)) {
+			generateHasInsurance();
+		}
 
 		return new Person(firstName, middleName, lastName, address, email, username, password, sex, telephoneNumber, mobileTelephoneNumber, dateOfBirth, age,
 				nationalIdentityCardNumber, nationalIdentificationNumber, passportNumber, company, companyEmail, nationality, profession, martialStatus,
@@ -153,7 +225,7 @@ public class DefaultPersonProvider implements PersonProvider {
 		if (company != null) {
 			return;
 		}
-		company = companyFactory.produceCompany().get();
+		company = companyPool.isEmpty() ? companyFactory.produceCompany().get() : companyPool.pick(baseProducer);
 	}
 
 	@Override
@@ -194,7 +266,13 @@ public class DefaultPersonProvider implements PersonProvider {
 		if (username != null) {
 			return;
 		}
-		if (baseProducer.trueOrFalse()) {
+		boolean initialFirst = baseProducer.trueOrFalse();
+		FoldedNames foldedNames = dataMaster.getFoldedNames();
+		FoldedNames.Folded first = foldedNames.get(firstName);
+		FoldedNames.Folded last = foldedNames.get(lastName);
+		if (first != null && last != null) {
+			username = initialFirst ? first.getInitial() + last.getUsername() : first.getUsername() + last.getInitial();
+		} else if (initialFirst) {
 			username = lowerCase(stripAccents(firstName.charAt(0) + lastName));
 		} else {
 			username = lowerCase(stripAccents(firstName + lastName.charAt(0)));
@@ -209,7 +287,8 @@ public class DefaultPersonProvider implements PersonProvider {
 		if (telephoneNumberFormat == null) {
 			telephoneNumberFormat = dataMaster.getRandomValue(TELEPHONE_NUMBER_FORMATS);
 		}
-		telephoneNumber = baseProducer.numerify(telephoneNumberFormat);
+		UniqueIdentifiers.Guard guard = uniqueIdentifiers.guard(Identifier.TELEPHONE_NUMBER);
+		telephoneNumber = guard == null ? baseProducer.numerify(telephoneNumberFormat) : guard.unique(() -> baseProducer.numerify(telephoneNumberFormat));
 	}
 
 	@Override
@@ -220,13 +299,15 @@ public class DefaultPersonProvider implements PersonProvider {
 		if (mobileTelephoneNumberFormat == null) {
 			mobileTelephoneNumberFormat = dataMaster.getRandomValue(TELEPHONE_NUMBER_FORMATS);
 		}
-		mobileTelephoneNumber = baseProducer.numerify(mobileTelephoneNumberFormat);
+		UniqueIdentifiers.Guard guard = uniqueIdentifiers.guard(Identifier.TELEPHONE_NUMBER);
+		mobileTelephoneNumber = guard == null ? baseProducer.numerify(mobileTelephoneNumberFormat)
+				: guard.unique(() -> baseProducer.numerify(mobileTelephoneNumberFormat));
 	}
 
 	@Override
 	public void generateAge() {
 		if (dateOfBirth != null) {
-			age = (int) ChronoUnit.YEARS.between(dateOfBirth, LocalDateTime.now());
+			age = (int) ChronoUnit.YEARS.between(dateOfBirth, timeProvider.getCurrentDate());
 		} else {
 			if (age != null) {
 				return;
@@ -240,9 +321,7 @@ public class DefaultPersonProvider implements PersonProvider {
 		if (dateOfBirth != null) {
 			return;
 		}
-		LocalDate maxDate = timeProvider.getCurrentDate().minusYears(age);
-		LocalDate minDate = maxDate.minusYears(1).plusDays(1);
-		dateOfBirth = dateProducer.randomDateBetweenTwoDates(minDate, maxDate);
+		dateOfBirth = LocalDate.ofEpochDay(dateProducer.randomEpochDayOfBirth(age));
 	}
 
 	@Override
@@ -250,7 +329,7 @@ public class DefaultPersonProvider implements PersonProvider {
 		if (companyEmail != null) {
 			return;
 		}
-		CompanyEmailProvider companyEmailProvider = new CompanyEmailProvider(firstName, lastName, company);
+		CompanyEmailProvider companyEmailProvider = new CompanyEmailProvider(dataMaster.getFoldedNames(), firstName, lastName, company);
 		companyEmail = companyEmailProvider.get();
 	}
 
@@ -268,7 +347,8 @@ public class DefaultPersonProvider implements PersonProvider {
 		if (nationalIdentityCardNumber != null) {
 			return;
 		}
-		nationalIdentityCardNumber = nationalIdentityCardNumberProvider.get();
+		UniqueIdentifiers.Guard guard = uniqueIdentifiers.guard(Identifier.NATIONAL_IDENTITY_CARD_NUMBER);
+		nationalIdentityCardNumber = guard == null ? nationalIdentityCardNumberProvider.get() : guard.unique(nationalIdentityCardNumberProvider::get);
 	}
 
 	@Override
@@ -276,8 +356,13 @@ public class DefaultPersonProvider implements PersonProvider {
 		if (nationalIdentificationNumber != null) {
 			return;
 		}
-		nationalIdentificationNumber = nationalIdentificationNumberFactory.produceNationalIdentificationNumberProvider(
-				NationalIdentificationNumberProperties.dateOfBirth(dateOfBirth), NationalIdentificationNumberProperties.sex(sex)).get().getValue();
+		UniqueIdentifiers.Guard guard = uniqueIdentifiers.guard(Identifier.NATIONAL_IDENTIFICATION_NUMBER);
+		nationalIdentificationNumber = guard == null ? produceNationalIdentificationNumber() : guard.unique(this::produceNationalIdentificationNumber);
+	}
+
+	private String produceNationalIdentificationNumber() {
+		return nationalIdentificationNumberFactory.produceNationalIdentificationNumberProvider(NationalIdentificationNumberProperties.dateOfBirth(dateOfBirth),
+				NationalIdentificationNumberProperties.sex(sex)).get().getValue();
 	}
 
 	@Override
@@ -293,7 +378,8 @@ public class DefaultPersonProvider implements PersonProvider {
 		if (passportNumber != null) {
 			return;
 		}
-		passportNumber = passportNumberProvider.get();
+		UniqueIdentifiers.Guard guard = uniqueIdentifiers.guard(Identifier.PASSPORT_NUMBER);
+		passportNumber = guard == null ? passportNumberProvider.get() : guard.unique(passportNumberProvider::get);
 	}
 
 	@Override
@@ -378,6 +464,55 @@ public class DefaultPersonProvider implements PersonProvider {
 		nationality = !countries.isEmpty() ? baseProducer.randomElement(countries) : Country.Uganda;
 	}
 
+	@Override
+	public void reset() {
+		sex = null;
+		telephoneNumberFormat = null;
+		mobileTelephoneNumberFormat = null;
+		age = null;
+		minimumAge = MIN_AGE;
+		maximumAge = MAX_AGE;
+		dateOfBirth = null;
+		company = null;
+		address = null;
+		firstName = null;
+		middleName = null;
+		lastName = null;
+		email = null;
+		username = null;
+		telephoneNumber = null;
+		mobileTelephoneNumber = null;
+		password = null;
+		companyEmail = null;
+		nationalIdentityCardNumber = null;
+		nationalIdentificationNumber = null;
+		passportNumber = null;
+		nationality = null;
+		profession = null;
+		martialStatus = null;
+		bloodType = null;
+		nameOfMother = null;
+		motherAlive = 0;
+		nameOfFather = null;
+		fatherAlive = 0;
+		parentsTogether = 0;
+		hasInsurance = 0;
+		fields = ALL_FIELDS;
+	}
+
+	/**
+	 * The dependencies of the last set of fields are remembered, so that a reused provider given the same
+	 * (unmodified) set for every person computes them only once.
+	 */
+	@Override
+	public void setFields(Set<PersonField> fields) {
+		if (fields != requestedFields) {
+			requestedFieldsWithDependencies = PersonField.withDependencies(fields);
+			requestedFields = fields;
+		}
+		this.fields = requestedFieldsWithDependencies;
+	}
+
 	@Override
 	public void setTelephoneNumberFormat(String telephoneFormat) {
 		telephoneNumberFormat = telephoneFormat;
@@ -398,6 +533,23 @@ public class DefaultPersonProvider implements PersonProvider {
 		this.age = age;
 	}
 
+	@Override
+	public void setAgeBetween(int minAge, int maxAge) {
+		minimumAge = minAge;
+		maximumAge = maxAge;
+		age = baseProducer.randomBetween(minAge, maxAge);
+	}
+
+	@Override
+	public int getMinimumAge() {
+		return minimumAge;
+	}
+
+	@Override
+	public int getMaximumAge() {
+		return maximumAge;
+	}
+
 	@Override
 	public void setCompany(Company company) {
 		this.company = company;
@@ -26,6 +26,7 @@ import static org.isf.generator.producer.person.PersonProvider.PERSONAL_EMAIL;
 
 import org.apache.commons.lang3.StringUtils;
 import org.isf.generator.data.DataMaster;
+import org.isf.generator.data.FoldedNames;
 import org.isf.generator.producer.BaseProducer;
 import org.isf.generator.producer.util.TextUtils;
 
@@ -47,8 +48,25 @@ public class EmailProvider implements Provider<String> {
 
 	@Override
 	public String get() {
+		int variant = baseProducer.randomBetween(1, 3);
+		String personalEmail = dataMaster.getRandomValue(PERSONAL_EMAIL);
+		FoldedNames foldedNames = dataMaster.getFoldedNames();
+		FoldedNames.Folded first = foldedNames.get(firstName);
+		FoldedNames.Folded last = foldedNames.get(lastName);
+		FoldedNames.Folded domain = foldedNames.get(personalEmail);
+		if (first != null && last != null && domain != null) {
+			switch (variant) {
+				case 1:
+					return first.getCompactEmail() + last.getCompactEmail() + '@' + domain.getEmail();
+				case 2:
+					return first.getDottedEmail() + '.' + last.getDottedEmail() + '@' + domain.getEmail();
+				default:
+					return last.getCompactEmail() + '@' + domain.getEmail();
+			}
+		}
+
 		String prefix = "";
-		switch (baseProducer.randomBetween(1, 3)) {
+		switch (variant) {
 			case 1:
 				prefix = StringUtils.replace(firstName + lastName, " ", "");
 				break;
@@ -59,7 +77,7 @@ public class EmailProvider implements Provider<String> {
 				prefix = StringUtils.replace(lastName, " ", "");
 				break;
 		}
-		String email = lowerCase(prefix + '@' + dataMaster.getRandomValue(PERSONAL_EMAIL));
+		String email = lowerCase(prefix + '@' + personalEmail);
 		return TextUtils.stripSharpS(TextUtils.stripAccents(email));
 	}
 
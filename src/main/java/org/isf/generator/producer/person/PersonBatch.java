@@ -0,0 +1,331 @@
+/*
+ * Open Hospital (www.open-hospital.org)
+ * Copyright © 2021 Informatici Senza Frontiere (info@informaticisenzafrontiere.org)
+ *
+ * Open Hospital is a free and open source software for healthcare data management.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * https://www.gnu.org/licenses/gpl-3.0-standalone.html
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.isf.generator.producer.person;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+
+import org.isf.generator.data.SeedList;
+
+/**
+ * Persons generated in bulk, stored column by column instead of as {@link Person} objects.
+ * <p>A batch holds the fields that a patient needs: sex, age, date of birth (as epoch day), first and last
+ * name, names of the parents, street number, street, city, telephone number, profession, marital status,
+ * blood type, whether the parents are together and whether the person is insured. Names, streets, cities and
+ * the other values picked from the seed data are kept as indices into the seed lists, the telephone numbers
+ * in one character arena; nothing is allocated per person once the batch has grown to its working size.</p>
+ * <p>The rows are read through a {@link Cursor}, a flyweight that is moved from row to row. Its getters return
+ * the strings of the seed data themselves and a reused {@link CharSequence} for the telephone number, so a
+ * sink can serialize a row without creating objects.</p>
+ * <p>A batch is filled by {@link PersonBatchProducer} and reused after {@link #clear()}; it is not thread safe.</p>
+ */
+public final class PersonBatch {
+
+	/**
+	 * Index of a value that was not drawn from the seed data, such as the profession of a child.
+	 */
+	public static final int UNKNOWN = -1;
+
+	static final String UNKNOWN_VALUE = "unknown";
+
+	private static final int DEFAULT_TELEPHONE_LENGTH = 16;
+
+	private int size;
+
+	byte[] sex;
+	int[] age;
+	long[] dateOfBirth;
+	int[] firstName;
+	int[] lastName;
+	int[] nameOfMother;
+	int[] nameOfFather;
+	int[] streetNumber;
+	int[] street;
+	int[] city;
+	int[] telephoneNumberEnd;
+	int[] profession;
+	int[] maritalStatus;
+	int[] bloodType;
+	char[] parentsTogether;
+	char[] hasInsurance;
+	char[] arena;
+
+	PersonBatchProducer.Dictionaries dictionaries;
+
+	/**
+	 * @param capacity number of persons the batch holds before it has to grow
+	 */
+	public PersonBatch(int capacity) {
+		if (capacity <= 0) {
+			throw new IllegalArgumentException("The capacity has to be positive: " + capacity);
+		}
+		sex = new byte[capacity];
+		age = new int[capacity];
+		dateOfBirth = new long[capacity];
+		firstName = new int[capacity];
+		lastName = new int[capacity];
+		nameOfMother = new int[capacity];
+		nameOfFather = new int[capacity];
+		streetNumber = new int[capacity];
+		street = new int[capacity];
+		city = new int[capacity];
+		telephoneNumberEnd = new int[capacity];
+		profession = new int[capacity];
+		maritalStatus = new int[capacity];
+		bloodType = new int[capacity];
+		parentsTogether = new char[capacity];
+		hasInsurance = new char[capacity];
+		arena = new char[capacity * DEFAULT_TELEPHONE_LENGTH];
+	}
+
+	/**
+	 * @return the number of persons in the batch
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * @return the number of persons the batch holds before it has to grow
+	 */
+	public int capacity() {
+		return sex.length;
+	}
+
+	/**
+	 * Empties the batch, keeping its arrays for the next persons.
+	 */
+	public void clear() {
+		size = 0;
+		dictionaries = null;
+	}
+
+	/**
+	 * @return a new cursor on the first row
+	 */
+	public Cursor cursor() {
+		return new Cursor();
+	}
+
+	/**
+	 * Adds a row, growing the columns if needed.
+	 *
+	 * @return the index of the new row
+	 */
+	int addRow() {
+		if (size == sex.length) {
+			grow(sex.length * 2);
+		}
+		return size++;
+	}
+
+	/**
+	 * @param row the row whose characters follow those of the previous row
+	 * @param length number of characters to reserve
+	 * @return the offset of the characters in the arena
+	 */
+	int reserveChars(int row, int length) {
+		int start = arenaEnd(row - 1);
+		if (start + length > arena.length) {
+			arena = Arrays.copyOf(arena, Math.max(start + length, arena.length * 2));
+		}
+		return start;
+	}
+
+	private int arenaEnd(int row) {
+		return row < 0 ? 0 : telephoneNumberEnd[row];
+	}
+
+	private void grow(int capacity) {
+		sex = Arrays.copyOf(sex, capacity);
+		age = Arrays.copyOf(age, capacity);
+		dateOfBirth = Arrays.copyOf(dateOfBirth, capacity);
+		firstName = Arrays.copyOf(firstName, capacity);
+		lastName = Arrays.copyOf(lastName, capacity);
+		nameOfMother = Arrays.copyOf(nameOfMother, capacity);
+		nameOfFather = Arrays.copyOf(nameOfFather, capacity);
+		streetNumber = Arrays.copyOf(streetNumber, capacity);
+		street = Arrays.copyOf(street, capacity);
+		city = Arrays.copyOf(city, capacity);
+		telephoneNumberEnd = Arrays.copyOf(telephoneNumberEnd, capacity);
+		profession = Arrays.copyOf(profession, capacity);
+		maritalStatus = Arrays.copyOf(maritalStatus, capacity);
+		bloodType = Arrays.copyOf(bloodType, capacity);
+		parentsTogether = Arrays.copyOf(parentsTogether, capacity);
+		hasInsurance = Arrays.copyOf(hasInsurance, capacity);
+	}
+
+	private static String value(SeedList values, int index) {
+		return index == UNKNOWN ? UNKNOWN_VALUE : values.get(index);
+	}
+
+	/**
+	 * A view of one row of the batch. The same cursor is moved over all the rows, and the values it returns
+	 * are only valid until the batch is cleared.
+	 */
+	public final class Cursor {
+
+		private final CharsView telephoneNumber = new CharsView();
+		private int row;
+
+		private Cursor() {
+		}
+
+		/**
+		 * @param row index of the row, from 0 to {@link #size()} - 1
+		 * @return this cursor
+		 */
+		public Cursor moveTo(int row) {
+			if (row < 0 || row >= size) {
+				throw new IndexOutOfBoundsException("Row " + row + " of a batch of " + size);
+			}
+			this.row = row;
+			return this;
+		}
+
+		public int getRow() {
+			return row;
+		}
+
+		public Person.Sex getSex() {
+			return sex[row] == 0 ? Person.Sex.MALE : Person.Sex.FEMALE;
+		}
+
+		public boolean isMale() {
+			return sex[row] == 0;
+		}
+
+		public int getAge() {
+			return age[row];
+		}
+
+		/**
+		 * @return the date of birth as days since 1970-01-01
+		 */
+		public long getDateOfBirthEpochDay() {
+			return dateOfBirth[row];
+		}
+
+		/**
+		 * @return the date of birth (a new object, unlike the other getters)
+		 */
+		public LocalDate getDateOfBirth() {
+			return LocalDate.ofEpochDay(dateOfBirth[row]);
+		}
+
+		public String getFirstName() {
+			return dictionaries.firstNames[sex[row]].get(firstName[row]);
+		}
+
+		public String getLastName() {
+			return dictionaries.lastNames[sex[row]].get(lastName[row]);
+		}
+
+		public String getNameOfMother() {
+			return dictionaries.firstNames[1].get(nameOfMother[row]);
+		}
+
+		public String getNameOfFather() {
+			return dictionaries.firstNames[0].get(nameOfFather[row]);
+		}
+
+		public int getStreetNumber() {
+			return streetNumber[row];
+		}
+
+		public String getStreet() {
+			return dictionaries.streets.get(street[row]);
+		}
+
+		public String getCity() {
+			return dictionaries.cities.get(city[row]);
+		}
+
+		/**
+		 * @return the telephone number, as a view of the arena that is reused for every row
+		 */
+		public CharSequence getTelephoneNumber() {
+			telephoneNumber.set(arenaEnd(row - 1), telephoneNumberEnd[row]);
+			return telephoneNumber;
+		}
+
+		public String getProfession() {
+			return value(dictionaries.professions[sex[row]], profession[row]);
+		}
+
+		public String getMaritalStatus() {
+			return value(dictionaries.maritalStatuses, maritalStatus[row]);
+		}
+
+		public String getBloodType() {
+			return dictionaries.bloodTypes.get(bloodType[row]);
+		}
+
+		public char getParentsTogether() {
+			return parentsTogether[row];
+		}
+
+		public char getHasInsurance() {
+			return hasInsurance[row];
+		}
+
+	}
+
+	/**
+	 * A range of the arena.
+	 */
+	private final class CharsView implements CharSequence {
+
+		private int start;
+		private int end;
+
+		void set(int start, int end) {
+			this.start = start;
+			this.end = end;
+		}
+
+		@Override
+		public int length() {
+			return end - start;
+		}
+
+		@Override
+		public char charAt(int index) {
+			if (index < 0 || index >= end - start) {
+				throw new IndexOutOfBoundsException(String.valueOf(index));
+			}
+			return arena[start + index];
+		}
+
+		@Override
+		public CharSequence subSequence(int from, int to) {
+			return toString().subSequence(from, to);
+		}
+
+		@Override
+		public String toString() {
+			return new String(arena, start, end - start);
+		}
+
+	}
+
+}
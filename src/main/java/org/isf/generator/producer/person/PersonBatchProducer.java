@@ -0,0 +1,182 @@
+/*
+ * Open Hospital (www.open-hospital.org)
+ * Copyright © 2021 Informatici Senza Frontiere (info@informaticisenzafrontiere.org)
+ *
+ * Open Hospital is a free and open source software for healthcare data management.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * https://www.gnu.org/licenses/gpl-3.0-standalone.html
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.isf.generator.producer.person;
+
+import javax.inject.Inject;
+
+import org.isf.generator.data.DataMaster;
+import org.isf.generator.data.IndexedDataMaster;
+import org.isf.generator.data.SeedList;
+import org.isf.generator.producer.BaseProducer;
+import org.isf.generator.producer.DateProducer;
+import org.isf.generator.producer.Template;
+import org.isf.generator.producer.unique.FingerprintSet;
+import org.isf.generator.producer.unique.UniqueIdentifiers;
+
+/**
+ * Fills a {@link PersonBatch}. Every person is drawn with the same random numbers, in the same order, as
+ * {@link DefaultPersonProvider} draws a person restricted to the fields of the batch (see
+ * {@link PersonBatch}), so for a given seed a batch holds the same persons as the same number of calls to
+ * {@link org.isf.generator.Generator#person(PersonProperties.PersonProperty...)}; only the apartment number
+ * and postal code are drawn and dropped.
+ * <p>The picks are indices into the lists of an {@link IndexedDataMaster}, such as the default
+ * {@link org.isf.generator.data.CompiledDataMaster}.</p>
+ */
+public class PersonBatchProducer {
+
+	private final DataMaster dataMaster;
+	private final BaseProducer baseProducer;
+	private final DateProducer dateProducer;
+	private final AddressProvider addressProvider;
+	private final UniqueIdentifiers.Guard telephoneNumbers;
+
+	private Dictionaries dictionaries;
+
+	@Inject
+	public PersonBatchProducer(DataMaster dataMaster, BaseProducer baseProducer, DateProducer dateProducer, AddressProvider addressProvider,
+			UniqueIdentifiers uniqueIdentifiers) {
+		this.dataMaster = dataMaster;
+		this.baseProducer = baseProducer;
+		this.dateProducer = dateProducer;
+		this.addressProvider = addressProvider;
+		this.telephoneNumbers = uniqueIdentifiers.guard(UniqueIdentifiers.Identifier.TELEPHONE_NUMBER);
+	}
+
+	/**
+	 * Appends persons to the batch.
+	 *
+	 * @param batch batch to fill, empty or filled by this producer
+	 * @param count number of persons to add
+	 * @param sex sex of the persons, {@code null} for a random one
+	 * @param minAge minimal age (inclusive)
+	 * @param maxAge maximal age (inclusive)
+	 */
+	public void fill(PersonBatch batch, int count, Person.Sex sex, int minAge, int maxAge) {
+		Dictionaries data = dictionaries();
+		if (batch.dictionaries == null) {
+			batch.dictionaries = data;
+		} else if (batch.dictionaries != data) {
+			throw new IllegalArgumentException("The batch holds persons of another generator");
+		}
+		if (!(addressProvider instanceof AbstractAddressProvider)) {
+			throw new IllegalStateException("Persons cannot be generated in batches with " + addressProvider.getClass().getName());
+		}
+		AbstractAddressProvider addresses = (AbstractAddressProvider) addressProvider;
+
+		for (int i = 0; i < count; i++) {
+			int row = batch.addRow();
+			int age = baseProducer.randomBetween(minAge, maxAge);
+			Person.Sex personSex = sex != null ? sex : baseProducer.trueOrFalse() ? Person.Sex.MALE : Person.Sex.FEMALE;
+			int s = personSex.ordinal();
+			batch.sex[row] = (byte) s;
+			batch.age[row] = age;
+			batch.firstName[row] = data.firstNames[s].randomIndex(baseProducer);
+			batch.lastName[row] = data.lastNames[s].randomIndex(baseProducer);
+
+			Template telephoneNumber = BaseProducer.numerifyTemplate(data.telephoneNumberFormats.random(baseProducer));
+			int start = batch.reserveChars(row, telephoneNumber.length());
+			batch.telephoneNumberEnd[row] = start + fillTelephoneNumber(telephoneNumber, batch.arena, start);
+
+			batch.dateOfBirth[row] = dateProducer.randomEpochDayOfBirth(age);
+			addresses.fill(batch, row, data);
+			batch.profession[row] = age <= 19 ? PersonBatch.UNKNOWN : data.professions[s].randomIndex(baseProducer);
+			batch.maritalStatus[row] = age <= 19 ? PersonBatch.UNKNOWN : data.maritalStatuses.randomIndex(baseProducer);
+			batch.bloodType[row] = data.bloodTypes.randomIndex(baseProducer);
+			batch.nameOfMother[row] = data.firstNames[Person.Sex.FEMALE.ordinal()].randomIndex(baseProducer);
+			batch.nameOfFather[row] = data.firstNames[Person.Sex.MALE.ordinal()].randomIndex(baseProducer);
+			char motherAlive = data.parentsAlive.<String> random(baseProducer).charAt(0);
+			char fatherAlive = data.parentsAlive.<String> random(baseProducer).charAt(0);
+			if (motherAlive == 'U' || fatherAlive == 'U') {
+				batch.parentsTogether[row] = 'U';
+			} else if (motherAlive == 'D' || fatherAlive == 'D') {
+				batch.parentsTogether[row] = 'N';
+			} else {
+				batch.parentsTogether[row] = baseProducer.trueOrFalse() ? 'Y' : 'N';
+			}
+			batch.hasInsurance[row] = baseProducer.trueOrFalse() ? 'Y' : 'N';
+		}
+	}
+
+	private int fillTelephoneNumber(Template format, char[] buffer, int offset) {
+		int length = baseProducer.fill(format, buffer, offset);
+		if (telephoneNumbers == null) {
+			return length;
+		}
+		for (int attempt = 1; !telephoneNumbers.claim(FingerprintSet.fingerprint(buffer, offset, length)); attempt++) {
+			if (attempt == telephoneNumbers.getRetries()) {
+				throw telephoneNumbers.exhausted();
+			}
+			length = baseProducer.fill(format, buffer, offset);
+		}
+		return length;
+	}
+
+	private Dictionaries dictionaries() {
+		if (dictionaries == null) {
+			if (!(dataMaster instanceof IndexedDataMaster)) {
+				throw new IllegalStateException("Persons can only be generated in batches from an " + IndexedDataMaster.class.getSimpleName());
+			}
+			dictionaries = new Dictionaries((IndexedDataMaster) dataMaster);
+		}
+		return dictionaries;
+	}
+
+	/**
+	 * The seed lists the batch indices point into, resolved once per producer.
+	 */
+	static final class Dictionaries {
+
+		final SeedList[] firstNames;
+		final SeedList[] lastNames;
+		final SeedList[] professions;
+		final SeedList telephoneNumberFormats;
+		final SeedList maritalStatuses;
+		final SeedList bloodTypes;
+		final SeedList parentsAlive;
+		final SeedList streets;
+		final SeedList cities;
+		final SeedList postalCodeFormats;
+
+		Dictionaries(IndexedDataMaster dataMaster) {
+			firstNames = bySex(dataMaster, PersonProvider.FIRST_NAME);
+			lastNames = bySex(dataMaster, PersonProvider.LAST_NAME);
+			professions = bySex(dataMaster, PersonProvider.PROFESSION);
+			telephoneNumberFormats = dataMaster.values(PersonProvider.TELEPHONE_NUMBER_FORMATS);
+			maritalStatuses = dataMaster.values(PersonProvider.MARITAL_STATUS);
+			bloodTypes = dataMaster.values(PersonProvider.BLOOD_TYPE);
+			parentsAlive = dataMaster.values(PersonProvider.PARENTS_ALIVE);
+			streets = dataMaster.values(AbstractAddressProvider.STREET);
+			cities = dataMaster.values(AbstractAddressProvider.CITY);
+			postalCodeFormats = dataMaster.values(AbstractAddressProvider.POSTAL_CODE_FORMAT);
+		}
+
+		private static SeedList[] bySex(IndexedDataMaster dataMaster, String key) {
+			SeedList[] values = new SeedList[Person.Sex.values().length];
+			for (Person.Sex sex : Person.Sex.values()) {
+				values[sex.ordinal()] = dataMaster.valuesOfType(key, sex.name());
+			}
+			return values;
+		}
+
+	}
+
+}
@@ -0,0 +1,95 @@
+/*
+ * Open Hospital (www.open-hospital.org)
+ * Copyright © 2021 Informatici Senza Frontiere (info@informaticisenzafrontiere.org)
+ *
+ * Open Hospital is a free and open source software for healthcare data management.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * https://www.gnu.org/licenses/gpl-3.0-standalone.html
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.isf.generator.producer.person;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * The fields of a {@link Person}, in the order they are generated, with the fields each one is derived from.
+ * <p>Use {@link PersonProperties#fields(PersonField...)} to generate only some of them; fields that are not
+ * requested (or needed by a requested one) are left {@code null} (or {@code 0} for the {@code char} ones).</p>
+ */
+public enum PersonField {
+
+	SEX,
+	COMPANY,
+	FIRST_NAME(SEX),
+	MIDDLE_NAME(SEX),
+	LAST_NAME(SEX),
+	EMAIL(FIRST_NAME, LAST_NAME),
+	USERNAME(FIRST_NAME, LAST_NAME),
+	TELEPHONE_NUMBER,
+	AGE,
+	DATE_OF_BIRTH(AGE),
+	COMPANY_EMAIL(FIRST_NAME, LAST_NAME, COMPANY),
+	PASSWORD,
+	NATIONAL_IDENTITY_CARD_NUMBER,
+	NATIONAL_IDENTIFICATION_NUMBER(DATE_OF_BIRTH, SEX),
+	PASSPORT_NUMBER,
+	ADDRESS,
+	NATIONALITY,
+	MOBILE_TELEPHONE_NUMBER,
+	PROFESSION(AGE, SEX),
+	MARITAL_STATUS(AGE),
+	BLOOD_TYPE,
+	NAME_OF_MOTHER,
+	NAME_OF_FATHER,
+	MOTHER_ALIVE,
+	FATHER_ALIVE,
+	PARENTS_TOGETHER(MOTHER_ALIVE, FATHER_ALIVE),
+	HAS_INSURANCE;
+
+	private final PersonField[] dependencies;
+
+	PersonField(PersonField... dependencies) {
+		this.dependencies = dependencies;
+	}
+
+	public Set<PersonField> getDependencies() {
+		return Collections.unmodifiableSet(dependencies.length == 0 ? EnumSet.noneOf(PersonField.class) : EnumSet.copyOf(Arrays.asList(dependencies)));
+	}
+
+	/**
+	 * @param fields the requested fields
+	 * @return the requested fields together with all the fields they are (transitively) derived from
+	 */
+	public static EnumSet<PersonField> withDependencies(Collection<PersonField> fields) {
+		EnumSet<PersonField> closure = EnumSet.noneOf(PersonField.class);
+		for (PersonField field : fields) {
+			field.addTo(closure);
+		}
+		return closure;
+	}
+
+	private void addTo(EnumSet<PersonField> closure) {
+		if (closure.add(this)) {
+			for (PersonField dependency : dependencies) {
+				dependency.addTo(closure);
+			}
+		}
+	}
+
+}
@@ -22,16 +22,13 @@
 package org.isf.generator.producer.person;
 
 import java.time.LocalDate;
-import java.util.Optional;
+import java.util.Arrays;
 
 import org.isf.generator.producer.BaseProducer;
 import org.isf.generator.producer.company.Company;
 
 public final class PersonProperties {
 
-	private static Optional<Integer> minimumAge = Optional.empty();
-	private static Optional<Integer> maximumAge = Optional.empty();
-
 	private PersonProperties() {
 	}
 
@@ -66,21 +63,37 @@ public final class PersonProperties {
 
 			@Override
 			public void apply(PersonProvider person, BaseProducer baseProducer) {
-				person.setAge(baseProducer.randomBetween(minAge, maxAge));
-				minimumAge = Optional.of(minAge);
-				maximumAge = Optional.of(maxAge);
+				person.setAgeBetween(minAge, maxAge);
 			}
 		};
 	}
 
+	/**
+	 * @param minAge minimal age (inclusive)
+	 * @return the property, bounded by the maximal age of an earlier property of the same person
+	 */
 	public static PersonProperty minAge(final int minAge) {
-		minimumAge = Optional.of(minAge);
-		return ageBetween(minAge, maximumAge.orElse(PersonProvider.MAX_AGE));
+		return new PersonProperty() {
+
+			@Override
+			public void apply(PersonProvider person, BaseProducer baseProducer) {
+				person.setAgeBetween(minAge, person.getMaximumAge());
+			}
+		};
 	}
 
+	/**
+	 * @param maxAge maximal age (inclusive)
+	 * @return the property, bounded by the minimal age of an earlier property of the same person
+	 */
 	public static PersonProperty maxAge(final int maxAge) {
-		maximumAge = Optional.of(maxAge);
-		return ageBetween(minimumAge.orElse(PersonProvider.MIN_AGE), maxAge);
+		return new PersonProperty() {
+
+			@Override
+			public void apply(PersonProvider person, BaseProducer baseProducer) {
+				person.setAgeBetween(person.getMinimumAge(), maxAge);
+			}
+		};
 	}
 
 	public static PersonProperty telephoneFormat(final String telephoneFormat) {
@@ -293,4 +306,21 @@ public final class PersonProperties {
 		};
 	}
 
+	/**
+	 * Generates only the given fields (and the fields they are derived from) instead of all of them, which
+	 * saves the work and the garbage of the fields the caller does not use.
+	 *
+	 * @param fields the fields the caller needs
+	 * @return the property
+	 */
+	public static PersonProperty fields(final PersonField... fields) {
+		return new PersonProperty() {
+
+			@Override
+			public void apply(PersonProvider personProvider, BaseProducer baseProducer) {
+				personProvider.setFields(PersonField.withDependencies(Arrays.asList(fields)));
+			}
+		};
+	}
+
 }
@@ -22,6 +22,7 @@
 package org.isf.generator.producer.person;
 
 import java.time.LocalDate;
+import java.util.Set;
 
 import org.isf.generator.producer.company.Company;
 
@@ -100,6 +101,18 @@ public interface PersonProvider extends Provider<Person> {
 
 	void generateHasInsurance();
 
+	/**
+	 * Clears the values and properties of the last person, so that the provider can produce the next one.
+	 */
+	void reset();
+
+	/**
+	 * Restricts the generation to the given fields and the fields they depend on.
+	 *
+	 * @param fields the fields to generate
+	 */
+	void setFields(Set<PersonField> fields);
+
 	void setTelephoneNumberFormat(String telephoneFormat);
 
 	void setMobileTelephoneNumberFormat(String telephoneFormat);
@@ -108,6 +121,19 @@ public interface PersonProvider extends Provider<Person> {
 
 	void setAge(int age);
 
+	/**
+	 * Draws the age between the bounds and keeps the bounds for {@link PersonProperties#minAge(int)} and
+	 * {@link PersonProperties#maxAge(int)}.
+	 *
+	 * @param minAge minimal age (inclusive)
+	 * @param maxAge maximal age (inclusive)
+	 */
+	void setAgeBetween(int minAge, int maxAge);
+
+	int getMinimumAge();
+
+	int getMaximumAge();
+
 	void setCompany(Company company);
 
 	void setFirstName(String firstName);
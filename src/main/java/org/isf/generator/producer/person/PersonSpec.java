@@ -0,0 +1,201 @@
+/*
+ * Open Hospital (www.open-hospital.org)
+ * Copyright © 2021 Informatici Senza Frontiere (info@informaticisenzafrontiere.org)
+ *
+ * Open Hospital is a free and open source software for healthcare data management.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * https://www.gnu.org/licenses/gpl-3.0-standalone.html
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.isf.generator.producer.person;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Set;
+
+import org.isf.generator.producer.BaseProducer;
+
+/**
+ * Immutable description of the persons to generate, built once and run by
+ * {@link org.isf.generator.Generator#person(PersonSpec)} for as many persons as needed.
+ * <p>Unlike a list of {@link PersonProperties.PersonProperty} the spec is compiled up front: the age is drawn
+ * from its range for every person (with the same random draw as {@link PersonProperties#ageBetween(int, int)})
+ * and the fields are resolved with their dependencies once, so applying the spec to a provider allocates
+ * nothing. A spec holds no state of the persons and can be shared between threads.</p>
+ * <p>Applied in the order of the equivalent properties (sex, age range, telephone formats, fields and then the
+ * other properties), a spec gives the same person for a seed as
+ * {@link org.isf.generator.Generator#person(PersonProperties.PersonProperty...)}.</p>
+ */
+public final class PersonSpec {
+
+	private static final PersonProperties.PersonProperty[] NO_PROPERTIES = new PersonProperties.PersonProperty[0];
+
+	private final Person.Sex sex;
+	private final boolean ageRange;
+	private final int minAge;
+	private final int maxAge;
+	private final String telephoneNumberFormat;
+	private final String mobileTelephoneNumberFormat;
+	private final Set<PersonField> fields;
+	private final PersonProperties.PersonProperty[] properties;
+
+	private PersonSpec(Builder builder) {
+		this.sex = builder.sex;
+		this.ageRange = builder.ageRange;
+		this.minAge = builder.minAge;
+		this.maxAge = builder.maxAge;
+		this.telephoneNumberFormat = builder.telephoneNumberFormat;
+		this.mobileTelephoneNumberFormat = builder.mobileTelephoneNumberFormat;
+		this.fields = builder.fields != null ? Collections.unmodifiableSet(builder.fields) : null;
+		this.properties = builder.properties;
+	}
+
+	public static Builder builder() {
+		return new Builder();
+	}
+
+	/**
+	 * Sets the properties of the spec on a provider, which is expected to be new or {@link PersonProvider#reset()}.
+	 *
+	 * @param person the provider of the next person
+	 * @param baseProducer producer of the random draws of the properties
+	 */
+	public void applyTo(PersonProvider person, BaseProducer baseProducer) {
+		if (sex != null) {
+			person.setSex(sex);
+		}
+		if (ageRange) {
+			person.setAgeBetween(minAge, maxAge);
+		}
+		if (telephoneNumberFormat != null) {
+			person.setTelephoneNumberFormat(telephoneNumberFormat);
+		}
+		if (mobileTelephoneNumberFormat != null) {
+			person.setMobileTelephoneNumberFormat(mobileTelephoneNumberFormat);
+		}
+		if (fields != null) {
+			person.setFields(fields);
+		}
+		for (PersonProperties.PersonProperty property : properties) {
+			property.apply(person, baseProducer);
+		}
+	}
+
+	public Person.Sex getSex() {
+		return sex;
+	}
+
+	public int getMinAge() {
+		return ageRange ? minAge : PersonProvider.MIN_AGE;
+	}
+
+	public int getMaxAge() {
+		return ageRange ? maxAge : PersonProvider.MAX_AGE;
+	}
+
+	/**
+	 * @return the fields to generate with their dependencies, {@code null} for all of them
+	 */
+	public Set<PersonField> getFields() {
+		return fields;
+	}
+
+	public static class Builder {
+
+		private Person.Sex sex;
+		private boolean ageRange;
+		private int minAge;
+		private int maxAge;
+		private String telephoneNumberFormat;
+		private String mobileTelephoneNumberFormat;
+		private Set<PersonField> fields;
+		private PersonProperties.PersonProperty[] properties = NO_PROPERTIES;
+
+		private Builder() {
+		}
+
+		/**
+		 * @param sex The sex of the persons, {@code null} for a random one (the default).
+		 * @return the same Builder (for chaining).
+		 */
+		public Builder withSex(Person.Sex sex) {
+			this.sex = sex;
+			return this;
+		}
+
+		/**
+		 * @param minAge The minimal age (inclusive).
+		 * @param maxAge The maximal age (inclusive).
+		 * @return the same Builder (for chaining).
+		 */
+		public Builder withAgeBetween(int minAge, int maxAge) {
+			if (minAge < 0 || minAge > maxAge) {
+				throw new IllegalArgumentException("Invalid age range: " + minAge + '-' + maxAge);
+			}
+			this.ageRange = true;
+			this.minAge = minAge;
+			this.maxAge = maxAge;
+			return this;
+		}
+
+		/**
+		 * @param telephoneNumberFormat The format of the telephone numbers, a random one of the seed data by default.
+		 * @return the same Builder (for chaining).
+		 */
+		public Builder withTelephoneNumberFormat(String telephoneNumberFormat) {
+			this.telephoneNumberFormat = telephoneNumberFormat;
+			return this;
+		}
+
+		/**
+		 * @param mobileTelephoneNumberFormat The format of the mobile telephone numbers, a random one of the seed
+		 * data by default.
+		 * @return the same Builder (for chaining).
+		 */
+		public Builder withMobileTelephoneNumberFormat(String mobileTelephoneNumberFormat) {
+			this.mobileTelephoneNumberFormat = mobileTelephoneNumberFormat;
+			return this;
+		}
+
+		/**
+		 * @param fields The fields to generate (with the fields they depend on), all of them by default.
+		 * @return the same Builder (for chaining).
+		 */
+		public Builder withFields(PersonField... fields) {
+			this.fields = PersonField.withDependencies(Arrays.asList(fields));
+			return this;
+		}
+
+		/**
+		 * @param properties Further properties applied to every person, such as fixed values
+		 * ({@link PersonProperties#withCompany(org.isf.generator.producer.company.Company)}); they must not keep
+		 * state of their own.
+		 * @return the same Builder (for chaining).
+		 */
+		public Builder withProperties(PersonProperties.PersonProperty... properties) {
+			this.properties = properties.clone();
+			return this;
+		}
+
+		/**
+		 * @return the immutable PersonSpec
+		 */
+		public PersonSpec build() {
+			return new PersonSpec(this);
+		}
+
+	}
+
+}
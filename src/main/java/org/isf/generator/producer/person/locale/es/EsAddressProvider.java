@@ -34,6 +34,11 @@ public class EsAddressProvider extends AbstractAddressProvider {
 		super(dataMaster, baseProducer);
 	}
 
+	@Override
+	protected boolean isStreetFirst() {
+		return true;
+	}
+
 	@Override
 	public EsAddress get() {
 		return new EsAddress(getStreet(), getStreetNumber(), getApartmentNumber(), getPostalCode(), getCity());
@@ -34,6 +34,11 @@ public class KaAddressProvider extends AbstractAddressProvider {
 		super(dataMaster, baseProducer);
 	}
 
+	@Override
+	protected boolean isStreetFirst() {
+		return true;
+	}
+
 	@Override
 	public KaAddress get() {
 		return new KaAddress(getStreet(), getStreetNumber(), getApartmentNumber(), getPostalCode(), getCity());
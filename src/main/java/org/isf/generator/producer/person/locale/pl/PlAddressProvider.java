@@ -34,6 +34,11 @@ public class PlAddressProvider extends AbstractAddressProvider {
 		super(dataMaster, baseProducer);
 	}
 
+	@Override
+	protected boolean isStreetFirst() {
+		return true;
+	}
+
 	@Override
 	public PlAddress get() {
 		return new PlAddress(getStreet(), getStreetNumber(), getApartmentNumber(), getPostalCode(), getCity());
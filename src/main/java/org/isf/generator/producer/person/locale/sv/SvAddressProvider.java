@@ -39,6 +39,11 @@ public class SvAddressProvider extends AbstractAddressProvider {
 		return baseProducer.randomInt(20) < 0 ? String.valueOf(baseProducer.randomInt(350)) : "";
 	}
 
+	@Override
+	protected boolean isStreetFirst() {
+		return true;
+	}
+
 	@Override
 	public SvAddress get() {
 		return new SvAddress(getStreet(), getStreetNumber(), getApartmentNumber(), getPostalCode(), getCity());
@@ -25,6 +25,7 @@ import javax.inject.Inject;
 
 import org.isf.generator.producer.BaseProducer;
 import org.isf.generator.producer.DateProducer;
+import org.isf.generator.producer.TimeProvider;
 import org.isf.generator.producer.person.NationalIdentificationNumberFactory;
 import org.isf.generator.producer.person.NationalIdentificationNumberProperties;
 
@@ -32,16 +33,18 @@ public class SwNationalIdentificationNumberFactory implements NationalIdentifica
 
 	private final BaseProducer baseProducer;
 	private final DateProducer dateProducer;
+	private final TimeProvider timeProvider;
 
 	@Inject
-	public SwNationalIdentificationNumberFactory(BaseProducer baseProducer, DateProducer dateProducer) {
+	public SwNationalIdentificationNumberFactory(BaseProducer baseProducer, DateProducer dateProducer, TimeProvider timeProvider) {
 		this.baseProducer = baseProducer;
 		this.dateProducer = dateProducer;
+		this.timeProvider = timeProvider;
 	}
 
 	@Override
 	public SwNationalIdentificationNumberProvider produceNationalIdentificationNumberProvider(NationalIdentificationNumberProperties.Property... properties) {
-		return new SwNationalIdentificationNumberProvider(dateProducer, baseProducer, properties);
+		return new SwNationalIdentificationNumberProvider(dateProducer, baseProducer, timeProvider, properties);
 	}
 
 }
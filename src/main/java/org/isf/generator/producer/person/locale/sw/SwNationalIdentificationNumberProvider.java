@@ -22,14 +22,13 @@
 package org.isf.generator.producer.person.locale.sw;
 
 import java.time.LocalDate;
-import java.time.LocalDateTime;
 import java.time.temporal.ChronoUnit;
 
 import javax.inject.Inject;
 
-import org.apache.commons.lang3.RandomStringUtils;
 import org.isf.generator.producer.BaseProducer;
 import org.isf.generator.producer.DateProducer;
+import org.isf.generator.producer.TimeProvider;
 import org.isf.generator.producer.person.NationalIdentificationNumber;
 import org.isf.generator.producer.person.NationalIdentificationNumberProperties;
 import org.isf.generator.producer.person.NationalIdentificationNumberProvider;
@@ -42,17 +41,21 @@ import com.google.inject.assistedinject.Assisted;
  */
 public class SwNationalIdentificationNumberProvider implements NationalIdentificationNumberProvider {
 
-	private static final int NATIONAL_IDENTIFICATION_NUMBER_LENGTH = 11;
+	private static final String NATIONAL_IDENTIFICATION_NUMBER_FORMAT = "###########";
 	private static final int VALIDITY_IN_YEARS = 15;
 
 	private final DateProducer dateProducer;
+	private final BaseProducer baseProducer;
+	private final TimeProvider timeProvider;
 	LocalDate dateOfBirth;
 	private Person.Sex sex;
 
 	@Inject
-	public SwNationalIdentificationNumberProvider(DateProducer dateProducer, BaseProducer baseProducer,
+	public SwNationalIdentificationNumberProvider(DateProducer dateProducer, BaseProducer baseProducer, TimeProvider timeProvider,
 			@Assisted NationalIdentificationNumberProperties.Property... properties) {
 		this.dateProducer = dateProducer;
+		this.baseProducer = baseProducer;
+		this.timeProvider = timeProvider;
 		with(properties);
 	}
 
@@ -68,8 +71,8 @@ public class SwNationalIdentificationNumberProvider implements NationalIdentific
 			dateOfBirth = dateProducer.randomDateInThePast(VALIDITY_IN_YEARS).toLocalDate();
 		}
 		// Have to be at least 16 to get the code
-		if ((int) ChronoUnit.YEARS.between(dateOfBirth, LocalDateTime.now()) > 15) {
-			return new NationalIdentificationNumber(RandomStringUtils.randomNumeric(NATIONAL_IDENTIFICATION_NUMBER_LENGTH));
+		if ((int) ChronoUnit.YEARS.between(dateOfBirth, timeProvider.getCurrentDate()) > 15) {
+			return new NationalIdentificationNumber(baseProducer.numerify(NATIONAL_IDENTIFICATION_NUMBER_FORMAT));
 		}
 		return new NationalIdentificationNumber("");
 	}
@@ -0,0 +1,150 @@
+/*
+ * Open Hospital (www.open-hospital.org)
+ * Copyright © 2021 Informatici Senza Frontiere (info@informaticisenzafrontiere.org)
+ *
+ * Open Hospital is a free and open source software for healthcare data management.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * https://www.gnu.org/licenses/gpl-3.0-standalone.html
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.isf.generator.producer.unique;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Set of 64-bit fingerprints of strings, packed into one array of longs with open addressing and linear probing.
+ * <p>A value takes 8 bytes (16 at the maximum load of one half) instead of the string, entry and node objects of a
+ * {@code HashSet<String>}. Two distinct strings share a fingerprint with a probability of about n&sup2; / 2<sup>65</sup>
+ * (10<sup>-6</sup> for ten million values), in which case the second is taken for a duplicate. Adding is lock-free,
+ * so the set can be shared by the generator threads. The capacity is fixed when the set is created.</p>
+ */
+public final class FingerprintSet {
+
+	private static final long EMPTY = 0;
+	private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+	private static final long FNV_PRIME = 0x100000001b3L;
+
+	private final AtomicLongArray table;
+	private final int mask;
+	private final long maxSize;
+	private final LongAdder size = new LongAdder();
+
+	/**
+	 * @param expectedSize the number of values the set has to hold
+	 */
+	public FingerprintSet(long expectedSize) {
+		if (expectedSize < 1 || expectedSize > 1 << 29) {
+			throw new IllegalArgumentException("Invalid expected size " + expectedSize);
+		}
+		int capacity = Integer.highestOneBit((int) expectedSize * 2 - 1) << 1;
+		table = new AtomicLongArray(capacity);
+		mask = capacity - 1;
+		maxSize = capacity / 2;
+	}
+
+	/**
+	 * @param value a string
+	 * @return the 64-bit fingerprint of the characters of the string
+	 */
+	public static long fingerprint(CharSequence value) {
+		long hash = FNV_OFFSET;
+		for (int i = 0; i < value.length(); i++) {
+			hash = (hash ^ value.charAt(i)) * FNV_PRIME;
+		}
+		return mix(hash);
+	}
+
+	/**
+	 * @param chars buffer holding the characters
+	 * @param offset index of the first character
+	 * @param length number of characters
+	 * @return the same fingerprint as {@link #fingerprint(CharSequence)} of the characters
+	 */
+	public static long fingerprint(char[] chars, int offset, int length) {
+		long hash = FNV_OFFSET;
+		for (int i = offset; i < offset + length; i++) {
+			hash = (hash ^ chars[i]) * FNV_PRIME;
+		}
+		return mix(hash);
+	}
+
+	/**
+	 * @param fingerprint the fingerprint of a value
+	 * @return {@code true} if the fingerprint was added, {@code false} if the set already held it
+	 * @throws IllegalStateException if the set is full
+	 */
+	public boolean add(long fingerprint) {
+		long key = fingerprint == EMPTY ? 1 : fingerprint;
+		int index = (int) key & mask;
+		while (true) {
+			long current = table.get(index);
+			if (current == EMPTY) {
+				if (size.sum() >= maxSize) {
+					throw new IllegalStateException("The set of " + maxSize + " fingerprints is full");
+				}
+				if (table.compareAndSet(index, EMPTY, key)) {
+					size.increment();
+					return true;
+				}
+				current = table.get(index);
+			}
+			if (current == key) {
+				return false;
+			}
+			index = (index + 1) & mask;
+		}
+	}
+
+	/**
+	 * @param fingerprint the fingerprint of a value
+	 * @return {@code true} if the set holds the fingerprint
+	 */
+	public boolean contains(long fingerprint) {
+		long key = fingerprint == EMPTY ? 1 : fingerprint;
+		int index = (int) key & mask;
+		while (true) {
+			long current = table.get(index);
+			if (current == EMPTY) {
+				return false;
+			}
+			if (current == key) {
+				return true;
+			}
+			index = (index + 1) & mask;
+		}
+	}
+
+	public long size() {
+		return size.sum();
+	}
+
+	/**
+	 * @return the number of values the set can hold
+	 */
+	public long capacity() {
+		return maxSize;
+	}
+
+	private static long mix(long hash) {
+		// finalizer of MurmurHash3, spreads the bits of the short FNV inputs over the low bits used as index
+		hash ^= hash >>> 33;
+		hash *= 0xff51afd7ed558ccdL;
+		hash ^= hash >>> 33;
+		hash *= 0xc4ceb9fe1a85ec53L;
+		return hash ^ (hash >>> 33);
+	}
+
+}
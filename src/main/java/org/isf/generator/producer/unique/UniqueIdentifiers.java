@@ -0,0 +1,227 @@
+/*
+ * Open Hospital (www.open-hospital.org)
+ * Copyright © 2021 Informatici Senza Frontiere (info@informaticisenzafrontiere.org)
+ *
+ * Open Hospital is a free and open source software for healthcare data management.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * https://www.gnu.org/licenses/gpl-3.0-standalone.html
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.isf.generator.producer.unique;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Opt-in uniqueness of generated identifiers, such as telephone numbers or national identification numbers.
+ * <p>Every guarded identifier type has a {@link FingerprintSet} of the values generated so far. A candidate that is
+ * already in the set is thrown away and a new one is generated, up to a retry budget; when the budget runs out the
+ * identifier space is considered exhausted and the generation fails rather than producing a duplicate key.</p>
+ * <p>An instance is shared by all the generators of a run (and their threads). Collisions are rare as long as the
+ * space is far from full, so the data of a seed hardly changes, but which of two threads keeps a value and which one
+ * retries depends on their timing: with more than one thread a seed no longer determines the data exactly.</p>
+ */
+public final class UniqueIdentifiers {
+
+	/**
+	 * The identifier types that can be made unique.
+	 */
+	public enum Identifier {
+		/** Telephone and mobile telephone numbers, which share one set: a person has two of them. */
+		TELEPHONE_NUMBER(2),
+		NATIONAL_IDENTIFICATION_NUMBER(1),
+		NATIONAL_IDENTITY_CARD_NUMBER(1),
+		PASSPORT_NUMBER(1);
+
+		private final int valuesPerPerson;
+
+		Identifier(int valuesPerPerson) {
+			this.valuesPerPerson = valuesPerPerson;
+		}
+
+		/**
+		 * @return the number of values of the identifier a person has at most
+		 */
+		public int getValuesPerPerson() {
+			return valuesPerPerson;
+		}
+	}
+
+	public static final int DEFAULT_RETRIES = 32;
+
+	private static final UniqueIdentifiers NONE = new UniqueIdentifiers(Collections.emptyMap());
+
+	private final Map<Identifier, Guard> guards;
+
+	private UniqueIdentifiers(Map<Identifier, Guard> guards) {
+		this.guards = guards;
+	}
+
+	/**
+	 * @return no unique identifiers: every candidate is taken as it is
+	 */
+	public static UniqueIdentifiers none() {
+		return NONE;
+	}
+
+	/**
+	 * @param expectedPersons the number of persons that will be generated at most; the set of every identifier
+	 * holds {@link Identifier#getValuesPerPerson()} values per person
+	 * @param retries the number of candidates tried per value before giving up
+	 * @param identifiers the identifier types to make unique
+	 * @return the unique identifiers
+	 */
+	public static UniqueIdentifiers of(long expectedPersons, int retries, Identifier... identifiers) {
+		if (retries < 1) {
+			throw new IllegalArgumentException("At least one attempt is needed");
+		}
+		Map<Identifier, Guard> guards = new EnumMap<>(Identifier.class);
+		for (Identifier identifier : identifiers) {
+			guards.put(identifier, new Guard(identifier, new FingerprintSet(expectedPersons * identifier.getValuesPerPerson()), retries));
+		}
+		return new UniqueIdentifiers(guards);
+	}
+
+	/**
+	 * @param identifier an identifier type
+	 * @return the guard of the identifier, or {@code null} if the identifier is not made unique
+	 */
+	public Guard guard(Identifier identifier) {
+		return guards.get(identifier);
+	}
+
+	/**
+	 * @return the guards of the identifiers that are made unique
+	 */
+	public Iterable<Guard> guards() {
+		return guards.values();
+	}
+
+	/**
+	 * The set of the values of one identifier type with its counters.
+	 */
+	public static final class Guard {
+
+		private final Identifier identifier;
+		private final FingerprintSet values;
+		private final int retries;
+		private final LongAdder collisions = new LongAdder();
+
+		private Guard(Identifier identifier, FingerprintSet values, int retries) {
+			this.identifier = identifier;
+			this.values = values;
+			this.retries = retries;
+		}
+
+		/**
+		 * @param candidates generator of the candidate values, called once per attempt
+		 * @return the first candidate that was not generated before
+		 * @throws IllegalStateException if the retry budget is exhausted
+		 */
+		public String unique(Supplier<String> candidates) {
+			for (int attempt = 0; attempt < retries; attempt++) {
+				String candidate = candidates.get();
+				if (claim(FingerprintSet.fingerprint(candidate))) {
+					return candidate;
+				}
+			}
+			throw exhausted();
+		}
+
+		/**
+		 * Claims a value, for callers that generate the candidates into a buffer and retry themselves.
+		 *
+		 * @param fingerprint the {@link FingerprintSet#fingerprint(char[], int, int)} of a candidate
+		 * @return {@code true} if the candidate is unique, {@code false} if it has to be replaced
+		 */
+		public boolean claim(long fingerprint) {
+			if (values.add(fingerprint)) {
+				return true;
+			}
+			collisions.increment();
+			return false;
+		}
+
+		public int getRetries() {
+			return retries;
+		}
+
+		/**
+		 * @return the exception to throw when {@link #getRetries()} candidates in a row were not unique
+		 */
+		public IllegalStateException exhausted() {
+			return new IllegalStateException(String.format(Locale.ROOT,
+					"No unique %s after %d attempts: %d values generated, about %.0f%% of the identifier space is used", getName(), retries,
+					getValues(), getSaturation() * 100));
+		}
+
+		public Identifier getIdentifier() {
+			return identifier;
+		}
+
+		/**
+		 * @return the name of the identifier in lower case, e.g. "telephone number"
+		 */
+		public String getName() {
+			return identifier.name().toLowerCase(Locale.ROOT).replace('_', ' ');
+		}
+
+		/**
+		 * @return the number of unique values generated
+		 */
+		public long getValues() {
+			return values.size();
+		}
+
+		/**
+		 * @return the number of candidates thrown away as duplicates
+		 */
+		public long getCollisions() {
+			return collisions.sum();
+		}
+
+		/**
+		 * Estimates the used fraction of the identifier space from the collisions. Drawing uniformly until n distinct
+		 * values out of N are found costs about N ln(N / (N - n)) - n collisions, so the collisions per value only
+		 * depend on the fraction f = n / N: -ln(1 - f) / f - 1 (about f / 2 while the space is nearly empty).
+		 *
+		 * @return the estimated fraction of the identifier space used, between 0 and 1
+		 */
+		public double getSaturation() {
+			long generated = getValues();
+			if (generated == 0) {
+				return 0;
+			}
+			double collisionsPerValue = (double) getCollisions() / generated;
+			double low = 0;
+			double high = 1;
+			for (int i = 0; i < 50; i++) {
+				double fraction = (low + high) / 2;
+				if (-Math.log1p(-fraction) / fraction - 1 < collisionsPerValue) {
+					low = fraction;
+				} else {
+					high = fraction;
+				}
+			}
+			return low;
+		}
+
+	}
+
+}
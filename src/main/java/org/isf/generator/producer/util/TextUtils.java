@@ -22,9 +22,13 @@
 package org.isf.generator.producer.util;
 
 import static com.google.common.base.Joiner.on;
+import static org.apache.commons.lang3.StringUtils.lowerCase;
 
 import java.util.List;
 
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.text.StringEscapeUtils;
+
 public final class TextUtils {
 
 	private TextUtils() {
@@ -36,11 +40,49 @@ public final class TextUtils {
 
 	public static String stripAccents(String s) {
 		// Replace polish character ł since bug https://issues.apache.org/jira/browse/LANG-1120
-		return org.apache.commons.lang3.StringUtils.stripAccents(s).replaceAll("ł", "l").replaceAll("Ł", "L");
+		return StringUtils.stripAccents(s).replace('ł', 'l').replace('Ł', 'L');
 	}
 
 	public static String stripSharpS(String s) {
 		return s.replace("\u00DF", "ss");
 	}
 
+	/**
+	 * @param s text of an email address
+	 * @return the text lower-cased, without accents and with the sharp s spelled out
+	 */
+	public static String foldForEmail(String s) {
+		return stripSharpS(stripAccents(lowerCase(s)));
+	}
+
+	/**
+	 * @param s text of a username
+	 * @return the text without accents and lower-cased
+	 */
+	public static String foldForUsername(String s) {
+		return lowerCase(StringUtils.stripAccents(s));
+	}
+
+	/**
+	 * In case of the illegal hostname characters in company name
+	 * and truncate it if it is too long (length &gt; 10) after escape
+	 *
+	 * It is compatible with other non-latin language and will not change the original result for latin language.
+	 *
+	 * P.S. Actually the best way for Chinese here is to use phonetic writing (so as Japanese or Korean)
+	 *
+	 * @param name name of a company
+	 * @return the host name of the company, without the top level domain
+	 */
+	public static String toHostName(String name) {
+		String host = stripAccents(StringUtils.strip(StringUtils.deleteWhitespace(name.toLowerCase()), ".").replace("/", ""));
+		int len1 = host.length();
+		host = StringEscapeUtils.escapeJava(host).replaceAll("\\\\u", "");
+		int len2 = host.length();
+		if (len2 > len1 && len2 > 10) {
+			host = host.substring(0, 10);
+		}
+		return host;
+	}
+
 }
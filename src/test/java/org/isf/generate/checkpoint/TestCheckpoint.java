@@ -0,0 +1,50 @@
+package org.isf.generate.checkpoint;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.isf.generate.sink.ExportPatientSink;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class TestCheckpoint {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private static Map<String, Object> run(long seed) {
+		Map<String, Object> run = new LinkedHashMap<>();
+		run.put("seed", seed);
+		run.put("random", "jdk");
+		run.put("unitSize", 1000);
+		return run;
+	}
+
+	@Test
+	public void checkpointIsReadBack() {
+		Path file = folder.getRoot().toPath().resolve("checkpoint.yml");
+		ExportPatientSink.Position position = new ExportPatientSink.Position(4201, 4200, 2100, 0x8000000000000001L, 42L, new long[] { 123456, 789 });
+		new Checkpoint(run(7), 5, new long[][] { { 3, 1 }, { 4, 2 } }, position, null).write(file);
+
+		Checkpoint checkpoint = Checkpoint.read(file);
+		assertThat(checkpoint.getNextPartition()).isEqualTo(5);
+		assertThat(checkpoint.getCohortCounts()).isDeepEqualTo(new long[][] { { 3, 1 }, { 4, 2 } });
+		assertThat(checkpoint.getDatabase()).isNull();
+		ExportPatientSink.Position export = checkpoint.getExport();
+		assertThat(export.getNextPatientId()).isEqualTo(4201);
+		assertThat(export.getPatientCount()).isEqualTo(4200);
+		assertThat(export.getAdmissionCount()).isEqualTo(2100);
+		assertThat(export.getPatientDigest()).isEqualTo(0x8000000000000001L);
+		assertThat(export.getAdmissionDigest()).isEqualTo(42L);
+		assertThat(export.getFileLengths()).containsExactly(123456, 789);
+
+		checkpoint.checkRun(run(7));
+		assertThatThrownBy(() -> checkpoint.checkRun(run(8))).isInstanceOf(IllegalStateException.class).hasMessageContaining("seed=7");
+	}
+
+}
@@ -0,0 +1,53 @@
+package org.isf.generate.metrics;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.Test;
+
+public class TestGenerationMetrics {
+
+	@Test
+	public void percentilesAreWithinAFactorOfTwo() {
+		LatencyHistogram histogram = new LatencyHistogram();
+		for (int i = 1; i <= 1000; i++) {
+			histogram.record(i * 1000L);
+		}
+		assertThat(histogram.getCount()).isEqualTo(1000);
+		assertThat(histogram.getMeanNanos()).isEqualTo(500_500);
+		assertThat(histogram.getPercentileNanos(0.5)).isBetween(500_000L, 1_000_000L);
+		assertThat(histogram.getPercentileNanos(0.99)).isBetween(990_000L, 1_000_000L);
+		assertThat(histogram.getMaxNanos()).isEqualTo(1_000_000);
+	}
+
+	@Test
+	public void batchesAreRecordedAsRowsOfTheAverageLatency() {
+		LatencyHistogram histogram = new LatencyHistogram();
+		histogram.record(10_000_000, 1000);
+		assertThat(histogram.getCount()).isEqualTo(1000);
+		assertThat(histogram.getMeanNanos()).isEqualTo(10_000);
+		assertThat(histogram.getMaxNanos()).isEqualTo(10_000);
+	}
+
+	@Test
+	public void progressLineShowsCountsAndLatencies() {
+		GenerationMetrics metrics = new GenerationMetrics();
+		metrics.setTargetPatients(4);
+		metrics.record(GenerationMetrics.Stage.GENERATE_PERSON, 2_500);
+		metrics.record(GenerationMetrics.Stage.SAVE_PATIENT, 3_000_000, 2);
+		metrics.admitted(true);
+		assertThat(metrics.getPatientsSaved()).isEqualTo(2);
+		assertThat(metrics.getEtaSeconds()).isGreaterThanOrEqualTo(0);
+		assertThat(ProgressReporter.progressLine(metrics, 2, 0)).startsWith("Progress: patients 2/4 (50%) 2/s, admissions 0 0/s, admitted 1, discharged 1, ETA ")
+				.endsWith("| p50/p99 person 2.5us/2.5us, patient 1.5ms/1.5ms");
+	}
+
+	@Test
+	public void formatDurations() {
+		assertThat(ProgressReporter.formatNanos(850)).isEqualTo("850ns");
+		assertThat(ProgressReporter.formatNanos(40_000)).isEqualTo("40us");
+		assertThat(ProgressReporter.formatNanos(1_250_000)).isEqualTo("1.2ms");
+		assertThat(ProgressReporter.formatSeconds(78)).isEqualTo("1m18s");
+		assertThat(ProgressReporter.formatSeconds(3720)).isEqualTo("1h02m");
+	}
+
+}
@@ -0,0 +1,88 @@
+package org.isf.generate.population;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+import org.isf.generator.producer.person.Person;
+import org.junit.Test;
+
+public class TestPopulationPlanner {
+
+	private static PopulationSpec population(long total, double... shares) {
+		Cohort[] cohorts = new Cohort[shares.length];
+		for (int c = 0; c < shares.length; c++) {
+			cohorts[c] = new Cohort("cohort " + c, null, 0, 99, shares[c], 50, 25);
+		}
+		return new PopulationSpec(total, Locale.ENGLISH, Arrays.asList(cohorts));
+	}
+
+	@Test
+	public void cohortSizesAddUpToTheTotal() {
+		assertThat(PopulationPlanner.cohortSizes(population(10, 1, 1, 1))).containsExactly(4, 3, 3);
+		assertThat(PopulationPlanner.cohortSizes(population(20, 1, 1, 3, 4, 2, 3, 1, 1, 1, 1, 1, 1))).containsExactly(1, 1, 3, 4, 2, 3, 1, 1, 1, 1, 1, 1);
+		long[] sizes = PopulationPlanner.cohortSizes(population(2_000_003, 8.4, 8.2, 0.7, 33.3));
+		assertThat(Arrays.stream(sizes).sum()).isEqualTo(2_000_003);
+	}
+
+	@Test
+	public void partitionsAreEvenlySizedAndNumberedInOrder() {
+		List<Partition> partitions = PopulationPlanner.plan(population(2501, 1, 1), 500);
+		assertThat(partitions).hasSize(6);
+		for (int p = 0; p < partitions.size(); p++) {
+			assertThat(partitions.get(p).getNumber()).isEqualTo(p);
+		}
+		assertThat(partitions).extracting(Partition::getSize).containsExactly(417, 417, 417, 417, 417, 416);
+		assertThat(partitions).extracting(Partition::getCohortIndex).containsExactly(0, 0, 0, 1, 1, 1);
+		assertThat(partitions).extracting(Partition::getFirstPatient).containsExactly(0L, 417L, 834L, 0L, 417L, 834L);
+		assertThat(PopulationPlanner.plan(population(2501, 1, 1), 500)).extracting(Partition::getSize)
+				.containsExactlyElementsOf(partitions.stream().map(Partition::getSize)::iterator);
+	}
+
+	@Test
+	public void shardsAreContiguousAndCoverThePlan() {
+		List<Partition> plan = PopulationPlanner.plan(population(5000, 1, 2, 3), 300);
+		int next = 0;
+		for (int shard = 0; shard < 3; shard++) {
+			List<Partition> partitions = PopulationPlanner.shard(plan, shard, 3);
+			assertThat(partitions.size()).isBetween(plan.size() / 3, plan.size() / 3 + 1);
+			assertThat(partitions.get(0).getNumber()).isEqualTo(next);
+			next += partitions.size();
+		}
+		assertThat(next).isEqualTo(plan.size());
+		assertThat(plan.get(plan.size() - 1).getOffset() + plan.get(plan.size() - 1).getSize()).isEqualTo(5000);
+		assertThat(PopulationPlanner.shard(plan.subList(0, 1), 0, 2)).isEmpty();
+	}
+
+	@Test
+	public void specIsReadFromYaml() {
+		String yaml = "total: 100\nlocale: sw\ndischargePercentage: 10\ncohorts:\n"
+				+ "  - { sex: male, minAge: 0, maxAge: 4, share: 1 }\n"
+				+ "  - { name: elderly, minAge: 65, maxAge: 99, share: 3, admissionPercentage: 80 }\n";
+		PopulationSpec spec = PopulationSpec.parse(new ByteArrayInputStream(yaml.getBytes(StandardCharsets.UTF_8)), "test");
+		assertThat(spec.getTotal()).isEqualTo(100);
+		assertThat(spec.getLocale()).isEqualTo(Locale.forLanguageTag("sw"));
+		Cohort boys = spec.getCohorts().get(0);
+		assertThat(boys.getName()).isEqualTo("male 0-4");
+		assertThat(boys.getSex()).isEqualTo(Person.Sex.MALE);
+		assertThat(boys.getAdmissionPercentage()).isEqualTo(50);
+		assertThat(boys.getDischargePercentage()).isEqualTo(10);
+		Cohort elderly = spec.getCohorts().get(1);
+		assertThat(elderly.getSex()).isNull();
+		assertThat(elderly.getAdmissionPercentage()).isEqualTo(80);
+		assertThat(PopulationPlanner.cohortSizes(spec)).containsExactly(25, 75);
+	}
+
+	@Test
+	public void bundledPopulationHasTwentyPatients() {
+		PopulationSpec spec = PopulationSpec.loadDefault();
+		assertThat(spec.getTotal()).isEqualTo(20);
+		assertThat(spec.getCohorts()).hasSize(12);
+		assertThat(PopulationPlanner.plan(spec, 1000)).hasSize(12);
+	}
+
+}
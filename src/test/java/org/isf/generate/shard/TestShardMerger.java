@@ -0,0 +1,76 @@
+package org.isf.generate.shard;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class TestShardMerger {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private Path shard(int index, int shards, int firstPartition, int partitions, long firstId, String rows, long digest) throws IOException {
+		Path directory = folder.newFolder("shard" + index).toPath();
+		byte[] bytes = rows.getBytes(StandardCharsets.UTF_8);
+		Files.write(directory.resolve("PATIENT.csv"), bytes);
+		CRC32 crc = new CRC32();
+		crc.update(bytes);
+		ShardManifest.builder()
+				.withFormat("csv", false)
+				.withRun(7, "jdk", 1000, "abc", 5, LocalDate.of(2021, 6, 30))
+				.withShard(index, shards, firstPartition, partitions, 3)
+				.withRows(firstId, rows.split("\n").length, digest, 0, 0)
+				.withFile("PATIENT.csv", bytes.length, crc.getValue())
+				.build()
+				.write(directory);
+		return directory;
+	}
+
+	@Test
+	public void shardsAreConcatenatedInShardOrder() throws IOException {
+		Path first = shard(0, 2, 0, 1, 1, "1\n2\n", 10);
+		Path second = shard(1, 2, 1, 2, 3, "3\n4\n5\n", -3);
+		Path output = folder.getRoot().toPath().resolve("merged");
+
+		ShardManifest merged = ShardMerger.merge(Arrays.asList(second, first), output);
+
+		assertThat(new String(Files.readAllBytes(output.resolve("PATIENT.csv")), StandardCharsets.UTF_8)).isEqualTo("1\n2\n3\n4\n5\n");
+		assertThat(merged.getPatients()).isEqualTo(5);
+		assertThat(merged.getPatientDigest()).isEqualTo(7);
+		assertThat(merged.getFiles().get(0).getLength()).isEqualTo(10);
+		ShardManifest written = ShardManifest.read(output);
+		assertThat(written.getShardCount()).isEqualTo(1);
+		assertThat(written.getToday()).isEqualTo(LocalDate.of(2021, 6, 30));
+		assertThat(written.getFiles().get(0).getChecksum()).isEqualTo(merged.getFiles().get(0).getChecksum());
+	}
+
+	@Test
+	public void missingShardsAreReported() throws IOException {
+		Path first = shard(0, 2, 0, 1, 1, "1\n2\n", 10);
+		assertThatThrownBy(() -> ShardMerger.merge(Arrays.asList(first), folder.getRoot().toPath().resolve("merged")))
+				.isInstanceOf(IllegalStateException.class).hasMessageContaining("Expected 2 shards");
+	}
+
+	@Test
+	public void changedFilesAreReported() throws IOException {
+		Path first = shard(0, 2, 0, 1, 1, "1\n2\n", 10);
+		Path second = shard(1, 2, 1, 2, 3, "3\n4\n5\n", -3);
+		Files.write(second.resolve("PATIENT.csv"), "3\n4\n6\n".getBytes(StandardCharsets.UTF_8));
+		Path output = folder.getRoot().toPath().resolve("merged");
+		assertThatThrownBy(() -> ShardMerger.merge(Arrays.asList(first, second), output))
+				.isInstanceOf(IllegalStateException.class).hasMessageContaining("does not match its manifest");
+		assertThat(output).doesNotExist();
+	}
+
+}
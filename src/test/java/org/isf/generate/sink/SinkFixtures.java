@@ -0,0 +1,58 @@
+package org.isf.generate.sink;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.zip.GZIPInputStream;
+
+import org.isf.admission.model.Admission;
+import org.isf.admtype.model.AdmissionType;
+import org.isf.disease.model.Disease;
+import org.isf.ward.model.Ward;
+
+/**
+ * Fixtures shared by the sink tests.
+ */
+final class SinkFixtures {
+
+	private SinkFixtures() {
+	}
+
+	/**
+	 * Reads a whole export file as UTF-8, decompressing it first when {@code gzip} is set.
+	 */
+	static String read(Path path, boolean gzip) throws IOException {
+		try (InputStream is = gzip ? new GZIPInputStream(Files.newInputStream(path)) : Files.newInputStream(path)) {
+			ByteArrayOutputStream content = new ByteArrayOutputStream();
+			byte[] buffer = new byte[4096];
+			int read;
+			while ((read = is.read(buffer)) > 0) {
+				content.write(buffer, 0, read);
+			}
+			return new String(content.toByteArray(), StandardCharsets.UTF_8);
+		}
+	}
+
+	/**
+	 * Returns an admission to ward M, of type A, for disease 99, on 2021-06-30 at 08:00.
+	 */
+	static Admission admission() {
+		Ward ward = new Ward();
+		ward.setCode("M");
+		AdmissionType admissionType = new AdmissionType();
+		admissionType.setCode("A");
+		Disease disease = new Disease();
+		disease.setCode("99");
+		Admission admission = new Admission();
+		admission.setWard(ward);
+		admission.setAdmType(admissionType);
+		admission.setDiseaseIn(disease);
+		admission.setAdmDate(LocalDateTime.of(2021, 6, 30, 8, 0));
+		return admission;
+	}
+
+}
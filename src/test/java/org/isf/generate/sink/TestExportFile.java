@@ -0,0 +1,50 @@
+package org.isf.generate.sink;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.isf.generate.sink.SinkFixtures.read;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class TestExportFile {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private void resumeDropsWhatFollowsTheCheckpoint(boolean gzip) throws IOException {
+		Path path = folder.getRoot().toPath().resolve(gzip ? "rows.csv.gz" : "rows.csv");
+		long checkpoint;
+		long checksum;
+		try (ExportFile file = ExportFile.create(path, gzip, 64)) {
+			file.write("1,first\n");
+			checkpoint = file.checkpoint();
+			checksum = file.getChecksum();
+			file.write("2,lost\n");
+			file.flush();
+		}
+		Files.write(path, new byte[] { 1, 2, 3 }, StandardOpenOption.APPEND);
+
+		try (ExportFile file = ExportFile.resume(path, gzip, 64, checkpoint)) {
+			assertThat(file.getChecksum()).isEqualTo(checksum);
+			file.write("2,second\n");
+		}
+		assertThat(read(path, gzip)).isEqualTo("1,first\n2,second\n");
+	}
+
+	@Test
+	public void resumePlainFile() throws IOException {
+		resumeDropsWhatFollowsTheCheckpoint(false);
+	}
+
+	@Test
+	public void resumeGzipFile() throws IOException {
+		resumeDropsWhatFollowsTheCheckpoint(true);
+	}
+
+}
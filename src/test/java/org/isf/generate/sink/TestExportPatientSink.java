@@ -0,0 +1,103 @@
+package org.isf.generate.sink;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.isf.generate.sink.SinkFixtures.read;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDate;
+
+import org.isf.admission.model.Admission;
+import org.isf.generate.metrics.GenerationMetrics;
+import org.isf.patient.model.Patient;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class TestExportPatientSink {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private Path export(ExportPatientSink.Format format, boolean gzip) throws IOException {
+		Path directory = folder.newFolder().toPath();
+		try (ExportPatientSink sink = new ExportPatientSink(directory, format, gzip, 2, 1, new GenerationMetrics())) {
+			sink.add(patient("O'Brien", "Say \"hi\"\\ok", "Line 1\nLine 2"), admission());
+			sink.add(patient("Amani", "Okello", null), null);
+			sink.add(patient("Neema", "Mushi", "Arusha"), admission());
+			assertThat(sink.getPatientCount()).isEqualTo(3);
+			assertThat(sink.getAdmissionCount()).isEqualTo(2);
+		}
+		return directory;
+	}
+
+	private void csvRowsAreEscaped(boolean gzip) throws IOException {
+		Path directory = export(ExportPatientSink.Format.CSV, gzip);
+		String suffix = gzip ? ".csv.gz" : ".csv";
+		String[] patients = read(directory.resolve("PATIENT" + suffix), gzip).split("\n");
+		String[] admissions = read(directory.resolve("ADMISSION" + suffix), gzip).split("\n");
+		assertThat(patients).hasSize(3);
+		assertThat(admissions).hasSize(2);
+		assertThat(patients[0]).startsWith("1,\"O'Brien\",\"Say \\\"hi\\\"\\\\ok\",\"O'Brien Say \\\"hi\\\"\\\\ok\",\\N,30,")
+				.contains(",\"Line 1\\nLine 2\",");
+		assertThat(patients[1]).startsWith("2,\"Amani\",\"Okello\",").contains(",\\N,");
+		assertThat(patients[2]).startsWith("3,\"Neema\",\"Mushi\",\"Neema Mushi\",\"1990-05-17\",");
+		assertThat(admissions[0]).isEqualTo("1,1,\"I\",\"M\",0,1,\"2021-06-30 08:00:00\",\"A\",\"99\",\\N,\\N,\\N,\"N\",\\N");
+		assertThat(admissions[1]).startsWith("3,1,\"I\",\"M\",0,3,");
+		assertThat(directory.resolve("load.sql")).exists();
+	}
+
+	private void sqlRowsAreEscaped(boolean gzip) throws IOException {
+		Path directory = export(ExportPatientSink.Format.SQL, gzip);
+		String sql = read(directory.resolve(gzip ? "patients.sql.gz" : "patients.sql"), gzip);
+		assertThat(sql.split("INSERT INTO PATIENT ", -1)).hasSize(3);
+		assertThat(sql.split("INSERT INTO ADMISSION ", -1)).hasSize(3);
+		assertThat(sql).contains("(1,'O\\'Brien','Say \"hi\"\\\\ok','O\\'Brien Say \"hi\"\\\\ok',NULL,30,")
+				.contains(",'Line 1\\nLine 2',")
+				.contains("(1,1,'I','M',0,1,'2021-06-30 08:00:00','A','99',NULL,NULL,NULL,'N',NULL)")
+				.contains("(3,'Neema','Mushi','Neema Mushi','1990-05-17',")
+				.endsWith(";\n");
+	}
+
+	@Test
+	public void plainCsv() throws IOException {
+		csvRowsAreEscaped(false);
+	}
+
+	@Test
+	public void gzipCsv() throws IOException {
+		csvRowsAreEscaped(true);
+	}
+
+	@Test
+	public void plainSql() throws IOException {
+		sqlRowsAreEscaped(false);
+	}
+
+	@Test
+	public void gzipSql() throws IOException {
+		sqlRowsAreEscaped(true);
+	}
+
+	private static Patient patient(String firstName, String secondName, String address) {
+		Patient patient = new Patient();
+		patient.setFirstName(firstName);
+		patient.setSecondName(secondName);
+		patient.setAddress(address);
+		patient.setAge(30);
+		if (address != null && !address.contains("\n")) {
+			patient.setBirthDate(LocalDate.of(1990, 5, 17));
+		}
+		patient.setSex('F');
+		return patient;
+	}
+
+	private static Admission admission() {
+		Admission admission = SinkFixtures.admission();
+		admission.setAdmitted(1);
+		admission.setType("I");
+		admission.setDeleted("N");
+		return admission;
+	}
+
+}
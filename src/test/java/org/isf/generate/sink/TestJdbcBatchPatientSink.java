@@ -0,0 +1,253 @@
+package org.isf.generate.sink;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.isf.generate.sink.SinkFixtures.admission;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import org.isf.admission.model.Admission;
+import org.isf.generate.metrics.GenerationMetrics;
+import org.isf.patient.model.Patient;
+import org.junit.Test;
+
+public class TestJdbcBatchPatientSink {
+
+	/**
+	 * Position of ADM_PAT_ID among the admission columns.
+	 */
+	private static final int ADMISSION_PATIENT = 4;
+
+	@Test
+	public void batchModeCommitsEveryChunkAndHandsOutTheKeys() {
+		FakeDatabase database = new FakeDatabase();
+		List<Patient> patients = new ArrayList<>();
+		List<Admission> admissions = new ArrayList<>();
+		JdbcBatchPatientSink sink = new JdbcBatchPatientSink(database.dataSource(), JdbcBatchPatientSink.Mode.BATCH, 3, new GenerationMetrics());
+		for (int i = 0; i < 7; i++) {
+			Patient patient = patient(i);
+			Admission admission = i % 2 == 0 ? admission() : null;
+			patients.add(patient);
+			if (admission != null) {
+				admissions.add(admission);
+			}
+			sink.add(patient, admission);
+		}
+		assertThat(database.events).containsExactly("PATIENT 3", "ADMISSION 2", "commit", "PATIENT 3", "ADMISSION 1", "commit");
+		sink.close();
+		assertThat(sink.getPatientCount()).isEqualTo(7);
+		assertThat(sink.getAdmissionCount()).isEqualTo(4);
+		assertThat(database.events).containsExactly("PATIENT 3", "ADMISSION 2", "commit", "PATIENT 3", "ADMISSION 1", "commit", "PATIENT 1",
+				"ADMISSION 1", "commit");
+		assertThat(patients).extracting(Patient::getCode).containsExactly(1, 2, 3, 4, 5, 6, 7);
+		assertThat(admissions).extracting(Admission::getId).containsExactly(1001, 1002, 1003, 1004);
+		for (int i = 0; i < admissions.size(); i++) {
+			assertThat(admissions.get(i).getPatient()).isSameAs(patients.get(2 * i));
+			assertThat(database.admissionRows.get(i).get(ADMISSION_PATIENT)).isEqualTo(patients.get(2 * i).getCode());
+		}
+		assertThat(database.openStatements).isZero();
+		assertThat(database.connectionClosed).isTrue();
+	}
+
+	@Test
+	public void multiRowWritesThePartialLastChunkWithItsOwnStatement() {
+		FakeDatabase database = new FakeDatabase();
+		try (JdbcBatchPatientSink sink = new JdbcBatchPatientSink(database.dataSource(), JdbcBatchPatientSink.Mode.MULTI_ROW, 3, new GenerationMetrics())) {
+			for (int i = 0; i < 7; i++) {
+				sink.add(patient(i), null);
+			}
+		}
+		assertThat(database.events).containsExactly("PATIENT 3", "commit", "PATIENT 3", "commit", "PATIENT 1", "commit");
+		assertThat(database.patientRows).hasSize(7);
+		assertThat(database.patientRows.get(6)).hasSize(PatientTables.PATIENT_COLUMNS.length).startsWith("first6", "second6");
+		assertThat(database.openStatements).isZero();
+	}
+
+	@Test
+	public void failedChunkIsRolledBack() {
+		FakeDatabase database = new FakeDatabase();
+		database.failingExecution = 2;
+		JdbcBatchPatientSink sink = new JdbcBatchPatientSink(database.dataSource(), JdbcBatchPatientSink.Mode.BATCH, 2, new GenerationMetrics());
+		assertThatThrownBy(() -> {
+			for (int i = 0; i < 4; i++) {
+				sink.add(patient(i), admission());
+			}
+		}).isInstanceOf(IllegalStateException.class).hasRootCauseMessage("insert failed");
+		assertThat(database.events).containsExactly("PATIENT 2", "rollback");
+		sink.close();
+		assertThat(sink.getPatientCount()).isZero();
+		assertThat(database.connectionClosed).isTrue();
+	}
+
+	@Test
+	public void connectionIsClosedWhenTheStatementsCannotBePrepared() {
+		FakeDatabase database = new FakeDatabase();
+		database.failingPreparation = true;
+		assertThatThrownBy(() -> new JdbcBatchPatientSink(database.dataSource(), JdbcBatchPatientSink.Mode.BATCH, 2, new GenerationMetrics()))
+				.isInstanceOf(IllegalStateException.class);
+		assertThat(database.connectionClosed).isTrue();
+	}
+
+	@Test
+	public void multiRowChunksMustFitInOneStatement() {
+		FakeDatabase database = new FakeDatabase();
+		assertThatThrownBy(() -> new JdbcBatchPatientSink(database.dataSource(), JdbcBatchPatientSink.Mode.MULTI_ROW,
+				JdbcBatchPatientSink.MAX_MULTI_ROW_BATCH_SIZE + 1, new GenerationMetrics())).isInstanceOf(IllegalArgumentException.class);
+		assertThat(database.events).isEmpty();
+	}
+
+	private static Patient patient(int i) {
+		Patient patient = new Patient();
+		patient.setFirstName("first" + i);
+		patient.setSecondName("second" + i);
+		patient.setSex('F');
+		return patient;
+	}
+
+	/**
+	 * Records what the sink sends to the database: the rows of every executed insert, with the commits and
+	 * rollbacks in between. Patients get the keys from 1 and admissions from 1001.
+	 */
+	private static class FakeDatabase {
+
+		private final List<String> events = new ArrayList<>();
+		private final List<List<Object>> patientRows = new ArrayList<>();
+		private final List<List<Object>> admissionRows = new ArrayList<>();
+		private int nextPatientKey = 1;
+		private int nextAdmissionKey = 1001;
+		private int executions;
+		private int failingExecution = -1;
+		private boolean failingPreparation;
+		private int openStatements;
+		private boolean connectionClosed;
+
+		DataSource dataSource() {
+			return proxy(DataSource.class, (proxy, method, args) -> {
+				if (method.getName().equals("getConnection")) {
+					return connection();
+				}
+				throw new UnsupportedOperationException(method.getName());
+			});
+		}
+
+		private Connection connection() {
+			return proxy(Connection.class, (proxy, method, args) -> {
+				switch (method.getName()) {
+					case "setAutoCommit":
+						return null;
+					case "prepareStatement":
+						if (failingPreparation) {
+							throw new SQLException("prepare failed");
+						}
+						openStatements++;
+						return statement((String) args[0]);
+					case "commit":
+					case "rollback":
+						events.add(method.getName());
+						return null;
+					case "close":
+						connectionClosed = true;
+						return null;
+					default:
+						throw new UnsupportedOperationException(method.getName());
+				}
+			});
+		}
+
+		private PreparedStatement statement(String sql) {
+			boolean patients = sql.startsWith("INSERT INTO " + PatientTables.PATIENT_TABLE + " ");
+			int columns = patients ? PatientTables.PATIENT_COLUMNS.length : PatientTables.ADMISSION_COLUMNS.length;
+			Map<Integer, Object> parameters = new HashMap<>();
+			List<List<Object>> batch = new ArrayList<>();
+			List<Integer> keys = new ArrayList<>();
+			return proxy(PreparedStatement.class, (proxy, method, args) -> {
+				String name = method.getName();
+				if (name.startsWith("set")) {
+					parameters.put((Integer) args[0], name.equals("setNull") ? null : args[1]);
+					return null;
+				}
+				switch (name) {
+					case "addBatch":
+						batch.add(row(parameters, 1, columns));
+						parameters.clear();
+						return null;
+					case "executeUpdate":
+						for (int first = 1; first < parameters.size(); first += columns) {
+							batch.add(row(parameters, first, columns));
+						}
+						parameters.clear();
+						execute(patients, batch, keys);
+						return batch.size();
+					case "executeBatch":
+						execute(patients, batch, keys);
+						return new int[batch.size()];
+					case "getGeneratedKeys":
+						return keys(new ArrayList<>(keys));
+					case "close":
+						openStatements--;
+						return null;
+					default:
+						throw new UnsupportedOperationException(name);
+				}
+			});
+		}
+
+		private void execute(boolean patients, List<List<Object>> batch, List<Integer> keys) throws SQLException {
+			if (++executions == failingExecution) {
+				batch.clear();
+				throw new SQLException("insert failed");
+			}
+			events.add((patients ? "PATIENT " : "ADMISSION ") + batch.size());
+			keys.clear();
+			for (List<Object> row : batch) {
+				(patients ? patientRows : admissionRows).add(row);
+				keys.add(patients ? nextPatientKey++ : nextAdmissionKey++);
+			}
+			batch.clear();
+		}
+
+		private static List<Object> row(Map<Integer, Object> parameters, int first, int columns) {
+			List<Object> row = new ArrayList<>();
+			for (int i = first; i < first + columns; i++) {
+				row.add(parameters.get(i));
+			}
+			return row;
+		}
+
+		private static ResultSet keys(List<Integer> keys) {
+			Iterator<Integer> iterator = keys.iterator();
+			Integer[] current = new Integer[1];
+			return proxy(ResultSet.class, (proxy, method, args) -> {
+				switch (method.getName()) {
+					case "next":
+						current[0] = iterator.hasNext() ? iterator.next() : null;
+						return current[0] != null;
+					case "getInt":
+						return current[0];
+					case "close":
+						return null;
+					default:
+						throw new UnsupportedOperationException(method.getName());
+				}
+			});
+		}
+
+		private static <T> T proxy(Class<T> type, InvocationHandler handler) {
+			return type.cast(Proxy.newProxyInstance(TestJdbcBatchPatientSink.class.getClassLoader(), new Class<?>[] { type }, handler));
+		}
+
+	}
+
+}
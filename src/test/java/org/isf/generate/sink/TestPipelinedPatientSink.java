@@ -0,0 +1,103 @@
+package org.isf.generate.sink;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.isf.admission.model.Admission;
+import org.isf.patient.model.Patient;
+import org.junit.Test;
+
+public class TestPipelinedPatientSink {
+
+	@Test
+	public void singleWriterKeepsTheOrder() {
+		RecordingSink recordingSink = new RecordingSink(-1);
+		try (PipelinedPatientSink sink = new PipelinedPatientSink(() -> recordingSink, 1, 8, 3)) {
+			for (int i = 0; i < 100; i++) {
+				sink.add(patient(i), null);
+			}
+		}
+		assertThat(recordingSink.codes).hasSize(100).isSorted();
+		assertThat(recordingSink.closed).isTrue();
+	}
+
+	@Test
+	public void flushWaitsForEveryWriter() {
+		List<RecordingSink> recordingSinks = Collections.synchronizedList(new ArrayList<>());
+		try (PipelinedPatientSink sink = new PipelinedPatientSink(() -> addTo(recordingSinks, new RecordingSink(-1)), 3, 4, 2)) {
+			for (int i = 0; i < 1000; i++) {
+				sink.add(patient(i), i % 2 == 0 ? new Admission() : null);
+			}
+			sink.flush();
+			List<Integer> codes = new ArrayList<>();
+			for (RecordingSink recordingSink : recordingSinks) {
+				assertThat(recordingSink.flushes.get()).isEqualTo(1);
+				codes.addAll(recordingSink.codes);
+			}
+			assertThat(codes).hasSize(1000).doesNotHaveDuplicates();
+		}
+		assertThat(recordingSinks).hasSize(3).allMatch(recordingSink -> recordingSink.closed);
+	}
+
+	@Test
+	public void writerFailureIsRethrown() {
+		RecordingSink recordingSink = new RecordingSink(10);
+		PipelinedPatientSink sink = new PipelinedPatientSink(() -> recordingSink, 1, 4, 2);
+		assertThatThrownBy(() -> {
+			for (int i = 0; i < 1000; i++) {
+				sink.add(patient(i), null);
+			}
+			sink.close();
+		}).isInstanceOf(IllegalStateException.class).hasRootCauseMessage("write failed");
+		assertThatThrownBy(sink::close).isInstanceOf(IllegalStateException.class);
+		assertThat(recordingSink.closed).isTrue();
+	}
+
+	private static Patient patient(int code) {
+		Patient patient = new Patient();
+		patient.setCode(code);
+		return patient;
+	}
+
+	private static RecordingSink addTo(List<RecordingSink> recordingSinks, RecordingSink recordingSink) {
+		recordingSinks.add(recordingSink);
+		return recordingSink;
+	}
+
+	private static class RecordingSink implements PatientSink {
+
+		private final List<Integer> codes = Collections.synchronizedList(new ArrayList<>());
+		private final AtomicInteger flushes = new AtomicInteger();
+		private final int failAt;
+		private volatile boolean closed;
+
+		RecordingSink(int failAt) {
+			this.failAt = failAt;
+		}
+
+		@Override
+		public void add(Patient patient, Admission admission) {
+			if (codes.size() == failAt) {
+				throw new IllegalArgumentException("write failed");
+			}
+			codes.add(patient.getCode());
+		}
+
+		@Override
+		public void flush() {
+			flushes.incrementAndGet();
+		}
+
+		@Override
+		public void close() {
+			closed = true;
+		}
+
+	}
+
+}
@@ -2,12 +2,23 @@ package org.isf.generator;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Locale;
 
+import org.isf.generator.data.CompiledDataMaster;
 import org.isf.generator.data.DataMaster;
+import org.isf.generator.data.MapBasedDataMaster;
+import org.isf.generator.producer.BaseProducer;
+import org.isf.generator.producer.RandomGenerator;
+import org.isf.generator.producer.TimeProvider;
 import org.isf.generator.producer.person.Person;
+import org.isf.generator.producer.person.PersonField;
+import org.isf.generator.producer.person.PersonProperties;
 import org.isf.generator.producer.util.LanguageCode;
 import org.junit.Test;
 
@@ -16,6 +27,7 @@ import com.google.inject.Provider;
 public class TestGenerator {
 
 	private static final String CUSTOM_STRING = "Custom Data Master";
+	private static final LocalDateTime REFERENCE_TIME = LocalDateTime.of(2021, 6, 30, 0, 0);
 
 	@Test
 	public void secondPersonDifferentWithoutGeneratorInstance() {
@@ -54,6 +66,79 @@ public class TestGenerator {
 		assertThat(person1.getFullName()).isNotEqualTo(person2.getFullName());
 	}
 
+	@Test
+	public void samePersonsWithSameRandomSeedAndXoroshiro() {
+		Generator generator1 = Generator.builder().withRandomAlgorithm(RandomGenerator.Algorithm.XOROSHIRO).withRandomSeed(10).build();
+		Generator generator2 = Generator.builder().withRandomSeed(10).withRandomAlgorithm(RandomGenerator.Algorithm.XOROSHIRO).build();
+		for (int i = 0; i < 20; i++) {
+			Person person1 = generator1.person();
+			Person person2 = generator2.person();
+			assertThat(person1.getFullName()).isEqualTo(person2.getFullName());
+			assertThat(person1.getDateOfBirth()).isEqualTo(person2.getDateOfBirth());
+			assertThat(person1.getTelephoneNumber()).isEqualTo(person2.getTelephoneNumber());
+		}
+	}
+
+	@Test
+	public void generateOnlyRequestedFieldsAndTheirDependencies() {
+		Generator generator = Generator.builder().withRandomSeed(10).build();
+		Person person = generator.person(PersonProperties.fields(PersonField.FIRST_NAME, PersonField.NATIONAL_IDENTIFICATION_NUMBER));
+		assertThat(person.getFirstName()).isNotNull();
+		assertThat(person.getSex()).isNotNull();
+		assertThat(person.getDateOfBirth()).isNotNull();
+		assertThat(person.getNationalIdentificationNumber()).isNotNull();
+		assertThat(person.getLastName()).isNull();
+		assertThat(person.getEmail()).isNull();
+		assertThat(person.getCompany()).isNull();
+	}
+
+	@Test
+	public void randomElementsLeaveTheListUntouched() {
+		BaseProducer baseProducer = Generator.builder().withRandomSeed(10).build().baseProducer();
+		List<String> elements = Arrays.asList("a", "b", "c", "d", "e", "f", "g");
+		List<String> copy = new ArrayList<>(elements);
+		assertThat(baseProducer.randomElements(elements, 4)).hasSize(4).doesNotHaveDuplicates().isSubsetOf(copy);
+		assertThat(baseProducer.randomElements(elements, 7)).containsExactlyInAnyOrderElementsOf(copy);
+		assertThat(baseProducer.randomElements(elements, 16)).hasSize(16).containsAll(copy);
+		assertThat(elements).isEqualTo(copy);
+	}
+
+	@Test
+	public void directFactoriesGiveTheSameData() {
+		Generator assisted = Generator.builder().withRandomSeed(12).withFactoryWiring(GeneratorModule.FactoryWiring.ASSISTED_INJECT).build();
+		Generator direct = Generator.builder().withRandomSeed(12).withFactoryWiring(GeneratorModule.FactoryWiring.DIRECT).build();
+		for (int i = 0; i < 20; i++) {
+			// password and passport number come from an unseeded random
+			assertThat(direct.person()).usingRecursiveComparison().ignoringFields("password", "passportNumber").isEqualTo(assisted.person());
+			assertThat(direct.company()).usingRecursiveComparison().isEqualTo(assisted.company());
+			// iban4j draws the account number from a random of its own
+			assertThat(direct.iban()).usingRecursiveComparison().ignoringFields("bban", "checkDigit", "ibanNumber").isEqualTo(assisted.iban());
+		}
+	}
+
+	@Test
+	public void compiledDataMasterGivesTheSamePersonsAsTheMapBasedOne() throws IOException {
+		for (String language : Arrays.asList("en", "sw")) {
+			Locale locale = Locale.forLanguageTag(language);
+			RandomGenerator mapBasedRandom = new RandomGenerator(RandomGenerator.Algorithm.JDK, 7);
+			RandomGenerator compiledRandom = new RandomGenerator(RandomGenerator.Algorithm.JDK, 7);
+			Generator mapBased = Bootstrap.createGenerator(readSeed(language, mapBasedRandom), locale, mapBasedRandom, new TimeProvider(REFERENCE_TIME));
+			Generator compiled = Bootstrap.createGenerator(CompiledDataMaster.compile(readSeed(language, compiledRandom)), locale, compiledRandom,
+					new TimeProvider(REFERENCE_TIME));
+			for (int i = 0; i < 200; i++) {
+				// password and passport number come from an unseeded random
+				assertThat(compiled.person()).usingRecursiveComparison().ignoringFields("password", "passportNumber").isEqualTo(mapBased.person());
+			}
+		}
+	}
+
+	private static MapBasedDataMaster readSeed(String language, RandomGenerator randomGenerator) throws IOException {
+		MapBasedDataMaster dataMaster = new MapBasedDataMaster(new BaseProducer(randomGenerator));
+		dataMaster.readResources("seed.yml");
+		dataMaster.readResources("seed_" + language + ".yml");
+		return dataMaster;
+	}
+
 	@Test
 	public void useCustomDataMasterWhenProvided() {
 		Generator generator = Generator.create(new CustomDataMasterProvider(), Locale.ENGLISH);
@@ -0,0 +1,50 @@
+package org.isf.generator;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import org.isf.generator.producer.person.Person;
+import org.junit.Test;
+
+public class TestParallelGenerator {
+
+	private static final int SEED = 1;
+
+	@Test
+	public void sameSeedGivesSameOutputForAnyThreadCount() {
+		List<Person> expected = generatePersons(1);
+		List<Person> actual = generatePersons(4);
+		assertThat(actual).hasSize(160);
+		for (int i = 0; i < expected.size(); i++) {
+			// password and passport number come from an unseeded random
+			assertThat(actual.get(i)).usingRecursiveComparison().ignoringFields("password", "passportNumber").isEqualTo(expected.get(i));
+		}
+	}
+
+	@Test
+	public void unitsAreConsumedInOrder() {
+		List<Long> units = new ArrayList<>();
+		try (ParallelGenerator parallelGenerator = Generator.builder().withRandomSeed(SEED).withLocale(Locale.CHINA).buildParallel(3)) {
+			parallelGenerator.generate(5, 20, (generator, unit) -> unit, units::add);
+		}
+		assertThat(units).hasSize(20).isSorted().startsWith(5L).endsWith(24L);
+	}
+
+	private List<Person> generatePersons(int threads) {
+		List<Person> persons = new ArrayList<>();
+		try (ParallelGenerator parallelGenerator = Generator.builder().withRandomSeed(SEED).buildParallel(threads)) {
+			parallelGenerator.generate(0, 16, (generator, unit) -> {
+				List<Person> unitPersons = new ArrayList<>();
+				for (int i = 0; i < 10; i++) {
+					unitPersons.add(generator.person());
+				}
+				return unitPersons;
+			}, persons::addAll);
+		}
+		return persons;
+	}
+
+}
@@ -0,0 +1,68 @@
+package org.isf.generator.data;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.Locale;
+
+import org.isf.generator.Generator;
+import org.isf.generator.producer.BaseProducer;
+import org.isf.generator.producer.RandomGenerator;
+import org.junit.Test;
+
+public class TestCompiledDataMaster {
+
+	private static CompiledDataMaster forResources(String language, long seed) {
+		return CompiledDataMaster.forResources("seed", Locale.forLanguageTag(language), new BaseProducer(new RandomGenerator(RandomGenerator.Algorithm.JDK, seed)));
+	}
+
+	@Test
+	public void seedFilesAreParsedOncePerLanguage() {
+		CompiledDataMaster first = forResources("sw", 1);
+		CompiledDataMaster second = forResources("sw", 2);
+		assertThat(second.sharesSeedWith(first)).isTrue();
+		assertThat(forResources("en", 1).sharesSeedWith(first)).isFalse();
+
+		CompiledDataMaster.clearCache();
+		CompiledDataMaster reread = forResources("sw", 1);
+		assertThat(reread.sharesSeedWith(first)).isFalse();
+		assertThat(forResources("sw", 3).sharesSeedWith(reread)).isTrue();
+		assertThat(reread.getStringList("city")).isEqualTo(first.getStringList("city"));
+	}
+
+	@Test
+	public void dataMastersOfASharedSeedPickWithTheirOwnRandom() {
+		CompiledDataMaster first = forResources("sw", 1);
+		CompiledDataMaster same = forResources("sw", 1);
+		CompiledDataMaster other = forResources("sw", 2);
+		StringBuilder firstCities = new StringBuilder();
+		StringBuilder sameCities = new StringBuilder();
+		StringBuilder otherCities = new StringBuilder();
+		for (int i = 0; i < 20; i++) {
+			firstCities.append(first.getRandomValue("city")).append(',');
+			sameCities.append(same.getRandomValue("city")).append(',');
+			otherCities.append(other.getRandomValue("city")).append(',');
+		}
+		assertThat(sameCities.toString()).isEqualTo(firstCities.toString());
+		assertThat(otherCities.toString()).isNotEqualTo(firstCities.toString());
+
+		Generator generator = Generator.builder().withLocale(Locale.forLanguageTag("sw")).withRandomSeed(1).build();
+		Generator otherGenerator = Generator.builder().withLocale(Locale.forLanguageTag("sw")).withRandomSeed(2).build();
+		assertThat(otherGenerator.person().getFullName()).isNotEqualTo(generator.person().getFullName());
+	}
+
+	@Test
+	public void keysAndTypesAreMatchedInAnyCase() {
+		CompiledDataMaster dataMaster = forResources("sw", 1);
+		assertThat(dataMaster.getStringList("CITY")).isEqualTo(dataMaster.getStringList("city"));
+		assertThat(dataMaster.valuesOfType("firstNames", "MALE")).isSameAs(dataMaster.valuesOfType("FIRSTNAMES", "male"));
+		assertThat(dataMaster.getValuesOfType("firstNames", "FEMALE", String.class)).isNotEmpty();
+	}
+
+	@Test
+	public void valuesOfTheWrongClassAreRejected() {
+		CompiledDataMaster dataMaster = forResources("sw", 1);
+		assertThatThrownBy(() -> dataMaster.getValuesOfType("firstNames", "MALE", Integer.class)).isInstanceOf(ClassCastException.class);
+	}
+
+}
@@ -0,0 +1,151 @@
+package org.isf.generator.data;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.isf.generator.producer.person.PersonProperties.fields;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Map;
+
+import org.isf.generator.Bootstrap;
+import org.isf.generator.Generator;
+import org.isf.generator.producer.BaseProducer;
+import org.isf.generator.producer.RandomGenerator;
+import org.isf.generator.producer.person.Person;
+import org.isf.generator.producer.person.PersonBatch;
+import org.isf.generator.producer.person.PersonField;
+import org.isf.generator.producer.util.LanguageCode;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.snakeyaml.engine.v2.api.Load;
+import org.snakeyaml.engine.v2.api.LoadSettings;
+
+public class TestSeedCorpus {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private Path convert(String language) throws IOException {
+		SeedCorpusWriter writer = new SeedCorpusWriter();
+		for (String resource : Arrays.asList("seed.yml", "seed_" + language + ".yml")) {
+			try (InputStream is = getClass().getClassLoader().getResourceAsStream(resource)) {
+				writer.addYaml(is, resource);
+			}
+		}
+		Path corpus = folder.getRoot().toPath().resolve("seed_" + language + ".bin");
+		writer.write(corpus);
+		return corpus;
+	}
+
+	private static Bootstrap.Builder generator(String language, Path corpus) {
+		return Generator.builder().withLocale(Locale.forLanguageTag(language)).withRandomSeed(7)
+				.withReferenceTime(LocalDateTime.of(2021, 6, 30, 0, 0)).withSeedCorpus(corpus);
+	}
+
+	@Test
+	public void convertedSeedFilesGiveTheSamePersons() throws IOException {
+		Path corpus = convert("sw");
+		Generator yaml = generator("sw", null).build();
+		Generator mapped = generator("sw", corpus).build();
+		for (int i = 0; i < 100; i++) {
+			Person expected = yaml.person();
+			Person actual = mapped.person();
+			assertThat(actual.getFirstName()).isEqualTo(expected.getFirstName());
+			assertThat(actual.getLastName()).isEqualTo(expected.getLastName());
+			assertThat(actual.getDateOfBirth()).isEqualTo(expected.getDateOfBirth());
+			assertThat(actual.getAddress().toString()).isEqualTo(expected.getAddress().toString());
+			assertThat(actual.getTelephoneNumber()).isEqualTo(expected.getTelephoneNumber());
+			assertThat(actual.getProfession()).isEqualTo(expected.getProfession());
+			assertThat(actual.getBloodType()).isEqualTo(expected.getBloodType());
+		}
+
+		PersonBatch batch = new PersonBatch(16);
+		generator("sw", corpus).build().persons(batch, 16, Person.Sex.FEMALE, 20, 40);
+		PersonBatch.Cursor cursor = batch.cursor().moveTo(15);
+		assertThat(cursor.getFirstName()).isNotEmpty();
+		assertThat(cursor.getAge()).isBetween(20, 40);
+	}
+
+	@Test
+	public void foldedNamesGiveTheSameEmailsAsFoldingEachPerson() throws IOException {
+		for (String language : Arrays.asList("en", "de", "es", "fr", "it", "ka", "pl", "sv", "sw", "zh")) {
+			Generator yaml = generator(language, null).build();
+			// the mapped seed has no folded names, so every person is folded the usual way
+			Generator mapped = generator(language, convert(language)).build();
+			for (int i = 0; i < 200; i++) {
+				Person expected = mapped.person(fields(PersonField.EMAIL, PersonField.USERNAME, PersonField.COMPANY_EMAIL));
+				Person actual = yaml.person(fields(PersonField.EMAIL, PersonField.USERNAME, PersonField.COMPANY_EMAIL));
+				assertThat(actual.getEmail()).isEqualTo(expected.getEmail());
+				assertThat(actual.getUsername()).isEqualTo(expected.getUsername());
+				assertThat(actual.getCompanyEmail()).isEqualTo(expected.getCompanyEmail());
+				assertThat(actual.getCompany().getDomain()).isEqualTo(expected.getCompany().getDomain());
+			}
+		}
+		CompiledDataMaster compiled = CompiledDataMaster.forResources("seed", Locale.forLanguageTag("zh"), new BaseProducer(new RandomGenerator(RandomGenerator.Algorithm.JDK, 1)));
+		assertThat(compiled.getFoldedNames().size()).isPositive();
+	}
+
+	@Test
+	public void weightedListsArePickedInProportion() throws IOException {
+		Path csv = folder.newFile("streets.csv").toPath();
+		Files.write(csv, Arrays.asList("# street,weight", "Main St.,1", "\"Oak, Elm\",3", "", "Park Rd.,6"), StandardCharsets.UTF_8);
+		Path corpus = folder.getRoot().toPath().resolve("weighted.bin");
+		new SeedCorpusWriter().addYaml(getClass().getClassLoader().getResourceAsStream("seed_en.yml"), "seed_en.yml")
+				.addCsv("Street", null, csv).write(corpus);
+
+		MappedDataMaster dataMaster = new MappedDataMaster(SeedCorpus.open(corpus), new BaseProducer(new RandomGenerator(RandomGenerator.Algorithm.JDK, 1)));
+		assertThat(dataMaster.getLanguage()).isEqualTo(LanguageCode.EN);
+		SeedCorpus.MappedList streets = dataMaster.values("street");
+		assertThat(streets.asList()).containsExactly("Main St.", "Oak, Elm", "Park Rd.");
+		assertThat(streets.weight(1)).isEqualTo(3.0);
+		int[] picks = new int[3];
+		for (int i = 0; i < 10000; i++) {
+			picks[streets.asList().indexOf(dataMaster.getRandomValue("street"))]++;
+		}
+		assertThat(picks[0]).isBetween(800, 1200);
+		assertThat(picks[1]).isBetween(2700, 3300);
+		assertThat(picks[2]).isBetween(5600, 6400);
+		assertThatThrownBy(() -> dataMaster.getRandomValue("noSuchList")).isInstanceOf(IllegalArgumentException.class);
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void weightedYamlEntriesArePickedAlikeByAllDataMasters() throws IOException {
+		String yaml = "language: en\nbloodType: [{ value: O+, weight: 48 }, { value: A+, weight: 26 }, B+, { value: AB-, weight: 0 }]\n"
+				+ "profession:\n  female: [{ value: Nurse, weight: 3 }, Teacher]\n";
+		Map<String, Object> data = (Map<String, Object>) new Load(LoadSettings.builder().build()).loadFromInputStream(new ByteArrayInputStream(yaml.getBytes(StandardCharsets.UTF_8)));
+		MapBasedDataMaster mapBased = new MapBasedDataMaster(new BaseProducer(new RandomGenerator(RandomGenerator.Algorithm.JDK, 5)));
+		mapBased.getDataSource().putAll(data);
+		MapBasedDataMaster source = new MapBasedDataMaster(new BaseProducer(new RandomGenerator(RandomGenerator.Algorithm.JDK, 5)));
+		source.getDataSource().putAll(data);
+		CompiledDataMaster compiled = CompiledDataMaster.compile(source);
+		Path corpus = folder.getRoot().toPath().resolve("weighted-yaml.bin");
+		new SeedCorpusWriter().addYaml(new ByteArrayInputStream(yaml.getBytes(StandardCharsets.UTF_8)), "test").write(corpus);
+		MappedDataMaster mapped = new MappedDataMaster(SeedCorpus.open(corpus), new BaseProducer(new RandomGenerator(RandomGenerator.Algorithm.JDK, 5)));
+
+		assertThat(mapBased.getStringList("bloodType")).containsExactly("O+", "A+", "B+", "AB-");
+		assertThat(mapped.getStringList("bloodType")).containsExactly("O+", "A+", "B+", "AB-");
+		int oPositive = 0;
+		for (int i = 0; i < 1000; i++) {
+			String bloodType = mapBased.getRandomValue("bloodType");
+			assertThat(compiled.getRandomValue("bloodType")).isEqualTo(bloodType);
+			assertThat(mapped.getRandomValue("bloodType")).isEqualTo(bloodType);
+			assertThat(bloodType).isNotEqualTo("AB-");
+			oPositive += bloodType.equals("O+") ? 1 : 0;
+			String profession = mapBased.getValuesOfType("profession", "female", String.class);
+			assertThat(compiled.getValuesOfType("profession", "female", String.class)).isEqualTo(profession);
+			assertThat(mapped.getValuesOfType("profession", "female", String.class)).isEqualTo(profession);
+		}
+		assertThat(oPositive).isBetween(560, 730);
+	}
+
+}
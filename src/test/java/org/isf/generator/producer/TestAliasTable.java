@@ -0,0 +1,47 @@
+package org.isf.generator.producer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.data.Offset.offset;
+
+import org.junit.Test;
+
+public class TestAliasTable {
+
+	@Test
+	public void indexesArePickedInProportionToTheirWeights() {
+		double[] weights = { 50, 0, 30, 15, 5 };
+		AliasTable table = AliasTable.of(weights);
+		BaseProducer baseProducer = new BaseProducer(new RandomGenerator(RandomGenerator.Algorithm.XOROSHIRO, 3));
+		int[] picks = new int[weights.length];
+		for (int i = 0; i < 100_000; i++) {
+			picks[table.sample(baseProducer)]++;
+		}
+		assertThat(picks[1]).isZero();
+		for (int i = 0; i < weights.length; i++) {
+			assertThat(picks[i] / 1000.0).isCloseTo(weights[i], offset(1.0));
+		}
+	}
+
+	@Test
+	public void columnsAddUpToTheWeights() {
+		double[] weights = { 1, 2, 3, 4 };
+		AliasTable table = AliasTable.of(weights);
+		double[] shares = new double[weights.length];
+		for (int column = 0; column < table.size(); column++) {
+			shares[column] += table.probability(column);
+			shares[table.alias(column)] += 1 - table.probability(column);
+		}
+		for (int i = 0; i < weights.length; i++) {
+			assertThat(shares[i]).isCloseTo(weights[i] * weights.length / 10, offset(1e-9));
+		}
+	}
+
+	@Test
+	public void invalidWeightsAreRejected() {
+		assertThatThrownBy(() -> AliasTable.of(new double[0])).isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> AliasTable.of(new double[] { 0, 0 })).isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> AliasTable.of(new double[] { 1, -1 })).isInstanceOf(IllegalArgumentException.class);
+	}
+
+}
@@ -0,0 +1,45 @@
+package org.isf.generator.producer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+import org.junit.Test;
+
+public class TestDateProducer {
+
+	private static final LocalDateTime NOW = LocalDateTime.of(2021, 2, 28, 23, 59, 59, 999_000_000);
+
+	@Test
+	public void epochMillisMatchTheInstantConversions() {
+		LocalDateTime[] times = { NOW, LocalDateTime.of(1969, 12, 31, 23, 59, 59, 1_000_000), LocalDateTime.of(1900, 1, 1, 0, 0) };
+		for (LocalDateTime time : times) {
+			long epochMilli = time.toInstant(ZoneOffset.UTC).toEpochMilli();
+			assertThat(DateProducer.toEpochMilli(time)).isEqualTo(epochMilli);
+			assertThat(DateProducer.ofEpochMilli(epochMilli)).isEqualTo(time);
+		}
+	}
+
+	@Test
+	public void theClockIsFrozenWhenTheTimeProviderIsCreated() throws InterruptedException {
+		TimeProvider timeProvider = new TimeProvider();
+		LocalDateTime currentTime = timeProvider.getCurrentTime();
+		Thread.sleep(5);
+		assertThat(timeProvider.getCurrentTime()).isEqualTo(currentTime);
+		assertThat(timeProvider.getCurrentEpochDay()).isEqualTo(currentTime.toLocalDate().toEpochDay());
+		assertThat(timeProvider.getCurrentEpochMilli()).isEqualTo(DateProducer.toEpochMilli(currentTime));
+	}
+
+	@Test
+	public void datesOfBirthGiveTheAge() {
+		DateProducer dateProducer = new DateProducer(new BaseProducer(new RandomGenerator(RandomGenerator.Algorithm.JDK, 5)), new TimeProvider(NOW));
+		for (int i = 0; i < 10_000; i++) {
+			int age = i % 120;
+			LocalDate dateOfBirth = LocalDate.ofEpochDay(dateProducer.randomEpochDayOfBirth(age));
+			assertThat(dateOfBirth.until(NOW.toLocalDate()).getYears()).isEqualTo(age);
+		}
+	}
+
+}
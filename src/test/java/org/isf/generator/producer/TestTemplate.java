@@ -0,0 +1,72 @@
+package org.isf.generator.producer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.Test;
+
+public class TestTemplate {
+
+	private static RandomGenerator random() {
+		return new RandomGenerator(RandomGenerator.Algorithm.JDK, 5);
+	}
+
+	@Test
+	public void literalsAreKeptAndDigitsAreInRange() {
+		Template template = Template.compile("+255 ###-###-####", '#', '0', '9');
+		RandomGenerator random = random();
+		char[] buffer = new char[template.length()];
+		Set<Character> digits = new HashSet<>();
+		for (int i = 0; i < 1000; i++) {
+			String number = template.fill(random, buffer);
+			assertThat(number).hasSize(17).matches("\\+255 \\d{3}-\\d{3}-\\d{4}");
+			for (char c : number.substring(5).replace("-", "").toCharArray()) {
+				digits.add(c);
+			}
+		}
+		assertThat(digits).hasSize(10);
+	}
+
+	@Test
+	public void twoSymbolsDrawFromTheirOwnRanges() {
+		Template template = Template.compile("??-##-?#", new char[] { '#', '?' }, new char[] { '0', 'a' }, new char[] { '9', 'z' });
+		RandomGenerator random = random();
+		char[] buffer = new char[template.length()];
+		Set<Character> letters = new HashSet<>();
+		for (int i = 0; i < 1000; i++) {
+			String text = template.fill(random, buffer);
+			assertThat(text).matches("[a-z]{2}-\\d{2}-[a-z]\\d");
+			letters.add(text.charAt(0));
+		}
+		assertThat(letters).hasSize(26);
+	}
+
+	@Test
+	public void singleCharacterRangeDrawsNothing() {
+		Template template = Template.compile("A#B#", '#', 'x', 'x');
+		RandomGenerator random = random();
+		assertThat(template.fill(random, new char[template.length()])).isEqualTo("AxBx");
+		assertThat(random.nextInt(1000)).isEqualTo(random().nextInt(1000));
+	}
+
+	@Test
+	public void emptyRangeIsRejected() {
+		assertThatThrownBy(() -> Template.compile("##", '#', '9', '0')).isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> Template.compile("#?", new char[] { '#', '?' }, new char[] { '0', 'z' }, new char[] { '9', 'a' }))
+				.isInstanceOf(IllegalArgumentException.class);
+	}
+
+	@Test
+	public void fillWritesAtTheOffset() {
+		Template template = Template.compile("#-#", '#', '0', '9');
+		char[] buffer = "..........".toCharArray();
+		assertThat(template.fill(random(), buffer, 4)).isEqualTo(3);
+		String text = new String(buffer);
+		assertThat(text).matches("\\.{4}\\d-\\d\\.{3}");
+		assertThat(text.substring(4, 7)).isEqualTo(template.fill(random(), new char[3]));
+	}
+
+}
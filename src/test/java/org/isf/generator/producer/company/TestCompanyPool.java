@@ -0,0 +1,74 @@
+package org.isf.generator.producer.company;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.data.Offset.offset;
+import static org.isf.generator.producer.person.PersonProperties.fields;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.isf.generator.Generator;
+import org.isf.generator.ParallelGenerator;
+import org.isf.generator.producer.BaseProducer;
+import org.isf.generator.producer.RandomGenerator;
+import org.isf.generator.producer.person.PersonField;
+import org.junit.Test;
+
+public class TestCompanyPool {
+
+	@Test
+	public void companiesArePickedByZipfPopularity() {
+		List<Company> companies = new ArrayList<>();
+		for (int i = 0; i < 10; i++) {
+			companies.add(new Company("company" + i, "company" + i + ".com", "info", ""));
+		}
+		CompanyPool pool = CompanyPool.of(companies, 1.0);
+		BaseProducer baseProducer = new BaseProducer(new RandomGenerator(RandomGenerator.Algorithm.XOROSHIRO, 5));
+		Map<Company, Integer> picks = new IdentityHashMap<>();
+		for (int i = 0; i < 100_000; i++) {
+			picks.merge(pool.pick(baseProducer), 1, Integer::sum);
+		}
+		double harmonic = 0;
+		for (int rank = 1; rank <= 10; rank++) {
+			harmonic += 1.0 / rank;
+		}
+		for (int rank = 1; rank <= 10; rank++) {
+			assertThat(picks.get(companies.get(rank - 1)) / 100_000.0).isCloseTo(1 / (rank * harmonic), offset(0.01));
+		}
+	}
+
+	@Test
+	public void personsShareTheEmployersOfThePool() {
+		Generator generator = Generator.builder().withRandomSeed(3).withCompanyPool(5, CompanyPool.DEFAULT_EXPONENT).build();
+		Generator same = Generator.builder().withRandomSeed(3).withCompanyPool(5, CompanyPool.DEFAULT_EXPONENT).build();
+		Set<Company> employers = Collections.newSetFromMap(new IdentityHashMap<>());
+		for (int i = 0; i < 100; i++) {
+			Company employer = generator.person(fields(PersonField.COMPANY)).getCompany();
+			employers.add(employer);
+			assertThat(same.person(fields(PersonField.COMPANY)).getCompany().getName()).isEqualTo(employer.getName());
+		}
+		assertThat(employers).hasSizeBetween(2, 5);
+	}
+
+	@Test
+	public void workersOfAParallelGeneratorShareThePool() {
+		Set<Company> employers = Collections.newSetFromMap(new IdentityHashMap<>());
+		try (ParallelGenerator parallelGenerator = Generator.builder().withRandomSeed(3).withCompanyPool(4, 0).buildParallel(3)) {
+			parallelGenerator.generate(0, 12, (generator, unit) -> generator.person(fields(PersonField.COMPANY)).getCompany(), employers::add);
+		}
+		assertThat(employers).hasSizeBetween(1, 4);
+	}
+
+	@Test
+	public void invalidPoolsAreRejected() {
+		assertThatThrownBy(() -> Generator.builder().withCompanyPool(-1, 1)).isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> CompanyPool.of(Collections.emptyList(), -0.5)).isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> CompanyPool.none().pick(null)).isInstanceOf(IllegalStateException.class);
+	}
+
+}
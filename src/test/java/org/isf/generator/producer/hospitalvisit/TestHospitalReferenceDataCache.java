@@ -0,0 +1,82 @@
+package org.isf.generator.producer.hospitalvisit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+public class TestHospitalReferenceDataCache {
+
+	private static class CountingLoader implements HospitalReferenceDataLoader {
+
+		private final AtomicInteger loads = new AtomicInteger();
+
+		@Override
+		public HospitalReferenceData load() {
+			loads.incrementAndGet();
+			return new HospitalReferenceData(Collections.emptyMap(), Collections.emptyMap(), null, null);
+		}
+
+	}
+
+	@Test
+	public void snapshotIsLoadedOnce() throws Exception {
+		CountingLoader loader = new CountingLoader();
+		HospitalReferenceDataCache cache = new HospitalReferenceDataCache(loader);
+		assertThat(loader.loads).hasValue(0);
+		HospitalReferenceData referenceData = cache.get();
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			List<Future<HospitalReferenceData>> snapshots = new ArrayList<>();
+			for (int i = 0; i < 100; i++) {
+				snapshots.add(executor.submit(cache::get));
+			}
+			for (Future<HospitalReferenceData> snapshot : snapshots) {
+				assertThat(snapshot.get()).isSameAs(referenceData);
+			}
+		} finally {
+			executor.shutdown();
+		}
+		assertThat(loader.loads).hasValue(1);
+	}
+
+	@Test
+	public void refreshAndInvalidateLoadAgain() {
+		CountingLoader loader = new CountingLoader();
+		HospitalReferenceDataCache cache = new HospitalReferenceDataCache(loader);
+		HospitalReferenceData first = cache.get();
+
+		HospitalReferenceData refreshed = cache.refresh();
+		assertThat(loader.loads).hasValue(2);
+		assertThat(refreshed).isNotSameAs(first);
+		assertThat(cache.get()).isSameAs(refreshed);
+
+		cache.invalidate();
+		assertThat(loader.loads).hasValue(2);
+		HospitalReferenceData reloaded = cache.get();
+		assertThat(reloaded).isNotSameAs(refreshed);
+		assertThat(cache.get()).isSameAs(reloaded);
+		assertThat(loader.loads).hasValue(3);
+	}
+
+	@Test
+	public void newLoaderReplacesTheSnapshot() {
+		CountingLoader loader = new CountingLoader();
+		HospitalReferenceDataCache cache = new HospitalReferenceDataCache(loader);
+		cache.get();
+		CountingLoader other = new CountingLoader();
+		cache.setLoader(other);
+		cache.get();
+		cache.get();
+		assertThat(loader.loads).hasValue(1);
+		assertThat(other.loads).hasValue(1);
+	}
+
+}
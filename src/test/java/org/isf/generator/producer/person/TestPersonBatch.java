@@ -0,0 +1,77 @@
+package org.isf.generator.producer.person;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.isf.generator.producer.person.PersonProperties.ageBetween;
+import static org.isf.generator.producer.person.PersonProperties.fields;
+import static org.isf.generator.producer.person.PersonProperties.male;
+
+import java.time.LocalDateTime;
+import java.util.Locale;
+
+import org.isf.generator.Generator;
+import org.junit.Test;
+
+public class TestPersonBatch {
+
+	private static final PersonProperties.PersonProperty BATCH_FIELDS = fields(PersonField.SEX, PersonField.FIRST_NAME, PersonField.LAST_NAME,
+			PersonField.AGE, PersonField.DATE_OF_BIRTH, PersonField.ADDRESS, PersonField.TELEPHONE_NUMBER, PersonField.NAME_OF_MOTHER,
+			PersonField.NAME_OF_FATHER, PersonField.PARENTS_TOGETHER, PersonField.BLOOD_TYPE, PersonField.HAS_INSURANCE, PersonField.MARITAL_STATUS,
+			PersonField.PROFESSION);
+
+	private static Generator generator(String locale) {
+		return Generator.builder().withLocale(Locale.forLanguageTag(locale)).withRandomSeed(7).withReferenceTime(LocalDateTime.of(2021, 6, 30, 0, 0))
+				.build();
+	}
+
+	private static void assertSameAsPersons(String locale, Person.Sex sex) {
+		Generator personGenerator = generator(locale);
+		Generator batchGenerator = generator(locale);
+		PersonBatch batch = new PersonBatch(4);
+		batchGenerator.persons(batch, 50, sex, 5, 60);
+		assertThat(batch.size()).isEqualTo(50);
+
+		PersonBatch.Cursor cursor = batch.cursor();
+		for (int row = 0; row < batch.size(); row++) {
+			Person person = sex == null ? personGenerator.person(ageBetween(5, 60), BATCH_FIELDS)
+					: personGenerator.person(male(), ageBetween(5, 60), BATCH_FIELDS);
+			cursor.moveTo(row);
+			assertThat(cursor.getSex()).isEqualTo(person.getSex());
+			assertThat(cursor.getFirstName()).isEqualTo(person.getFirstName());
+			assertThat(cursor.getLastName()).isEqualTo(person.getLastName());
+			assertThat(cursor.getAge()).isEqualTo(person.getAge());
+			assertThat(cursor.getDateOfBirth()).isEqualTo(person.getDateOfBirth());
+			assertThat(cursor.getTelephoneNumber().toString()).isEqualTo(person.getTelephoneNumber());
+			assertThat(String.valueOf(cursor.getStreetNumber())).isEqualTo(person.getAddress().getStreetNumber());
+			assertThat(cursor.getStreet()).isEqualTo(person.getAddress().getStreet());
+			assertThat(cursor.getCity()).isEqualTo(person.getAddress().getCity());
+			assertThat(cursor.getProfession()).isEqualTo(person.getProfession());
+			assertThat(cursor.getMaritalStatus()).isEqualTo(person.getMartialStatus());
+			assertThat(cursor.getBloodType()).isEqualTo(person.getBloodType());
+			assertThat(cursor.getNameOfMother()).isEqualTo(person.getNameOfMother());
+			assertThat(cursor.getNameOfFather()).isEqualTo(person.getNameOfFather());
+			assertThat(cursor.getParentsTogether()).isEqualTo(person.getParentsTogether());
+			assertThat(cursor.getHasInsurance()).isEqualTo(person.getHasInsurance());
+		}
+	}
+
+	@Test
+	public void batchHoldsTheSamePersonsAsPerson() {
+		assertSameAsPersons("sw", null);
+		assertSameAsPersons("en", Person.Sex.MALE);
+	}
+
+	@Test
+	public void clearedBatchIsReused() {
+		Generator generator = generator("sw");
+		PersonBatch batch = new PersonBatch(8);
+		generator.persons(batch, 8, null, 20, 30);
+		batch.clear();
+		generator.persons(batch, 3, Person.Sex.FEMALE, 20, 30);
+		assertThat(batch.size()).isEqualTo(3);
+		assertThat(batch.capacity()).isEqualTo(8);
+		PersonBatch.Cursor cursor = batch.cursor().moveTo(2);
+		assertThat(cursor.isMale()).isFalse();
+		assertThat(cursor.getAge()).isBetween(20, 30);
+	}
+
+}
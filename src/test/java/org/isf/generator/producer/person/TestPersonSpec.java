@@ -0,0 +1,70 @@
+package org.isf.generator.producer.person;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.isf.generator.producer.person.PersonProperties.ageBetween;
+import static org.isf.generator.producer.person.PersonProperties.fields;
+import static org.isf.generator.producer.person.PersonProperties.male;
+import static org.isf.generator.producer.person.PersonProperties.maxAge;
+import static org.isf.generator.producer.person.PersonProperties.minAge;
+import static org.isf.generator.producer.person.PersonProperties.telephoneFormat;
+import static org.isf.generator.producer.person.PersonProperties.withLastName;
+
+import java.time.LocalDateTime;
+import java.util.Locale;
+
+import org.isf.generator.Generator;
+import org.junit.Test;
+
+public class TestPersonSpec {
+
+	private static Generator generator() {
+		return Generator.builder().withLocale(Locale.forLanguageTag("sw")).withRandomSeed(11).withReferenceTime(LocalDateTime.of(2021, 6, 30, 0, 0))
+				.build();
+	}
+
+	@Test
+	public void specGivesTheSamePersonsAsProperties() {
+		Generator propertyGenerator = generator();
+		Generator specGenerator = generator();
+		PersonSpec spec = PersonSpec.builder().withSex(Person.Sex.MALE).withAgeBetween(18, 40).withFields(PersonField.FIRST_NAME, PersonField.AGE,
+				PersonField.DATE_OF_BIRTH, PersonField.ADDRESS, PersonField.TELEPHONE_NUMBER).build();
+		for (int i = 0; i < 100; i++) {
+			Person expected = propertyGenerator.person(male(), ageBetween(18, 40),
+					fields(PersonField.FIRST_NAME, PersonField.AGE, PersonField.DATE_OF_BIRTH, PersonField.ADDRESS, PersonField.TELEPHONE_NUMBER));
+			assertThat(specGenerator.person(spec)).usingRecursiveComparison().isEqualTo(expected);
+		}
+		// password and passport number come from an unseeded random
+		assertThat(specGenerator.person(PersonSpec.builder().build())).usingRecursiveComparison().ignoringFields("password", "passportNumber")
+				.isEqualTo(propertyGenerator.person());
+	}
+
+	@Test
+	public void nothingIsCarriedOverToTheNextPerson() {
+		Generator generator = generator();
+		Person fixed = generator.person(PersonSpec.builder().withProperties(withLastName("Okello"), telephoneFormat("##")).build());
+		assertThat(fixed.getLastName()).isEqualTo("Okello");
+		assertThat(fixed.getTelephoneNumber()).hasSize(2);
+		for (int i = 0; i < 20; i++) {
+			Person person = generator.person(PersonSpec.builder().withFields(PersonField.LAST_NAME, PersonField.TELEPHONE_NUMBER).build());
+			assertThat(person.getLastName()).isNotEqualTo("Okello");
+			assertThat(person.getTelephoneNumber()).hasSizeGreaterThan(2);
+			assertThat(person.getAddress()).isNull();
+		}
+	}
+
+	@Test
+	public void ageBoundsOnlyApplyToTheirPerson() {
+		Generator generator = generator();
+		for (int i = 0; i < 50; i++) {
+			assertThat(generator.person(minAge(30), maxAge(35)).getAge()).isBetween(30, 35);
+			assertThat(generator.person(maxAge(10)).getAge()).isBetween(PersonProvider.MIN_AGE, 10);
+		}
+	}
+
+	@Test
+	public void invalidAgeRangeIsRejected() {
+		assertThatThrownBy(() -> PersonSpec.builder().withAgeBetween(40, 30)).isInstanceOf(IllegalArgumentException.class);
+	}
+
+}
@@ -0,0 +1,82 @@
+package org.isf.generator.producer.unique;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.isf.generator.producer.person.PersonProperties.fields;
+import static org.isf.generator.producer.person.PersonProperties.telephoneFormat;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import org.isf.generator.Generator;
+import org.isf.generator.producer.person.Person;
+import org.isf.generator.producer.person.PersonBatch;
+import org.isf.generator.producer.person.PersonField;
+import org.isf.generator.producer.person.PersonProperties;
+import org.junit.Test;
+
+public class TestUniqueIdentifiers {
+
+	private static final PersonProperties.PersonProperty TELEPHONE_NUMBER = fields(PersonField.TELEPHONE_NUMBER);
+
+	@Test
+	public void fingerprintSetRejectsDuplicates() {
+		FingerprintSet set = new FingerprintSet(3);
+		assertThat(set.capacity()).isEqualTo(4);
+		assertThat(set.add(FingerprintSet.fingerprint("0712 345 678"))).isTrue();
+		assertThat(set.add(FingerprintSet.fingerprint(new StringBuilder("0712 345 678")))).isFalse();
+		assertThat(set.add(FingerprintSet.fingerprint("0712 345 679".toCharArray(), 0, 12))).isTrue();
+		assertThat(set.contains(FingerprintSet.fingerprint("0712 345 679"))).isTrue();
+		assertThat(set.contains(FingerprintSet.fingerprint("0712 345 670"))).isFalse();
+		assertThat(set.add(2)).isTrue();
+		assertThat(set.add(3)).isTrue();
+		assertThat(set.size()).isEqualTo(4);
+		assertThatThrownBy(() -> set.add(4)).isInstanceOf(IllegalStateException.class);
+	}
+
+	@Test
+	public void telephoneNumbersAreUniqueUntilTheSpaceIsExhausted() {
+		UniqueIdentifiers uniqueIdentifiers = UniqueIdentifiers.of(1000, 32, UniqueIdentifiers.Identifier.TELEPHONE_NUMBER);
+		Generator generator = Generator.builder().withRandomSeed(7).withUniqueIdentifiers(uniqueIdentifiers).build();
+		Set<String> numbers = new HashSet<>();
+		for (int i = 0; i < 60; i++) {
+			Person person = generator.person(telephoneFormat("##"), TELEPHONE_NUMBER);
+			assertThat(numbers.add(person.getTelephoneNumber())).isTrue();
+		}
+		UniqueIdentifiers.Guard guard = uniqueIdentifiers.guard(UniqueIdentifiers.Identifier.TELEPHONE_NUMBER);
+		assertThat(guard.getValues()).isEqualTo(60);
+		assertThat(guard.getCollisions()).isPositive();
+		assertThat(guard.getSaturation()).isBetween(0.3, 0.9);
+		assertThatThrownBy(() -> {
+			for (int i = 0; i < 100; i++) {
+				generator.person(telephoneFormat("##"), TELEPHONE_NUMBER);
+			}
+		}).isInstanceOf(IllegalStateException.class).hasMessageContaining("No unique telephone number");
+	}
+
+	@Test
+	public void mobileNumbersHaveRoomInTheTelephoneSet() {
+		UniqueIdentifiers uniqueIdentifiers = UniqueIdentifiers.of(50, 32, UniqueIdentifiers.Identifier.TELEPHONE_NUMBER);
+		Generator generator = Generator.builder().withRandomSeed(7).withUniqueIdentifiers(uniqueIdentifiers).build();
+		for (int i = 0; i < 50; i++) {
+			generator.person(fields(PersonField.TELEPHONE_NUMBER, PersonField.MOBILE_TELEPHONE_NUMBER));
+		}
+		assertThat(uniqueIdentifiers.guard(UniqueIdentifiers.Identifier.TELEPHONE_NUMBER).getValues()).isEqualTo(100);
+	}
+
+	@Test
+	public void batchTelephoneNumbersShareTheGuard() {
+		UniqueIdentifiers uniqueIdentifiers = UniqueIdentifiers.of(100_000, 32, UniqueIdentifiers.Identifier.TELEPHONE_NUMBER);
+		Generator generator = Generator.builder().withRandomSeed(7).withUniqueIdentifiers(uniqueIdentifiers).build();
+		PersonBatch batch = new PersonBatch(5000);
+		generator.persons(batch, 5000, null, 20, 60);
+		Set<String> numbers = new HashSet<>();
+		PersonBatch.Cursor cursor = batch.cursor();
+		for (int row = 0; row < batch.size(); row++) {
+			assertThat(numbers.add(cursor.moveTo(row).getTelephoneNumber().toString())).isTrue();
+		}
+		assertThat(numbers).doesNotContain(generator.person(TELEPHONE_NUMBER).getTelephoneNumber());
+		assertThat(uniqueIdentifiers.guard(UniqueIdentifiers.Identifier.TELEPHONE_NUMBER).getValues()).isEqualTo(5001);
+	}
+
+}